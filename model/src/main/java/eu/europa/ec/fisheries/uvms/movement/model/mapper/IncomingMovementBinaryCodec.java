@@ -0,0 +1,457 @@
+package eu.europa.ec.fisheries.uvms.movement.model.mapper;
+
+import eu.europa.ec.fisheries.uvms.movement.model.dto.IncomingMovementDto;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Binary format of incoming movements, an alternative to the JSON of CREATE and CREATE_BATCH messages that is smaller
+ * and cheaper to decode. It is sent as a BytesMessage with the JMS property {@link #FORMAT_PROPERTY} set to
+ * {@link #FORMAT_BINARY_V1}, a CREATE message holds one movement.
+ * <p>
+ * Version 1:
+ * <pre>
+ * message  = 'M' 1 count:varint movement*
+ * movement = present:varlong value*       bit n is set when field n is set, values of fields not set are left out
+ * value    = double                       8 bytes, speed, course, longitude, latitude and altitude
+ *          | millis:zigzag varlong        times, milliseconds since the epoch
+ *          | zigzag varint                satellite id and AIS position accuracy
+ *          | string
+ *                                         mobile terminal active and duplicate are only their bit
+ * string   = 0 uuid:16 bytes              a UUID in its canonical lower case form
+ *          | 1 length:varint utf8         literal
+ *          | 2 length:varint utf8         literal, becomes the next entry of the dictionary
+ *          | code:varint                  entry code - 3 of the dictionary
+ * </pre>
+ * The field numbers are the indexes of {@link Field}. The dictionary of every message starts with {@link #DICTIONARY},
+ * the values of the movement type, movement source, activity type, channel type, asset type and plugin type enums.
+ * Other values of the fields that only take a few values are added to the dictionary the first time they are
+ * written, so they are sent once per message.
+ * <p>
+ * Thread safe, the dictionary belongs to the message.
+ */
+public class IncomingMovementBinaryCodec {
+
+    public static final String FORMAT_PROPERTY = "MOVEMENT_FORMAT";
+    public static final String FORMAT_BINARY_V1 = "BINARY_V1";
+
+    private static final byte MAGIC = 'M';
+    private static final byte VERSION = 1;
+
+    private static final int UUID_TAG = 0;
+    private static final int LITERAL_TAG = 1;
+    private static final int ENTRY_TAG = 2;
+    private static final int FIRST_CODE = 3;
+
+    /**
+     * Append only, the codes are part of the format.
+     */
+    static final List<String> DICTIONARY = Collections.unmodifiableList(Arrays.asList(
+            // MovementTypeType
+            "POS", "ENT", "EXI", "MAN",
+            // MovementSourceType
+            "INMARSAT_C", "AIS", "IRIDIUM", "MANUAL", "OTHER", "NAF", "FLUX",
+            // MovementActivityTypeType
+            "COE", "COX", "TRA", "POR", "CAN", "NOT", "AUT", "SUS", "COB", "CAT", "RET", "OBR", "ANC", "DRI", "FIS",
+            "HAU", "PRO", "STE", "TRX", "OTH",
+            // MovementComChannelType
+            "MOBILE_TERMINAL",
+            // AssetType
+            "VESSEL", "AIR", "VEHICLE",
+            // PluginType of exchange
+            "SATELLITE_RECEIVER", "BELGIAN_SALES"));
+
+    private static final Map<String, Integer> DICTIONARY_CODES = new HashMap<>();
+
+    static {
+        for (String entry : DICTIONARY) {
+            DICTIONARY_CODES.put(entry, DICTIONARY_CODES.size());
+        }
+    }
+
+    /**
+     * The fields in the order of the format, the ordinal is the bit in the present mask. Append only.
+     */
+    enum Field {
+        ASSET_HISTORY_ID, ACK_RESPONSE_MESSAGE_ID, DATE_RECEIVED, POSITION_TIME, LES_REPORT_TIME, STATUS,
+        REPORTED_SPEED, REPORTED_COURSE, ASSET_NAME, FLAG_STATE, EXTERNAL_MARKING, MOVEMENT_TYPE, MOVEMENT_SOURCE_TYPE,
+        ASSET_TYPE, ASSET_ID, ASSET_CFR, ASSET_IRCS, ASSET_IMO, ASSET_MMSI, ASSET_GUID, LONGITUDE, LATITUDE, ALTITUDE,
+        ACTIVITY_MESSAGE_TYPE, ACTIVITY_MESSAGE_ID, ACTIVITY_CALLBACK, COM_CHANNEL_TYPE, MOBILE_TERMINAL_GUID,
+        MOBILE_TERMINAL_CONNECT_ID, MOBILE_TERMINAL_SERIAL_NUMBER, MOBILE_TERMINAL_LES, MOBILE_TERMINAL_DNID,
+        MOBILE_TERMINAL_MEMBER_NUMBER, MOBILE_TERMINAL_ACTIVE, SOURCE_SATELLITE_ID, PLUGIN_TYPE, DUPLICATE, UPDATED,
+        UPDATED_BY, AIS_POSITION_ACCURACY;
+
+        private final long bit = 1L << ordinal();
+    }
+
+    private IncomingMovementBinaryCodec() {
+    }
+
+    public static byte[] encode(IncomingMovementDto incomingMovement) {
+        return encode(Collections.singletonList(incomingMovement));
+    }
+
+    public static byte[] encode(List<IncomingMovementDto> incomingMovements) {
+        Encoder encoder = new Encoder(64 + 96 * incomingMovements.size());
+        encoder.writeByte(MAGIC);
+        encoder.writeByte(VERSION);
+        encoder.writeVarLong(incomingMovements.size());
+        for (IncomingMovementDto incomingMovement : incomingMovements) {
+            encoder.write(incomingMovement);
+        }
+        return encoder.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a message of a known version of the format
+     */
+    public static List<IncomingMovementDto> decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.get() != MAGIC) {
+                throw new IllegalArgumentException("Not a binary incoming movement message");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown version " + version + " of the binary incoming movement format");
+            }
+            Decoder decoder = new Decoder(buffer);
+            int count = (int) decoder.readVarLong();
+            // Every movement takes at least one byte, a corrupt count must not allocate a huge list
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid number of movements " + count);
+            }
+            List<IncomingMovementDto> incomingMovements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                incomingMovements.add(decoder.read());
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException(buffer.remaining() + " bytes after the last movement");
+            }
+            return incomingMovements;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Binary incoming movement message is truncated", e);
+        }
+    }
+
+    private static class Encoder {
+
+        private byte[] bytes;
+        private int size;
+        private final Map<String, Integer> dictionary = new HashMap<>(DICTIONARY_CODES);
+
+        private Encoder(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void write(IncomingMovementDto im) {
+            long present = 0;
+            present |= bit(Field.ASSET_HISTORY_ID, im.getAssetHistoryId());
+            present |= bit(Field.ACK_RESPONSE_MESSAGE_ID, im.getAckResponseMessageId());
+            present |= bit(Field.DATE_RECEIVED, im.getDateReceived());
+            present |= bit(Field.POSITION_TIME, im.getPositionTime());
+            present |= bit(Field.LES_REPORT_TIME, im.getLesReportTime());
+            present |= bit(Field.STATUS, im.getStatus());
+            present |= bit(Field.REPORTED_SPEED, im.getReportedSpeed());
+            present |= bit(Field.REPORTED_COURSE, im.getReportedCourse());
+            present |= bit(Field.ASSET_NAME, im.getAssetName());
+            present |= bit(Field.FLAG_STATE, im.getFlagState());
+            present |= bit(Field.EXTERNAL_MARKING, im.getExternalMarking());
+            present |= bit(Field.MOVEMENT_TYPE, im.getMovementType());
+            present |= bit(Field.MOVEMENT_SOURCE_TYPE, im.getMovementSourceType());
+            present |= bit(Field.ASSET_TYPE, im.getAssetType());
+            present |= bit(Field.ASSET_ID, im.getAssetID());
+            present |= bit(Field.ASSET_CFR, im.getAssetCFR());
+            present |= bit(Field.ASSET_IRCS, im.getAssetIRCS());
+            present |= bit(Field.ASSET_IMO, im.getAssetIMO());
+            present |= bit(Field.ASSET_MMSI, im.getAssetMMSI());
+            present |= bit(Field.ASSET_GUID, im.getAssetGuid());
+            present |= bit(Field.LONGITUDE, im.getLongitude());
+            present |= bit(Field.LATITUDE, im.getLatitude());
+            present |= bit(Field.ALTITUDE, im.getAltitude());
+            present |= bit(Field.ACTIVITY_MESSAGE_TYPE, im.getActivityMessageType());
+            present |= bit(Field.ACTIVITY_MESSAGE_ID, im.getActivityMessageId());
+            present |= bit(Field.ACTIVITY_CALLBACK, im.getActivityCallback());
+            present |= bit(Field.COM_CHANNEL_TYPE, im.getComChannelType());
+            present |= bit(Field.MOBILE_TERMINAL_GUID, im.getMobileTerminalGuid());
+            present |= bit(Field.MOBILE_TERMINAL_CONNECT_ID, im.getMobileTerminalConnectId());
+            present |= bit(Field.MOBILE_TERMINAL_SERIAL_NUMBER, im.getMobileTerminalSerialNumber());
+            present |= bit(Field.MOBILE_TERMINAL_LES, im.getMobileTerminalLES());
+            present |= bit(Field.MOBILE_TERMINAL_DNID, im.getMobileTerminalDNID());
+            present |= bit(Field.MOBILE_TERMINAL_MEMBER_NUMBER, im.getMobileTerminalMemberNumber());
+            present |= im.isMobileTerminalActive() ? Field.MOBILE_TERMINAL_ACTIVE.bit : 0;
+            present |= bit(Field.SOURCE_SATELLITE_ID, im.getSourceSatelliteId());
+            present |= bit(Field.PLUGIN_TYPE, im.getPluginType());
+            present |= im.isDuplicate() ? Field.DUPLICATE.bit : 0;
+            present |= bit(Field.UPDATED, im.getUpdated());
+            present |= bit(Field.UPDATED_BY, im.getUpdatedBy());
+            present |= bit(Field.AIS_POSITION_ACCURACY, im.getAisPositionAccuracy());
+            writeVarLong(present);
+
+            writeString(im.getAssetHistoryId(), false);
+            writeString(im.getAckResponseMessageId(), false);
+            writeTime(im.getDateReceived());
+            writeTime(im.getPositionTime());
+            writeTime(im.getLesReportTime());
+            writeString(im.getStatus(), true);
+            writeDouble(im.getReportedSpeed());
+            writeDouble(im.getReportedCourse());
+            writeString(im.getAssetName(), false);
+            writeString(im.getFlagState(), true);
+            writeString(im.getExternalMarking(), false);
+            writeString(im.getMovementType(), true);
+            writeString(im.getMovementSourceType(), true);
+            writeString(im.getAssetType(), true);
+            writeString(im.getAssetID(), false);
+            writeString(im.getAssetCFR(), false);
+            writeString(im.getAssetIRCS(), false);
+            writeString(im.getAssetIMO(), false);
+            writeString(im.getAssetMMSI(), false);
+            writeString(im.getAssetGuid(), false);
+            writeDouble(im.getLongitude());
+            writeDouble(im.getLatitude());
+            writeDouble(im.getAltitude());
+            writeString(im.getActivityMessageType(), true);
+            writeString(im.getActivityMessageId(), false);
+            writeString(im.getActivityCallback(), false);
+            writeString(im.getComChannelType(), true);
+            writeString(im.getMobileTerminalGuid(), false);
+            writeString(im.getMobileTerminalConnectId(), false);
+            writeString(im.getMobileTerminalSerialNumber(), false);
+            writeString(im.getMobileTerminalLES(), true);
+            writeString(im.getMobileTerminalDNID(), false);
+            writeString(im.getMobileTerminalMemberNumber(), false);
+            writeShort(im.getSourceSatelliteId());
+            writeString(im.getPluginType(), true);
+            writeTime(im.getUpdated());
+            writeString(im.getUpdatedBy(), true);
+            writeShort(im.getAisPositionAccuracy());
+        }
+
+        private static long bit(Field field, Object value) {
+            return value != null ? field.bit : 0;
+        }
+
+        private void writeString(String value, boolean fewValues) {
+            if (value == null) {
+                return;
+            }
+            Integer code = dictionary.get(value);
+            if (code != null) {
+                writeVarLong(FIRST_CODE + code);
+                return;
+            }
+            UUID uuid = canonicalUuid(value);
+            if (uuid != null) {
+                writeVarLong(UUID_TAG);
+                writeLong(uuid.getMostSignificantBits());
+                writeLong(uuid.getLeastSignificantBits());
+                return;
+            }
+            if (fewValues) {
+                dictionary.put(value, dictionary.size());
+                writeVarLong(ENTRY_TAG);
+            } else {
+                writeVarLong(LITERAL_TAG);
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        private void writeTime(Instant value) {
+            if (value != null) {
+                writeVarLong(zigZag(value.toEpochMilli()));
+            }
+        }
+
+        private void writeShort(Short value) {
+            if (value != null) {
+                writeVarLong(zigZag(value));
+            }
+        }
+
+        private void writeDouble(Double value) {
+            if (value != null) {
+                writeLong(Double.doubleToRawLongBits(value));
+            }
+        }
+
+        private void writeLong(long value) {
+            ensure(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeByte(byte value) {
+            ensure(1);
+            bytes[size++] = value;
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    private static class Decoder {
+
+        private final ByteBuffer buffer;
+        private final List<String> dictionary = new ArrayList<>(DICTIONARY);
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private IncomingMovementDto read() {
+            long present = readVarLong();
+            IncomingMovementDto im = new IncomingMovementDto();
+            im.setAssetHistoryId(readString(present, Field.ASSET_HISTORY_ID));
+            im.setAckResponseMessageId(readString(present, Field.ACK_RESPONSE_MESSAGE_ID));
+            im.setDateReceived(readTime(present, Field.DATE_RECEIVED));
+            im.setPositionTime(readTime(present, Field.POSITION_TIME));
+            im.setLesReportTime(readTime(present, Field.LES_REPORT_TIME));
+            im.setStatus(readString(present, Field.STATUS));
+            im.setReportedSpeed(readDouble(present, Field.REPORTED_SPEED));
+            im.setReportedCourse(readDouble(present, Field.REPORTED_COURSE));
+            im.setAssetName(readString(present, Field.ASSET_NAME));
+            im.setFlagState(readString(present, Field.FLAG_STATE));
+            im.setExternalMarking(readString(present, Field.EXTERNAL_MARKING));
+            im.setMovementType(readString(present, Field.MOVEMENT_TYPE));
+            im.setMovementSourceType(readString(present, Field.MOVEMENT_SOURCE_TYPE));
+            im.setAssetType(readString(present, Field.ASSET_TYPE));
+            im.setAssetID(readString(present, Field.ASSET_ID));
+            im.setAssetCFR(readString(present, Field.ASSET_CFR));
+            im.setAssetIRCS(readString(present, Field.ASSET_IRCS));
+            im.setAssetIMO(readString(present, Field.ASSET_IMO));
+            im.setAssetMMSI(readString(present, Field.ASSET_MMSI));
+            im.setAssetGuid(readString(present, Field.ASSET_GUID));
+            im.setLongitude(readDouble(present, Field.LONGITUDE));
+            im.setLatitude(readDouble(present, Field.LATITUDE));
+            im.setAltitude(readDouble(present, Field.ALTITUDE));
+            im.setActivityMessageType(readString(present, Field.ACTIVITY_MESSAGE_TYPE));
+            im.setActivityMessageId(readString(present, Field.ACTIVITY_MESSAGE_ID));
+            im.setActivityCallback(readString(present, Field.ACTIVITY_CALLBACK));
+            im.setComChannelType(readString(present, Field.COM_CHANNEL_TYPE));
+            im.setMobileTerminalGuid(readString(present, Field.MOBILE_TERMINAL_GUID));
+            im.setMobileTerminalConnectId(readString(present, Field.MOBILE_TERMINAL_CONNECT_ID));
+            im.setMobileTerminalSerialNumber(readString(present, Field.MOBILE_TERMINAL_SERIAL_NUMBER));
+            im.setMobileTerminalLES(readString(present, Field.MOBILE_TERMINAL_LES));
+            im.setMobileTerminalDNID(readString(present, Field.MOBILE_TERMINAL_DNID));
+            im.setMobileTerminalMemberNumber(readString(present, Field.MOBILE_TERMINAL_MEMBER_NUMBER));
+            im.setMobileTerminalActive((present & Field.MOBILE_TERMINAL_ACTIVE.bit) != 0);
+            im.setSourceSatelliteId(readShort(present, Field.SOURCE_SATELLITE_ID));
+            im.setPluginType(readString(present, Field.PLUGIN_TYPE));
+            im.setDuplicate((present & Field.DUPLICATE.bit) != 0);
+            im.setUpdated(readTime(present, Field.UPDATED));
+            im.setUpdatedBy(readString(present, Field.UPDATED_BY));
+            im.setAisPositionAccuracy(readShort(present, Field.AIS_POSITION_ACCURACY));
+            return im;
+        }
+
+        private String readString(long present, Field field) {
+            if ((present & field.bit) == 0) {
+                return null;
+            }
+            int tag = (int) readVarLong();
+            switch (tag) {
+                case UUID_TAG:
+                    return new UUID(buffer.getLong(), buffer.getLong()).toString();
+                case LITERAL_TAG:
+                    return readUtf8();
+                case ENTRY_TAG:
+                    String entry = readUtf8();
+                    dictionary.add(entry);
+                    return entry;
+                default:
+                    int code = tag - FIRST_CODE;
+                    if (code < 0 || code >= dictionary.size()) {
+                        throw new IllegalArgumentException("Unknown dictionary code " + code + " for " + field);
+                    }
+                    return dictionary.get(code);
+            }
+        }
+
+        private String readUtf8() {
+            int length = (int) readVarLong();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        private Instant readTime(long present, Field field) {
+            return (present & field.bit) != 0 ? Instant.ofEpochMilli(unZigZag(readVarLong())) : null;
+        }
+
+        private Short readShort(long present, Field field) {
+            return (present & field.bit) != 0 ? (short) unZigZag(readVarLong()) : null;
+        }
+
+        private Double readDouble(long present, Field field) {
+            return (present & field.bit) != 0 ? Double.longBitsToDouble(buffer.getLong()) : null;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed variable length number");
+        }
+    }
+
+    private static UUID canonicalUuid(String value) {
+        if (value.length() != 36 || value.charAt(8) != '-' || value.charAt(13) != '-' || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            // Upper case and other forms UUID parses would not come back the same
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -21,19 +21,46 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.transform.stream.StreamSource;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Marshals JAXB objects to XML and back. Safe to call from many threads: there is one JAXBContext per class, and the
+ * marshallers and unmarshallers, which must not be shared, are kept in a small pool per class and reused instead of
+ * being created for every message.
+ */
 public class JAXBMarshaller {
 
     private static final Logger LOG = LoggerFactory.getLogger(JAXBMarshaller.class);
 
-    private static Map<String, JAXBContext> contexts = new HashMap<>();
+    private static final int POOL_SIZE = 16;
+
+    private static final ConcurrentMap<Class<?>, Pool> pools = new ConcurrentHashMap<>();
 
     /**
-     * Marshalls a JAXB Object to a XML String representation
+     * Creates the contexts of the classes and a marshaller and unmarshaller for each, so that the first messages
+     * do not wait for them.
+     */
+    public static void prewarm(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            Pool pool = poolOf(clazz);
+            try {
+                pool.releaseMarshaller(pool.context.createMarshaller());
+                pool.releaseUnmarshaller(pool.context.createUnmarshaller());
+            } catch (JAXBException ex) {
+                throw new RuntimeException("[ Error when creating marshallers for " + clazz.getName() + " ]", ex);
+            }
+        }
+    }
+
+    /**
+     * Marshalls a JAXB Object to a XML String representation, without line breaks and indentation
      *
      * @param <T>
      * @param data
@@ -41,23 +68,29 @@ public class JAXBMarshaller {
      * @throws
      */
     public static <T> String marshallJaxBObjectToString(T data) {
+        return marshallJaxBObjectToString(data, false);
+    }
+
+    /**
+     * Marshalls a JAXB Object to a XML String representation, without line breaks and indentation unless formatted
+     */
+    public static <T> String marshallJaxBObjectToString(T data, boolean formatted) {
+        StringWriter sw = new StringWriter();
+        marshallJaxBObject(data, sw, formatted);
+        return sw.toString();
+    }
+
+    /**
+     * Marshalls a JAXB Object to a writer, without line breaks and indentation unless formatted
+     */
+    public static <T> void marshallJaxBObject(T data, Writer writer, boolean formatted) {
         try {
-            JAXBContext jaxbContext = contexts.get(data.getClass().getName());
-            if (jaxbContext == null) {
-                long before = System.currentTimeMillis();
-                jaxbContext = JAXBContext.newInstance(data.getClass());
-                contexts.put(data.getClass().getName(), jaxbContext);
-                LOG.debug("Stored contexts: {}", contexts.size());
-                LOG.debug("JAXBContext creation time: {}", (System.currentTimeMillis() - before));
-            }
-            Marshaller marshaller = jaxbContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            StringWriter sw = new StringWriter();
-            marshaller.marshal(data, sw);
-            long before = System.currentTimeMillis();
-            String marshalled = sw.toString();
-            LOG.debug("StringWriter time: {}", (System.currentTimeMillis() - before));
-            return marshalled;
+            Pool pool = poolOf(data.getClass());
+            Marshaller marshaller = pool.acquireMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+            marshaller.marshal(data, writer);
+            // Not returned to the pool after an error, its state is unknown
+            pool.releaseMarshaller(marshaller);
         } catch (JAXBException ex) {
             LOG.error("[ Error when marshalling object to string ] {} ", ex.getMessage());
             throw new RuntimeException("[ Error when marshalling Object to String ]", ex);
@@ -76,24 +109,74 @@ public class JAXBMarshaller {
      */
     public static <R> R unmarshallTextMessage(TextMessage textMessage, Class clazz){
         try {
-            JAXBContext jc = contexts.get(clazz.getName());
-            if (jc == null) {
-                long before = System.currentTimeMillis();
-                jc = JAXBContext.newInstance(clazz);
-                contexts.put(clazz.getName(), jc);
-                LOG.debug("Stored contexts: {}", contexts.size());
-                LOG.debug("JAXBContext creation time: {}", (System.currentTimeMillis() - before));
-            }
-            Unmarshaller unmarshaller = jc.createUnmarshaller();
-            StringReader sr = new StringReader(textMessage.getText());
-            StreamSource source = new StreamSource(sr);
+            return unmarshall(new StringReader(textMessage.getText()), clazz);
+        } catch (JMSException ex) {
+            throw new RuntimeException("[Error when unmarshalling response in ResponseMapper ]", ex);
+        }
+    }
+
+    /**
+     * Unmarshalls XML from a reader to the desired Object. The object must be the root object of the XML.
+     */
+    public static <R> R unmarshall(Reader reader, Class clazz) {
+        try {
+            Pool pool = poolOf(clazz);
+            Unmarshaller unmarshaller = pool.acquireUnmarshaller();
             long before = System.currentTimeMillis();
-            R object = (R) unmarshaller.unmarshal(source);
+            R object = (R) unmarshaller.unmarshal(new StreamSource(reader));
             LOG.debug("Unmarshalling time: {}", (System.currentTimeMillis() - before));
+            pool.releaseUnmarshaller(unmarshaller);
             return object;
-        } catch (JMSException | JAXBException ex) {
-            //LOG.error("[ Error when marshalling Text message to object ] {} ", ex.getMessage());
+        } catch (JAXBException ex) {
             throw new RuntimeException("[Error when unmarshalling response in ResponseMapper ]", ex);
         }
     }
+
+    private static Pool poolOf(Class<?> clazz) {
+        Pool pool = pools.get(clazz);
+        if (pool != null) {
+            return pool;
+        }
+        return pools.computeIfAbsent(clazz, c -> {
+            try {
+                long before = System.currentTimeMillis();
+                Pool created = new Pool(JAXBContext.newInstance(c));
+                LOG.debug("Stored contexts: {}", pools.size() + 1);
+                LOG.debug("JAXBContext creation time: {}", (System.currentTimeMillis() - before));
+                return created;
+            } catch (JAXBException ex) {
+                throw new RuntimeException("[ Error when creating JAXBContext for " + c.getName() + " ]", ex);
+            }
+        });
+    }
+
+    private static class Pool {
+
+        private final JAXBContext context;
+        private final BlockingQueue<Marshaller> marshallers = new ArrayBlockingQueue<>(POOL_SIZE);
+        private final BlockingQueue<Unmarshaller> unmarshallers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        private Pool(JAXBContext context) {
+            this.context = context;
+        }
+
+        private Marshaller acquireMarshaller() throws JAXBException {
+            Marshaller marshaller = marshallers.poll();
+            return marshaller != null ? marshaller : context.createMarshaller();
+        }
+
+        private void releaseMarshaller(Marshaller marshaller) {
+            // Dropped when the pool is full
+            marshallers.offer(marshaller);
+        }
+
+        private Unmarshaller acquireUnmarshaller() throws JAXBException {
+            Unmarshaller unmarshaller = unmarshallers.poll();
+            return unmarshaller != null ? unmarshaller : context.createUnmarshaller();
+        }
+
+        private void releaseUnmarshaller(Unmarshaller unmarshaller) {
+            unmarshallers.offer(unmarshaller);
+        }
+    }
 }
@@ -13,6 +13,8 @@ package eu.europa.ec.fisheries.uvms.movement.model.mapper;
 
 import eu.europa.ec.fisheries.schema.movement.module.v1.GetMovementListByQueryResponse;
 import eu.europa.ec.fisheries.schema.movement.module.v1.GetMovementMapByQueryResponse;
+import eu.europa.ec.fisheries.schema.movement.module.v1.ProcessedMovementBatchResponse;
+import eu.europa.ec.fisheries.schema.movement.module.v1.ProcessedMovementRef;
 import eu.europa.ec.fisheries.schema.movement.search.v1.MovementMapResponseType;
 import eu.europa.ec.fisheries.schema.movement.v1.MovementType;
 
@@ -32,4 +34,11 @@ public class MovementModuleResponseMapper {
         response.getMovementMap().addAll(responseList);
         return JAXBMarshaller.marshallJaxBObjectToString(response);
     }
+
+    public static String mapToProcessedMovementBatchResponse(List<ProcessedMovementRef> movementRefs) {
+        ProcessedMovementBatchResponse response = new ProcessedMovementBatchResponse();
+        response.setUsername("");
+        response.getMovementRef().addAll(movementRefs);
+        return JAXBMarshaller.marshallJaxBObjectToString(response);
+    }
 }
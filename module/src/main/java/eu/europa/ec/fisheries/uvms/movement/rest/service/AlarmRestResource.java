@@ -17,6 +17,7 @@ import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.alarm.AlarmReport;
 import eu.europa.ec.fisheries.uvms.movement.service.validation.MovementSanityValidatorBean;
 import eu.europa.ec.fisheries.uvms.movement.service.validation.SanityRule;
+import eu.europa.ec.fisheries.uvms.movement.service.validation.SanityRulePlan;
 import eu.europa.ec.fisheries.uvms.rest.security.RequiresFeature;
 import eu.europa.ec.fisheries.uvms.rest.security.UnionVMSFeature;
 import org.slf4j.Logger;
@@ -25,6 +26,7 @@ import org.slf4j.MDC;
 
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
@@ -46,6 +48,9 @@ public class AlarmRestResource {
     @EJB
     private MovementSanityValidatorBean validationService;
 
+    @Inject
+    private SanityRulePlan sanityRulePlan;
+
     @Context
     private HttpServletRequest request;
 
@@ -139,4 +144,11 @@ public class AlarmRestResource {
                 .collect(Collectors.toList());
         return Response.ok(sanityRuleNames).header("MDC", MDC.get("requestId")).build();
     }
+
+    @GET
+    @Path("/sanityrules/statistics")
+    @RequiresFeature(UnionVMSFeature.viewAlarmsHoldingTable)
+    public Response getSanityRuleStatistics() {
+        return Response.ok(sanityRulePlan.getStatistics()).header("MDC", MDC.get("requestId")).build();
+    }
 }
@@ -0,0 +1,243 @@
+package eu.europa.ec.fisheries.uvms.movement.rest.service;
+
+import eu.europa.ec.fisheries.uvms.movement.service.bean.AssetEnrichmentCache;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.AuditPipeline;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.DuplicateDetector;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestController;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestLaneExecutor;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestStageMetrics;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.PositionCounter;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.PositionReorderBuffer;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.PostPersistLookups;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.ProcessedPositionStore;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AuditPipelineStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BatchSenderStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.CacheStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.DuplicateCheckStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.IngestControllerState;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.IngestLaneStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.PositionCountStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.PostPersistLookupStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.ProcessedPositionStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.ReorderBufferStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.message.ExchangeAckBatchSender;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementRulesBatchSender;
+import eu.europa.ec.fisheries.uvms.rest.security.RequiresFeature;
+import eu.europa.ec.fisheries.uvms.rest.security.UnionVMSFeature;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import java.util.List;
+
+@Path("/internal/metrics")
+@Stateless
+@Consumes(value = {MediaType.APPLICATION_JSON})
+@Produces(value = {MediaType.APPLICATION_JSON})
+public class IngestMetricsRestResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IngestMetricsRestResource.class);
+
+    @Inject
+    private IngestLaneExecutor laneExecutor;
+
+    @Inject
+    private AssetEnrichmentCache enrichmentCache;
+
+    @Inject
+    private DuplicateDetector duplicateDetector;
+
+    @Inject
+    private PositionCounter positionCounter;
+
+    @Inject
+    private PositionReorderBuffer reorderBuffer;
+
+    @Inject
+    private MovementRulesBatchSender rulesBatchSender;
+
+    @Inject
+    private AuditPipeline auditPipeline;
+
+    @Inject
+    private ExchangeAckBatchSender ackBatchSender;
+
+    @Inject
+    private IngestController ingestController;
+
+    @Inject
+    private IngestStageMetrics stageMetrics;
+
+    @Inject
+    private PostPersistLookups postPersistLookups;
+
+    @Inject
+    private ProcessedPositionStore processedPositions;
+
+    @GET
+    @Path("/lanes")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getLaneStatistics() {
+        try {
+            List<IngestLaneStatistics> statistics = laneExecutor.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting ingest lane statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/enrichmentCache")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getEnrichmentCacheStatistics() {
+        try {
+            CacheStatistics statistics = enrichmentCache.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting enrichment cache statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/duplicates")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getDuplicateCheckStatistics() {
+        try {
+            DuplicateCheckStatistics statistics = duplicateDetector.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting duplicate check statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/positionCounts")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getPositionCountStatistics() {
+        try {
+            PositionCountStatistics statistics = positionCounter.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting position count statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/reorderBuffer")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getReorderBufferStatistics() {
+        try {
+            ReorderBufferStatistics statistics = reorderBuffer.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting reorder buffer statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/rulesBatch")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getRulesBatchStatistics() {
+        try {
+            BatchSenderStatistics statistics = rulesBatchSender.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting MovementRules batch statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/exchangeAckBatch")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getExchangeAckBatchStatistics() {
+        try {
+            BatchSenderStatistics statistics = ackBatchSender.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting Exchange ack batch statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/audit")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getAuditPipelineStatistics() {
+        try {
+            AuditPipelineStatistics statistics = auditPipeline.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting audit pipeline statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/ingestController")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getIngestControllerState() {
+        try {
+            IngestControllerState state = ingestController.getState();
+            return Response.ok(state).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting ingest controller state. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/stages")
+    @Produces(MediaType.TEXT_PLAIN)
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getStageLatencies() {
+        try {
+            String scrape = stageMetrics.scrape();
+            return Response.ok(scrape, IngestStageMetrics.CONTENT_TYPE).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting ingest stage latencies. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/postPersist")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getPostPersistLookupStatistics() {
+        try {
+            PostPersistLookupStatistics statistics = postPersistLookups.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting post persist lookup statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/processedPositions")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getProcessedPositionStatistics() {
+        try {
+            ProcessedPositionStatistics statistics = processedPositions.getStatistics();
+            return Response.ok(statistics).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting processed position statistics. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+}
@@ -8,9 +8,16 @@ import eu.europa.ec.fisheries.uvms.commons.date.DateUtils;
 import eu.europa.ec.fisheries.uvms.movement.model.GetMovementListByQueryResponse;
 import eu.europa.ec.fisheries.uvms.movement.model.dto.MovementsForConnectIdsBetweenDatesRequest;
 import eu.europa.ec.fisheries.uvms.movement.model.dto.MovementDto;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementBackfillBean;
 import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementService;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.PositionCounter;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.TrackRebuildJob;
 import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BackfillReport;
 import eu.europa.ec.fisheries.uvms.movement.service.dto.CursorPagination;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildProgress;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildRequest;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.MovementEntityToModelMapper;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.MovementMapper;
@@ -47,6 +54,15 @@ public class InternalRestResource {
     @Inject
     private MovementDao movementDao;
 
+    @Inject
+    private PositionCounter positionCounter;
+
+    @Inject
+    private MovementBackfillBean movementBackfill;
+
+    @Inject
+    private TrackRebuildJob trackRebuildJob;
+
     private Jsonb jsonb;    //since for some reason jackson is used to serialize stuff if we use the framework
 
     @PostConstruct
@@ -128,7 +144,7 @@ public class InternalRestResource {
         try {
             Instant afterInstant = DateUtils.stringToDate(after);
             Instant yesterday = afterInstant.minusSeconds(60L * 60L * 24L); // 1 day in seconds
-            long count = movementDao.countNrOfMovementsForAssetBetween(UUID.fromString(id),yesterday, afterInstant);
+            long count = positionCounter.count(UUID.fromString(id), yesterday, afterInstant);
             return Response.ok().entity(count).type(MediaType.APPLICATION_JSON)
                     .header("MDC", MDC.get("requestId")).build();
         } catch (Exception e) {
@@ -221,6 +237,66 @@ public class InternalRestResource {
         }
     }
     
+    /**
+     * Imports historical positions, given as a JSON list of IncomingMovement, without the side effects of live
+     * positions.
+     */
+    @POST
+    @Path("/backfill")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response backfill(String incomingMovements) {
+        try {
+            List<IncomingMovement> movements = jsonb.fromJson(incomingMovements, new ArrayList<IncomingMovement>(){}.getClass().getGenericSuperclass());
+            BackfillReport report = movementBackfill.backfill(movements);
+            return Response.ok(report).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when backfilling movements. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @POST
+    @Path("/tracks/rebuild")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response rebuildTracks(TrackRebuildRequest request) {
+        try {
+            TrackRebuildProgress progress = trackRebuildJob.start(request);
+            return Response.ok(progress).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when starting track rebuild. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/tracks/rebuild")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getTrackRebuilds() {
+        try {
+            List<TrackRebuildProgress> jobs = trackRebuildJob.getJobs();
+            return Response.ok(jobs).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting track rebuilds. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
+    @GET
+    @Path("/tracks/rebuild/{jobId}")
+    @RequiresFeature(UnionVMSFeature.manageInternalRest)
+    public Response getTrackRebuild(@PathParam("jobId") UUID jobId) {
+        try {
+            TrackRebuildProgress progress = trackRebuildJob.getProgress(jobId);
+            if (progress == null) {
+                return Response.status(Status.NOT_FOUND).header("MDC", MDC.get("requestId")).build();
+            }
+            return Response.ok(progress).header("MDC", MDC.get("requestId")).build();
+        } catch (Exception e) {
+            LOG.error("[ Error when getting track rebuild. ]", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).entity(ExceptionUtils.getRootCause(e)).build();
+        }
+    }
+
     @POST
     @Path("/list/cursor")
     @RequiresFeature(UnionVMSFeature.manageInternalRest)
@@ -0,0 +1,87 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetEnrichmentKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.CacheStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.util.TtlLruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches asset and mobile terminal enrichment responses per transponder. Only responses that resolved to an asset
+ * are cached, entries expire after a configurable time and are dropped when the asset module reports a change.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class AssetEnrichmentCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssetEnrichmentCache.class);
+
+    private static final long DEFAULT_TTL_SECONDS = 600;
+    private static final int DEFAULT_SIZE = 50000;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    private TtlLruCache<AssetEnrichmentKey, AssetMTEnrichmentResponse> cache;
+
+    @PostConstruct
+    public void init() {
+        long ttl = parameterHelper.getLongValue(ParameterKey.ENRICHMENT_CACHE_TTL, DEFAULT_TTL_SECONDS);
+        int size = parameterHelper.getIntValue(ParameterKey.ENRICHMENT_CACHE_SIZE, DEFAULT_SIZE);
+        if (ttl <= 0 || size <= 0) {
+            LOG.info("Asset enrichment cache is disabled");
+            return;
+        }
+        cache = new TtlLruCache<>(size, ttl, TimeUnit.SECONDS);
+        LOG.info("Asset enrichment cache with {} entries and {} s time to live", size, ttl);
+    }
+
+    public AssetMTEnrichmentResponse get(AssetEnrichmentKey key) {
+        if (cache == null || !key.hasIdentifier()) {
+            return null;
+        }
+        return cache.get(key);
+    }
+
+    public void put(AssetEnrichmentKey key, AssetMTEnrichmentResponse response) {
+        if (cache == null || !key.hasIdentifier() || response == null || response.getAssetUUID() == null) {
+            return;
+        }
+        cache.put(key, response);
+    }
+
+    /**
+     * Drops every entry that resolved to one of the given asset, asset history or mobile terminal ids.
+     */
+    public int invalidate(Collection<String> ids) {
+        if (cache == null || ids.isEmpty()) {
+            return 0;
+        }
+        int removed = cache.invalidateIf(response -> ids.contains(response.getAssetUUID())
+                || ids.contains(response.getAssetHistoryId())
+                || ids.contains(response.getMobileTerminalGuid())
+                || ids.contains(response.getMobileTerminalConnectId()));
+        LOG.debug("Invalidated {} asset enrichment cache entries for {}", removed, ids);
+        return removed;
+    }
+
+    public int invalidateAll() {
+        return cache == null ? 0 : cache.invalidateAll();
+    }
+
+    public CacheStatistics getStatistics() {
+        return cache == null ? new CacheStatistics() : cache.getStatistics();
+    }
+}
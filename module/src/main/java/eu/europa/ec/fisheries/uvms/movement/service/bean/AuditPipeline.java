@@ -0,0 +1,222 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AuditPipelineStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSContext;
+import javax.jms.JMSProducer;
+import javax.jms.JMSRuntimeException;
+import javax.jms.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends audit messages from a bounded queue on one thread, many messages per commit of a transacted JMS session,
+ * instead of one asynchronous EJB invocation and one send per message.
+ * <p>
+ * The audit messages are built by the pipeline thread. When the queue is full the caller waits a short while and the
+ * record is dropped if there is still no room, so a slow audit queue does not hold up the processing of positions.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class AuditPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuditPipeline.class);
+
+    private static final int BATCH_SIZE = 200;
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 50;
+    private static final long POLL_MILLIS = 1000;
+
+    @Resource(mappedName = "java:/ConnectionFactory")
+    private ConnectionFactory connectionFactory;
+
+    @Resource(mappedName = "java:/jms/queue/UVMSMovement")
+    private Queue replyToQueue;
+
+    @Resource(mappedName = "java:/" + MessageConstants.QUEUE_AUDIT_EVENT)
+    private Queue destination;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    private int capacity;
+    private long maxWaitMillis;
+    private BlockingQueue<AuditRecord> queue;
+    private Thread sender;
+    private volatile boolean running;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder backpressureWaits = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        capacity = parameterHelper.getIntValue(ParameterKey.AUDIT_QUEUE_CAPACITY, 0);
+        if (capacity <= 0) {
+            LOG.info("Audit messages are sent one by one");
+            return;
+        }
+        maxWaitMillis = parameterHelper.getLongValue(ParameterKey.AUDIT_QUEUE_MAX_WAIT_MILLIS, DEFAULT_MAX_WAIT_MILLIS);
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        sender = threadFactory.newThread(this::drain);
+        sender.setName("audit-pipeline");
+        sender.start();
+        LOG.info("Sending audit messages from a queue of {} in batches of up to {}", capacity, BATCH_SIZE);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender == null) {
+            return;
+        }
+        running = false;
+        sender.interrupt();
+        try {
+            sender.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            LOG.warn("{} audit messages were not sent before shutdown", queue.size());
+        }
+        sender = null;
+        queue = null;
+    }
+
+    public boolean isEnabled() {
+        return queue != null;
+    }
+
+    /**
+     * Queues an audit message, waiting a short while if the queue is full.
+     *
+     * @return false if the message was dropped
+     */
+    public boolean offer(String description, Supplier<String> message) {
+        AuditRecord record = new AuditRecord(description, message);
+        if (queue.offer(record)) {
+            enqueued.increment();
+            return true;
+        }
+        backpressureWaits.increment();
+        try {
+            if (queue.offer(record, maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                enqueued.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        LOG.warn("Audit queue is full, dropped audit message for {}", description);
+        return false;
+    }
+
+    public AuditPipelineStatistics getStatistics() {
+        AuditPipelineStatistics statistics = new AuditPipelineStatistics();
+        statistics.setCapacity(Math.max(0, capacity));
+        statistics.setQueued(queue != null ? queue.size() : 0);
+        statistics.setEnqueued(enqueued.sum());
+        statistics.setSent(sent.sum());
+        statistics.setBatches(batches.sum());
+        statistics.setFailed(failed.sum());
+        statistics.setDropped(dropped.sum());
+        statistics.setBackpressureWaits(backpressureWaits.sum());
+        return statistics;
+    }
+
+    private void drain() {
+        List<AuditRecord> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try (JMSContext context = connectionFactory.createContext(JMSContext.SESSION_TRANSACTED)) {
+                JMSProducer producer = context.createProducer().setJMSReplyTo(replyToQueue);
+                while (running || !queue.isEmpty()) {
+                    AuditRecord first = running ? queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    send(context, producer, batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Shutting down, running is false and what is left is sent without waiting
+            } catch (JMSRuntimeException e) {
+                if (!running) {
+                    LOG.error("Could not connect to the audit queue, {} audit messages are not sent", queue.size(), e);
+                    return;
+                }
+                LOG.error("Could not connect to the audit queue, retrying", e);
+                pause();
+            }
+        }
+    }
+
+    private void send(JMSContext context, JMSProducer producer, List<AuditRecord> batch) {
+        try {
+            for (AuditRecord record : batch) {
+                producer.send(destination, record.message.get());
+            }
+            context.commit();
+            sent.add(batch.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            LOG.error("Failed to send {} audit log messages, the first for {}", batch.size(), batch.get(0).description, e);
+            try {
+                context.rollback();
+            } catch (JMSRuntimeException rollbackFailure) {
+                LOG.warn("Could not roll back audit messages", rollbackFailure);
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            // Shutting down
+        }
+    }
+
+    private static class AuditRecord {
+
+        private final String description;
+        private final Supplier<String> message;
+
+        private AuditRecord(String description, Supplier<String> message) {
+            this.description = description;
+            this.message = message;
+        }
+    }
+}
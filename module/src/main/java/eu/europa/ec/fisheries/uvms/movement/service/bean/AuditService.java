@@ -21,10 +21,14 @@ import eu.europa.ec.fisheries.uvms.movement.service.message.AuditProducer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Resource;
 import javax.ejb.Asynchronous;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.jms.JMSException;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 @Stateless
 public class AuditService {
@@ -34,49 +38,55 @@ public class AuditService {
     @Inject
     private AuditProducer producer;
 
-    @Asynchronous
+    @Inject
+    private AuditPipeline auditPipeline;
+
+    @Resource
+    private SessionContext sessionContext;
+
     public void sendMovementCreatedAudit(Movement movement, String username) {
-        try {
-            String auditData;
-            if (MovementTypeType.MAN.equals(movement.getMovementType())) {
-                auditData = AuditModuleRequestMapper.mapAuditLogManualMovementCreated(movement.getId(), username);
-            } else {
-                auditData = AuditModuleRequestMapper.mapAuditLogMovementCreated(movement.getId(), username);
-            }
-            producer.sendModuleMessage(auditData);
-        } catch (JMSException e) {
-            LOG.error("Failed to send audit log message! Movement with guid {} was created ", movement.getId(), e);
+        UUID guid = movement.getId();
+        if (MovementTypeType.MAN.equals(movement.getMovementType())) {
+            send("Manual movement with guid " + guid + " was created",
+                    () -> AuditModuleRequestMapper.mapAuditLogManualMovementCreated(guid, username));
+        } else {
+            send("Movement with guid " + guid + " was created",
+                    () -> AuditModuleRequestMapper.mapAuditLogMovementCreated(guid, username));
         }
     }
 
-    @Asynchronous
     public void sendMovementBatchCreatedAudit(String guid, String username) {
-        try {
-            String auditData = AuditModuleRequestMapper.mapAuditLogMovementBatchCreated(guid, username);
-            producer.sendModuleMessage(auditData);
-        } catch (JMSException e) {
-            LOG.error("Failed to send audit log message! Movement batch with guid {} was created ", guid, e);
-        }
+        send("Movement batch with guid " + guid + " was created",
+                () -> AuditModuleRequestMapper.mapAuditLogMovementBatchCreated(guid, username));
     }
 
-    @Asynchronous
     public void sendManualMovementCreatedAudit(String draftMovement, String username) {
-        try {
-            String auditRequest = AuditModuleRequestMapper.mapAuditLogTempMovementCreated(draftMovement,
-                    username);
-            producer.sendModuleMessage(auditRequest);
-        } catch (JMSException e) {
-            LOG.error("Failed to send audit log message! DraftMovement with guid {} was created ", draftMovement, e);
+        send("DraftMovement with guid " + draftMovement + " was created",
+                () -> AuditModuleRequestMapper.mapAuditLogTempMovementCreated(draftMovement, username));
+    }
+
+    public void sendAuditMessage(AuditObjectTypeEnum type, AuditOperationEnum operation, String affectedObject, String comment, String username) {
+        send(type.getValue() + " " + operation.getValue() + " of " + affectedObject,
+                () -> AuditLogModelMapper.mapToAuditLog(type.getValue(), operation.getValue(), affectedObject, comment, username));
+    }
+
+    /**
+     * Sends the audit message through the audit pipeline when it is enabled, otherwise asynchronously one by one.
+     */
+    private void send(String description, Supplier<String> auditData) {
+        if (auditPipeline.isEnabled()) {
+            auditPipeline.offer(description, auditData);
+        } else {
+            sessionContext.getBusinessObject(AuditService.class).sendAsync(description, auditData);
         }
     }
 
     @Asynchronous
-    public void sendAuditMessage(AuditObjectTypeEnum type, AuditOperationEnum operation, String affectedObject, String comment, String username) {
+    public void sendAsync(String description, Supplier<String> auditData) {
         try {
-            String message = AuditLogModelMapper.mapToAuditLog(type.getValue(), operation.getValue(), affectedObject, comment, username);
-            producer.sendModuleMessage(message);
+            producer.sendModuleMessage(auditData.get());
         } catch (JMSException e) {
-            LOG.error("[ERROR] Error when sending message to Audit. ] {}", e.getMessage());
+            LOG.error("Failed to send audit log message! {}", description, e);
         }
     }
 
@@ -0,0 +1,309 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
+import eu.europa.ec.fisheries.schema.movement.v1.MovementTypeType;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.DuplicateCheckStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementTimestamp;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.util.BloomFilter;
+import eu.europa.ec.fisheries.uvms.movement.service.util.TimestampRing;
+import eu.europa.ec.fisheries.uvms.movement.service.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers most duplicate checks for incoming positions without a database query.
+ * <p>
+ * Every stored position is added to a Bloom filter keyed on asset and epoch second. The filter is loaded from the
+ * positions of the last days at startup and rebuilt every night, positions older than what the filter covers always
+ * go to the database. Per asset the most recent timestamps are also kept exactly, with movement type and source, so
+ * that the common exact repeat from overlapping AIS receivers can be marked as duplicate directly.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class DuplicateDetector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DuplicateDetector.class);
+
+    private static final int DEFAULT_HORIZON_DAYS = 7;
+    private static final long DEFAULT_EXPECTED_POSITIONS = 10_000_000;
+    private static final int DEFAULT_RING_SIZE = 16;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final int ASSETS_PER_QUERY = 100;
+
+    private static final String PENDING_POSITIONS = DuplicateDetector.class.getName() + ".pending";
+
+    public enum Verdict {
+        /** No stored position has this timestamp */
+        NOT_DUPLICATE,
+        /** A stored position has this timestamp, movement type and a source that makes the new one a duplicate */
+        DUPLICATE,
+        /** Has to be checked against the database */
+        UNKNOWN
+    }
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @Resource
+    private TimerService timerService;
+
+    private final Map<UUID, TimestampRing> rings = new ConcurrentHashMap<>();
+    /** Assets whose positions were moved in the database, with when, the filter does not know it until a rebuild */
+    private final Map<UUID, Instant> evicted = new ConcurrentHashMap<>();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder notDuplicate = new LongAdder();
+    private final LongAdder duplicate = new LongAdder();
+    private final LongAdder databaseFallbacks = new LongAdder();
+
+    private int horizonDays;
+    private long expectedPositions;
+    private int ringSize;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+    private volatile Instant coveredFrom;
+
+    @PostConstruct
+    public void init() {
+        horizonDays = parameterHelper.getIntValue(ParameterKey.DUPLICATE_HORIZON_DAYS, DEFAULT_HORIZON_DAYS);
+        expectedPositions = parameterHelper.getLongValue(ParameterKey.DUPLICATE_EXPECTED_POSITIONS, DEFAULT_EXPECTED_POSITIONS);
+        ringSize = parameterHelper.getIntValue(ParameterKey.DUPLICATE_RING_SIZE, DEFAULT_RING_SIZE);
+        if (horizonDays <= 0 || ringSize <= 0) {
+            LOG.info("In memory duplicate check is disabled");
+            return;
+        }
+        // Loading can take a while on a big database, do not hold up the deployment
+        timerService.createSingleActionTimer(1000, new TimerConfig(null, false));
+    }
+
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void initialLoad() {
+        rebuild();
+    }
+
+    @Schedule(hour = "3", minute = "30", persistent = false)
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void nightlyRebuild() {
+        if (filter != null) {
+            rebuild();
+        }
+    }
+
+    public Verdict check(UUID assetId, Instant positionTime, String movementType, String source) {
+        checks.increment();
+        Set<String> pending = pendingPositions(false);
+        if (pending != null && pending.contains(pendingKey(assetId, positionTime))) {
+            // Stored by the current transaction, only the database knows about it yet
+            databaseFallbacks.increment();
+            return Verdict.UNKNOWN;
+        }
+        TimestampRing ring = rings.get(assetId);
+        if (ring != null) {
+            int value = ring.get(toMicros(positionTime));
+            if (value != TimestampRing.NOT_FOUND) {
+                if (isDuplicate(value, movementType, source)) {
+                    duplicate.increment();
+                    return Verdict.DUPLICATE;
+                }
+                databaseFallbacks.increment();
+                return Verdict.UNKNOWN;
+            }
+        }
+        Instant from = coveredFrom;
+        BloomFilter current = filter;
+        if (from != null && current != null && !positionTime.isBefore(from) && !evicted.containsKey(assetId)
+                && !current.mightContain(assetId.getMostSignificantBits(), assetId.getLeastSignificantBits(), positionTime.getEpochSecond())) {
+            notDuplicate.increment();
+            return Verdict.NOT_DUPLICATE;
+        }
+        databaseFallbacks.increment();
+        return Verdict.UNKNOWN;
+    }
+
+    /**
+     * Remembers the position once the current transaction commits.
+     */
+    public void record(Movement movement) {
+        if (ringSize <= 0 || movement.getTimestamp() == null) {
+            return;
+        }
+        UUID assetId = movement.getMovementConnect().getId();
+        Instant timestamp = movement.getTimestamp();
+        short value = encode(movement.getMovementType(), movement.getSource());
+        Set<String> pending = pendingPositions(true);
+        if (pending != null) {
+            pending.add(pendingKey(assetId, timestamp));
+        }
+        TransactionCallbacks.afterCommit(transactionRegistry, () -> add(assetId, timestamp, value));
+    }
+
+    /**
+     * Like {@link #record(Movement)} for a stored position whose timestamp was changed.
+     */
+    public void recordMoved(Movement movement, Instant previousTimestamp) {
+        if (ringSize <= 0) {
+            return;
+        }
+        UUID assetId = movement.getMovementConnect().getId();
+        TransactionCallbacks.afterCommit(transactionRegistry, () -> {
+            TimestampRing ring = rings.get(assetId);
+            if (ring != null) {
+                ring.remove(toMicros(previousTimestamp));
+            }
+        });
+        record(movement);
+    }
+
+    /**
+     * Forgets the timestamps of an asset whose positions are moved to or from another asset in the database. Until
+     * the next rebuild, timestamps of the asset that are not in its ring are checked against the database, the
+     * filter cannot drop the moved positions or know the ones moved in.
+     */
+    public void evict(UUID assetId) {
+        evicted.put(assetId, Instant.now());
+        rings.remove(assetId);
+        // Again once the move is visible, a rebuild that read the asset before must not clear it
+        TransactionCallbacks.afterCompletion(transactionRegistry, status -> {
+            evicted.put(assetId, Instant.now());
+            rings.remove(assetId);
+        });
+    }
+
+    public DuplicateCheckStatistics getStatistics() {
+        DuplicateCheckStatistics statistics = new DuplicateCheckStatistics();
+        BloomFilter current = filter;
+        statistics.setCoveredFrom(coveredFrom);
+        statistics.setTrackedAssets(rings.size());
+        statistics.setFilterEntries(current == null ? 0 : current.getAdded());
+        statistics.setFilterBits(current == null ? 0 : current.getBitSize());
+        statistics.setChecks(checks.sum());
+        statistics.setNotDuplicate(notDuplicate.sum());
+        statistics.setDuplicate(duplicate.sum());
+        statistics.setDatabaseFallbacks(databaseFallbacks.sum());
+        return statistics;
+    }
+
+    private void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            Instant started = Instant.now();
+            Instant from = Instant.now().minus(horizonDays, ChronoUnit.DAYS);
+            // Positions stored while loading go to the new filter as well
+            rebuilding = new BloomFilter(expectedPositions, FALSE_POSITIVE_PROBABILITY);
+            List<UUID> assetIds = movementDao.getMovementConnectIds();
+            long loaded = 0;
+            for (int i = 0; i < assetIds.size(); i += ASSETS_PER_QUERY) {
+                List<UUID> chunk = assetIds.subList(i, Math.min(i + ASSETS_PER_QUERY, assetIds.size()));
+                for (MovementTimestamp row : movementDao.getMovementTimestampsForAssetsSince(chunk, from)) {
+                    rebuilding.put(row.getAssetId().getMostSignificantBits(), row.getAssetId().getLeastSignificantBits(), row.getTimestamp().getEpochSecond());
+                    ring(row.getAssetId()).add(toMicros(row.getTimestamp()), encode(row.getMovementType(), row.getSource()));
+                    loaded++;
+                }
+            }
+            filter = rebuilding;
+            coveredFrom = from;
+            rebuilding = null;
+            evicted.values().removeIf(evictedAt -> evictedAt.isBefore(started));
+            LOG.info("Duplicate check covers {} positions of {} assets since {}, loaded in {} ms",
+                    loaded, assetIds.size(), from, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            rebuilding = null;
+            LOG.error("Could not load positions for the in memory duplicate check, all checks go to the database", e);
+        }
+    }
+
+    private void add(UUID assetId, Instant timestamp, short value) {
+        long hi = assetId.getMostSignificantBits();
+        long lo = assetId.getLeastSignificantBits();
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(hi, lo, timestamp.getEpochSecond());
+        }
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(hi, lo, timestamp.getEpochSecond());
+        }
+        ring(assetId).add(toMicros(timestamp), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> pendingPositions(boolean create) {
+        if (transactionRegistry.getTransactionKey() == null) {
+            return null;
+        }
+        Set<String> pending = (Set<String>) transactionRegistry.getResource(PENDING_POSITIONS);
+        if (pending == null && create) {
+            pending = new HashSet<>();
+            transactionRegistry.putResource(PENDING_POSITIONS, pending);
+        }
+        return pending;
+    }
+
+    private static String pendingKey(UUID assetId, Instant timestamp) {
+        return assetId + "|" + timestamp.getEpochSecond();
+    }
+
+    private TimestampRing ring(UUID assetId) {
+        return rings.computeIfAbsent(assetId, id -> new TimestampRing(ringSize));
+    }
+
+    private static boolean isDuplicate(int value, String movementType, String source) {
+        int typeOrdinal = (value >>> 8) - 1;
+        int sourceOrdinal = (value & 0xff) - 1;
+        if (typeOrdinal < 0 || sourceOrdinal < 0) {
+            return false;
+        }
+        MovementTypeType storedType = MovementTypeType.values()[typeOrdinal];
+        MovementSourceType storedSource = MovementSourceType.values()[sourceOrdinal];
+        // Same rules as IncomingMovementBean.checkAndSetDuplicate, the cases that change a timestamp need the entity
+        return storedType.value().equals(movementType)
+                && (MovementSourceType.AIS.value().equals(source) || storedSource.value().equals(source));
+    }
+
+    private static short encode(MovementTypeType movementType, MovementSourceType source) {
+        int type = movementType == null ? 0 : movementType.ordinal() + 1;
+        int src = source == null ? 0 : source.ordinal() + 1;
+        return (short) ((type << 8) | src);
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+}
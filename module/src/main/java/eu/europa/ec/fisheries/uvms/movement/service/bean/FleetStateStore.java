@@ -0,0 +1,178 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetLatestState;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
+import eu.europa.ec.fisheries.uvms.movement.service.util.FleetStateTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Latest position and latest VMS position per asset, kept in memory so that the ingest path does not have to load
+ * the lazy associations of {@link MovementConnect} for every position.
+ * <p>
+ * Loaded once at startup. Changes made by a transaction are only visible to that transaction until it commits, after
+ * that they are written to the shared table. A stored state is only trusted when its movement ids still match the
+ * foreign keys of the MovementConnect, otherwise callers fall back to the entities and the state is rewritten.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class FleetStateStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FleetStateStore.class);
+
+    private static final String PENDING_CHANGES = FleetStateStore.class.getName() + ".pending";
+
+    private final FleetStateTable table = new FleetStateTable(16384);
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @PostConstruct
+    public void init() {
+        try {
+            long start = System.currentTimeMillis();
+            List<AssetLatestState> states = movementDao.getAssetLatestStates();
+            states.forEach(table::putIfAbsent);
+            LOG.info("Loaded latest positions for {} assets in {} ms", states.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not load latest positions, the fleet state will be filled as positions arrive", e);
+        }
+    }
+
+    /**
+     * @return the state of the asset if it is known and still matches the latest movement and latest VMS of the
+     * MovementConnect, else null. Only compares ids and therefore never initializes the lazy associations.
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public AssetLatestState get(MovementConnect movementConnect) {
+        AssetLatestState state = get(movementConnect.getId());
+        if (state == null
+                || !sameId(movementConnect.getLatestMovement(), state.getLatestMovementId())
+                || !sameId(movementConnect.getLatestVMS(), state.getLatestVmsId())) {
+            return null;
+        }
+        return state;
+    }
+
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public AssetLatestState get(UUID assetId) {
+        PendingChanges pending = pendingChanges(false);
+        if (pending != null) {
+            if (pending.evicted.contains(assetId)) {
+                return null;
+            }
+            AssetLatestState state = pending.states.get(assetId);
+            if (state != null) {
+                return state;
+            }
+        }
+        return table.get(assetId);
+    }
+
+    /**
+     * Records the current latest movement and latest VMS of the MovementConnect. Positions that are already known
+     * from {@code knownState} are taken from there instead of from the, possibly uninitialized, entities.
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public void update(MovementConnect movementConnect, AssetLatestState knownState) {
+        AssetLatestState state = new AssetLatestState(movementConnect.getId());
+        Movement latest = movementConnect.getLatestMovement();
+        if (latest != null) {
+            state = knownState != null && latest.getId().equals(knownState.getLatestMovementId())
+                    ? state.withLatestFrom(knownState) : state.withLatest(latest);
+        }
+        Movement latestVms = movementConnect.getLatestVMS();
+        if (latestVms != null) {
+            state = knownState != null && latestVms.getId().equals(knownState.getLatestVmsId())
+                    ? state.withLatestVmsFrom(knownState) : state.withLatestVms(latestVms);
+        }
+        PendingChanges pending = pendingChanges(true);
+        if (pending == null) {
+            table.put(state);
+        } else {
+            pending.evicted.remove(state.getAssetId());
+            pending.states.put(state.getAssetId(), state);
+        }
+    }
+
+    /**
+     * Forgets the asset once the current transaction commits, for changes made directly in the database.
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public void evict(UUID assetId) {
+        PendingChanges pending = pendingChanges(true);
+        if (pending == null) {
+            table.remove(assetId);
+        } else {
+            pending.states.remove(assetId);
+            pending.evicted.add(assetId);
+        }
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    private static boolean sameId(Movement movement, UUID id) {
+        return movement == null ? id == null : movement.getId().equals(id);
+    }
+
+    private PendingChanges pendingChanges(boolean create) {
+        if (transactionRegistry.getTransactionKey() == null) {
+            return null;
+        }
+        PendingChanges pending = (PendingChanges) transactionRegistry.getResource(PENDING_CHANGES);
+        if (pending == null && create) {
+            PendingChanges created = new PendingChanges();
+            // A transaction already marked for rollback never commits, its changes are simply dropped
+            if (transactionRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+                transactionRegistry.putResource(PENDING_CHANGES, created);
+                transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == Status.STATUS_COMMITTED) {
+                            created.evicted.forEach(table::remove);
+                            created.states.values().forEach(table::put);
+                        }
+                    }
+                });
+            }
+            pending = created;
+        }
+        return pending;
+    }
+
+    private static class PendingChanges {
+        private final Map<UUID, AssetLatestState> states = new HashMap<>();
+        private final Set<UUID> evicted = new HashSet<>();
+    }
+}
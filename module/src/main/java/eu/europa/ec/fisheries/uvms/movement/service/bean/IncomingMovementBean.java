@@ -2,8 +2,11 @@ package eu.europa.ec.fisheries.uvms.movement.service.bean;
 
 import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
 import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetLatestState;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,48 +28,88 @@ public class IncomingMovementBean {
     @Inject
     private MovementDao dao;
 
+    @Inject
+    private FleetStateStore fleetStateStore;
+
+    @Inject
+    private DuplicateDetector duplicateDetector;
+
+    @Inject
+    private PositionCounter positionCounter;
+
+    @Inject
+    private VicinityIndex vicinityIndex;
+
+    @Inject
+    private PositionReorderBuffer reorderBuffer;
+
     public void processMovement(Movement currentMovement) {
+        MovementSegment segment = processMovementWithoutTrack(currentMovement);
+        if (segment != null) {
+            trackService.upsertTrack(segment.getPrevious(), segment.getCurrent());
+        }
+    }
+
+    /**
+     * Like {@link #processMovement(Movement)} but leaves the track to the caller.
+     *
+     * @return the segment whose track is to be updated, null for the first position of an asset
+     */
+    public MovementSegment processMovementWithoutTrack(Movement currentMovement) {
         if (currentMovement == null) {
             throw new IllegalArgumentException("Movement to process is null!");
         }
-        UUID connectId = currentMovement.getMovementConnect().getId();
+        MovementConnect movementConnect = currentMovement.getMovementConnect();
+        UUID connectId = movementConnect.getId();
         Instant timeStamp = currentMovement.getTimestamp();
+        AssetLatestState knownState = fleetStateStore.get(movementConnect);
+        MovementSegment segment = null;
 
-        Movement latestMovement = currentMovement.getMovementConnect().getLatestMovement();
+        Movement latestMovement = movementConnect.getLatestMovement();
         if (latestMovement == null) { // First position
-            currentMovement.getMovementConnect().setLatestMovement(currentMovement);
-            currentMovement.getMovementConnect().setLatestLocation(currentMovement.getLocation());
+            movementConnect.setLatestMovement(currentMovement);
+            movementConnect.setLatestLocation(currentMovement.getLocation());
         } else {
-            if (currentMovement.getTimestamp().isAfter(latestMovement.getTimestamp())) {
+            Instant latestTimestamp = knownState != null ? knownState.getLatestTimestamp() : latestMovement.getTimestamp();
+            if (currentMovement.getTimestamp().isAfter(latestTimestamp)) {
                 // Normal case (latest position)
                 currentMovement.setPreviousMovement(latestMovement);
-                currentMovement.getMovementConnect().setLatestMovement(currentMovement);
-                currentMovement.getMovementConnect().setLatestLocation(currentMovement.getLocation());
-                trackService.upsertTrack(latestMovement, currentMovement);
+                movementConnect.setLatestMovement(currentMovement);
+                movementConnect.setLatestLocation(currentMovement.getLocation());
+                segment = new MovementSegment(latestMovement, currentMovement);
             } else {
+                reorderBuffer.countSplice();
                 Movement previousMovement = dao.getPreviousMovement(connectId, timeStamp);
                 if (previousMovement == null) { // Before first position
                     Movement firstMovement = dao.getFirstMovement(connectId, currentMovement.getId());
                     firstMovement.setPreviousMovement(currentMovement);
-                    trackService.upsertTrack(firstMovement, currentMovement);
+                    segment = new MovementSegment(firstMovement, currentMovement);
                 } else { // Between two positions
                     Movement nextMovement = dao.getNextMovement(previousMovement);
                     nextMovement.setPreviousMovement(currentMovement);
                     dao.flush();
                     currentMovement.setPreviousMovement(previousMovement);
-                    trackService.upsertTrack(latestMovement, currentMovement);
+                    segment = new MovementSegment(latestMovement, currentMovement);
                 }
             }
         }
-        updateLatestVMS(currentMovement);
+        updateLatestVMS(currentMovement, knownState);
+        fleetStateStore.update(movementConnect, knownState);
+        vicinityIndex.update(movementConnect);
+        return segment;
     }
 
-    private void updateLatestVMS(Movement currentMovement) {
+    private void updateLatestVMS(Movement currentMovement, AssetLatestState knownState) {
         if (currentMovement.getSource().equals(MovementSourceType.AIS)) {
             return;
         }
         Movement latestVMS = currentMovement.getMovementConnect().getLatestVMS();
-        if (latestVMS == null || currentMovement.getTimestamp().isAfter(latestVMS.getTimestamp())) {
+        if (latestVMS == null) {
+            currentMovement.getMovementConnect().setLatestVMS(currentMovement);
+            return;
+        }
+        Instant latestVMSTimestamp = knownState != null ? knownState.getLatestVmsTimestamp() : latestVMS.getTimestamp();
+        if (currentMovement.getTimestamp().isAfter(latestVMSTimestamp)) {
             currentMovement.getMovementConnect().setLatestVMS(currentMovement);
         }
     }
@@ -78,6 +121,16 @@ public class IncomingMovementBean {
         UUID connectId = UUID.fromString(movement.getAssetGuid());
         Instant timeStamp = movement.getPositionTime();
 
+        DuplicateDetector.Verdict verdict = duplicateDetector.check(connectId, timeStamp, movement.getMovementType(), movement.getMovementSourceType());
+        if (verdict == DuplicateDetector.Verdict.NOT_DUPLICATE) {
+            return false;
+        }
+        if (verdict == DuplicateDetector.Verdict.DUPLICATE) {
+            LOG.info("Got a duplicate movement for Asset {}. Marking it as such.", movement.getAssetGuid());
+            movement.setDuplicate(true);
+            return true;
+        }
+
         List<Movement> duplicateMovements = dao.isDateAlreadyInserted(connectId, timeStamp);
         if (!duplicateMovements.isEmpty()) {
             // If they have different movement types or different source
@@ -88,6 +141,9 @@ public class IncomingMovementBean {
                     !Objects.equals(movement.getMovementSourceType(), duplicateMovements.get(0).getSource().value())) {
                 // Don't modify NAF/Inmarsat timestamp, add second to AIS position instead 
                 duplicateMovements.get(0).setTimestamp(timeStamp.plusSeconds(1));
+                fleetStateStore.evict(connectId);
+                duplicateDetector.recordMoved(duplicateMovements.get(0), timeStamp);
+                positionCounter.recordMoved(duplicateMovements.get(0), timeStamp);
             } else {
                 LOG.info("Got a duplicate movement for Asset {}. Marking it as such.", movement.getAssetGuid());
                 movement.setDuplicate(true);
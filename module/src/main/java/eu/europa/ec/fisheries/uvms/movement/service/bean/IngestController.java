@@ -0,0 +1,301 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestStageMetrics.Stage;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.IngestControllerState;
+import eu.europa.ec.fisheries.uvms.movement.service.util.AdaptiveLimit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSContext;
+import javax.jms.JMSException;
+import javax.jms.JMSRuntimeException;
+import javax.jms.Queue;
+import javax.jms.QueueBrowser;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many positions are ingested at the same time. The limit is adjusted once per window from what was
+ * measured in it: it shrinks when ingesting a message took longer than the target latency, and grows by one when all
+ * permits were in use and messages were waiting, on the queue or for a permit. The latencies are read from the
+ * histograms of {@link IngestStageMetrics}, the controller only records the wait for a permit and the total.
+ * <p>
+ * While ingest is congested, non-critical work such as backfill and track rebuilds is deferred, so the asset module,
+ * spatial and the connection pool are left to the live positions.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class IngestController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IngestController.class);
+
+    private static final long WINDOW_MILLIS = 1000;
+    private static final long ADMIT_TIMEOUT_MILLIS = 30_000;
+    private static final long DEFER_POLL_MILLIS = 100;
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final int QUEUE_DEPTH_CAP = 1000;
+    private static final int QUEUE_DEPTH_WINDOWS = 30;
+    private static final long DEFAULT_TARGET_LATENCY_MILLIS = 1000;
+    private static final long DEFAULT_MAX_DEFER_MILLIS = 10_000;
+
+    private static final Permit NO_PERMIT = () -> { };
+    private static final Stage[] WINDOW_STAGES = { Stage.WAIT, Stage.ENRICH, Stage.TOTAL };
+
+    @Resource(mappedName = "java:/ConnectionFactory")
+    private ConnectionFactory connectionFactory;
+
+    @Resource(mappedName = "java:/" + MessageConstants.QUEUE_MOVEMENT_EVENT)
+    private Queue movementQueue;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Inject
+    private IngestStageMetrics stageMetrics;
+
+    private AdaptiveLimit limit;
+    private long targetLatencyMillis;
+    private long maxDeferMillis;
+    private ScheduledFuture<?> adjuster;
+    private int windows;
+
+    private final Map<Stage, IngestStageMetrics.Totals> lastTotals = new EnumMap<>(Stage.class);
+    private final LongAdder messageAges = new LongAdder();
+    private final LongAdder messageAgeCount = new LongAdder();
+    private final LongAccumulator maxMessageAge = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder admitTimeouts = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder increases = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+
+    private volatile boolean congested;
+    private volatile int queueDepth = -1;
+    private volatile double lastWaitMillis;
+    private volatile double lastEnrichMillis;
+    private volatile double lastTotalMillis;
+    private volatile double lastMessageAgeMillis;
+    private volatile long lastMaxMessageAgeMillis;
+
+    @PostConstruct
+    public void init() {
+        int maxConcurrency = parameterHelper.getIntValue(ParameterKey.INGEST_ADAPTIVE_MAX_CONCURRENCY, 0);
+        if (maxConcurrency <= 0) {
+            LOG.info("Ingest concurrency is not limited");
+            return;
+        }
+        int minConcurrency = Math.max(1, Math.min(maxConcurrency,
+                parameterHelper.getIntValue(ParameterKey.INGEST_ADAPTIVE_MIN_CONCURRENCY, 1)));
+        targetLatencyMillis = parameterHelper.getLongValue(ParameterKey.INGEST_ADAPTIVE_TARGET_LATENCY_MILLIS, DEFAULT_TARGET_LATENCY_MILLIS);
+        maxDeferMillis = parameterHelper.getLongValue(ParameterKey.INGEST_ADAPTIVE_MAX_DEFER_MILLIS, DEFAULT_MAX_DEFER_MILLIS);
+        for (Stage stage : WINDOW_STAGES) {
+            lastTotals.put(stage, stageMetrics.totals(stage));
+        }
+        limit = new AdaptiveLimit(minConcurrency, maxConcurrency, minConcurrency, DECREASE_FACTOR);
+        adjuster = scheduler.scheduleWithFixedDelay(this::adjust, WINDOW_MILLIS, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        LOG.info("Ingest concurrency adapts between {} and {} to a target latency of {} ms",
+                minConcurrency, maxConcurrency, targetLatencyMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (adjuster != null) {
+            adjuster.cancel(false);
+            adjuster = null;
+        }
+        limit = null;
+        congested = false;
+    }
+
+    public boolean isEnabled() {
+        return limit != null;
+    }
+
+    /**
+     * Waits for a permit to ingest a message. Closing the permit records the time the message took. If there is no
+     * permit within {@value #ADMIT_TIMEOUT_MILLIS} ms the message is let through anyway, so it does not time out.
+     */
+    public Permit admit() {
+        AdaptiveLimit limit = this.limit;
+        if (limit == null) {
+            return NO_PERMIT;
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = limit.acquire(ADMIT_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to ingest", e);
+        }
+        long admittedAt = stageMetrics.record(Stage.WAIT, start);
+        admitted.increment();
+        if (!acquired) {
+            admitTimeouts.increment();
+            LOG.warn("No ingest permit within {} ms, {} in flight", ADMIT_TIMEOUT_MILLIS, limit.getInFlight());
+            return () -> stageMetrics.record(Stage.TOTAL, admittedAt);
+        }
+        return () -> {
+            stageMetrics.record(Stage.TOTAL, admittedAt);
+            limit.release();
+        };
+    }
+
+    /**
+     * Waits while ingest is congested, at most the configured defer time.
+     *
+     * @return false if ingest is still congested and the non-critical work should be rejected
+     */
+    public boolean deferNonCritical() {
+        if (!congested) {
+            return true;
+        }
+        deferred.increment();
+        long deadline = System.currentTimeMillis() + maxDeferMillis;
+        try {
+            while (congested && System.currentTimeMillis() < deadline) {
+                Thread.sleep(DEFER_POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (congested) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param sentMillis the JMSTimestamp of the message
+     */
+    public void recordMessageAge(long sentMillis) {
+        if (limit == null || sentMillis <= 0) {
+            return;
+        }
+        long age = Math.max(0, System.currentTimeMillis() - sentMillis);
+        messageAges.add(age);
+        messageAgeCount.increment();
+        maxMessageAge.accumulate(age);
+    }
+
+    public IngestControllerState getState() {
+        IngestControllerState state = new IngestControllerState();
+        state.setEnabled(isEnabled());
+        if (limit != null) {
+            state.setLimit(limit.getLimit());
+            state.setMinLimit(limit.getMinLimit());
+            state.setMaxLimit(limit.getMaxLimit());
+            state.setInFlight(limit.getInFlight());
+            state.setWaiting(limit.getWaiting());
+        }
+        state.setCongested(congested);
+        state.setTargetLatencyMillis(targetLatencyMillis);
+        state.setQueueDepth(queueDepth);
+        state.setMessageAgeMillis(lastMessageAgeMillis);
+        state.setMaxMessageAgeMillis(lastMaxMessageAgeMillis);
+        state.setWaitMillis(lastWaitMillis);
+        state.setEnrichMillis(lastEnrichMillis);
+        state.setTotalMillis(lastTotalMillis);
+        state.setAdmitted(admitted.sum());
+        state.setAdmitTimeouts(admitTimeouts.sum());
+        state.setDeferred(deferred.sum());
+        state.setRejected(rejected.sum());
+        state.setIncreases(increases.sum());
+        state.setDecreases(decreases.sum());
+        return state;
+    }
+
+    private void adjust() {
+        try {
+            lastWaitMillis = windowAverageMillis(Stage.WAIT);
+            lastEnrichMillis = windowAverageMillis(Stage.ENRICH);
+            double totalMillis = windowAverageMillis(Stage.TOTAL);
+            lastTotalMillis = totalMillis;
+            long ages = messageAgeCount.sumThenReset();
+            lastMessageAgeMillis = ages > 0 ? (double) messageAges.sumThenReset() / ages : 0;
+            lastMaxMessageAgeMillis = maxMessageAge.getThenReset();
+            // Counting is only needed for the state, the backlog is seen from the first message
+            boolean counting = windows++ % QUEUE_DEPTH_WINDOWS == 0;
+            int queued = browseQueue(counting ? QUEUE_DEPTH_CAP : 1);
+            if (counting) {
+                queueDepth = queued;
+            }
+
+            boolean slow = totalMillis > targetLatencyMillis;
+            boolean backlog = limit.getWaiting() > 0 || queued > 0;
+            int before = limit.getLimit();
+            int after = limit.adjust(slow, backlog);
+            if (after < before) {
+                decreases.increment();
+                LOG.info("Ingest took {} ms on average, concurrency lowered from {} to {}",
+                        Math.round(totalMillis), before, after);
+            } else if (after > before) {
+                increases.increment();
+            }
+            congested = slow;
+        } catch (RuntimeException e) {
+            // Keep the adjuster scheduled
+            LOG.error("Could not adjust ingest concurrency", e);
+        }
+    }
+
+    private double windowAverageMillis(Stage stage) {
+        IngestStageMetrics.Totals totals = stageMetrics.totals(stage);
+        return totals.averageMillisSince(lastTotals.put(stage, totals));
+    }
+
+    /**
+     * @return the messages on the movement queue up to max, -1 if the queue could not be browsed
+     */
+    private int browseQueue(int max) {
+        try (JMSContext context = connectionFactory.createContext();
+             QueueBrowser browser = context.createBrowser(movementQueue)) {
+            int depth = 0;
+            Enumeration<?> messages = browser.getEnumeration();
+            while (depth < max && messages.hasMoreElements()) {
+                messages.nextElement();
+                depth++;
+            }
+            return depth;
+        } catch (JMSException | JMSRuntimeException e) {
+            LOG.warn("Could not browse the movement queue", e);
+            return -1;
+        }
+    }
+
+    /**
+     * A permit to ingest, closed when the message is done.
+     */
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,211 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.IngestLaneStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed set of single threaded lanes. Work for one asset is always hashed onto the same lane and is therefore run
+ * serially, while different assets are spread over the lanes and run in parallel.
+ * <p>
+ * The queue of a lane is bounded. A submitter that finds it full waits for room, which slows the consumers down
+ * instead of piling up enriched positions in memory, and the task is rejected with a
+ * {@link RejectedExecutionException} when the lane stays full for {@value #SUBMIT_TIMEOUT_SECONDS} seconds.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class IngestLaneExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IngestLaneExecutor.class);
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    static final long SUBMIT_TIMEOUT_SECONDS = 30;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    private Lane[] lanes;
+
+    @PostConstruct
+    public void init() {
+        int laneCount = parameterHelper.getIntValue(ParameterKey.INGEST_LANES, 0);
+        if (laneCount <= 0) {
+            laneCount = Runtime.getRuntime().availableProcessors();
+        }
+        int queueCapacity = parameterHelper.getIntValue(ParameterKey.INGEST_LANE_QUEUE_CAPACITY, 0);
+        if (queueCapacity <= 0) {
+            queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        }
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, queueCapacity, threadFactory);
+        }
+        LOG.info("Started {} ingest lanes queueing up to {} tasks each", laneCount, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+        for (Lane lane : lanes) {
+            try {
+                if (!lane.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LOG.warn("Ingest lane {} did not finish its queue before shutdown", lane.index);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int laneOf(String assetGuid) {
+        int hash = assetGuid.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    public <T> Future<T> submit(int lane, Callable<T> task) {
+        return lanes[lane].submit(task);
+    }
+
+    /**
+     * Runs the task on the lane of the asset and waits for it. Tasks without an asset run on the calling thread.
+     */
+    public <T> T execute(String assetGuid, Callable<T> task) throws Exception {
+        if (assetGuid == null || assetGuid.isEmpty()) {
+            return task.call();
+        }
+        Lane lane = lanes[laneOf(assetGuid)];
+        if (Thread.currentThread() == lane.thread) {
+            return task.call();
+        }
+        return await(lane.submit(task));
+    }
+
+    public static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public List<IngestLaneStatistics> getStatistics() {
+        List<IngestLaneStatistics> statistics = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) {
+            statistics.add(lane.getStatistics());
+        }
+        return statistics;
+    }
+
+    private static final class Lane {
+
+        private final int index;
+        private final ThreadPoolExecutor executor;
+        private final long startedNanos = System.nanoTime();
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private volatile Thread thread;
+
+        private Lane(int index, int queueCapacity, ManagedThreadFactory threadFactory) {
+            this.index = index;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread laneThread = threadFactory.newThread(runnable);
+                laneThread.setName("movement-ingest-lane-" + index);
+                thread = laneThread;
+                return laneThread;
+            }, this::waitForRoom);
+        }
+
+        private void waitForRoom(Runnable task, ThreadPoolExecutor executor) {
+            try {
+                if (!executor.isShutdown() && executor.getQueue().offer(task, SUBMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rejected.increment();
+            throw new RejectedExecutionException("Ingest lane " + index + " stayed full for " + SUBMIT_TIMEOUT_SECONDS + " s");
+        }
+
+        private <T> Future<T> submit(Callable<T> task) {
+            if (Thread.currentThread() == thread && executor.getQueue().remainingCapacity() == 0) {
+                // Waiting for room on its own lane would never end
+                rejected.increment();
+                throw new RejectedExecutionException("Ingest lane " + index + " is full");
+            }
+            Future<T> future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    T result = task.call();
+                    completed.increment();
+                    return result;
+                } catch (Exception e) {
+                    failed.increment();
+                    throw e;
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                }
+            });
+            submitted.increment();
+            maxQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+            return future;
+        }
+
+        private IngestLaneStatistics getStatistics() {
+            IngestLaneStatistics statistics = new IngestLaneStatistics();
+            statistics.setLane(index);
+            statistics.setQueueDepth(executor.getQueue().size());
+            statistics.setMaxQueueDepth(maxQueueDepth.get());
+            statistics.setSubmitted(submitted.sum());
+            statistics.setCompleted(completed.sum());
+            statistics.setFailed(failed.sum());
+            statistics.setRejected(rejected.sum());
+            long busy = busyNanos.get();
+            statistics.setBusyMillis(TimeUnit.NANOSECONDS.toMillis(busy));
+            long elapsed = System.nanoTime() - startedNanos;
+            statistics.setUtilisation(elapsed > 0 ? Math.min(1d, (double) busy / elapsed) : 0d);
+            return statistics;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
+import eu.europa.ec.fisheries.uvms.movement.service.util.LatencyHistogram;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency histograms of the stages of ingesting a position, per stage and movement source, in the Prometheus text
+ * format. Stages that work on a whole batch are recorded once per batch, under the source of its last position.
+ * <p>
+ * WAIT and TOTAL are recorded by {@link IngestController} when it limits ingest: the wait for a permit and the time
+ * a message held it. They are recorded per message and under the unknown source.
+ */
+@ApplicationScoped
+public class IngestStageMetrics {
+
+    public enum Stage {
+        WAIT, ENRICH, DUPLICATE_CHECK, PREVIOUS_VMS, SANITY, PERSIST, TRACK, COUNT, VICINITY, RULES_SEND, ACK, TOTAL
+    }
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String METRIC = "movement_ingest_stage_seconds";
+    private static final String UNKNOWN_SOURCE = "UNKNOWN";
+    private static final long[] BUCKET_MICROS = { 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000 };
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final MovementSourceType[] SOURCES = MovementSourceType.values();
+    private static final Map<String, Integer> SOURCE_INDEX = new HashMap<>();
+
+    static {
+        for (MovementSourceType source : SOURCES) {
+            SOURCE_INDEX.put(source.value(), source.ordinal());
+        }
+    }
+
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[Stage.values().length][SOURCES.length + 1];
+
+    public IngestStageMetrics() {
+        for (LatencyHistogram[] stage : histograms) {
+            for (int i = 0; i < stage.length; i++) {
+                stage[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /**
+     * Records the time since start for the stage.
+     *
+     * @return the current System.nanoTime(), the start of the next stage
+     */
+    public long record(Stage stage, String source, long startNanos) {
+        Integer index = source != null ? SOURCE_INDEX.get(source) : null;
+        return record(stage, index != null ? index : SOURCES.length, startNanos);
+    }
+
+    public long record(Stage stage, MovementSourceType source, long startNanos) {
+        return record(stage, source != null ? source.ordinal() : SOURCES.length, startNanos);
+    }
+
+    public long record(Stage stage, long startNanos) {
+        return record(stage, SOURCES.length, startNanos);
+    }
+
+    /**
+     * @return how often the stage was recorded over all sources since start, and how long it took
+     */
+    public Totals totals(Stage stage) {
+        long count = 0;
+        long sumMicros = 0;
+        for (LatencyHistogram histogram : histograms[stage.ordinal()]) {
+            count += histogram.getCount();
+            sumMicros += histogram.getSumMicros();
+        }
+        return new Totals(count, sumMicros);
+    }
+
+    private long record(Stage stage, int source, long startNanos) {
+        long now = System.nanoTime();
+        histograms[stage.ordinal()][source].recordNanos(now - startNanos);
+        return now;
+    }
+
+    /**
+     * @return the histograms with values, and their quantiles and maximum as gauges
+     */
+    public String scrape() {
+        StringBuilder histogramLines = new StringBuilder();
+        StringBuilder quantileLines = new StringBuilder();
+        StringBuilder maxLines = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            for (int source = 0; source <= SOURCES.length; source++) {
+                LatencyHistogram.Snapshot snapshot = histograms[stage.ordinal()][source].snapshot();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                String labels = "stage=\"" + stage.name().toLowerCase(Locale.ROOT) + "\",source=\""
+                        + (source < SOURCES.length ? SOURCES[source].value() : UNKNOWN_SOURCE) + "\"";
+                for (long bucket : BUCKET_MICROS) {
+                    line(histogramLines, METRIC + "_bucket", labels + ",le=\"" + seconds(bucket) + "\"", snapshot.countAtMost(bucket));
+                }
+                line(histogramLines, METRIC + "_bucket", labels + ",le=\"+Inf\"", snapshot.getCount());
+                line(histogramLines, METRIC + "_sum", labels, seconds(snapshot.getSumMicros()));
+                line(histogramLines, METRIC + "_count", labels, snapshot.getCount());
+                for (double quantile : QUANTILES) {
+                    line(quantileLines, METRIC + "_quantile", labels + ",quantile=\"" + quantile + "\"",
+                            seconds(snapshot.valueAtQuantile(quantile)));
+                }
+                line(maxLines, METRIC + "_max", labels, seconds(snapshot.getMaxMicros()));
+            }
+        }
+        return "# HELP " + METRIC + " Time spent in each stage of ingesting a position\n"
+                + "# TYPE " + METRIC + " histogram\n" + histogramLines
+                + "# HELP " + METRIC + "_quantile Quantiles of the time spent in each stage, within 12.5%\n"
+                + "# TYPE " + METRIC + "_quantile gauge\n" + quantileLines
+                + "# HELP " + METRIC + "_max Longest time spent in each stage\n"
+                + "# TYPE " + METRIC + "_max gauge\n" + maxLines;
+    }
+
+    private static void line(StringBuilder lines, String name, String labels, Object value) {
+        lines.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long micros) {
+        return BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+    }
+
+    public static final class Totals {
+
+        private final long count;
+        private final long sumMicros;
+
+        private Totals(long count, long sumMicros) {
+            this.count = count;
+            this.sumMicros = sumMicros;
+        }
+
+        /**
+         * @return the average in milliseconds of what was recorded after the earlier totals, 0 if nothing was
+         */
+        public double averageMillisSince(Totals earlier) {
+            long recorded = count - earlier.count;
+            return recorded > 0 ? (sumMicros - earlier.sumMicros) / 1e3 / recorded : 0;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
+import eu.europa.ec.fisheries.uvms.movement.service.clients.SpatialRestClient;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.SegmentCalculations;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.util.PortAreaIndex;
+import eu.europa.ec.fisheries.uvms.movement.service.util.SegmentCategorizer;
+import eu.europa.ec.fisheries.uvms.movement.service.util.WKTUtil;
+import org.locationtech.jts.geom.Geometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Categorises segments in process from the port areas of the spatial module, loaded at startup and refreshed every
+ * hour. Answers null while the port areas are not loaded, the caller then asks the spatial module. The gap, jump,
+ * anchored and low speed thresholds are parameters that have to match the ones of the spatial module.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class LocalSegmentClassifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalSegmentClassifier.class);
+
+    private static final long DEFAULT_GAP_SECONDS = 3 * 3600;
+    private static final double DEFAULT_JUMP_KNOTS = 50;
+    private static final double DEFAULT_ANCHORED_KNOTS = 0.5;
+    private static final double DEFAULT_LOW_SPEED_KNOTS = 3;
+
+    @Inject
+    private SpatialRestClient spatialClient;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Resource
+    private TimerService timerService;
+
+    private boolean enabled;
+    private long gapSeconds;
+    private double jumpKnots;
+    private double anchoredKnots;
+    private double lowSpeedKnots;
+
+    private volatile SegmentCategorizer categorizer;
+
+    @PostConstruct
+    public void init() {
+        enabled = parameterHelper.getBooleanValue(ParameterKey.SEGMENT_LOCAL_CLASSIFIER, false);
+        gapSeconds = parameterHelper.getLongValue(ParameterKey.SEGMENT_GAP_SECONDS, DEFAULT_GAP_SECONDS);
+        jumpKnots = parameterHelper.getDoubleValue(ParameterKey.SEGMENT_JUMP_KNOTS, DEFAULT_JUMP_KNOTS);
+        anchoredKnots = parameterHelper.getDoubleValue(ParameterKey.SEGMENT_ANCHORED_KNOTS, DEFAULT_ANCHORED_KNOTS);
+        lowSpeedKnots = parameterHelper.getDoubleValue(ParameterKey.SEGMENT_LOW_SPEED_KNOTS, DEFAULT_LOW_SPEED_KNOTS);
+        if (enabled) {
+            // The spatial module may not be up yet, do not hold up the deployment
+            timerService.createSingleActionTimer(1000, new TimerConfig(null, false));
+        } else {
+            categorizer = null;
+        }
+    }
+
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void initialLoad() {
+        refresh();
+    }
+
+    @Schedule(hour = "*", minute = "5", persistent = false)
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<Geometry> areas = new ArrayList<>();
+            for (String wkt : spatialClient.getPortAreas()) {
+                areas.add(WKTUtil.getGeometryFromWKTSrring(wkt));
+            }
+            categorizer = new SegmentCategorizer(new PortAreaIndex(areas), gapSeconds, jumpKnots, anchoredKnots, lowSpeedKnots);
+            LOG.info("Loaded {} port areas for segment categorisation in {} ms", areas.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not load port areas, {}", categorizer == null
+                    ? "segments are categorised by the spatial module" : "keeping the ones loaded before", e);
+        }
+    }
+
+    /**
+     * @return the category of the segment or null when it has to be asked for remotely
+     */
+    public SegmentCategoryType getSegmentCategoryType(Movement previous, Movement current, SegmentCalculations calculations) {
+        SegmentCategorizer loaded = categorizer;
+        return loaded == null ? null : loaded.categorize(previous, current, calculations);
+    }
+}
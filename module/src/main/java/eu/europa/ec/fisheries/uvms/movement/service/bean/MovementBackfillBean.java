@@ -0,0 +1,283 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BackfillReport;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildRequest;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
+import eu.europa.ec.fisheries.uvms.movement.service.mapper.IncomingMovementMapper;
+import eu.europa.ec.fisheries.uvms.movement.service.util.CalculationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Imports historical positions. The positions are enriched and inserted in bulk, one transaction per asset, without
+ * sanity rules, MovementRules, Exchange acks, audit or created movement events. Each asset then gets one pass over
+ * its positions in timestamp order that links previousMovement, computes calculatedSpeed and updates the tracks.
+ * <p>
+ * A stored position that gets a created position as its previous movement is relinked and, if it is the next VMS
+ * position, gets its calculatedSpeed recomputed. The tracks of the stored positions are not changed by the pass, so
+ * the assets with relinked positions are queued for a track rebuild over the span of the backfill once all assets are
+ * committed. The report holds the id of the rebuild job.
+ * <p>
+ * Positions with the same timestamp as a stored position of the asset are skipped.
+ */
+@Stateless
+public class MovementBackfillBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MovementBackfillBean.class);
+
+    private static final String BACKFILL_USER = "UVMS backfill";
+
+    @Inject
+    private MovementCreateBean movementCreate;
+
+    @Inject
+    private MovementService movementService;
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Inject
+    private TrackService trackService;
+
+    @Inject
+    private FleetStateStore fleetStateStore;
+
+    @Inject
+    private VicinityIndex vicinityIndex;
+
+    @Inject
+    private DuplicateDetector duplicateDetector;
+
+    @Inject
+    private PositionCounter positionCounter;
+
+    @Inject
+    private TrackRebuildJob trackRebuildJob;
+
+    @Resource
+    private SessionContext sessionContext;
+
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public BackfillReport backfill(List<IncomingMovement> incomingMovements) {
+        long start = System.nanoTime();
+        movementCreate.enrichBatch(incomingMovements);
+
+        BackfillReport report = new BackfillReport();
+        report.setReceived(incomingMovements.size());
+        Map<String, List<IncomingMovement>> movementsPerAsset = new LinkedHashMap<>();
+        for (IncomingMovement incomingMovement : incomingMovements) {
+            if (incomingMovement.getAssetGuid() == null || incomingMovement.getAssetGuid().isEmpty()) {
+                report.setRejected(report.getRejected() + 1);
+            } else {
+                movementsPerAsset.computeIfAbsent(incomingMovement.getAssetGuid(), k -> new ArrayList<>()).add(incomingMovement);
+            }
+        }
+        MovementBackfillBean self = sessionContext.getBusinessObject(MovementBackfillBean.class);
+        TrackRebuildRequest rebuild = new TrackRebuildRequest();
+        rebuild.setAssetIds(new ArrayList<>());
+        for (List<IncomingMovement> assetMovements : movementsPerAsset.values()) {
+            BackfillReport assetReport = self.backfillAsset(assetMovements);
+            report.add(assetReport);
+            if (assetReport.getRelinked() > 0) {
+                addToRebuild(rebuild, assetMovements);
+            }
+        }
+        if (!rebuild.getAssetIds().isEmpty()) {
+            report.setTrackRebuildJobId(trackRebuildJob.start(rebuild).getJobId());
+        }
+
+        long nanos = System.nanoTime() - start;
+        report.setMillis(nanos / 1_000_000);
+        report.setRowsPerSecond(nanos > 0 ? report.getInserted() * 1e9 / nanos : 0);
+        LOG.info("Backfilled {} of {} positions for {} assets in {} ms, {} rows/s ({} duplicates, {} rejected, {} relinked)",
+                report.getInserted(), report.getReceived(), report.getAssets(), report.getMillis(),
+                Math.round(report.getRowsPerSecond()), report.getDuplicates(), report.getRejected(), report.getRelinked());
+        return report;
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public BackfillReport backfillAsset(List<IncomingMovement> assetMovements) {
+        BackfillReport report = new BackfillReport();
+        List<IncomingMovement> valid = new ArrayList<>();
+        for (IncomingMovement incomingMovement : assetMovements) {
+            if (incomingMovement.getPositionTime() == null || incomingMovement.getLatitude() == null
+                    || incomingMovement.getLongitude() == null || incomingMovement.getMovementType() == null) {
+                report.setRejected(report.getRejected() + 1);
+            } else {
+                valid.add(incomingMovement);
+            }
+        }
+        if (valid.isEmpty()) {
+            return report;
+        }
+        valid.sort(Comparator.comparing(IncomingMovement::getPositionTime));
+        report.setAssets(1);
+
+        IncomingMovement latest = valid.get(valid.size() - 1);
+        MovementConnect movementConnect = movementService.getOrCreateMovementConnectByConnectId(
+                IncomingMovementMapper.mapNewMovementConnect(latest, BACKFILL_USER));
+        UUID connectId = movementConnect.getId();
+        Instant first = valid.get(0).getPositionTime();
+        Instant last = latest.getPositionTime();
+
+        // The stored positions the new ones are put between, read before anything is inserted
+        List<MovementSourceType> allSources = Arrays.asList(MovementSourceType.values());
+        List<MovementSourceType> vmsSources = new ArrayList<>(allSources);
+        vmsSources.remove(MovementSourceType.AIS);
+        Movement storedBefore = movementDao.getPreviousMovement(connectId, first);
+        Movement storedAfter = movementDao.getNextMovementByMcAndDate(connectId, last);
+        Movement vmsBefore = movementService.getPreviousVMS(connectId, first);
+        Movement vmsAfter = movementDao.getNextMovementByMcAndDate(connectId, last, vmsSources);
+        List<Movement> storedBetween = new ArrayList<>();
+        for (Movement stored : movementDao.getMicroMovementsForAssetAfterDate(connectId, first.minusMillis(1), last.plusMillis(1), allSources)) {
+            if (!stored.getTimestamp().isBefore(first) && !stored.getTimestamp().isAfter(last)) {
+                storedBetween.add(stored);
+            }
+        }
+        Collections.reverse(storedBetween);
+        Set<Instant> storedTimestamps = new HashSet<>();
+        storedBetween.forEach(stored -> storedTimestamps.add(stored.getTimestamp()));
+
+        List<Movement> created = new ArrayList<>();
+        for (IncomingMovement incomingMovement : valid) {
+            if (!storedTimestamps.add(incomingMovement.getPositionTime())) {
+                report.setDuplicates(report.getDuplicates() + 1);
+                continue;
+            }
+            Movement movement;
+            try {
+                movement = IncomingMovementMapper.mapNewMovementEntity(incomingMovement, BACKFILL_USER);
+            } catch (IllegalArgumentException e) {
+                report.setRejected(report.getRejected() + 1);
+                continue;
+            }
+            movement.setMovementConnect(movementConnect);
+            movementDao.createMovement(movement);
+            duplicateDetector.record(movement);
+            positionCounter.record(movement);
+            created.add(movement);
+        }
+        report.setInserted(created.size());
+        if (created.isEmpty()) {
+            return report;
+        }
+
+        List<MovementSegment> segments = link(created, storedBetween, storedBefore, storedAfter, vmsBefore, vmsAfter, report);
+        trackService.upsertTracks(segments, trackService.categorize(segments));
+        updateLatest(movementConnect, created);
+        return report;
+    }
+
+    /**
+     * Links the created and the stored positions in timestamp order and computes calculatedSpeed of the created VMS
+     * positions and of the stored VMS positions that follow a created one.
+     *
+     * @return the segments ending in a created position, in order
+     */
+    private List<MovementSegment> link(List<Movement> created, List<Movement> storedBetween, Movement storedBefore,
+                                       Movement storedAfter, Movement vmsBefore, Movement vmsAfter, BackfillReport report) {
+        Set<Movement> createdSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        createdSet.addAll(created);
+        List<Movement> merged = new ArrayList<>(created.size() + storedBetween.size());
+        merged.addAll(created);
+        merged.addAll(storedBetween);
+        merged.sort(Comparator.comparing(Movement::getTimestamp));
+
+        List<MovementSegment> segments = new ArrayList<>();
+        Movement previous = storedBefore;
+        Movement previousVms = vmsBefore;
+        for (Movement movement : merged) {
+            boolean isCreated = createdSet.contains(movement);
+            if (isCreated || createdSet.contains(previous)) {
+                movement.setPreviousMovement(previous);
+                if (!isCreated) {
+                    report.setRelinked(report.getRelinked() + 1);
+                }
+            }
+            if (isCreated && previous != null) {
+                segments.add(new MovementSegment(previous, movement));
+            }
+            if (!MovementSourceType.AIS.equals(movement.getSource())) {
+                if (previousVms != null && (isCreated || createdSet.contains(previousVms))) {
+                    movement.setCalculatedSpeed(CalculationUtil.getPositionCalculations(previousVms, movement).getAvgSpeed());
+                }
+                previousVms = movement;
+            }
+            previous = movement;
+        }
+        if (storedAfter != null && createdSet.contains(previous)) {
+            storedAfter.setPreviousMovement(previous);
+            report.setRelinked(report.getRelinked() + 1);
+        }
+        if (vmsAfter != null && createdSet.contains(previousVms)) {
+            vmsAfter.setCalculatedSpeed(CalculationUtil.getPositionCalculations(previousVms, vmsAfter).getAvgSpeed());
+        }
+        return segments;
+    }
+
+    private static void addToRebuild(TrackRebuildRequest rebuild, List<IncomingMovement> assetMovements) {
+        rebuild.getAssetIds().add(UUID.fromString(assetMovements.get(0).getAssetGuid()));
+        for (IncomingMovement incomingMovement : assetMovements) {
+            Instant positionTime = incomingMovement.getPositionTime();
+            if (positionTime == null) {
+                continue;
+            }
+            if (rebuild.getFrom() == null || positionTime.isBefore(rebuild.getFrom())) {
+                rebuild.setFrom(positionTime);
+            }
+            if (rebuild.getTo() == null || positionTime.isAfter(rebuild.getTo())) {
+                rebuild.setTo(positionTime);
+            }
+        }
+    }
+
+    private void updateLatest(MovementConnect movementConnect, List<Movement> created) {
+        boolean changed = false;
+        Movement latestCreated = created.get(created.size() - 1);
+        Movement latest = movementConnect.getLatestMovement();
+        if (latest == null || latestCreated.getTimestamp().isAfter(latest.getTimestamp())) {
+            movementConnect.setLatestMovement(latestCreated);
+            movementConnect.setLatestLocation(latestCreated.getLocation());
+            changed = true;
+        }
+        Movement latestCreatedVms = null;
+        for (Movement movement : created) {
+            if (!MovementSourceType.AIS.equals(movement.getSource())) {
+                latestCreatedVms = movement;
+            }
+        }
+        Movement latestVms = movementConnect.getLatestVMS();
+        if (latestCreatedVms != null && (latestVms == null || latestCreatedVms.getTimestamp().isAfter(latestVms.getTimestamp()))) {
+            movementConnect.setLatestVMS(latestCreatedVms);
+            changed = true;
+        }
+        if (changed) {
+            fleetStateStore.evict(movementConnect.getId());
+            vicinityIndex.evict(movementConnect.getId());
+        }
+    }
+}
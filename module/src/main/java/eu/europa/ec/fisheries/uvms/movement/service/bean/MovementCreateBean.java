@@ -17,6 +17,10 @@ import eu.europa.ec.fisheries.schema.movement.v1.MovementTypeType;
 import eu.europa.ec.fisheries.uvms.asset.client.AssetClient;
 import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentRequest;
 import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestStageMetrics.Stage;
+import eu.europa.ec.fisheries.uvms.movement.service.clients.AssetEnrichmentRestClient;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetEnrichmentKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetLatestState;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
@@ -24,6 +28,7 @@ import eu.europa.ec.fisheries.uvms.movement.service.mapper.IncomingMovementMappe
 import eu.europa.ec.fisheries.uvms.movement.service.message.ExchangeBean;
 import eu.europa.ec.fisheries.uvms.movement.service.message.MovementRulesBean;
 import eu.europa.ec.fisheries.uvms.movement.service.util.CalculationUtil;
+import eu.europa.ec.fisheries.uvms.movement.service.util.GeometryUtil;
 import eu.europa.ec.fisheries.uvms.movement.service.validation.MovementSanityValidatorBean;
 import eu.europa.ec.fisheries.uvms.movementrules.model.dto.MovementDetails;
 import eu.europa.ec.fisheries.uvms.movementrules.model.dto.VicinityInfoDTO;
@@ -32,10 +37,21 @@ import org.slf4j.LoggerFactory;
 
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
 import javax.inject.Inject;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Stateless
 public class MovementCreateBean {
@@ -48,43 +64,238 @@ public class MovementCreateBean {
     @Inject
     private MovementService movementService;
 
+    @Inject
+    private FleetStateStore fleetStateStore;
+
     @Inject
     private IncomingMovementBean incomingMovementBean;
     
     @Inject
     private AssetClient assetClient;
 
+    @Inject
+    private AssetEnrichmentCache enrichmentCache;
+
+    @Inject
+    private AssetEnrichmentRestClient assetEnrichmentClient;
+
     @EJB
     private MovementRulesBean movementRulesBean;
 
     @EJB
     private ExchangeBean exchangeBean;
 
+    @Inject
+    private IngestStageMetrics stageMetrics;
+
+    @Inject
+    private PostPersistLookups postPersistLookups;
+
+    @Inject
+    private ProcessedPositionStore processedPositions;
+
+    @Inject
+    private VicinityIndex vicinityIndex;
+
     public UUID processIncomingMovement(IncomingMovement incomingMovement) {
+        AssetMTEnrichmentResponse assetResponse;
+        try {
+            assetResponse = enrich(incomingMovement);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not process incoming movement", e);
+        }
+        return processEnrichedMovement(incomingMovement, assetResponse);
+    }
+
+    /**
+     * Bulk variant of {@link #processIncomingMovement(IncomingMovement)}. The positions are grouped per asset and
+     * sorted by position time so that each asset is resolved, linked and counted once per batch while the rows
+     * themselves are inserted through JDBC batching.
+     */
+    public void processIncomingMovementBatch(List<IncomingMovement> incomingMovements) {
+        Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses;
         try {
+            assetResponses = enrichBatch(incomingMovements);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not process incoming movement batch", e);
+        }
+        processEnrichedMovementBatch(incomingMovements, assetResponses);
+    }
+
+    /**
+     * Resolves asset and mobile terminal for the position. Does not touch the database and can therefore run
+     * before the position is handed to its ingest lane.
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public AssetMTEnrichmentResponse enrich(IncomingMovement incomingMovement) {
+        long start = System.nanoTime();
+        if (incomingMovement.getUpdated() == null) {
+            incomingMovement.setUpdated(Instant.now());
+        }
+        AssetEnrichmentKey cacheKey = AssetEnrichmentKey.of(incomingMovement);
+        AssetMTEnrichmentResponse assetResponse = enrichmentCache.get(cacheKey);
+        if (assetResponse == null) {
+            AssetMTEnrichmentRequest assetRequest = createAssetRequest(incomingMovement);
+            assetResponse = assetClient.collectAssetMT(assetRequest);
+            enrichmentCache.put(cacheKey, assetResponse);
+        }
+        enrichIncomingMovement(incomingMovement, assetResponse);
+        stageMetrics.record(Stage.ENRICH, incomingMovement.getMovementSourceType(), start);
+        return assetResponse;
+    }
+
+    /**
+     * Resolves asset and mobile terminal for a whole batch. Positions from the same transponder share one lookup and
+     * everything not found in the cache is resolved with a single bulk call to the asset module.
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public Map<IncomingMovement, AssetMTEnrichmentResponse> enrichBatch(List<IncomingMovement> incomingMovements) {
+        long start = System.nanoTime();
+        Map<AssetEnrichmentKey, List<IncomingMovement>> movementsPerKey = new LinkedHashMap<>();
+        List<IncomingMovement> withoutIdentifier = new ArrayList<>();
+        for (IncomingMovement incomingMovement : incomingMovements) {
             if (incomingMovement.getUpdated() == null) {
                 incomingMovement.setUpdated(Instant.now());
             }
+            AssetEnrichmentKey cacheKey = AssetEnrichmentKey.of(incomingMovement);
+            if (cacheKey.hasIdentifier()) {
+                movementsPerKey.computeIfAbsent(cacheKey, k -> new ArrayList<>()).add(incomingMovement);
+            } else {
+                withoutIdentifier.add(incomingMovement);
+            }
+        }
 
-            AssetMTEnrichmentRequest assetRequest = createAssetRequest(incomingMovement);
-            AssetMTEnrichmentResponse assetResponse = assetClient.collectAssetMT(assetRequest);
-            enrichIncomingMovement(incomingMovement, assetResponse);
-
-            incomingMovementBean.checkAndSetDuplicate(incomingMovement);
-            if (incomingMovement.isDuplicate() && 
-                    incomingMovement.getMovementSourceType().equals(MovementSourceType.AIS.value())) {
-                LOG.warn("Ignoring duplicate AIS position for {} ({}) with timestamp {}",
-                        incomingMovement.getAssetName(), incomingMovement.getAssetMMSI(), incomingMovement.getPositionTime());
-                return null;
+        Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses = new IdentityHashMap<>();
+        List<AssetEnrichmentKey> keysToCollect = new ArrayList<>();
+        List<AssetMTEnrichmentRequest> requests = new ArrayList<>();
+        for (Map.Entry<AssetEnrichmentKey, List<IncomingMovement>> entry : movementsPerKey.entrySet()) {
+            AssetMTEnrichmentResponse cached = enrichmentCache.get(entry.getKey());
+            if (cached != null) {
+                entry.getValue().forEach(im -> assetResponses.put(im, cached));
+            } else {
+                keysToCollect.add(entry.getKey());
+                requests.add(createAssetRequest(entry.getValue().get(0)));
             }
+        }
+        for (IncomingMovement incomingMovement : withoutIdentifier) {
+            requests.add(createAssetRequest(incomingMovement));
+        }
 
-            Movement previousVms = null;
-            MovementConnect movementConnect = null;
-            if(incomingMovement.getAssetGuid() != null && !incomingMovement.getAssetGuid().isEmpty()) {
-                MovementConnect newMovementConnect = IncomingMovementMapper.mapNewMovementConnect(incomingMovement, incomingMovement.getUpdatedBy());
-                movementConnect = movementService.getOrCreateMovementConnectByConnectId(newMovementConnect);
-                previousVms = getPreviousVms(incomingMovement, movementConnect);
+        List<AssetMTEnrichmentResponse> collected = requests.isEmpty() ? new ArrayList<>() : assetEnrichmentClient.collectAssetMTList(requests);
+        for (int i = 0; i < keysToCollect.size(); i++) {
+            AssetEnrichmentKey cacheKey = keysToCollect.get(i);
+            AssetMTEnrichmentResponse response = collected.get(i);
+            enrichmentCache.put(cacheKey, response);
+            movementsPerKey.get(cacheKey).forEach(im -> assetResponses.put(im, response));
+        }
+        for (int i = 0; i < withoutIdentifier.size(); i++) {
+            assetResponses.put(withoutIdentifier.get(i), collected.get(keysToCollect.size() + i));
+        }
+
+        for (IncomingMovement incomingMovement : incomingMovements) {
+            enrichIncomingMovement(incomingMovement, assetResponses.get(incomingMovement));
+        }
+        if (!incomingMovements.isEmpty()) {
+            stageMetrics.record(Stage.ENRICH, incomingMovements.get(incomingMovements.size() - 1).getMovementSourceType(), start);
+        }
+        return assetResponses;
+    }
+
+    public UUID processEnrichedMovement(IncomingMovement incomingMovement, AssetMTEnrichmentResponse assetResponse) {
+        try {
+            processedPositions.record(Collections.singletonList(incomingMovement));
+            return processMovement(incomingMovement, assetResponse);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not process incoming movement", e);
+        }
+    }
+
+    public void processEnrichedMovementBatch(List<IncomingMovement> incomingMovements, Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses) {
+        try {
+            processedPositions.record(incomingMovements);
+            Map<String, List<IncomingMovement>> movementsPerAsset = new LinkedHashMap<>();
+            for (IncomingMovement incomingMovement : incomingMovements) {
+                if (incomingMovement.getAssetGuid() == null || incomingMovement.getAssetGuid().isEmpty()) {
+                    // Nothing to group on, let the sanity rules deal with it
+                    processMovement(incomingMovement, assetResponses.get(incomingMovement));
+                    continue;
+                }
+                movementsPerAsset.computeIfAbsent(incomingMovement.getAssetGuid(), k -> new ArrayList<>()).add(incomingMovement);
+            }
+            for (List<IncomingMovement> assetMovements : movementsPerAsset.values()) {
+                processAssetBatch(assetMovements, assetResponses);
             }
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not process incoming movement batch", e);
+        }
+    }
+
+    private UUID processMovement(IncomingMovement incomingMovement, AssetMTEnrichmentResponse assetResponse) {
+        String source = incomingMovement.getMovementSourceType();
+        long start = System.nanoTime();
+        incomingMovementBean.checkAndSetDuplicate(incomingMovement);
+        start = stageMetrics.record(Stage.DUPLICATE_CHECK, source, start);
+        if (isDuplicateAis(incomingMovement)) {
+            return null;
+        }
+
+        Movement previousVms = null;
+        MovementConnect movementConnect = null;
+        if(incomingMovement.getAssetGuid() != null && !incomingMovement.getAssetGuid().isEmpty()) {
+            MovementConnect newMovementConnect = IncomingMovementMapper.mapNewMovementConnect(incomingMovement, incomingMovement.getUpdatedBy());
+            movementConnect = movementService.getOrCreateMovementConnectByConnectId(newMovementConnect);
+            previousVms = getPreviousVms(incomingMovement, movementConnect);
+        }
+        start = stageMetrics.record(Stage.PREVIOUS_VMS, source, start);
+
+        if(MovementTypeType.EXI.value().equals(incomingMovement.getMovementType()) && previousVms != null){
+            incomingMovement.setLongitude(previousVms.getLocation().getX());
+            incomingMovement.setLatitude(previousVms.getLocation().getY());
+        }
+
+        UUID reportId = movementSanityValidatorBean.evaluateSanity(incomingMovement);
+        start = stageMetrics.record(Stage.SANITY, source, start);
+        if (reportId != null) {
+            exchangeBean.sendAckToExchange(MovementRefTypeType.ALARM, reportId, incomingMovement.getAckResponseMessageId());
+            stageMetrics.record(Stage.ACK, source, start);
+            return reportId;
+        }
+
+        Movement movement = mapMovement(incomingMovement, movementConnect, previousVms);
+        // Persisting and the track are recorded by the movement service
+        Movement createdMovement = movementService.createAndProcessMovement(movement);
+
+        // send to MovementRules
+        MovementDetails movementDetails = IncomingMovementMapper.mapMovementDetails(incomingMovement, createdMovement, assetResponse);
+        postPersistLookups.addTo(movementDetails, incomingMovement, createdMovement);
+
+        sendToRulesAndAck(incomingMovement, createdMovement, movementDetails, previousVms);
+        return null;
+    }
+
+    private void processAssetBatch(List<IncomingMovement> assetMovements, Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses) {
+        long start = System.nanoTime();
+        List<IncomingMovement> accepted = removeDuplicates(assetMovements);
+        start = stageMetrics.record(Stage.DUPLICATE_CHECK, assetMovements.get(assetMovements.size() - 1).getMovementSourceType(), start);
+        if (accepted.isEmpty()) {
+            return;
+        }
+        accepted.sort(Comparator.comparing(IncomingMovement::getPositionTime, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        IncomingMovement latest = accepted.get(accepted.size() - 1);
+        String source = latest.getMovementSourceType();
+        MovementConnect newMovementConnect = IncomingMovementMapper.mapNewMovementConnect(latest, latest.getUpdatedBy());
+        MovementConnect movementConnect = movementService.getOrCreateMovementConnectByConnectId(newMovementConnect);
+        Movement latestVmsBeforeBatch = getLatestVms(movementConnect);
+        Movement latestVmsInBatch = null;
+
+        List<IncomingMovement> created = new ArrayList<>();
+        List<Movement> movements = new ArrayList<>();
+        List<Movement> previousVmsList = new ArrayList<>();
+        for (IncomingMovement incomingMovement : accepted) {
+            // The first position also carries resolving the asset's connect
+            Movement previousVms = getPreviousVms(incomingMovement, movementConnect.getId(), latestVmsBeforeBatch, latestVmsInBatch);
+            start = stageMetrics.record(Stage.PREVIOUS_VMS, incomingMovement.getMovementSourceType(), start);
 
             if(MovementTypeType.EXI.value().equals(incomingMovement.getMovementType()) && previousVms != null){
                 incomingMovement.setLongitude(previousVms.getLocation().getX());
@@ -92,41 +303,177 @@ public class MovementCreateBean {
             }
 
             UUID reportId = movementSanityValidatorBean.evaluateSanity(incomingMovement);
+            start = stageMetrics.record(Stage.SANITY, incomingMovement.getMovementSourceType(), start);
             if (reportId != null) {
                 exchangeBean.sendAckToExchange(MovementRefTypeType.ALARM, reportId, incomingMovement.getAckResponseMessageId());
-                return reportId;
+                start = stageMetrics.record(Stage.ACK, incomingMovement.getMovementSourceType(), start);
+                continue;
             }
 
-            Movement movement = IncomingMovementMapper.mapNewMovementEntity(incomingMovement, incomingMovement.getUpdatedBy());
-            movement.setMovementConnect(movementConnect);
-            
-            if (previousVms != null && !MovementSourceType.AIS.value().equals(movement.getSource().value()) ) {
-                movement.setCalculatedSpeed(CalculationUtil.getPositionCalculations(previousVms, movement).getAvgSpeed());
+            Movement movement = mapMovement(incomingMovement, movementConnect, previousVms);
+            if (!MovementSourceType.AIS.equals(movement.getSource())) {
+                latestVmsInBatch = movement;
             }
+            created.add(incomingMovement);
+            movements.add(movement);
+            previousVmsList.add(previousVms);
+            start = System.nanoTime();
+        }
+        if (movements.isEmpty()) {
+            return;
+        }
 
-            Movement createdMovement = movementService.createAndProcessMovement(movement);
+        movementService.createAndProcessMovementBatch(movements);
 
-            // send to MovementRules
-            MovementDetails movementDetails = IncomingMovementMapper.mapMovementDetails(incomingMovement, createdMovement, assetResponse);
-            int sumPositionReport = movementService.countNrOfMovementsLastDayForAsset(incomingMovement.getAssetGuid(), incomingMovement.getPositionTime());
-            movementDetails.setSumPositionReport(sumPositionReport);
-            List<VicinityInfoDTO> vicinityOf = movementService.getVicinityOf(createdMovement);
-            movementDetails.setVicinityOf(vicinityOf);
+        start = System.nanoTime();
+        List<Instant> positionTimes = movements.stream().map(Movement::getTimestamp).collect(Collectors.toList());
+        int[] sumPositionReports = movementService.countNrOfMovementsLastDayForAsset(movementConnect.getId().toString(), positionTimes);
+        start = stageMetrics.record(Stage.COUNT, source, start);
+        // Each position gets its own vicinity from the index. Without the index every lookup is a database query,
+        // the vicinity of the newest position then stands in for the whole batch.
+        List<VicinityInfoDTO> batchVicinityOf = null;
+        if (!vicinityIndex.isLoaded()) {
+            batchVicinityOf = movementService.getVicinityOf(movements.get(movements.size() - 1));
+            stageMetrics.record(Stage.VICINITY, source, start);
+        }
 
-            if (previousVms != null) {
-                movementDetails.setPreviousVMSLatitude(previousVms.getLocation().getY());
-                movementDetails.setPreviousVMSLongitude(previousVms.getLocation().getX());
+        for (int i = 0; i < movements.size(); i++) {
+            IncomingMovement incomingMovement = created.get(i);
+            Movement createdMovement = movements.get(i);
+            MovementDetails movementDetails = IncomingMovementMapper.mapMovementDetails(incomingMovement, createdMovement, assetResponses.get(incomingMovement));
+            movementDetails.setSumPositionReport(sumPositionReports[i]);
+            if (batchVicinityOf != null) {
+                movementDetails.setVicinityOf(batchVicinityOf);
+            } else {
+                start = System.nanoTime();
+                movementDetails.setVicinityOf(movementService.getVicinityOf(createdMovement));
+                stageMetrics.record(Stage.VICINITY, incomingMovement.getMovementSourceType(), start);
             }
+            sendToRulesAndAck(incomingMovement, createdMovement, movementDetails, previousVmsList.get(i));
+        }
+    }
 
-            movementRulesBean.send(movementDetails);
-            // report ok to Exchange...
-            // Tracer Id
-            exchangeBean.sendAckToExchange(MovementRefTypeType.MOVEMENT, createdMovement.getId(), incomingMovement.getAckResponseMessageId());
+    /**
+     * Runs the duplicate check against the database and against the earlier positions of the same batch. Duplicate
+     * AIS positions are dropped, other duplicates are kept so that the sanity rules can raise an alarm for them.
+     */
+    private List<IncomingMovement> removeDuplicates(List<IncomingMovement> assetMovements) {
+        Map<Instant, IncomingMovement> positionTimesInBatch = new HashMap<>();
+        for (IncomingMovement incomingMovement : assetMovements) {
+            IncomingMovement placing = incomingMovement;
+            while (placing != null) {
+                placing = checkAndSetDuplicate(placing, positionTimesInBatch);
+            }
+        }
+        List<IncomingMovement> accepted = new ArrayList<>();
+        for (IncomingMovement incomingMovement : assetMovements) {
+            if (!isDuplicateAis(incomingMovement)) {
+                accepted.add(incomingMovement);
+            }
+        }
+        return accepted;
+    }
 
+    /**
+     * Checks a position against the database and the positions of the batch checked before it, a position of the
+     * batch at the same time is treated like a stored one in {@link IncomingMovementBean#checkAndSetDuplicate}. A
+     * different movement type moves the position a second later, a non AIS position from another source moves the
+     * one of the batch a second later instead, anything else is a duplicate. A moved position is checked again at
+     * its new time.
+     *
+     * @return the position of the batch that was moved and has to be checked again, or null
+     */
+    private IncomingMovement checkAndSetDuplicate(IncomingMovement incomingMovement, Map<Instant, IncomingMovement> positionTimesInBatch) {
+        while (true) {
+            Instant positionTime = incomingMovement.getPositionTime();
+            incomingMovementBean.checkAndSetDuplicate(incomingMovement);
+            if (incomingMovement.isDuplicate() || incomingMovement.getPositionTime() == null) {
+                return null;
+            }
+            if (!incomingMovement.getPositionTime().equals(positionTime)) {
+                continue;
+            }
+            IncomingMovement sameTime = positionTimesInBatch.get(positionTime);
+            if (sameTime == null) {
+                positionTimesInBatch.put(positionTime, incomingMovement);
+                return null;
+            }
+            if (!Objects.equals(incomingMovement.getMovementType(), sameTime.getMovementType())) {
+                incomingMovement.setPositionTime(positionTime.plusSeconds(1));
+            } else if (!Objects.equals(incomingMovement.getMovementSourceType(), MovementSourceType.AIS.value()) &&
+                    !Objects.equals(incomingMovement.getMovementSourceType(), sameTime.getMovementSourceType())) {
+                // Don't modify NAF/Inmarsat timestamp, add second to the other position instead
+                positionTimesInBatch.put(positionTime, incomingMovement);
+                sameTime.setPositionTime(positionTime.plusSeconds(1));
+                return sameTime;
+            } else {
+                LOG.info("Got a duplicate movement for Asset {} within batch. Marking it as such.", incomingMovement.getAssetGuid());
+                incomingMovement.setDuplicate(true);
+                return null;
+            }
+        }
+    }
+
+    private boolean isDuplicateAis(IncomingMovement incomingMovement) {
+        if (incomingMovement.isDuplicate() &&
+                incomingMovement.getMovementSourceType().equals(MovementSourceType.AIS.value())) {
+            LOG.warn("Ignoring duplicate AIS position for {} ({}) with timestamp {}",
+                    incomingMovement.getAssetName(), incomingMovement.getAssetMMSI(), incomingMovement.getPositionTime());
+            return true;
+        }
+        return false;
+    }
+
+    private Movement mapMovement(IncomingMovement incomingMovement, MovementConnect movementConnect, Movement previousVms) {
+        Movement movement = IncomingMovementMapper.mapNewMovementEntity(incomingMovement, incomingMovement.getUpdatedBy());
+        movement.setMovementConnect(movementConnect);
+
+        if (previousVms != null && !MovementSourceType.AIS.value().equals(movement.getSource().value()) ) {
+            movement.setCalculatedSpeed(CalculationUtil.getPositionCalculations(previousVms, movement).getAvgSpeed());
+        }
+        return movement;
+    }
+
+    private void sendToRulesAndAck(IncomingMovement incomingMovement, Movement createdMovement, MovementDetails movementDetails, Movement previousVms) {
+        if (previousVms != null) {
+            movementDetails.setPreviousVMSLatitude(previousVms.getLocation().getY());
+            movementDetails.setPreviousVMSLongitude(previousVms.getLocation().getX());
+        }
+
+        String source = incomingMovement.getMovementSourceType();
+        long start = System.nanoTime();
+        movementRulesBean.send(movementDetails);
+        start = stageMetrics.record(Stage.RULES_SEND, source, start);
+        // report ok to Exchange...
+        // Tracer Id
+        exchangeBean.sendAckToExchange(MovementRefTypeType.MOVEMENT, createdMovement.getId(), incomingMovement.getAckResponseMessageId());
+        stageMetrics.record(Stage.ACK, source, start);
+    }
+
+    /**
+     * Previous VMS position for a position in a sorted batch, taking the positions already accepted from the batch
+     * into account without reading them back from the database.
+     */
+    private Movement getPreviousVms(IncomingMovement movement, UUID connectId, Movement latestVmsBeforeBatch, Movement latestVmsInBatch) {
+        if (MovementSourceType.AIS.value().equals(movement.getMovementSourceType())
+                || movement.getPositionTime() == null) {
             return null;
-        } catch (Exception e) {
-            throw new IllegalStateException("Could not process incoming movement", e);
         }
+        Movement previousInBatch = latestVmsInBatch != null && latestVmsInBatch.getTimestamp().isBefore(movement.getPositionTime())
+                ? latestVmsInBatch : null;
+        Movement previousStored;
+        if (latestVmsBeforeBatch != null && latestVmsBeforeBatch.getTimestamp().isBefore(movement.getPositionTime())) {
+            previousStored = latestVmsBeforeBatch;
+        } else {
+            previousStored = movementService.getPreviousVMS(connectId, movement.getPositionTime());
+        }
+        if (previousInBatch == null) {
+            return previousStored;
+        }
+        if (previousStored == null || previousInBatch.getTimestamp().isAfter(previousStored.getTimestamp())) {
+            return previousInBatch;
+        }
+        return previousStored;
     }
 
     private Movement getPreviousVms(IncomingMovement movement, MovementConnect movementConnect) {
@@ -134,7 +481,7 @@ public class MovementCreateBean {
                 || movement.getPositionTime() == null) {
             return null;
         }
-        Movement currentLatestVMS = movementConnect.getLatestVMS();
+        Movement currentLatestVMS = getLatestVms(movementConnect);
         if (currentLatestVMS != null &&
                 currentLatestVMS.getTimestamp().isBefore(movement.getPositionTime())) {
             return currentLatestVMS;
@@ -143,6 +490,30 @@ public class MovementCreateBean {
         }
     }
 
+    /**
+     * Latest VMS position of the asset. Taken from the fleet state when it is known there with a location, the
+     * returned movement is then a detached copy with id, timestamp and location only, so that the lazy association is
+     * not loaded. A fleet state without coordinates falls back to the stored latest VMS.
+     */
+    private Movement getLatestVms(MovementConnect movementConnect) {
+        Movement latestVms = movementConnect.getLatestVMS();
+        if (latestVms == null) {
+            return null;
+        }
+        AssetLatestState state = fleetStateStore.get(movementConnect);
+        if (state == null) {
+            return latestVms;
+        }
+        if (Double.isNaN(state.getLatestVmsLongitude()) || Double.isNaN(state.getLatestVmsLatitude())) {
+            return latestVms;
+        }
+        Movement snapshot = new Movement();
+        snapshot.setId(state.getLatestVmsId());
+        snapshot.setTimestamp(state.getLatestVmsTimestamp());
+        snapshot.setLocation(GeometryUtil.getPoint(state.getLatestVmsLongitude(), state.getLatestVmsLatitude()));
+        return snapshot;
+    }
+
     private void enrichIncomingMovement(IncomingMovement im, AssetMTEnrichmentResponse response) {
         im.setMobileTerminalConnectId(response.getMobileTerminalConnectId());
         if (response.getMobileTerminalIsInactive() != null) {
@@ -0,0 +1,164 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Entry point for positions arriving on the movement queue. Enrichment runs on the calling thread, the database work
+ * is handed to the ingest lane of the asset and runs there in its own transaction. The caller waits for the lane so
+ * that a failure still rolls back and redelivers the message.
+ * <p>
+ * With a reorder window the positions are held by {@link PositionReorderBuffer} first and reach the lane in
+ * timestamp order.
+ * <p>
+ * Positions of a redelivered message that were stored by an earlier delivery are skipped after enrichment, see
+ * {@link ProcessedPositionStore}.
+ * <p>
+ * A batch is not stored atomically. Every lane and the positions without an asset commit in their own transaction,
+ * the caller waits for all of them before it reports the first failure. The message is then redelivered while the
+ * parts that succeeded stay committed, the redelivery skips them.
+ */
+@Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class MovementIngestBean {
+
+    @Inject
+    private MovementCreateBean movementCreate;
+
+    @Inject
+    private IngestLaneExecutor laneExecutor;
+
+    @Inject
+    private PositionReorderBuffer reorderBuffer;
+
+    @Inject
+    private ProcessedPositionStore processedPositions;
+
+    public UUID ingest(IncomingMovement incomingMovement, boolean redelivered) {
+        try {
+            AssetMTEnrichmentResponse assetResponse = movementCreate.enrich(incomingMovement);
+            if (redelivered && processedPositions.removeProcessed(Collections.singletonList(incomingMovement)).isEmpty()) {
+                return null;
+            }
+            if (reorderBuffer.isEnabled() && hasAsset(incomingMovement)) {
+                IngestLaneExecutor.await(reorderBuffer.hold(incomingMovement, assetResponse));
+                return null;
+            }
+            return laneExecutor.execute(incomingMovement.getAssetGuid(),
+                    () -> movementCreate.processEnrichedMovement(incomingMovement, assetResponse));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not process incoming movement", e);
+        }
+    }
+
+    public void ingestBatch(List<IncomingMovement> incomingMovements, boolean redelivered) {
+        try {
+            Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses = movementCreate.enrichBatch(incomingMovements);
+            if (redelivered) {
+                incomingMovements = processedPositions.removeProcessed(incomingMovements);
+                if (incomingMovements.isEmpty()) {
+                    return;
+                }
+            }
+            if (reorderBuffer.isEnabled()) {
+                holdBatch(incomingMovements, assetResponses);
+                return;
+            }
+
+            List<IncomingMovement> withoutAsset = new ArrayList<>();
+            Map<Integer, List<IncomingMovement>> movementsPerLane = new TreeMap<>();
+            for (IncomingMovement incomingMovement : incomingMovements) {
+                if (!hasAsset(incomingMovement)) {
+                    withoutAsset.add(incomingMovement);
+                } else {
+                    movementsPerLane.computeIfAbsent(laneExecutor.laneOf(incomingMovement.getAssetGuid()), k -> new ArrayList<>())
+                            .add(incomingMovement);
+                }
+            }
+
+            List<Future<Void>> lanes = new ArrayList<>();
+            Exception rejected = null;
+            for (Map.Entry<Integer, List<IncomingMovement>> entry : movementsPerLane.entrySet()) {
+                try {
+                    lanes.add(laneExecutor.submit(entry.getKey(), () -> {
+                        movementCreate.processEnrichedMovementBatch(entry.getValue(), assetResponses);
+                        return null;
+                    }));
+                } catch (RejectedExecutionException e) {
+                    rejected = e;
+                    break;
+                }
+            }
+            awaitAll(lanes, rejected != null ? rejected : processWithoutAsset(withoutAsset, assetResponses));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not process incoming movement batch", e);
+        }
+    }
+
+    private void holdBatch(List<IncomingMovement> incomingMovements, Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses) throws Exception {
+        List<Future<Void>> held = new ArrayList<>();
+        List<IncomingMovement> withoutAsset = new ArrayList<>();
+        for (IncomingMovement incomingMovement : incomingMovements) {
+            if (hasAsset(incomingMovement)) {
+                held.add(reorderBuffer.hold(incomingMovement, assetResponses.get(incomingMovement)));
+            } else {
+                withoutAsset.add(incomingMovement);
+            }
+        }
+        awaitAll(held, processWithoutAsset(withoutAsset, assetResponses));
+    }
+
+    /**
+     * Runs on the calling thread while the lanes work.
+     *
+     * @return the failure, so that the lanes are still waited for
+     */
+    private Exception processWithoutAsset(List<IncomingMovement> withoutAsset, Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses) {
+        if (withoutAsset.isEmpty()) {
+            return null;
+        }
+        try {
+            movementCreate.processEnrichedMovementBatch(withoutAsset, assetResponses);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    /**
+     * Waits for all futures, also after a failure, and throws the first failure with the others suppressed.
+     */
+    private static void awaitAll(List<Future<Void>> futures, Exception failure) throws Exception {
+        for (Future<Void> future : futures) {
+            try {
+                IngestLaneExecutor.await(future);
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static boolean hasAsset(IncomingMovement incomingMovement) {
+        return incomingMovement.getAssetGuid() != null && !incomingMovement.getAssetGuid().isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.config.exception.ConfigServiceException;
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ejb.EJB;
+import javax.ejb.Stateless;
+
+/**
+ * Typed access to the module parameters, falling back to a default when a parameter is missing or malformed.
+ */
+@Stateless
+public class MovementParameterHelper {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MovementParameterHelper.class);
+
+    @EJB
+    private ParameterService parameterService;
+
+    public int getIntValue(ParameterKey key, int defaultValue) {
+        String value = getValue(key);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Could not parse parameter {} with value {}, using {}", key.getKey(), value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLongValue(ParameterKey key, long defaultValue) {
+        String value = getValue(key);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Could not parse parameter {} with value {}, using {}", key.getKey(), value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public double getDoubleValue(ParameterKey key, double defaultValue) {
+        String value = getValue(key);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Could not parse parameter {} with value {}, using {}", key.getKey(), value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBooleanValue(ParameterKey key, boolean defaultValue) {
+        String value = getValue(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    private String getValue(ParameterKey key) {
+        try {
+            String value = parameterService.getStringValue(key.getKey());
+            return value == null || value.trim().isEmpty() ? null : value;
+        } catch (ConfigServiceException | RuntimeException e) {
+            LOG.debug("Parameter {} is not set, using default", key.getKey());
+            return null;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import eu.europa.ec.fisheries.schema.movement.search.v1.MovementQuery;
 import eu.europa.ec.fisheries.schema.movement.source.v1.GetMovementMapByQueryResponse;
 import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
 import eu.europa.ec.fisheries.schema.movement.v1.MovementType;
+import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
 import eu.europa.ec.fisheries.uvms.asset.client.AssetClient;
 import eu.europa.ec.fisheries.uvms.config.exception.ConfigServiceException;
 import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
@@ -24,6 +25,7 @@ import eu.europa.ec.fisheries.uvms.movement.model.dto.MovementDto;
 import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
 import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
 import eu.europa.ec.fisheries.uvms.movement.service.dto.CursorPagination;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
 import eu.europa.ec.fisheries.uvms.movement.service.event.CreatedMovement;
@@ -32,6 +34,8 @@ import eu.europa.ec.fisheries.uvms.movement.service.mapper.MovementMapper;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.MovementResponseMapper;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.search.SearchFieldMapper;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.search.SearchValue;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestStageMetrics.Stage;
+import eu.europa.ec.fisheries.uvms.movement.service.util.PositionCountRing;
 import eu.europa.ec.fisheries.uvms.movementrules.model.dto.VicinityInfoDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 @Stateless
@@ -73,13 +78,37 @@ public class MovementService {
     @EJB
     private ParameterService parameterService;
 
+    @Inject
+    private AssetEnrichmentCache enrichmentCache;
+
+    @Inject
+    private FleetStateStore fleetStateStore;
+
+    @Inject
+    private DuplicateDetector duplicateDetector;
+
+    @Inject
+    private PositionCounter positionCounter;
+
+    @Inject
+    private VicinityIndex vicinityIndex;
+
+    @Inject
+    private TrackService trackService;
+
+    @Inject
+    private IngestStageMetrics stageMetrics;
+
     @Inject
     @CreatedMovement
     private Event<Movement> createdMovementEvent;
 
     public Movement createAndProcessMovement(Movement movement) {
+        long start = System.nanoTime();
         createMovement(movement);
+        start = stageMetrics.record(Stage.PERSIST, movement.getSource(), start);
         incomingMovementBean.processMovement(movement);
+        stageMetrics.record(Stage.TRACK, movement.getSource(), start);
         fireMovementEvent(movement);
         if (!movement.getSource().equals(MovementSourceType.AIS)) {
             auditService.sendMovementCreatedAudit(movement, movement.getUpdatedBy());
@@ -88,14 +117,59 @@ public class MovementService {
     }
 
     public List<Movement> createMovementBatch(List<Movement> movements) {
+        List<MovementSegment> segments = new ArrayList<>();
         for (Movement movement : movements) {
             createMovement(movement);
-            incomingMovementBean.processMovement(movement);
+            MovementSegment segment = incomingMovementBean.processMovementWithoutTrack(movement);
+            if (segment != null) {
+                segments.add(segment);
+            }
         }
+        trackService.upsertTracks(segments, trackService.categorize(segments));
         return movements;
 
     }
 
+    /**
+     * Persists and links a batch of movements belonging to the same asset. The movements are expected to be sorted
+     * by timestamp and to share the same, already resolved, MovementConnect. Inserts are left to the JDBC batching
+     * of the persistence context and the created movement event is fired once, for the latest movement. The
+     * segments of the batch are categorised together before the tracks are updated.
+     */
+    public List<Movement> createAndProcessMovementBatch(List<Movement> movements) {
+        if (movements.isEmpty()) {
+            return movements;
+        }
+        MovementSourceType source = movements.get(movements.size() - 1).getSource();
+        long start = System.nanoTime();
+        List<MovementSegment> segments = new ArrayList<>();
+        for (Movement movement : movements) {
+            if (movement.getMovementConnect() == null || movement.getMovementConnect().getId() == null) {
+                throw new IllegalArgumentException("No movementConnect ID");
+            }
+            movementDao.createMovement(movement);
+            duplicateDetector.record(movement);
+            positionCounter.record(movement);
+            MovementSegment segment = incomingMovementBean.processMovementWithoutTrack(movement);
+            if (segment != null) {
+                segments.add(segment);
+            }
+        }
+        stageMetrics.record(Stage.PERSIST, source, start);
+        // The segments are categorised while the audit messages are sent
+        CompletionStage<List<SegmentCategoryType>> categories = trackService.categorize(segments);
+        for (Movement movement : movements) {
+            if (!movement.getSource().equals(MovementSourceType.AIS)) {
+                auditService.sendMovementCreatedAudit(movement, movement.getUpdatedBy());
+            }
+        }
+        start = System.nanoTime();
+        trackService.upsertTracks(segments, categories);
+        stageMetrics.record(Stage.TRACK, source, start);
+        fireMovementEvent(movements.get(movements.size() - 1));
+        return movements;
+    }
+
     public Movement createMovement(Movement movement) {
         if(movement.getMovementConnect().getId() == null) {
             throw new IllegalArgumentException("No movementConnect ID");
@@ -105,7 +179,10 @@ public class MovementService {
             MovementConnect moveConnect = getOrCreateMovementConnectByConnectId(movement.getMovementConnect());
 
             movement.setMovementConnect(moveConnect);
-            return movementDao.createMovement(movement);
+            movementDao.createMovement(movement);
+            duplicateDetector.record(movement);
+            positionCounter.record(movement);
+            return movement;
         } catch (Exception e) {
             throw new EJBException("Could not create movement.", e);
         }
@@ -229,8 +306,54 @@ public class MovementService {
     }
 	
     public int countNrOfMovementsLastDayForAsset(String asset, Instant positionTime) {
-        return (int) movementDao.countNrOfMovementsForAssetBetween(UUID.fromString(asset), positionTime.minus(1,
-                ChronoUnit.DAYS), positionTime);
+        return (int) positionCounter.count(UUID.fromString(asset), positionTime.minus(1, ChronoUnit.DAYS), positionTime);
+    }
+
+    /**
+     * Same as {@link #countNrOfMovementsLastDayForAsset(String, Instant)} for a sorted list of position times of one
+     * asset, using one count for the latest position and the timestamps within the span of the batch to derive the rest.
+     */
+    public int[] countNrOfMovementsLastDayForAsset(String asset, List<Instant> positionTimes) {
+        int[] counts = new int[positionTimes.size()];
+        if (positionTimes.isEmpty()) {
+            return counts;
+        }
+        UUID assetId = UUID.fromString(asset);
+        if (countInMemory(assetId, positionTimes, counts)) {
+            return counts;
+        }
+        Instant first = positionTimes.get(0);
+        Instant last = positionTimes.get(positionTimes.size() - 1);
+        long lastCount = movementDao.countNrOfMovementsForAssetBetween(assetId, last.minus(1, ChronoUnit.DAYS), last);
+        if (first.equals(last)) {
+            Arrays.fill(counts, (int) lastCount);
+            return counts;
+        }
+        List<Instant> withinBatch = movementDao.getMovementTimestampsForAssetBetween(assetId, first, last);
+        List<Instant> leavingWindow = movementDao.getMovementTimestampsForAssetBetween(assetId,
+                first.minus(1, ChronoUnit.DAYS), last.minus(1, ChronoUnit.DAYS));
+
+        // count[t - 1 day, t] = count[last - 1 day, last] - count(t, last] + count[t - 1 day, last - 1 day)
+        for (int i = 0; i < counts.length; i++) {
+            Instant positionTime = positionTimes.get(i);
+            Instant windowStart = positionTime.minus(1, ChronoUnit.DAYS);
+            Instant lastWindowStart = last.minus(1, ChronoUnit.DAYS);
+            long newer = withinBatch.stream().filter(t -> t.isAfter(positionTime)).count();
+            long older = leavingWindow.stream().filter(t -> !t.isBefore(windowStart) && t.isBefore(lastWindowStart)).count();
+            counts[i] = (int) (lastCount - newer + older);
+        }
+        return counts;
+    }
+
+    private boolean countInMemory(UUID assetId, List<Instant> positionTimes, int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            Instant positionTime = positionTimes.get(i);
+            counts[i] = positionCounter.tryCount(assetId, positionTime.minus(1, ChronoUnit.DAYS), positionTime);
+            if (counts[i] == PositionCountRing.NOT_AVAILABLE) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public List<MovementDto> getLatestMovementsLast8Hours(List<MovementSourceType> sources) {
@@ -244,6 +367,9 @@ public class MovementService {
     public List<VicinityInfoDTO> getVicinityOf(Movement movement) {
         try {
             String maxDistance = parameterService.getStringValue(ParameterKey.MAX_DISTANCE.getKey());
+            if (vicinityIndex.isLoaded()) {
+                return vicinityIndex.getVicinityOf(movement, Double.parseDouble(maxDistance));
+            }
             return movementDao.getVicinityOfMovement(movement, Double.parseDouble(maxDistance));
         } catch (ConfigServiceException | NullPointerException | NumberFormatException e) {
             LOG.error("Could not parse maxDistance parameter!");
@@ -282,6 +408,15 @@ public class MovementService {
         }
 
         int numberOfChanged = movementDao.updateToNewMovementConnect(oldMovementConnect.getId(), newMovementConnect.getId(), 10000);
+        enrichmentCache.invalidate(Arrays.asList(oldMovementConnectId, newMovementConnectId));
+        fleetStateStore.evict(oldMovementConnect.getId());
+        fleetStateStore.evict(newMovementConnect.getId());
+        positionCounter.evict(oldMovementConnect.getId());
+        positionCounter.evict(newMovementConnect.getId());
+        vicinityIndex.evict(oldMovementConnect.getId());
+        vicinityIndex.evict(newMovementConnect.getId());
+        duplicateDetector.evict(oldMovementConnect.getId());
+        duplicateDetector.evict(newMovementConnect.getId());
 
         return numberOfChanged;
     }
@@ -0,0 +1,266 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementTimestamp;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.PositionCountStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.util.PositionCountRing;
+import eu.europa.ec.fisheries.uvms.movement.service.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Counts the positions of an asset within a span of time from per minute counters kept in memory, used for the
+ * number of positions during the last day that is sent with every created movement.
+ * <p>
+ * The counters of an asset are loaded from the database the first time it is counted and updated when a transaction
+ * storing positions for it commits. Positions stored by the current transaction are added on top. Spans that start
+ * before what the counters cover, or that split a minute the counters cannot split exactly, are counted in the
+ * database.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class PositionCounter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PositionCounter.class);
+
+    private static final int DEFAULT_MINUTES = 30 * 60;
+    private static final int MIN_MINUTES = 24 * 60 + 1;
+    private static final int STRIPES = 4096;
+
+    private static final String PENDING_POSITIONS = PositionCounter.class.getName() + ".pending";
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @Resource
+    private SessionContext sessionContext;
+
+    private final Map<UUID, PositionCountRing> rings = new ConcurrentHashMap<>();
+
+    // Bumped for every change to an asset, a ring is only installed if nothing changed while it was loaded
+    private final Object[] locks = new Object[STRIPES];
+    private final long[] versions = new long[STRIPES];
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rejectedLoads = new LongAdder();
+    private final LongAdder counts = new LongAdder();
+    private final LongAdder databaseFallbacks = new LongAdder();
+
+    private int minutes;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        minutes = parameterHelper.getIntValue(ParameterKey.POSITION_COUNT_MINUTES, DEFAULT_MINUTES);
+        if (minutes <= 0) {
+            LOG.info("In memory position count is disabled");
+            return;
+        }
+        minutes = Math.max(MIN_MINUTES, minutes);
+    }
+
+    /**
+     * @return the number of positions of the asset between from and to, both inclusive
+     */
+    public long count(UUID assetId, Instant from, Instant to) {
+        int count = tryCount(assetId, from, to);
+        if (count == PositionCountRing.NOT_AVAILABLE) {
+            return movementDao.countNrOfMovementsForAssetBetween(assetId, from, to);
+        }
+        return count;
+    }
+
+    /**
+     * Like {@link #count(UUID, Instant, Instant)} without going to the database.
+     *
+     * @return the number of positions or {@link PositionCountRing#NOT_AVAILABLE}
+     */
+    public int tryCount(UUID assetId, Instant from, Instant to) {
+        counts.increment();
+        if (minutes <= 0) {
+            databaseFallbacks.increment();
+            return PositionCountRing.NOT_AVAILABLE;
+        }
+        PositionCountRing ring = rings.get(assetId);
+        if (ring == null) {
+            ring = sessionContext.getBusinessObject(PositionCounter.class).load(assetId);
+        }
+        int count = ring == null ? PositionCountRing.NOT_AVAILABLE : ring.count(from, to);
+        if (count == PositionCountRing.NOT_AVAILABLE) {
+            databaseFallbacks.increment();
+            return count;
+        }
+        PendingPositions pending = pendingPositions(false).get(assetId);
+        if (pending != null) {
+            count += pending.count(from, to);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the position to the counters once the current transaction commits.
+     */
+    public void record(Movement movement) {
+        if (minutes <= 0 || movement.getTimestamp() == null) {
+            return;
+        }
+        UUID assetId = movement.getMovementConnect().getId();
+        Instant timestamp = movement.getTimestamp();
+        pendingPositions(true).computeIfAbsent(assetId, id -> new PendingPositions()).added.add(timestamp);
+        TransactionCallbacks.afterCommit(transactionRegistry, () -> apply(assetId, ring -> ring.add(timestamp)));
+    }
+
+    /**
+     * Like {@link #record(Movement)} for a stored position whose timestamp was changed.
+     */
+    public void recordMoved(Movement movement, Instant previousTimestamp) {
+        if (minutes <= 0) {
+            return;
+        }
+        UUID assetId = movement.getMovementConnect().getId();
+        pendingPositions(true).computeIfAbsent(assetId, id -> new PendingPositions()).removed.add(previousTimestamp);
+        TransactionCallbacks.afterCommit(transactionRegistry, () -> apply(assetId, ring -> ring.remove(previousTimestamp)));
+        record(movement);
+    }
+
+    /**
+     * Drops the counters of the asset, now and once the current transaction has completed.
+     */
+    public void evict(UUID assetId) {
+        apply(assetId, null);
+        TransactionCallbacks.afterCompletion(transactionRegistry, status -> apply(assetId, null));
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public PositionCountRing load(UUID assetId) {
+        // Only committed positions, the ones of the calling transaction are pending
+        int stripe = stripe(assetId);
+        long version;
+        synchronized (locks[stripe]) {
+            version = versions[stripe];
+        }
+        Instant from = Instant.now().truncatedTo(ChronoUnit.MINUTES).minus(minutes - 1L, ChronoUnit.MINUTES);
+        PositionCountRing ring = new PositionCountRing(minutes, from);
+        for (MovementTimestamp row : movementDao.getMovementTimestampsForAssetsSince(Collections.singletonList(assetId), from)) {
+            ring.add(row.getTimestamp());
+        }
+        loads.increment();
+        synchronized (locks[stripe]) {
+            if (versions[stripe] != version) {
+                rejectedLoads.increment();
+                return null;
+            }
+            PositionCountRing existing = rings.putIfAbsent(assetId, ring);
+            return existing != null ? existing : ring;
+        }
+    }
+
+    @Schedule(hour = "*", minute = "15", persistent = false)
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void dropIdleAssets() {
+        Instant idleBefore = Instant.now().minus(minutes, ChronoUnit.MINUTES);
+        rings.values().removeIf(ring -> ring.getLatestMinute().isBefore(idleBefore));
+    }
+
+    public PositionCountStatistics getStatistics() {
+        PositionCountStatistics statistics = new PositionCountStatistics();
+        statistics.setMinutes(Math.max(0, minutes));
+        statistics.setTrackedAssets(rings.size());
+        statistics.setLoads(loads.sum());
+        statistics.setRejectedLoads(rejectedLoads.sum());
+        statistics.setCounts(counts.sum());
+        statistics.setDatabaseFallbacks(databaseFallbacks.sum());
+        return statistics;
+    }
+
+    private void apply(UUID assetId, Consumer<PositionCountRing> change) {
+        int stripe = stripe(assetId);
+        synchronized (locks[stripe]) {
+            versions[stripe]++;
+            if (change == null) {
+                rings.remove(assetId);
+                return;
+            }
+            PositionCountRing ring = rings.get(assetId);
+            if (ring != null) {
+                change.accept(ring);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<UUID, PendingPositions> pendingPositions(boolean create) {
+        if (transactionRegistry.getTransactionKey() == null) {
+            return create ? new HashMap<>() : Collections.emptyMap();
+        }
+        Map<UUID, PendingPositions> pending = (Map<UUID, PendingPositions>) transactionRegistry.getResource(PENDING_POSITIONS);
+        if (pending == null) {
+            if (!create) {
+                return Collections.emptyMap();
+            }
+            pending = new HashMap<>();
+            transactionRegistry.putResource(PENDING_POSITIONS, pending);
+        }
+        return pending;
+    }
+
+    private static int stripe(UUID assetId) {
+        return (assetId.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private static class PendingPositions {
+
+        private final List<Instant> added = new ArrayList<>();
+        private final List<Instant> removed = new ArrayList<>();
+
+        private int count(Instant from, Instant to) {
+            return within(added, from, to) - within(removed, from, to);
+        }
+
+        private static int within(List<Instant> timestamps, Instant from, Instant to) {
+            int count = 0;
+            for (Instant timestamp : timestamps) {
+                if (!timestamp.isBefore(from) && !timestamp.isAfter(to)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
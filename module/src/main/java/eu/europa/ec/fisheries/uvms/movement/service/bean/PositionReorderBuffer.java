@@ -0,0 +1,204 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.ReorderBufferStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.util.ReorderWindow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.DependsOn;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the positions of an asset for a short window and hands them to the ingest lane of the asset in timestamp
+ * order, so that a position arriving a little late is stored before the later ones instead of being spliced in
+ * between them afterwards.
+ * <p>
+ * Callers wait until their position has been processed, a failure still rolls back and redelivers the message. This
+ * limits what the buffer can do:
+ * <ul>
+ *     <li>Only positions that are in flight at the same time are reordered. A position that arrives later than the
+ *     window, like satellite VMS that is minutes late, is spliced into the track as before and counted as spliced.</li>
+ *     <li>Every held message blocks its consumer for up to the window, the consumers can take at most one message
+ *     each per window.</li>
+ *     <li>The wait is part of the transaction of the message, so the window is capped at {@value #MAX_WINDOW_MILLIS}
+ *     ms, well below the transaction timeout.</li>
+ * </ul>
+ * The window is meant for the jitter between receivers and plugins, a few hundred milliseconds to a few seconds.
+ */
+@Singleton
+@Startup
+@DependsOn("IngestLaneExecutor")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class PositionReorderBuffer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PositionReorderBuffer.class);
+
+    private static final long MIN_TICK_MILLIS = 50;
+    static final long MAX_WINDOW_MILLIS = 5_000;
+
+    @Inject
+    private MovementCreateBean movementCreate;
+
+    @Inject
+    private IngestLaneExecutor laneExecutor;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private long windowMillis;
+    private ReorderWindow<String, HeldPosition> window;
+    private ScheduledFuture<?> releaser;
+
+    private final LongAdder held = new LongAdder();
+    private final LongAdder reordered = new LongAdder();
+    private final LongAdder spliced = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        windowMillis = parameterHelper.getLongValue(ParameterKey.REORDER_WINDOW_MILLIS, 0L);
+        if (windowMillis <= 0) {
+            LOG.info("Reordering of incoming positions is disabled");
+            return;
+        }
+        if (windowMillis > MAX_WINDOW_MILLIS) {
+            LOG.warn("Reorder window of {} ms is too long, consumers wait for it in their transaction, using {} ms",
+                    windowMillis, MAX_WINDOW_MILLIS);
+            windowMillis = MAX_WINDOW_MILLIS;
+        }
+        window = new ReorderWindow<>(windowMillis);
+        long tick = Math.max(MIN_TICK_MILLIS, windowMillis / 4);
+        releaser = scheduler.scheduleWithFixedDelay(this::releaseDue, tick, tick, TimeUnit.MILLISECONDS);
+        LOG.info("Holding incoming positions for {} ms to reorder them", windowMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (releaser != null) {
+            releaser.cancel(false);
+            releaser = null;
+            release(window.releaseAll());
+        }
+        window = null;
+    }
+
+    public boolean isEnabled() {
+        return window != null;
+    }
+
+    /**
+     * Holds an enriched position that has an asset.
+     *
+     * @return completed once the position has been processed
+     */
+    public CompletableFuture<Void> hold(IncomingMovement incomingMovement, AssetMTEnrichmentResponse assetResponse) {
+        HeldPosition position = new HeldPosition(incomingMovement, assetResponse);
+        held.increment();
+        if (window.add(incomingMovement.getAssetGuid(), incomingMovement.getPositionTime(), position, System.currentTimeMillis())) {
+            reordered.increment();
+        }
+        return position.processed;
+    }
+
+    /**
+     * Counts a position that was older than the latest position of its asset when it was stored.
+     */
+    public void countSplice() {
+        spliced.increment();
+    }
+
+    public ReorderBufferStatistics getStatistics() {
+        ReorderBufferStatistics statistics = new ReorderBufferStatistics();
+        statistics.setWindowMillis(Math.max(0, windowMillis));
+        statistics.setHeldPositions(window != null ? window.size() : 0);
+        statistics.setHeldAssets(window != null ? window.keys() : 0);
+        statistics.setHeld(held.sum());
+        statistics.setReordered(reordered.sum());
+        statistics.setSpliced(spliced.sum());
+        statistics.setReleases(releases.sum());
+        return statistics;
+    }
+
+    private void releaseDue() {
+        try {
+            release(window.releaseDue(System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            // Keep the releaser scheduled
+            LOG.error("Could not release held positions", e);
+        }
+    }
+
+    private void release(Map<String, List<HeldPosition>> due) {
+        for (Map.Entry<String, List<HeldPosition>> entry : due.entrySet()) {
+            List<HeldPosition> positions = entry.getValue();
+            releases.increment();
+            try {
+                laneExecutor.submit(laneExecutor.laneOf(entry.getKey()), () -> {
+                    process(positions);
+                    return null;
+                });
+            } catch (RejectedExecutionException e) {
+                positions.forEach(position -> position.processed.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void process(List<HeldPosition> positions) {
+        List<IncomingMovement> incomingMovements = new ArrayList<>(positions.size());
+        Map<IncomingMovement, AssetMTEnrichmentResponse> assetResponses = new IdentityHashMap<>();
+        for (HeldPosition position : positions) {
+            incomingMovements.add(position.incomingMovement);
+            assetResponses.put(position.incomingMovement, position.assetResponse);
+        }
+        try {
+            movementCreate.processEnrichedMovementBatch(incomingMovements, assetResponses);
+            positions.forEach(position -> position.processed.complete(null));
+        } catch (RuntimeException e) {
+            // One by one, so that only the messages of the positions that fail are redelivered
+            LOG.warn("Could not process {} held positions together, processing them one by one", positions.size(), e);
+            for (HeldPosition position : positions) {
+                try {
+                    movementCreate.processEnrichedMovement(position.incomingMovement, position.assetResponse);
+                    position.processed.complete(null);
+                } catch (RuntimeException failure) {
+                    position.processed.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    private static class HeldPosition {
+
+        private final IncomingMovement incomingMovement;
+        private final AssetMTEnrichmentResponse assetResponse;
+        private final CompletableFuture<Void> processed = new CompletableFuture<>();
+
+        private HeldPosition(IncomingMovement incomingMovement, AssetMTEnrichmentResponse assetResponse) {
+            this.incomingMovement = incomingMovement;
+            this.assetResponse = assetResponse;
+        }
+    }
+}
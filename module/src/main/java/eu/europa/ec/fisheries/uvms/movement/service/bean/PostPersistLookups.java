@@ -0,0 +1,191 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestStageMetrics.Stage;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.PostPersistLookupStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
+import eu.europa.ec.fisheries.uvms.movementrules.model.dto.MovementDetails;
+import eu.europa.ec.fisheries.uvms.movementrules.model.dto.VicinityInfoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Looks up the number of positions during the last day and the vicinity of a created movement for the details sent
+ * to MovementRules.
+ * <p>
+ * The position count is always taken on the calling thread, from memory or else from the database, so that it
+ * includes every position the calling transaction stored. It is never left out. When the vicinity index is not loaded
+ * the vicinity is looked up on the managed executor in a transaction of its own while the count is taken, and is
+ * waited for at most the configured time from the start of both. A vicinity that fails or is not found in time is
+ * sent as an empty list, which MovementRules can not tell from no other vessels nearby; such movements are counted
+ * as partial. If the executor rejects the lookup it is done on the calling thread.
+ * <p>
+ * With no timeout configured both are looked up one after the other on the calling thread.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class PostPersistLookups {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PostPersistLookups.class);
+
+    @Inject
+    private MovementService movementService;
+
+    @Inject
+    private VicinityIndex vicinityIndex;
+
+    @Inject
+    private IngestStageMetrics stageMetrics;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Resource
+    private ManagedExecutorService executorService;
+
+    private long timeoutMillis;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder inMemory = new LongAdder();
+    private final LongAdder parallel = new LongAdder();
+    private final LongAdder partial = new LongAdder();
+    private final LongAdder vicinityTimeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        timeoutMillis = Math.max(0, parameterHelper.getLongValue(ParameterKey.POST_PERSIST_TIMEOUT_MILLIS, 0));
+        if (timeoutMillis > 0) {
+            LOG.info("Vicinity is looked up in parallel with the position count within {} ms", timeoutMillis);
+        }
+    }
+
+    /**
+     * Sets the number of positions during the last day and the vicinity of the created movement on the details.
+     */
+    public void addTo(MovementDetails movementDetails, IncomingMovement incomingMovement, Movement createdMovement) {
+        lookups.increment();
+        String source = incomingMovement.getMovementSourceType();
+        if (timeoutMillis <= 0) {
+            long start = System.nanoTime();
+            movementDetails.setSumPositionReport(movementService.countNrOfMovementsLastDayForAsset(incomingMovement.getAssetGuid(), incomingMovement.getPositionTime()));
+            start = stageMetrics.record(Stage.COUNT, source, start);
+            movementDetails.setVicinityOf(movementService.getVicinityOf(createdMovement));
+            stageMetrics.record(Stage.VICINITY, source, start);
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Future<List<VicinityInfoDTO>> vicinityLookup = lookUpVicinity(createdMovement, source);
+        if (vicinityLookup.isDone()) {
+            inMemory.increment();
+        } else {
+            parallel.increment();
+        }
+
+        long start = System.nanoTime();
+        movementDetails.setSumPositionReport(movementService.countNrOfMovementsLastDayForAsset(incomingMovement.getAssetGuid(), incomingMovement.getPositionTime()));
+        stageMetrics.record(Stage.COUNT, source, start);
+
+        List<VicinityInfoDTO> vicinityOf = await(vicinityLookup, deadline);
+        movementDetails.setVicinityOf(vicinityOf != null ? vicinityOf : new ArrayList<>());
+        if (vicinityOf == null) {
+            partial.increment();
+            LOG.warn("Sending movement {} without vicinity after {} ms", createdMovement.getId(), timeoutMillis);
+        }
+    }
+
+    public PostPersistLookupStatistics getStatistics() {
+        PostPersistLookupStatistics statistics = new PostPersistLookupStatistics();
+        statistics.setTimeoutMillis(timeoutMillis);
+        statistics.setLookups(lookups.sum());
+        statistics.setInMemory(inMemory.sum());
+        statistics.setParallel(parallel.sum());
+        statistics.setPartial(partial.sum());
+        statistics.setVicinityTimeouts(vicinityTimeouts.sum());
+        statistics.setFailures(failures.sum());
+        return statistics;
+    }
+
+    private Future<List<VicinityInfoDTO>> lookUpVicinity(Movement createdMovement, String source) {
+        long start = System.nanoTime();
+        if (vicinityIndex.isLoaded()) {
+            List<VicinityInfoDTO> vicinityOf = movementService.getVicinityOf(createdMovement);
+            stageMetrics.record(Stage.VICINITY, source, start);
+            return CompletableFuture.completedFuture(vicinityOf);
+        }
+        // A copy with what the query needs, so the entity is not touched by another thread
+        Movement position = new Movement();
+        position.setLocation(createdMovement.getLocation());
+        MovementConnect movementConnect = new MovementConnect();
+        movementConnect.setId(createdMovement.getMovementConnect().getId());
+        position.setMovementConnect(movementConnect);
+        return submit(() -> {
+            long lookupStart = System.nanoTime();
+            List<VicinityInfoDTO> vicinityOf = movementService.getVicinityOf(position);
+            stageMetrics.record(Stage.VICINITY, source, lookupStart);
+            return vicinityOf;
+        });
+    }
+
+    private <T> Future<T> submit(Callable<T> lookup) {
+        try {
+            return executorService.submit(lookup);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Could not start a lookup in parallel, looking it up here", e);
+            try {
+                return CompletableFuture.completedFuture(lookup.call());
+            } catch (Exception lookupException) {
+                CompletableFuture<T> failed = new CompletableFuture<>();
+                failed.completeExceptionally(lookupException);
+                return failed;
+            }
+        }
+    }
+
+    /**
+     * @return the vicinity, or null if the lookup failed or did not finish before the deadline
+     */
+    private List<VicinityInfoDTO> await(Future<List<VicinityInfoDTO>> lookup, long deadline) {
+        try {
+            return lookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            vicinityTimeouts.increment();
+            lookup.cancel(false);
+            return null;
+        } catch (ExecutionException e) {
+            failures.increment();
+            LOG.warn("Vicinity lookup for the movement details failed", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lookup.cancel(false);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.ProcessedPositionStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.ProcessedPosition;
+import eu.europa.ec.fisheries.uvms.movement.service.util.LongRingSet;
+import eu.europa.ec.fisheries.uvms.movement.service.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which positions of a message have been processed, so that a redelivered message only processes the
+ * positions whose transaction did not commit. A batch is processed in one transaction per ingest lane, when one lane
+ * fails the whole message is redelivered while the other lanes have already stored their positions.
+ * <p>
+ * A position is identified by a 64 bit hash of its ack message id, asset, source, movement type and position time.
+ * Only positions with an ack message id are recorded. Without one, two messages can carry the same asset and time
+ * from different sources, and their keys would clash on insert and roll back the ingest transaction. Such positions
+ * are always processed again, the duplicate check of the single position path then decides on them. The hash is
+ * stored in the transaction that processes the position and added to a bounded set in memory once it commits. A
+ * redelivered message is checked against memory first and what is not found there against the database, which
+ * keeps the hashes for the configured number of hours.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class ProcessedPositionStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessedPositionStore.class);
+
+    private static final int DEFAULT_RETENTION_HOURS = 24;
+
+    private static final String PENDING_KEYS = ProcessedPositionStore.class.getName() + ".pending";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private LongRingSet recent;
+    private int retentionHours;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder redeliveredMessages = new LongAdder();
+    private final LongAdder redeliveredPositions = new LongAdder();
+    private final LongAdder skippedMessages = new LongAdder();
+    private final LongAdder skippedPositions = new LongAdder();
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder databaseHits = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int memorySize = parameterHelper.getIntValue(ParameterKey.IDEMPOTENCY_MEMORY_SIZE, 0);
+        if (memorySize <= 0) {
+            recent = null;
+            LOG.info("Processed positions are not recorded");
+            return;
+        }
+        retentionHours = Math.max(1, parameterHelper.getIntValue(ParameterKey.IDEMPOTENCY_RETENTION_HOURS, DEFAULT_RETENTION_HOURS));
+        recent = new LongRingSet(memorySize);
+        LOG.info("Processed positions are recorded for {} hours, the latest {} in memory", retentionHours, memorySize);
+    }
+
+    public boolean isEnabled() {
+        return recent != null;
+    }
+
+    /**
+     * Records the positions as processed by the current transaction. Must be called after enrichment and before the
+     * position time is changed, positions without an ack message id are not recorded.
+     */
+    public void record(List<IncomingMovement> incomingMovements) {
+        if (recent == null) {
+            return;
+        }
+        Set<Long> pending = pendingKeys();
+        Instant now = Instant.now();
+        List<Long> keys = new ArrayList<>(incomingMovements.size());
+        for (IncomingMovement incomingMovement : incomingMovements) {
+            if (!isIdentifiable(incomingMovement)) {
+                continue;
+            }
+            long key = keyOf(incomingMovement);
+            // The same position twice in one message is one row
+            if (pending.add(key)) {
+                movementDao.createProcessedPosition(new ProcessedPosition(key, now));
+                keys.add(key);
+            }
+        }
+        if (!keys.isEmpty()) {
+            TransactionCallbacks.afterCommit(transactionRegistry, () -> {
+                keys.forEach(recent::add);
+                recorded.add(keys.size());
+            });
+        }
+    }
+
+    /**
+     * @return the positions of a redelivered message that were not processed by an earlier delivery
+     */
+    public List<IncomingMovement> removeProcessed(List<IncomingMovement> incomingMovements) {
+        if (recent == null) {
+            return incomingMovements;
+        }
+        redeliveredMessages.increment();
+        redeliveredPositions.add(incomingMovements.size());
+        long[] keys = new long[incomingMovements.size()];
+        Set<Long> notInMemory = new HashSet<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (isIdentifiable(incomingMovements.get(i))) {
+                keys[i] = keyOf(incomingMovements.get(i));
+                if (recent.contains(keys[i])) {
+                    memoryHits.increment();
+                } else {
+                    notInMemory.add(keys[i]);
+                }
+            }
+        }
+        Set<Long> inDatabase = new HashSet<>();
+        if (!notInMemory.isEmpty()) {
+            databaseLookups.increment();
+            inDatabase.addAll(movementDao.getProcessedPositionKeys(notInMemory));
+            databaseHits.add(inDatabase.size());
+        }
+
+        List<IncomingMovement> remaining = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            IncomingMovement incomingMovement = incomingMovements.get(i);
+            boolean processed = isIdentifiable(incomingMovement)
+                    && (!notInMemory.contains(keys[i]) || inDatabase.contains(keys[i]));
+            if (!processed) {
+                remaining.add(incomingMovement);
+            }
+        }
+        int skipped = incomingMovements.size() - remaining.size();
+        skippedPositions.add(skipped);
+        if (remaining.isEmpty()) {
+            skippedMessages.increment();
+        }
+        if (skipped > 0) {
+            LOG.info("Skipping {} of {} positions of a redelivered message, they were processed before", skipped, incomingMovements.size());
+        }
+        return remaining;
+    }
+
+    @Schedule(hour = "*", minute = "40", persistent = false)
+    public void deleteExpired() {
+        if (recent == null) {
+            return;
+        }
+        int deleted = movementDao.deleteProcessedPositionsBefore(Instant.now().minus(retentionHours, ChronoUnit.HOURS));
+        LOG.debug("Deleted {} processed positions", deleted);
+    }
+
+    public ProcessedPositionStatistics getStatistics() {
+        ProcessedPositionStatistics statistics = new ProcessedPositionStatistics();
+        statistics.setEnabled(isEnabled());
+        statistics.setRetentionHours(retentionHours);
+        statistics.setInMemory(recent != null ? recent.size() : 0);
+        statistics.setRecorded(recorded.sum());
+        statistics.setRedeliveredMessages(redeliveredMessages.sum());
+        statistics.setRedeliveredPositions(redeliveredPositions.sum());
+        statistics.setSkippedMessages(skippedMessages.sum());
+        statistics.setSkippedPositions(skippedPositions.sum());
+        statistics.setMemoryHits(memoryHits.sum());
+        statistics.setDatabaseHits(databaseHits.sum());
+        statistics.setDatabaseLookups(databaseLookups.sum());
+        return statistics;
+    }
+
+    private static boolean isIdentifiable(IncomingMovement incomingMovement) {
+        return incomingMovement.getAckResponseMessageId() != null;
+    }
+
+    /**
+     * FNV-1a of the ack message id, asset, source, movement type and position time.
+     */
+    static long keyOf(IncomingMovement incomingMovement) {
+        long hash = FNV_OFFSET;
+        hash = hash(hash, incomingMovement.getAckResponseMessageId());
+        hash = hash(hash, incomingMovement.getAssetGuid());
+        hash = hash(hash, incomingMovement.getMovementSourceType());
+        hash = hash(hash, incomingMovement.getMovementType());
+        Instant positionTime = incomingMovement.getPositionTime();
+        long millis = positionTime != null ? positionTime.toEpochMilli() : Long.MIN_VALUE;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash ^ ((millis >>> (i * 8)) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // Separator, so that moving characters between the fields changes the hash
+        return (hash ^ 0xffff) * FNV_PRIME;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> pendingKeys() {
+        if (transactionRegistry.getTransactionKey() == null) {
+            return new HashSet<>();
+        }
+        Set<Long> pending = (Set<Long>) transactionRegistry.getResource(PENDING_KEYS);
+        if (pending == null) {
+            pending = new HashSet<>();
+            transactionRegistry.putResource(PENDING_KEYS, pending);
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,187 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildCursor;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildProgress;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs track rebuilds of many assets in the background, several assets at the same time. Every chunk of an asset runs
+ * on the ingest lane of the asset, so the rebuild and incoming positions of the asset do not interleave within a
+ * chunk. No chunk is started while ingest is congested.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class TrackRebuildJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrackRebuildJob.class);
+
+    private static final long KEEP_FINISHED_HOURS = 24;
+
+    @Inject
+    private TrackRebuilder rebuilder;
+
+    @Inject
+    private IngestLaneExecutor laneExecutor;
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Inject
+    private IngestController ingestController;
+
+    @Resource
+    private ManagedExecutorService executorService;
+
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Starts rebuilding the tracks of the assets, or of every asset if there are none, between from and to.
+     */
+    public TrackRebuildProgress start(TrackRebuildRequest request) {
+        Instant keepAfter = Instant.now().minus(KEEP_FINISHED_HOURS, ChronoUnit.HOURS);
+        jobs.values().removeIf(job -> job.finished != null && job.finished.isBefore(keepAfter));
+
+        List<UUID> assetIds = request.getAssetIds();
+        if (assetIds == null || assetIds.isEmpty()) {
+            assetIds = movementDao.getMovementConnectIds();
+        }
+        int parallelism = request.getParallelism() != null && request.getParallelism() > 0
+                ? request.getParallelism() : laneExecutor.getLaneCount();
+        parallelism = Math.max(1, Math.min(parallelism, assetIds.size()));
+
+        Job job = new Job(request.getFrom(), request.getTo(), assetIds, parallelism);
+        jobs.put(job.id, job);
+        LOG.info("Rebuilding tracks of {} assets between {} and {} with {} workers, job {}",
+                assetIds.size(), request.getFrom(), request.getTo(), parallelism, job.id);
+        for (int i = 0; i < parallelism; i++) {
+            executorService.submit(() -> work(job));
+        }
+        return job.getProgress();
+    }
+
+    public TrackRebuildProgress getProgress(UUID jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.getProgress() : null;
+    }
+
+    public List<TrackRebuildProgress> getJobs() {
+        List<TrackRebuildProgress> progress = new ArrayList<>();
+        jobs.values().forEach(job -> progress.add(job.getProgress()));
+        return progress;
+    }
+
+    private void work(Job job) {
+        UUID assetId;
+        while ((assetId = job.queue.poll()) != null) {
+            try {
+                rebuildAsset(job, assetId);
+            } catch (Exception e) {
+                LOG.error("Could not rebuild the tracks of asset {}", assetId, e);
+                job.assetsFailed.incrementAndGet();
+            }
+            job.assetsDone.incrementAndGet();
+        }
+        if (job.workers.decrementAndGet() == 0) {
+            job.finished = Instant.now();
+            TrackRebuildProgress progress = job.getProgress();
+            LOG.info("Rebuilt tracks of {} assets ({} failed) in {} ms, {} movements, {} relinked, {} tracks created, {} deleted",
+                    progress.getAssetsDone(), progress.getAssetsFailed(), progress.getMillis(), progress.getMovements(),
+                    progress.getRelinked(), progress.getTracksCreated(), progress.getTracksDeleted());
+        }
+    }
+
+    private void rebuildAsset(Job job, UUID assetId) throws Exception {
+        String assetGuid = assetId.toString();
+        TrackRebuildCursor cursor = laneExecutor.execute(assetGuid, () -> rebuilder.start(assetId, job.from, job.to));
+        while (!cursor.isDone()) {
+            // A rebuild can wait, give way to live positions until ingest is no longer congested
+            while (!ingestController.deferNonCritical()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Interrupted while waiting for congested ingest");
+                }
+            }
+            TrackRebuildCursor current = cursor;
+            cursor = laneExecutor.execute(assetGuid, () -> rebuilder.rebuildChunk(current));
+            job.movements.add(cursor.getMovements());
+            job.relinked.add(cursor.getRelinked());
+            job.tracksCreated.add(cursor.getTracksCreated());
+            job.tracksDeleted.add(cursor.getTracksDeleted());
+        }
+    }
+
+    private static class Job {
+
+        private final UUID id = UUID.randomUUID();
+        private final Instant started = Instant.now();
+        private final Instant from;
+        private final Instant to;
+        private final int assets;
+        private final int parallelism;
+        private final Queue<UUID> queue;
+        private final AtomicInteger workers;
+
+        private final AtomicInteger assetsDone = new AtomicInteger();
+        private final AtomicInteger assetsFailed = new AtomicInteger();
+        private final LongAdder movements = new LongAdder();
+        private final LongAdder relinked = new LongAdder();
+        private final LongAdder tracksCreated = new LongAdder();
+        private final LongAdder tracksDeleted = new LongAdder();
+
+        private volatile Instant finished;
+
+        private Job(Instant from, Instant to, List<UUID> assetIds, int parallelism) {
+            this.from = from;
+            this.to = to;
+            this.assets = assetIds.size();
+            this.parallelism = parallelism;
+            this.queue = new ConcurrentLinkedQueue<>(assetIds);
+            this.workers = new AtomicInteger(parallelism);
+        }
+
+        private TrackRebuildProgress getProgress() {
+            Instant end = finished != null ? finished : Instant.now();
+            long millis = end.toEpochMilli() - started.toEpochMilli();
+            TrackRebuildProgress progress = new TrackRebuildProgress();
+            progress.setJobId(id);
+            progress.setState(finished != null ? "DONE" : "RUNNING");
+            progress.setFrom(from);
+            progress.setTo(to);
+            progress.setStarted(started);
+            progress.setParallelism(parallelism);
+            progress.setAssets(assets);
+            progress.setAssetsDone(assetsDone.get());
+            progress.setAssetsFailed(assetsFailed.get());
+            progress.setMovements(movements.sum());
+            progress.setRelinked(relinked.sum());
+            progress.setTracksCreated(tracksCreated.sum());
+            progress.setTracksDeleted(tracksDeleted.sum());
+            progress.setMillis(millis);
+            progress.setMovementsPerSecond(millis > 0 ? movements.sum() * 1000.0 / millis : 0);
+            return progress;
+        }
+    }
+}
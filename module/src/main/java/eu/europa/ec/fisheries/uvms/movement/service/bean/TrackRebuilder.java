@@ -0,0 +1,169 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildCursor;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Track;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds the previousMovement links and the tracks of an asset in one pass over its movements in timestamp order.
+ * The pass is split in chunks of one transaction each, so memory does not grow with the number of movements and the
+ * asset is not locked for the whole rebuild.
+ * <p>
+ * The rebuilt span is widened to whole tracks, the old tracks of the span are deleted once no movement belongs to
+ * them anymore.
+ */
+@Stateless
+public class TrackRebuilder {
+
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final int FETCH_SIZE = 100;
+
+    private static final Instant NO_FROM = Instant.EPOCH;
+    private static final Instant NO_TO = Instant.parse("9999-12-31T23:59:59Z");
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Inject
+    private TrackService trackService;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    /**
+     * @return the cursor of the first chunk of the asset, from and to can be null for the first and the last movement
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public TrackRebuildCursor start(UUID assetId, Instant from, Instant to) {
+        Instant start = from != null ? from : NO_FROM;
+        Instant end = to != null ? to : NO_TO;
+
+        Movement before = movementDao.getPreviousMovement(assetId, start);
+        if (before != null && before.getTrack() != null) {
+            start = movementDao.getTimespanOfTrack(before.getTrack())[0];
+            before = movementDao.getPreviousMovement(assetId, start);
+        }
+        if (to != null) {
+            Movement after = movementDao.getNextMovementByMcAndDate(assetId, end);
+            if (after != null && after.getTrack() != null) {
+                end = movementDao.getTimespanOfTrack(after.getTrack())[1];
+            }
+        }
+
+        TrackRebuildCursor cursor = new TrackRebuildCursor();
+        cursor.setAssetId(assetId);
+        cursor.setTo(end);
+        cursor.setTimestampCursor(start);
+        cursor.setIdCursor(FIRST_ID);
+        if (before != null) {
+            // The segment from the movement before the span belongs to the span, like when it was created
+            cursor.setPreviousId(before.getId());
+            cursor.setTrackId(before.getTrack() != null ? before.getTrack().getId() : null);
+        }
+        return cursor;
+    }
+
+    /**
+     * Rebuilds the next chunk of movements after the cursor.
+     *
+     * @return the cursor of the next chunk, done when there were no movements left
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public TrackRebuildCursor rebuildChunk(TrackRebuildCursor cursor) {
+        int chunkSize = parameterHelper.getIntValue(ParameterKey.TRACK_REBUILD_CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
+        List<Movement> chunk;
+        try (Stream<Movement> movements = movementDao.streamMovementsForAssetAfterCursor(cursor.getAssetId(),
+                cursor.getTimestampCursor(), cursor.getIdCursor(), cursor.getTo(), chunkSize, FETCH_SIZE)) {
+            chunk = movements.collect(Collectors.toList());
+        }
+        Movement previous = cursor.getPreviousId() != null ? movementDao.getMovementById(cursor.getPreviousId()) : null;
+
+        TrackRebuildCursor next = new TrackRebuildCursor();
+        next.setAssetId(cursor.getAssetId());
+        next.setTo(cursor.getTo());
+        if (chunk.isEmpty()) {
+            relinkMovementAfter(cursor, previous);
+            next.setDone(true);
+            return next;
+        }
+
+        List<MovementSegment> segments = new ArrayList<>(chunk.size());
+        Movement segmentStart = previous;
+        for (Movement movement : chunk) {
+            if (segmentStart != null) {
+                segments.add(new MovementSegment(segmentStart, movement));
+            }
+            segmentStart = movement;
+        }
+        List<SegmentCategoryType> categories = trackService.awaitCategories(segments, trackService.categorize(segments));
+
+        Track track = cursor.getTrackId() != null ? movementDao.getTrackById(cursor.getTrackId()) : null;
+        Set<UUID> oldTracks = new HashSet<>();
+        int segment = 0;
+        for (Movement movement : chunk) {
+            if (movement.getTrack() != null) {
+                oldTracks.add(movement.getTrack().getId());
+            }
+            if (!Objects.equals(idOf(movement.getPreviousMovement()), idOf(previous))) {
+                movement.setPreviousMovement(previous);
+                next.setRelinked(next.getRelinked() + 1);
+            }
+            if (previous == null) {
+                movement.setTrack(null);
+            } else {
+                Track continued = trackService.continueTrack(track, previous, movement, categories.get(segment++));
+                if (track == null) {
+                    previous.setTrack(continued);
+                }
+                if (continued != track) {
+                    next.setTracksCreated(next.getTracksCreated() + 1);
+                }
+                movement.setTrack(continued);
+                track = continued;
+            }
+            previous = movement;
+        }
+        movementDao.flush();
+        next.setTracksDeleted(movementDao.deleteUnusedTracks(oldTracks));
+
+        next.setMovements(chunk.size());
+        next.setTimestampCursor(previous.getTimestamp());
+        next.setIdCursor(previous.getId());
+        next.setPreviousId(previous.getId());
+        next.setTrackId(track != null ? track.getId() : null);
+        return next;
+    }
+
+    private void relinkMovementAfter(TrackRebuildCursor cursor, Movement last) {
+        if (last == null || NO_TO.equals(cursor.getTo())) {
+            return;
+        }
+        Movement after = movementDao.getNextMovementByMcAndDate(cursor.getAssetId(), cursor.getTo());
+        if (after != null && !Objects.equals(idOf(after.getPreviousMovement()), last.getId())) {
+            after.setPreviousMovement(last);
+        }
+    }
+
+    private static UUID idOf(Movement movement) {
+        return movement != null ? movement.getId() : null;
+    }
+}
@@ -13,22 +13,127 @@ package eu.europa.ec.fisheries.uvms.movement.service.bean;
 
 import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
 import eu.europa.ec.fisheries.uvms.movement.service.clients.SpatialRestClient;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
 import eu.europa.ec.fisheries.uvms.movement.service.dto.SegmentCalculations;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Track;
 import eu.europa.ec.fisheries.uvms.movement.service.util.CalculationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 @Stateless
 public class TrackService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(TrackService.class);
+
+    // Segments per request to spatial, the requests of a batch are sent at the same time
+    private static final int SEGMENTS_PER_REQUEST = 200;
+
     @Inject
     private SpatialRestClient spatialClient;
+
+    @Inject
+    private LocalSegmentClassifier localClassifier;
     
     public void upsertTrack(Movement previous, Movement current) {
+        upsertTrack(previous, current, null);
+    }
+
+    /**
+     * Starts categorising the segments, locally where possible and otherwise in requests to spatial that do not
+     * wait for each other. Pass the result to {@link #upsertTracks(List, CompletionStage)}.
+     */
+    public CompletionStage<List<SegmentCategoryType>> categorize(List<MovementSegment> segments) {
+        SegmentCategoryType[] categories = new SegmentCategoryType[segments.size()];
+        List<Integer> remote = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            MovementSegment segment = segments.get(i);
+            categories[i] = localClassifier.getSegmentCategoryType(segment.getPrevious(), segment.getCurrent(),
+                    CalculationUtil.getPositionCalculations(segment.getPrevious(), segment.getCurrent()));
+            if (categories[i] == null) {
+                remote.add(i);
+            }
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.completedFuture(null);
+        for (int from = 0; from < remote.size(); from += SEGMENTS_PER_REQUEST) {
+            List<Integer> indexes = remote.subList(from, Math.min(remote.size(), from + SEGMENTS_PER_REQUEST));
+            List<MovementSegment> request = new ArrayList<>(indexes.size());
+            for (Integer index : indexes) {
+                request.add(segments.get(index));
+            }
+            CompletableFuture<Void> response = spatialClient.getSegmentCategoryTypes(request).toCompletableFuture()
+                    .thenAccept(result -> {
+                        if (result.size() != indexes.size()) {
+                            throw new IllegalStateException("Got " + result.size() + " segment categories for " + indexes.size() + " segments");
+                        }
+                        for (int i = 0; i < indexes.size(); i++) {
+                            categories[indexes.get(i)] = result.get(i);
+                        }
+                    });
+            all = all.thenCombine(response, (done, alsoDone) -> null);
+        }
+        return all.thenApply(done -> Collections.unmodifiableList(Arrays.asList(categories)));
+    }
+
+    /**
+     * Like {@link #upsertTrack(Movement, Movement)} for every segment, in order, with the categories from
+     * {@link #categorize(List)}. Segments are categorised one by one if the batched categorisation failed.
+     */
+    public void upsertTracks(List<MovementSegment> segments, CompletionStage<List<SegmentCategoryType>> categorized) {
+        List<SegmentCategoryType> categories = awaitCategories(segments, categorized);
+        for (int i = 0; i < segments.size(); i++) {
+            MovementSegment segment = segments.get(i);
+            upsertTrack(segment.getPrevious(), segment.getCurrent(), categories.get(i));
+        }
+    }
+
+    /**
+     * Waits for the categories from {@link #categorize(List)}.
+     *
+     * @return the categories, or nulls if the batched categorisation failed
+     */
+    public List<SegmentCategoryType> awaitCategories(List<MovementSegment> segments, CompletionStage<List<SegmentCategoryType>> categorized) {
+        try {
+            return categorized.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            LOG.warn("Could not categorise {} segments in one go, categorising them one by one", segments.size(), e.getCause());
+            return Arrays.asList(new SegmentCategoryType[segments.size()]);
+        }
+    }
+
+    /**
+     * Adds the segment from previous to current to the track, or to a new track when there is no track or the
+     * segment leaves a port. Used to rebuild the tracks of an asset in timestamp order, where the track of previous
+     * is the one the rebuild gave it.
+     *
+     * @return the track of current
+     */
+    public Track continueTrack(Track track, Movement previous, Movement current, SegmentCategoryType knownCategory) {
+        SegmentCalculations positionCalculations = CalculationUtil.getPositionCalculations(previous, current);
+        if (track == null) {
+            return createNewTrack(positionCalculations);
+        }
+        SegmentCategoryType segCat = getSegmentCategoryType(previous, current, positionCalculations, knownCategory);
+        if (segCat == SegmentCategoryType.EXIT_PORT) {
+            return createNewTrack(positionCalculations);
+        }
+        updateTrack(track, positionCalculations, segCat);
+        return track;
+    }
+
+    private void upsertTrack(Movement previous, Movement current, SegmentCategoryType knownCategory) {
         SegmentCalculations positionCalculations = CalculationUtil.getPositionCalculations(previous, current);
         Track existingTrack = previous.getTrack();
         if (existingTrack == null) {        //if there is no tracks
@@ -36,7 +141,7 @@ public class TrackService {
             previous.setTrack(track);
             current.setTrack(track);
         } else {
-            SegmentCategoryType segCat = spatialClient.getSegmentCategoryType(previous, current);
+            SegmentCategoryType segCat = getSegmentCategoryType(previous, current, positionCalculations, knownCategory);
             switch (segCat) {     //if a segment is is an area transition out of a port, then create a new track, else add to the old one
                 case EXIT_PORT:
                     Track track = createNewTrack(positionCalculations);
@@ -59,6 +164,18 @@ public class TrackService {
         }
     }
     
+    private SegmentCategoryType getSegmentCategoryType(Movement previous, Movement current, SegmentCalculations positionCalculations,
+                                                       SegmentCategoryType knownCategory) {
+        SegmentCategoryType segCat = knownCategory;
+        if (segCat == null) {
+            segCat = localClassifier.getSegmentCategoryType(previous, current, positionCalculations);
+        }
+        if (segCat == null) {
+            segCat = spatialClient.getSegmentCategoryType(previous, current);
+        }
+        return segCat;
+    }
+
     private Track createNewTrack(SegmentCalculations positionCalculations) {
         Track track = new Track();
         track.setDistance(positionCalculations.getDistanceBetweenPoints());
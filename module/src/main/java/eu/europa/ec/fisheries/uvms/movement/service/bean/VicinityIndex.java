@@ -0,0 +1,178 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetPosition;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
+import eu.europa.ec.fisheries.uvms.movement.service.util.TransactionCallbacks;
+import eu.europa.ec.fisheries.uvms.movement.service.util.VicinityGrid;
+import eu.europa.ec.fisheries.uvms.movementrules.model.dto.VicinityInfoDTO;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Latest position of every asset updated during the last hours, in memory, answering the same question as
+ * {@link MovementConnect#FIND_NEAREST_AFTER} without a spatial query per created movement.
+ * <p>
+ * Loaded at startup and updated when a transaction that processed a position commits. Positions processed by the
+ * current transaction are seen by that transaction only.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class VicinityIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VicinityIndex.class);
+
+    private static final long ACTIVE_HOURS = 8;
+
+    // About 5.5 km north to south, the default maxDistance of 500 m is looked up in one to four cells
+    private static final double CELL_DEGREES = 0.05;
+
+    private static final String PENDING_POSITIONS = VicinityIndex.class.getName() + ".pending";
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private final VicinityGrid grid = new VicinityGrid(CELL_DEGREES);
+
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        if (!parameterHelper.getBooleanValue(ParameterKey.VICINITY_INDEX, true)) {
+            LOG.info("In memory vicinity index is disabled");
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<AssetPosition> positions = movementDao.getLatestPositionsAfter(activeAfter());
+            for (AssetPosition position : positions) {
+                if (position.getMovementId() != null) {
+                    grid.putIfAbsent(new VicinityGrid.Position(position.getAssetId(), position.getMovementId(),
+                            position.getLocation().getX(), position.getLocation().getY(), position.getUpdated().toEpochMilli()));
+                }
+            }
+            loaded = true;
+            LOG.info("Loaded latest positions of {} active assets in {} ms", positions.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not load latest positions, vicinity is looked up in the database", e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return the other assets whose latest position is within maxDistance meters of the movement
+     */
+    public List<VicinityInfoDTO> getVicinityOf(Movement movement, double maxDistance) {
+        Point location = movement.getLocation();
+        UUID excluded = movement.getMovementConnect().getId();
+        long updatedAfter = activeAfter().toEpochMilli();
+        Map<UUID, VicinityGrid.Position> pending = pendingPositions(false);
+
+        List<VicinityInfoDTO> vicinity = new ArrayList<>();
+        for (VicinityGrid.Position position : grid.find(location.getX(), location.getY(), maxDistance, updatedAfter)) {
+            if (!position.getAssetId().equals(excluded) && !pending.containsKey(position.getAssetId())) {
+                vicinity.add(toVicinityInfo(position, location));
+            }
+        }
+        for (VicinityGrid.Position position : pending.values()) {
+            if (!position.getAssetId().equals(excluded) && position.getUpdated() > updatedAfter
+                    && VicinityGrid.distance(location.getX(), location.getY(), position.getLongitude(), position.getLatitude()) <= maxDistance) {
+                vicinity.add(toVicinityInfo(position, location));
+            }
+        }
+        return vicinity;
+    }
+
+    /**
+     * Records the latest position of the MovementConnect, visible to other transactions once the current one commits.
+     */
+    public void update(MovementConnect movementConnect) {
+        Movement latest = movementConnect.getLatestMovement();
+        Point location = movementConnect.getLatestLocation();
+        if (latest == null || location == null) {
+            return;
+        }
+        VicinityGrid.Position position = new VicinityGrid.Position(movementConnect.getId(), latest.getId(),
+                location.getX(), location.getY(), System.currentTimeMillis());
+        if (transactionRegistry.getTransactionKey() != null) {
+            pendingPositions(true).put(position.getAssetId(), position);
+        }
+        TransactionCallbacks.afterCommit(transactionRegistry, () -> grid.put(position));
+    }
+
+    /**
+     * Forgets the asset until its next position, for changes made directly in the database.
+     */
+    public void evict(UUID assetId) {
+        grid.remove(assetId);
+        pendingPositions(false).remove(assetId);
+        TransactionCallbacks.afterCompletion(transactionRegistry, status -> grid.remove(assetId));
+    }
+
+    @Schedule(hour = "*", minute = "45", persistent = false)
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void dropInactiveAssets() {
+        grid.removeNotUpdatedAfter(activeAfter().toEpochMilli());
+    }
+
+    private static VicinityInfoDTO toVicinityInfo(VicinityGrid.Position position, Point location) {
+        // Same value as distance() on the geometry column in the database query, in degrees
+        double dx = position.getLongitude() - location.getX();
+        double dy = position.getLatitude() - location.getY();
+        return new VicinityInfoDTO(position.getAssetId(), position.getMovementId(), Math.sqrt(dx * dx + dy * dy));
+    }
+
+    private static Instant activeAfter() {
+        return Instant.now().minus(ACTIVE_HOURS, ChronoUnit.HOURS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<UUID, VicinityGrid.Position> pendingPositions(boolean create) {
+        if (transactionRegistry.getTransactionKey() == null) {
+            return Collections.emptyMap();
+        }
+        Map<UUID, VicinityGrid.Position> pending = (Map<UUID, VicinityGrid.Position>) transactionRegistry.getResource(PENDING_POSITIONS);
+        if (pending == null) {
+            if (!create) {
+                return Collections.emptyMap();
+            }
+            pending = new HashMap<>();
+            transactionRegistry.putResource(PENDING_POSITIONS, pending);
+        }
+        return pending;
+    }
+}
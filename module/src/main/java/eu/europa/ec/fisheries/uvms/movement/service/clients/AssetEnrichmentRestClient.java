@@ -0,0 +1,95 @@
+package eu.europa.ec.fisheries.uvms.movement.service.clients;
+
+import eu.europa.ec.fisheries.uvms.asset.client.AssetClient;
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentRequest;
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
+import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMovement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves asset and mobile terminal for many transponders in one round trip. Falls back to one
+ * {@link AssetClient#collectAssetMT} call per request when the asset module does not answer the bulk call.
+ */
+@Stateless
+public class AssetEnrichmentRestClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssetEnrichmentRestClient.class);
+
+    static final int MAX_REQUESTS_PER_CALL = 500;
+
+    private WebTarget webTarget;
+
+    @Resource(name = "java:global/asset_endpoint")
+    private String assetEndpoint;
+
+    @Inject
+    private AssetClient assetClient;
+
+    @PostConstruct
+    public void initClient() {
+        String url = assetEndpoint + "/asset/rest/internal/";
+        JsonBConfiguratorMovement jsonBConfigurator = new JsonBConfiguratorMovement();
+
+        ClientBuilder clientBuilder = ClientBuilder.newBuilder();
+        clientBuilder.connectTimeout(30, TimeUnit.SECONDS);
+        clientBuilder.readTimeout(30, TimeUnit.SECONDS);
+        Client client = clientBuilder.build();
+        client.register(jsonBConfigurator);
+        webTarget = client.target(url);
+    }
+
+    /**
+     * @return one response per request, in the same order as the requests
+     */
+    public List<AssetMTEnrichmentResponse> collectAssetMTList(List<AssetMTEnrichmentRequest> requests) {
+        List<AssetMTEnrichmentResponse> responses = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += MAX_REQUESTS_PER_CALL) {
+            List<AssetMTEnrichmentRequest> chunk = requests.subList(from, Math.min(from + MAX_REQUESTS_PER_CALL, requests.size()));
+            responses.addAll(collectChunk(chunk));
+        }
+        return responses;
+    }
+
+    private List<AssetMTEnrichmentResponse> collectChunk(List<AssetMTEnrichmentRequest> requests) {
+        try {
+            Response response = webTarget
+                    .path("collectassetmtlist")
+                    .request(MediaType.APPLICATION_JSON)
+                    .post(Entity.json(requests), Response.class);
+            try {
+                if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+                    List<AssetMTEnrichmentResponse> responses = response.readEntity(new GenericType<List<AssetMTEnrichmentResponse>>() {});
+                    if (responses != null && responses.size() == requests.size()) {
+                        return responses;
+                    }
+                }
+                LOG.warn("Bulk asset enrichment returned status {}, collecting one by one", response.getStatus());
+            } finally {
+                response.close();
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Bulk asset enrichment failed, collecting one by one", e);
+        }
+        List<AssetMTEnrichmentResponse> responses = new ArrayList<>(requests.size());
+        for (AssetMTEnrichmentRequest request : requests) {
+            responses.add(assetClient.collectAssetMT(request));
+        }
+        return responses;
+    }
+}
@@ -13,6 +13,7 @@ package eu.europa.ec.fisheries.uvms.movement.service.clients;
 
 import eu.europa.ec.fisheries.schema.movement.v1.MovementType;
 import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.MovementMapper;
 import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMovement;
@@ -20,6 +21,7 @@ import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMoveme
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.ejb.Stateless;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.json.bind.Jsonb;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -29,7 +31,9 @@ import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 @Stateless
@@ -40,6 +44,10 @@ public class SpatialRestClient{
     @Resource(name = "java:global/spatial_endpoint")
     private String spatialEndpoint;
 
+    // Runs the asynchronous requests
+    @Resource
+    private ManagedExecutorService executorService;
+
     private Jsonb jsonb;
     
     @PostConstruct
@@ -51,6 +59,7 @@ public class SpatialRestClient{
         ClientBuilder clientBuilder = ClientBuilder.newBuilder();
         clientBuilder.connectTimeout(30, TimeUnit.SECONDS);
         clientBuilder.readTimeout(30, TimeUnit.SECONDS);
+        clientBuilder.executorService(executorService);
         Client client = clientBuilder.build();
         client.register(jsonBConfigurator);
         webTarget = client.target(url);
@@ -78,4 +87,44 @@ public class SpatialRestClient{
         return returnValue;
     }
 
+    /**
+     * Categorises all segments in one request without waiting for the response. The movements are mapped before
+     * returning, so the entities are not touched by another thread.
+     *
+     * @return the categories in the order of the segments
+     */
+    public CompletionStage<List<SegmentCategoryType>> getSegmentCategoryTypes(List<MovementSegment> segments) {
+        List<List<MovementType>> request = new ArrayList<>(segments.size());
+        for (MovementSegment segment : segments) {
+            request.add(Arrays.asList(MovementMapper.mapMovementToMovementTypeForSpatial(segment.getPrevious()),
+                    MovementMapper.mapMovementToMovementTypeForSpatial(segment.getCurrent())));
+        }
+
+        String s = jsonb.toJson(request);
+
+        return webTarget
+                .path("getSegmentCategoryTypes")
+                .request(MediaType.APPLICATION_JSON)
+                .rx()
+                .post(Entity.json(s), new GenericType<List<SegmentCategoryType>>() {});
+    }
+
+    /**
+     * @return the port areas as WKT
+     */
+    public List<String> getPortAreas() {
+        Response response = webTarget
+                .path("getPortAreas")
+                .request(MediaType.APPLICATION_JSON)
+                .get();
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            response.close();
+            throw new IllegalStateException("Could not get port areas from spatial, status " + response.getStatus());
+        }
+        List<String> portAreas = response.readEntity(new GenericType<List<String>>() {});
+        response.close();
+
+        return portAreas;
+    }
+
 }
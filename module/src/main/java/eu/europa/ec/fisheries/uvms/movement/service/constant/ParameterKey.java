@@ -15,7 +15,69 @@ public enum ParameterKey {
 
     USE_NATIONAL("mobileterminal.national.use"),
 
-    MAX_DISTANCE("maxDistance");
+    MAX_DISTANCE("maxDistance"),
+
+    INGEST_LANES("movement.ingest.lanes"),
+
+    INGEST_LANE_QUEUE_CAPACITY("movement.ingest.lane.queue.capacity"),
+
+    ENRICHMENT_CACHE_TTL("movement.enrichment.cache.ttl"),
+
+    ENRICHMENT_CACHE_SIZE("movement.enrichment.cache.size"),
+
+    DUPLICATE_HORIZON_DAYS("movement.duplicate.horizon.days"),
+
+    DUPLICATE_EXPECTED_POSITIONS("movement.duplicate.expected.positions"),
+
+    DUPLICATE_RING_SIZE("movement.duplicate.ring.size"),
+
+    POSITION_COUNT_MINUTES("movement.position.count.minutes"),
+
+    VICINITY_INDEX("movement.vicinity.index"),
+
+    SEGMENT_LOCAL_CLASSIFIER("movement.segment.local"),
+
+    SEGMENT_GAP_SECONDS("movement.segment.gap.seconds"),
+
+    SEGMENT_JUMP_KNOTS("movement.segment.jump.knots"),
+
+    SEGMENT_ANCHORED_KNOTS("movement.segment.anchored.knots"),
+
+    SEGMENT_LOW_SPEED_KNOTS("movement.segment.low.speed.knots"),
+
+    REORDER_WINDOW_MILLIS("movement.reorder.window.millis"),
+
+    TRACK_REBUILD_CHUNK_SIZE("movement.track.rebuild.chunk"),
+
+    RULES_BATCH_SIZE("movement.rules.batch.size"),
+
+    RULES_BATCH_WINDOW_MILLIS("movement.rules.batch.window.millis"),
+
+    EXCHANGE_ACK_BATCH_SIZE("movement.exchange.ack.batch.size"),
+
+    EXCHANGE_ACK_BATCH_WINDOW_MILLIS("movement.exchange.ack.batch.window.millis"),
+
+    AUDIT_QUEUE_CAPACITY("movement.audit.queue.capacity"),
+
+    AUDIT_QUEUE_MAX_WAIT_MILLIS("movement.audit.queue.max.wait.millis"),
+
+    INGEST_ADAPTIVE_MAX_CONCURRENCY("movement.ingest.adaptive.max.concurrency"),
+
+    INGEST_ADAPTIVE_MIN_CONCURRENCY("movement.ingest.adaptive.min.concurrency"),
+
+    INGEST_ADAPTIVE_TARGET_LATENCY_MILLIS("movement.ingest.adaptive.target.latency.millis"),
+
+    INGEST_ADAPTIVE_MAX_DEFER_MILLIS("movement.ingest.adaptive.max.defer.millis"),
+
+    POST_PERSIST_TIMEOUT_MILLIS("movement.post.persist.timeout.millis"),
+
+    IDEMPOTENCY_MEMORY_SIZE("movement.idempotency.memory.size"),
+
+    IDEMPOTENCY_RETENTION_HOURS("movement.idempotency.retention.hours"),
+
+    INGEST_BATCH_CHUNK_SIZE("movement.ingest.batch.chunk.size"),
+
+    SANITY_RULE_STATISTICS("movement.sanity.rule.statistics");
 
     private final String key;
 
@@ -13,15 +13,20 @@ package eu.europa.ec.fisheries.uvms.movement.service.dao;
 import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
 import eu.europa.ec.fisheries.uvms.commons.date.DateUtils;
 import eu.europa.ec.fisheries.uvms.movement.model.dto.MovementDto;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetLatestState;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetPosition;
 import eu.europa.ec.fisheries.uvms.movement.service.dto.CursorPagination;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementTimestamp;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.ProcessedPosition;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Track;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.search.SearchField;
 import eu.europa.ec.fisheries.uvms.movement.service.mapper.search.SearchValue;
 import eu.europa.ec.fisheries.uvms.movement.service.util.WKTUtil;
 import eu.europa.ec.fisheries.uvms.movementrules.model.dto.VicinityInfoDTO;
 import org.hibernate.HibernateException;
+import org.hibernate.jpa.QueryHints;
 import org.locationtech.jts.geom.Geometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +37,7 @@ import javax.persistence.criteria.*;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Stateless
 public class MovementDao {
@@ -73,6 +79,44 @@ public class MovementDao {
         return em.find(Track.class, id);
     }
 
+    /**
+     * Streams the movements of the asset after the cursor up to and including to, in timestamp and id order, read
+     * forward only in rounds of fetchSize rows.
+     */
+    public Stream<Movement> streamMovementsForAssetAfterCursor(UUID id, Instant timestampCursor, UUID idCursor, Instant to,
+                                                               int maxResults, int fetchSize) {
+        TypedQuery<Movement> query = em.createNamedQuery(Movement.FIND_FOR_ASSET_AFTER_CURSOR, Movement.class);
+        query.setParameter("id", id);
+        query.setParameter("timestampCursor", timestampCursor);
+        query.setParameter("idCursor", idCursor);
+        query.setParameter("to", to);
+        query.setMaxResults(maxResults);
+        query.setHint(QueryHints.HINT_FETCH_SIZE, fetchSize);
+        return query.getResultStream();
+    }
+
+    /**
+     * @return the timestamps of the first and the last movement of the track
+     */
+    public Instant[] getTimespanOfTrack(Track track) {
+        Object[] timespan = em.createNamedQuery(Movement.TIMESPAN_OF_TRACK, Object[].class)
+                .setParameter("track", track)
+                .getSingleResult();
+        return new Instant[]{(Instant) timespan[0], (Instant) timespan[1]};
+    }
+
+    /**
+     * Deletes the tracks of the given ids that no movement belongs to anymore.
+     */
+    public int deleteUnusedTracks(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return em.createNamedQuery(Track.DELETE_UNUSED)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
     public Movement getMovementById(UUID id) {
         return em.find(Movement.class, id);
     }
@@ -224,6 +268,14 @@ public class MovementDao {
         }
     }
 
+    public List<Instant> getMovementTimestampsForAssetBetween(UUID asset, Instant from, Instant to) {
+        TypedQuery<Instant> query = em.createNamedQuery(Movement.TIMESTAMPS_FOR_ASSET_IN_TIMESPAN, Instant.class);
+        query.setParameter("asset", asset);
+        query.setParameter("fromDate", from);
+        query.setParameter("toDate", to);
+        return query.getResultList();
+    }
+
     public List<Movement> getMovementListPaginated(Integer page, Integer listSize, String sql, List<SearchValue> searchKeyValues){
         TypedQuery<Movement> query = getMovementQuery(sql, searchKeyValues);
         query.setFirstResult(listSize * (page - 1));
@@ -330,6 +382,46 @@ public class MovementDao {
         return query.getResultList();
     }
 
+    public List<UUID> getMovementConnectIds() {
+        return em.createNamedQuery(MovementConnect.MOVEMENT_CONNECT_GET_ALL_IDS, UUID.class).getResultList();
+    }
+
+    public List<MovementTimestamp> getMovementTimestampsForAssetsSince(List<UUID> assets, Instant from) {
+        TypedQuery<MovementTimestamp> query = em.createNamedQuery(Movement.TIMESTAMPS_FOR_ASSETS_SINCE, MovementTimestamp.class);
+        query.setParameter("assets", assets);
+        query.setParameter("fromDate", from);
+        return query.getResultList();
+    }
+
+    public List<AssetPosition> getLatestPositionsAfter(Instant time) {
+        TypedQuery<AssetPosition> query = em.createNamedQuery(MovementConnect.FIND_LATEST_POSITIONS_AFTER, AssetPosition.class);
+        query.setParameter("time", time);
+        return query.getResultList();
+    }
+
+    public void createProcessedPosition(ProcessedPosition processedPosition) {
+        em.persist(processedPosition);
+    }
+
+    public List<Long> getProcessedPositionKeys(Collection<Long> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        TypedQuery<Long> query = em.createNamedQuery(ProcessedPosition.FIND_KEYS, Long.class);
+        query.setParameter("keys", keys);
+        return query.getResultList();
+    }
+
+    public int deleteProcessedPositionsBefore(Instant processed) {
+        return em.createNamedQuery(ProcessedPosition.DELETE_BEFORE)
+                .setParameter("processed", processed)
+                .executeUpdate();
+    }
+
+    public List<AssetLatestState> getAssetLatestStates() {
+        return em.createNamedQuery(MovementConnect.FIND_LATEST_STATES, AssetLatestState.class).getResultList();
+    }
+
     public MovementConnect getMovementConnectByConnectId(UUID id) {
         return em.find(MovementConnect.class, id);
     }
@@ -0,0 +1,111 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The identifying fields of an asset enrichment request, i.e. everything in the request except the user.
+ */
+public final class AssetEnrichmentKey {
+
+    private final String assetName;
+    private final String externalMarking;
+    private final String flagState;
+    private final String ircs;
+    private final String cfr;
+    private final String assetGuid;
+    private final String imo;
+    private final String mmsi;
+    private final String dnid;
+    private final String serialNumber;
+    private final String les;
+    private final String memberNumber;
+    private final String transponderType;
+    private final String pluginType;
+    private final int hash;
+
+    private AssetEnrichmentKey(IncomingMovement im) {
+        assetName = im.getAssetName();
+        externalMarking = im.getExternalMarking();
+        flagState = im.getFlagState();
+        ircs = im.getAssetIRCS();
+        cfr = im.getAssetCFR();
+        assetGuid = im.getAssetGuid();
+        imo = im.getAssetIMO();
+        mmsi = im.getAssetMMSI();
+        dnid = im.getMobileTerminalDNID();
+        serialNumber = im.getMobileTerminalSerialNumber();
+        les = im.getMobileTerminalLES();
+        memberNumber = im.getMobileTerminalMemberNumber();
+        transponderType = im.getMovementSourceType();
+        pluginType = im.getPluginType();
+        hash = Arrays.hashCode(new Object[] {assetName, externalMarking, flagState, ircs, cfr, assetGuid, imo, mmsi,
+                dnid, serialNumber, les, memberNumber, transponderType, pluginType});
+    }
+
+    /**
+     * Must be called before the movement is enriched, since enrichment overwrites some of the fields.
+     */
+    public static AssetEnrichmentKey of(IncomingMovement incomingMovement) {
+        return new AssetEnrichmentKey(incomingMovement);
+    }
+
+    /**
+     * Whether the key identifies an asset or a mobile terminal at all. Requests with only a name or a flag state
+     * are not worth caching.
+     */
+    public boolean hasIdentifier() {
+        return isSet(assetGuid) || isSet(ircs) || isSet(cfr) || isSet(imo) || isSet(mmsi)
+                || isSet(dnid) || isSet(serialNumber) || isSet(memberNumber);
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AssetEnrichmentKey that = (AssetEnrichmentKey) o;
+        return hash == that.hash &&
+                Objects.equals(assetName, that.assetName) &&
+                Objects.equals(externalMarking, that.externalMarking) &&
+                Objects.equals(flagState, that.flagState) &&
+                Objects.equals(ircs, that.ircs) &&
+                Objects.equals(cfr, that.cfr) &&
+                Objects.equals(assetGuid, that.assetGuid) &&
+                Objects.equals(imo, that.imo) &&
+                Objects.equals(mmsi, that.mmsi) &&
+                Objects.equals(dnid, that.dnid) &&
+                Objects.equals(serialNumber, that.serialNumber) &&
+                Objects.equals(les, that.les) &&
+                Objects.equals(memberNumber, that.memberNumber) &&
+                Objects.equals(transponderType, that.transponderType) &&
+                Objects.equals(pluginType, that.pluginType);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "AssetEnrichmentKey{" +
+                "ircs='" + ircs + '\'' +
+                ", cfr='" + cfr + '\'' +
+                ", mmsi='" + mmsi + '\'' +
+                ", dnid='" + dnid + '\'' +
+                ", memberNumber='" + memberNumber + '\'' +
+                ", serialNumber='" + serialNumber + '\'' +
+                ", transponderType='" + transponderType + '\'' +
+                '}';
+    }
+}
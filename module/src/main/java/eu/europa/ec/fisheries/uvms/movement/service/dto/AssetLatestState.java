@@ -0,0 +1,123 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import org.locationtech.jts.geom.Point;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Latest position and latest VMS position of an asset as kept by the fleet state store. Immutable, a missing
+ * position has a null id and timestamp and NaN coordinates.
+ */
+public class AssetLatestState {
+
+    private final UUID assetId;
+
+    private final UUID latestMovementId;
+    private final Instant latestTimestamp;
+    private final double latestLongitude;
+    private final double latestLatitude;
+
+    private final UUID latestVmsId;
+    private final Instant latestVmsTimestamp;
+    private final double latestVmsLongitude;
+    private final double latestVmsLatitude;
+
+    public AssetLatestState(UUID assetId) {
+        this(assetId, null, null, Double.NaN, Double.NaN, null, null, Double.NaN, Double.NaN);
+    }
+
+    public AssetLatestState(UUID assetId, UUID latestMovementId, Instant latestTimestamp, Point latestLocation,
+                            UUID latestVmsId, Instant latestVmsTimestamp, Point latestVmsLocation) {
+        this(assetId, latestMovementId, latestTimestamp, longitude(latestLocation), latitude(latestLocation),
+                latestVmsId, latestVmsTimestamp, longitude(latestVmsLocation), latitude(latestVmsLocation));
+    }
+
+    public AssetLatestState(UUID assetId,
+                            UUID latestMovementId, Instant latestTimestamp, double latestLongitude, double latestLatitude,
+                            UUID latestVmsId, Instant latestVmsTimestamp, double latestVmsLongitude, double latestVmsLatitude) {
+        this.assetId = assetId;
+        this.latestMovementId = latestMovementId;
+        this.latestTimestamp = latestTimestamp;
+        this.latestLongitude = latestLongitude;
+        this.latestLatitude = latestLatitude;
+        this.latestVmsId = latestVmsId;
+        this.latestVmsTimestamp = latestVmsTimestamp;
+        this.latestVmsLongitude = latestVmsLongitude;
+        this.latestVmsLatitude = latestVmsLatitude;
+    }
+
+    public AssetLatestState withLatest(Movement movement) {
+        return new AssetLatestState(assetId, movement.getId(), movement.getTimestamp(),
+                longitude(movement.getLocation()), latitude(movement.getLocation()),
+                latestVmsId, latestVmsTimestamp, latestVmsLongitude, latestVmsLatitude);
+    }
+
+    public AssetLatestState withLatestFrom(AssetLatestState other) {
+        return new AssetLatestState(assetId, other.latestMovementId, other.latestTimestamp, other.latestLongitude, other.latestLatitude,
+                latestVmsId, latestVmsTimestamp, latestVmsLongitude, latestVmsLatitude);
+    }
+
+    public AssetLatestState withLatestVms(Movement movement) {
+        return new AssetLatestState(assetId, latestMovementId, latestTimestamp, latestLongitude, latestLatitude,
+                movement.getId(), movement.getTimestamp(), longitude(movement.getLocation()), latitude(movement.getLocation()));
+    }
+
+    public AssetLatestState withLatestVmsFrom(AssetLatestState other) {
+        return new AssetLatestState(assetId, latestMovementId, latestTimestamp, latestLongitude, latestLatitude,
+                other.latestVmsId, other.latestVmsTimestamp, other.latestVmsLongitude, other.latestVmsLatitude);
+    }
+
+    public boolean hasLatest() {
+        return latestMovementId != null;
+    }
+
+    public boolean hasLatestVms() {
+        return latestVmsId != null;
+    }
+
+    public UUID getAssetId() {
+        return assetId;
+    }
+
+    public UUID getLatestMovementId() {
+        return latestMovementId;
+    }
+
+    public Instant getLatestTimestamp() {
+        return latestTimestamp;
+    }
+
+    public double getLatestLongitude() {
+        return latestLongitude;
+    }
+
+    public double getLatestLatitude() {
+        return latestLatitude;
+    }
+
+    public UUID getLatestVmsId() {
+        return latestVmsId;
+    }
+
+    public Instant getLatestVmsTimestamp() {
+        return latestVmsTimestamp;
+    }
+
+    public double getLatestVmsLongitude() {
+        return latestVmsLongitude;
+    }
+
+    public double getLatestVmsLatitude() {
+        return latestVmsLatitude;
+    }
+
+    private static double longitude(Point point) {
+        return point == null ? Double.NaN : point.getX();
+    }
+
+    private static double latitude(Point point) {
+        return point == null ? Double.NaN : point.getY();
+    }
+}
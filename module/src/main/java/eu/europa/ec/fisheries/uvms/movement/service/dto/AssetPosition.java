@@ -0,0 +1,37 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import org.locationtech.jts.geom.Point;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class AssetPosition {
+
+    private final UUID assetId;
+    private final UUID movementId;
+    private final Point location;
+    private final Instant updated;
+
+    public AssetPosition(UUID assetId, UUID movementId, Point location, Instant updated) {
+        this.assetId = assetId;
+        this.movementId = movementId;
+        this.location = location;
+        this.updated = updated;
+    }
+
+    public UUID getAssetId() {
+        return assetId;
+    }
+
+    public UUID getMovementId() {
+        return movementId;
+    }
+
+    public Point getLocation() {
+        return location;
+    }
+
+    public Instant getUpdated() {
+        return updated;
+    }
+}
@@ -0,0 +1,77 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class AuditPipelineStatistics {
+
+    private int capacity;
+    private int queued;
+    private long enqueued;
+    private long sent;
+    private long batches;
+    private long failed;
+    private long dropped;
+    private long backpressureWaits;
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public void setEnqueued(long enqueued) {
+        this.enqueued = enqueued;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public void setSent(long sent) {
+        this.sent = sent;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public void setBatches(long batches) {
+        this.batches = batches;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+
+    public long getBackpressureWaits() {
+        return backpressureWaits;
+    }
+
+    public void setBackpressureWaits(long backpressureWaits) {
+        this.backpressureWaits = backpressureWaits;
+    }
+}
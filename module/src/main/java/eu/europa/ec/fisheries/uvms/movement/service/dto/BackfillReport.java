@@ -0,0 +1,96 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import java.util.UUID;
+
+public class BackfillReport {
+
+    private int received;
+    private int inserted;
+    private int duplicates;
+    private int rejected;
+    private int assets;
+    private int relinked;
+    private UUID trackRebuildJobId;
+    private long millis;
+    private double rowsPerSecond;
+
+    public void add(BackfillReport assetReport) {
+        inserted += assetReport.inserted;
+        duplicates += assetReport.duplicates;
+        rejected += assetReport.rejected;
+        assets += assetReport.assets;
+        relinked += assetReport.relinked;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public int getAssets() {
+        return assets;
+    }
+
+    public void setAssets(int assets) {
+        this.assets = assets;
+    }
+
+    public int getRelinked() {
+        return relinked;
+    }
+
+    public void setRelinked(int relinked) {
+        this.relinked = relinked;
+    }
+
+    public UUID getTrackRebuildJobId() {
+        return trackRebuildJobId;
+    }
+
+    public void setTrackRebuildJobId(UUID trackRebuildJobId) {
+        this.trackRebuildJobId = trackRebuildJobId;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+}
@@ -0,0 +1,74 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class BatchSenderStatistics {
+
+    private int batchSize;
+    private long windowMillis;
+    private int buffered;
+    private long sentMessages;
+    private long sentItems;
+    private long failedItems;
+    private long retriedItems;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public int getBuffered() {
+        return buffered;
+    }
+
+    public void setBuffered(int buffered) {
+        this.buffered = buffered;
+    }
+
+    public long getSentMessages() {
+        return sentMessages;
+    }
+
+    public void setSentMessages(long sentMessages) {
+        this.sentMessages = sentMessages;
+    }
+
+    public long getSentItems() {
+        return sentItems;
+    }
+
+    public void setSentItems(long sentItems) {
+        this.sentItems = sentItems;
+    }
+
+    /**
+     * Items that could not be sent and were dropped, after retrying while the buffer had room for them.
+     */
+    public long getFailedItems() {
+        return failedItems;
+    }
+
+    public void setFailedItems(long failedItems) {
+        this.failedItems = failedItems;
+    }
+
+    /**
+     * Items that could not be sent and were put back into the buffer to be sent again.
+     */
+    public long getRetriedItems() {
+        return retriedItems;
+    }
+
+    public void setRetriedItems(long retriedItems) {
+        this.retriedItems = retriedItems;
+    }
+}
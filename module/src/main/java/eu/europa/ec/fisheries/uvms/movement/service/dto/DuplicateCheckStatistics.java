@@ -0,0 +1,79 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import java.time.Instant;
+
+public class DuplicateCheckStatistics {
+
+    private Instant coveredFrom;
+    private int trackedAssets;
+    private long filterEntries;
+    private long filterBits;
+    private long checks;
+    private long notDuplicate;
+    private long duplicate;
+    private long databaseFallbacks;
+
+    public Instant getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    public void setCoveredFrom(Instant coveredFrom) {
+        this.coveredFrom = coveredFrom;
+    }
+
+    public int getTrackedAssets() {
+        return trackedAssets;
+    }
+
+    public void setTrackedAssets(int trackedAssets) {
+        this.trackedAssets = trackedAssets;
+    }
+
+    public long getFilterEntries() {
+        return filterEntries;
+    }
+
+    public void setFilterEntries(long filterEntries) {
+        this.filterEntries = filterEntries;
+    }
+
+    public long getFilterBits() {
+        return filterBits;
+    }
+
+    public void setFilterBits(long filterBits) {
+        this.filterBits = filterBits;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public void setChecks(long checks) {
+        this.checks = checks;
+    }
+
+    public long getNotDuplicate() {
+        return notDuplicate;
+    }
+
+    public void setNotDuplicate(long notDuplicate) {
+        this.notDuplicate = notDuplicate;
+    }
+
+    public long getDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(long duplicate) {
+        this.duplicate = duplicate;
+    }
+
+    public long getDatabaseFallbacks() {
+        return databaseFallbacks;
+    }
+
+    public void setDatabaseFallbacks(long databaseFallbacks) {
+        this.databaseFallbacks = databaseFallbacks;
+    }
+}
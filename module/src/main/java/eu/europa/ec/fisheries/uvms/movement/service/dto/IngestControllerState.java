@@ -0,0 +1,192 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class IngestControllerState {
+
+    private boolean enabled;
+    private int limit;
+    private int minLimit;
+    private int maxLimit;
+    private int inFlight;
+    private int waiting;
+    private boolean congested;
+    private long targetLatencyMillis;
+    private int queueDepth;
+    private double messageAgeMillis;
+    private long maxMessageAgeMillis;
+    private double waitMillis;
+    private double enrichMillis;
+    private double totalMillis;
+    private long admitted;
+    private long admitTimeouts;
+    private long deferred;
+    private long rejected;
+    private long increases;
+    private long decreases;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public void setWaiting(int waiting) {
+        this.waiting = waiting;
+    }
+
+    public boolean isCongested() {
+        return congested;
+    }
+
+    public void setCongested(boolean congested) {
+        this.congested = congested;
+    }
+
+    public long getTargetLatencyMillis() {
+        return targetLatencyMillis;
+    }
+
+    public void setTargetLatencyMillis(long targetLatencyMillis) {
+        this.targetLatencyMillis = targetLatencyMillis;
+    }
+
+    /**
+     * Messages on the movement queue, counted up to 1000 every 30 s, -1 if the queue could not be browsed.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public double getMessageAgeMillis() {
+        return messageAgeMillis;
+    }
+
+    public void setMessageAgeMillis(double messageAgeMillis) {
+        this.messageAgeMillis = messageAgeMillis;
+    }
+
+    public long getMaxMessageAgeMillis() {
+        return maxMessageAgeMillis;
+    }
+
+    public void setMaxMessageAgeMillis(long maxMessageAgeMillis) {
+        this.maxMessageAgeMillis = maxMessageAgeMillis;
+    }
+
+    /**
+     * Averages over the last window of the wait, enrich and total stages of {@link
+     * eu.europa.ec.fisheries.uvms.movement.service.bean.IngestStageMetrics}.
+     */
+    public double getWaitMillis() {
+        return waitMillis;
+    }
+
+    public void setWaitMillis(double waitMillis) {
+        this.waitMillis = waitMillis;
+    }
+
+    public double getEnrichMillis() {
+        return enrichMillis;
+    }
+
+    public void setEnrichMillis(double enrichMillis) {
+        this.enrichMillis = enrichMillis;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(double totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public void setAdmitted(long admitted) {
+        this.admitted = admitted;
+    }
+
+    public long getAdmitTimeouts() {
+        return admitTimeouts;
+    }
+
+    public void setAdmitTimeouts(long admitTimeouts) {
+        this.admitTimeouts = admitTimeouts;
+    }
+
+    public long getDeferred() {
+        return deferred;
+    }
+
+    public void setDeferred(long deferred) {
+        this.deferred = deferred;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getIncreases() {
+        return increases;
+    }
+
+    public void setIncreases(long increases) {
+        this.increases = increases;
+    }
+
+    public long getDecreases() {
+        return decreases;
+    }
+
+    public void setDecreases(long decreases) {
+        this.decreases = decreases;
+    }
+}
@@ -0,0 +1,92 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class IngestLaneStatistics {
+
+    private int lane;
+    private int queueDepth;
+    private int maxQueueDepth;
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long rejected;
+    private long busyMillis;
+    private double utilisation;
+
+    public int getLane() {
+        return lane;
+    }
+
+    public void setLane(int lane) {
+        this.lane = lane;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public void setMaxQueueDepth(int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Tasks that found the lane full for longer than the submit timeout.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getBusyMillis() {
+        return busyMillis;
+    }
+
+    public void setBusyMillis(long busyMillis) {
+        this.busyMillis = busyMillis;
+    }
+
+    /**
+     * Share of the wall clock time since start that the lane spent running tasks, between 0 and 1.
+     */
+    public double getUtilisation() {
+        return utilisation;
+    }
+
+    public void setUtilisation(double utilisation) {
+        this.utilisation = utilisation;
+    }
+}
@@ -0,0 +1,25 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+
+/**
+ * Two positions of an asset whose track is to be updated, in the order the positions were processed.
+ */
+public class MovementSegment {
+
+    private final Movement previous;
+    private final Movement current;
+
+    public MovementSegment(Movement previous, Movement current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public Movement getPrevious() {
+        return previous;
+    }
+
+    public Movement getCurrent() {
+        return current;
+    }
+}
@@ -0,0 +1,38 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
+import eu.europa.ec.fisheries.schema.movement.v1.MovementTypeType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class MovementTimestamp {
+
+    private final UUID assetId;
+    private final Instant timestamp;
+    private final MovementTypeType movementType;
+    private final MovementSourceType source;
+
+    public MovementTimestamp(UUID assetId, Instant timestamp, MovementTypeType movementType, MovementSourceType source) {
+        this.assetId = assetId;
+        this.timestamp = timestamp;
+        this.movementType = movementType;
+        this.source = source;
+    }
+
+    public UUID getAssetId() {
+        return assetId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public MovementTypeType getMovementType() {
+        return movementType;
+    }
+
+    public MovementSourceType getSource() {
+        return source;
+    }
+}
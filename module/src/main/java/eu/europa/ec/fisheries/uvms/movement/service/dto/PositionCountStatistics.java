@@ -0,0 +1,59 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class PositionCountStatistics {
+
+    private int minutes;
+    private int trackedAssets;
+    private long loads;
+    private long rejectedLoads;
+    private long counts;
+    private long databaseFallbacks;
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(int minutes) {
+        this.minutes = minutes;
+    }
+
+    public int getTrackedAssets() {
+        return trackedAssets;
+    }
+
+    public void setTrackedAssets(int trackedAssets) {
+        this.trackedAssets = trackedAssets;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public void setLoads(long loads) {
+        this.loads = loads;
+    }
+
+    public long getRejectedLoads() {
+        return rejectedLoads;
+    }
+
+    public void setRejectedLoads(long rejectedLoads) {
+        this.rejectedLoads = rejectedLoads;
+    }
+
+    public long getCounts() {
+        return counts;
+    }
+
+    public void setCounts(long counts) {
+        this.counts = counts;
+    }
+
+    public long getDatabaseFallbacks() {
+        return databaseFallbacks;
+    }
+
+    public void setDatabaseFallbacks(long databaseFallbacks) {
+        this.databaseFallbacks = databaseFallbacks;
+    }
+}
@@ -0,0 +1,68 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class PostPersistLookupStatistics {
+
+    private long timeoutMillis;
+    private long lookups;
+    private long inMemory;
+    private long parallel;
+    private long partial;
+    private long vicinityTimeouts;
+    private long failures;
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public void setLookups(long lookups) {
+        this.lookups = lookups;
+    }
+
+    public long getInMemory() {
+        return inMemory;
+    }
+
+    public void setInMemory(long inMemory) {
+        this.inMemory = inMemory;
+    }
+
+    public long getParallel() {
+        return parallel;
+    }
+
+    public void setParallel(long parallel) {
+        this.parallel = parallel;
+    }
+
+    public long getPartial() {
+        return partial;
+    }
+
+    public void setPartial(long partial) {
+        this.partial = partial;
+    }
+
+    public long getVicinityTimeouts() {
+        return vicinityTimeouts;
+    }
+
+    public void setVicinityTimeouts(long vicinityTimeouts) {
+        this.vicinityTimeouts = vicinityTimeouts;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+}
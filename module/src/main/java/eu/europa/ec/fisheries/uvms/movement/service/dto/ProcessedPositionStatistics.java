@@ -0,0 +1,104 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class ProcessedPositionStatistics {
+
+    private boolean enabled;
+    private int retentionHours;
+    private int inMemory;
+    private long recorded;
+    private long redeliveredMessages;
+    private long redeliveredPositions;
+    private long skippedMessages;
+    private long skippedPositions;
+    private long memoryHits;
+    private long databaseHits;
+    private long databaseLookups;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRetentionHours() {
+        return retentionHours;
+    }
+
+    public void setRetentionHours(int retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+
+    public int getInMemory() {
+        return inMemory;
+    }
+
+    public void setInMemory(int inMemory) {
+        this.inMemory = inMemory;
+    }
+
+    public long getRecorded() {
+        return recorded;
+    }
+
+    public void setRecorded(long recorded) {
+        this.recorded = recorded;
+    }
+
+    public long getRedeliveredMessages() {
+        return redeliveredMessages;
+    }
+
+    public void setRedeliveredMessages(long redeliveredMessages) {
+        this.redeliveredMessages = redeliveredMessages;
+    }
+
+    public long getRedeliveredPositions() {
+        return redeliveredPositions;
+    }
+
+    public void setRedeliveredPositions(long redeliveredPositions) {
+        this.redeliveredPositions = redeliveredPositions;
+    }
+
+    public long getSkippedMessages() {
+        return skippedMessages;
+    }
+
+    public void setSkippedMessages(long skippedMessages) {
+        this.skippedMessages = skippedMessages;
+    }
+
+    public long getSkippedPositions() {
+        return skippedPositions;
+    }
+
+    public void setSkippedPositions(long skippedPositions) {
+        this.skippedPositions = skippedPositions;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public void setMemoryHits(long memoryHits) {
+        this.memoryHits = memoryHits;
+    }
+
+    public long getDatabaseHits() {
+        return databaseHits;
+    }
+
+    public void setDatabaseHits(long databaseHits) {
+        this.databaseHits = databaseHits;
+    }
+
+    public long getDatabaseLookups() {
+        return databaseLookups;
+    }
+
+    public void setDatabaseLookups(long databaseLookups) {
+        this.databaseLookups = databaseLookups;
+    }
+}
@@ -0,0 +1,68 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class ReorderBufferStatistics {
+
+    private long windowMillis;
+    private int heldPositions;
+    private int heldAssets;
+    private long held;
+    private long reordered;
+    private long spliced;
+    private long releases;
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public int getHeldPositions() {
+        return heldPositions;
+    }
+
+    public void setHeldPositions(int heldPositions) {
+        this.heldPositions = heldPositions;
+    }
+
+    public int getHeldAssets() {
+        return heldAssets;
+    }
+
+    public void setHeldAssets(int heldAssets) {
+        this.heldAssets = heldAssets;
+    }
+
+    public long getHeld() {
+        return held;
+    }
+
+    public void setHeld(long held) {
+        this.held = held;
+    }
+
+    public long getReordered() {
+        return reordered;
+    }
+
+    public void setReordered(long reordered) {
+        this.reordered = reordered;
+    }
+
+    public long getSpliced() {
+        return spliced;
+    }
+
+    public void setSpliced(long spliced) {
+        this.spliced = spliced;
+    }
+
+    public long getReleases() {
+        return releases;
+    }
+
+    public void setReleases(long releases) {
+        this.releases = releases;
+    }
+}
@@ -0,0 +1,59 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+public class SanityRuleStatistics {
+
+    private String ruleName;
+    private long evaluations;
+    private long hits;
+    private long timedEvaluations;
+    private long nanos;
+    private double meanNanos;
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public void setRuleName(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public void setEvaluations(long evaluations) {
+        this.evaluations = evaluations;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getTimedEvaluations() {
+        return timedEvaluations;
+    }
+
+    public void setTimedEvaluations(long timedEvaluations) {
+        this.timedEvaluations = timedEvaluations;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+
+    public void setMeanNanos(double meanNanos) {
+        this.meanNanos = meanNanos;
+    }
+}
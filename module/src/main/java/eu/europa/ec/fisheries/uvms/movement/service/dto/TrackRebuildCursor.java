@@ -0,0 +1,111 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Where the track rebuild of an asset is, passed from one chunk to the next. The counters are the ones of the last
+ * chunk.
+ */
+public class TrackRebuildCursor {
+
+    private UUID assetId;
+    private Instant to;
+    private Instant timestampCursor;
+    private UUID idCursor;
+    private UUID previousId;
+    private UUID trackId;
+    private boolean done;
+    private int movements;
+    private int relinked;
+    private int tracksCreated;
+    private int tracksDeleted;
+
+    public UUID getAssetId() {
+        return assetId;
+    }
+
+    public void setAssetId(UUID assetId) {
+        this.assetId = assetId;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+
+    public Instant getTimestampCursor() {
+        return timestampCursor;
+    }
+
+    public void setTimestampCursor(Instant timestampCursor) {
+        this.timestampCursor = timestampCursor;
+    }
+
+    public UUID getIdCursor() {
+        return idCursor;
+    }
+
+    public void setIdCursor(UUID idCursor) {
+        this.idCursor = idCursor;
+    }
+
+    public UUID getPreviousId() {
+        return previousId;
+    }
+
+    public void setPreviousId(UUID previousId) {
+        this.previousId = previousId;
+    }
+
+    public UUID getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(UUID trackId) {
+        this.trackId = trackId;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public void setDone(boolean done) {
+        this.done = done;
+    }
+
+    public int getMovements() {
+        return movements;
+    }
+
+    public void setMovements(int movements) {
+        this.movements = movements;
+    }
+
+    public int getRelinked() {
+        return relinked;
+    }
+
+    public void setRelinked(int relinked) {
+        this.relinked = relinked;
+    }
+
+    public int getTracksCreated() {
+        return tracksCreated;
+    }
+
+    public void setTracksCreated(int tracksCreated) {
+        this.tracksCreated = tracksCreated;
+    }
+
+    public int getTracksDeleted() {
+        return tracksDeleted;
+    }
+
+    public void setTracksDeleted(int tracksDeleted) {
+        this.tracksDeleted = tracksDeleted;
+    }
+}
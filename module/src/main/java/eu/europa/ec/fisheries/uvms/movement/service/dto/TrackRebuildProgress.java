@@ -0,0 +1,143 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class TrackRebuildProgress {
+
+    private UUID jobId;
+    private String state;
+    private Instant from;
+    private Instant to;
+    private Instant started;
+    private int parallelism;
+    private int assets;
+    private int assetsDone;
+    private int assetsFailed;
+    private long movements;
+    private long relinked;
+    private long tracksCreated;
+    private long tracksDeleted;
+    private long millis;
+    private double movementsPerSecond;
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(UUID jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public void setFrom(Instant from) {
+        this.from = from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+
+    public Instant getStarted() {
+        return started;
+    }
+
+    public void setStarted(Instant started) {
+        this.started = started;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getAssets() {
+        return assets;
+    }
+
+    public void setAssets(int assets) {
+        this.assets = assets;
+    }
+
+    public int getAssetsDone() {
+        return assetsDone;
+    }
+
+    public void setAssetsDone(int assetsDone) {
+        this.assetsDone = assetsDone;
+    }
+
+    public int getAssetsFailed() {
+        return assetsFailed;
+    }
+
+    public void setAssetsFailed(int assetsFailed) {
+        this.assetsFailed = assetsFailed;
+    }
+
+    public long getMovements() {
+        return movements;
+    }
+
+    public void setMovements(long movements) {
+        this.movements = movements;
+    }
+
+    public long getRelinked() {
+        return relinked;
+    }
+
+    public void setRelinked(long relinked) {
+        this.relinked = relinked;
+    }
+
+    public long getTracksCreated() {
+        return tracksCreated;
+    }
+
+    public void setTracksCreated(long tracksCreated) {
+        this.tracksCreated = tracksCreated;
+    }
+
+    public long getTracksDeleted() {
+        return tracksDeleted;
+    }
+
+    public void setTracksDeleted(long tracksDeleted) {
+        this.tracksDeleted = tracksDeleted;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    public double getMovementsPerSecond() {
+        return movementsPerSecond;
+    }
+
+    public void setMovementsPerSecond(double movementsPerSecond) {
+        this.movementsPerSecond = movementsPerSecond;
+    }
+}
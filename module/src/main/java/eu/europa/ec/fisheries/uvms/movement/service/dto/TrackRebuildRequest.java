@@ -0,0 +1,45 @@
+package eu.europa.ec.fisheries.uvms.movement.service.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public class TrackRebuildRequest {
+
+    private List<UUID> assetIds;
+    private Instant from;
+    private Instant to;
+    private Integer parallelism;
+
+    public List<UUID> getAssetIds() {
+        return assetIds;
+    }
+
+    public void setAssetIds(List<UUID> assetIds) {
+        this.assetIds = assetIds;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public void setFrom(Instant from) {
+        this.from = from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+
+    public Integer getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+}
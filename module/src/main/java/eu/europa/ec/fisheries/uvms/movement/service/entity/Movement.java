@@ -46,9 +46,13 @@ import java.util.UUID;
     @NamedQuery(name = Movement.FIND_FIRST, query = "SELECT m FROM Movement m  WHERE m.movementConnect.id = :id AND m.timestamp = (select min(mm.timestamp) from Movement mm  where mm.movementConnect.id = :id  AND mm.id <> :excludedMovement) "),
     @NamedQuery(name = Movement.FIND_EXISTING_DATE, query = "SELECT m FROM Movement m WHERE m.movementConnect.id = :id AND m.timestamp = :date "),
     @NamedQuery(name = Movement.NR_OF_MOVEMENTS_FOR_ASSET_IN_TIMESPAN, query = "SELECT COUNT (m) FROM Movement m WHERE m.movementConnect.id = :asset AND m.timestamp BETWEEN :fromDate AND :toDate "),
+    @NamedQuery(name = Movement.TIMESTAMPS_FOR_ASSET_IN_TIMESPAN, query = "SELECT m.timestamp FROM Movement m WHERE m.movementConnect.id = :asset AND m.timestamp BETWEEN :fromDate AND :toDate ORDER BY m.timestamp ASC"),
+    @NamedQuery(name = Movement.TIMESTAMPS_FOR_ASSETS_SINCE, query = "SELECT new eu.europa.ec.fisheries.uvms.movement.service.dto.MovementTimestamp(m.movementConnect.id, m.timestamp, m.movementType, m.source) FROM Movement m WHERE m.movementConnect.id IN :assets AND m.timestamp >= :fromDate"),
 
     @NamedQuery(name = Movement.FIND_ALL_FOR_ASSET_BETWEEN_DATES, query = "SELECT m FROM Movement m WHERE m.movementConnect.id = :id AND m.timestamp > :startDate AND m.timestamp < :endDate AND m.source in :sources ORDER BY m.timestamp DESC"),
     @NamedQuery(name = Movement.FIND_ALL_FOR_CONNECT_IDS_BETWEEN_DATES, query = "SELECT m FROM Movement m WHERE m.movementConnect.id in :connectIds AND m.timestamp >= :fromDate AND m.timestamp <= :toDate AND m.source in :sources ORDER BY m.timestamp DESC"),
+    @NamedQuery(name = Movement.FIND_FOR_ASSET_AFTER_CURSOR, query = "SELECT m FROM Movement m WHERE m.movementConnect.id = :id AND m.timestamp >= :timestampCursor AND m.timestamp <= :to AND NOT (m.timestamp = :timestampCursor AND m.id <= :idCursor) ORDER BY m.timestamp ASC, m.id ASC"),
+    @NamedQuery(name = Movement.TIMESPAN_OF_TRACK, query = "SELECT MIN(m.timestamp), MAX(m.timestamp) FROM Movement m WHERE m.track = :track"),
     @NamedQuery(name = Movement.FIND_LATEST_SINCE, query = "SELECT new eu.europa.ec.fisheries.uvms.movement.service.dto.MovementProjection(m.id, m.location, m.speed, m.calculatedSpeed, m.heading, m.movementConnect.id, m.status, m.source, m.movementType, m.timestamp, m.lesReportTime, m.sourceSatelliteId, m.updated, m.updatedBy, m.aisPositionAccuracy) FROM Movement m JOIN MovementConnect mc ON m.id = mc.latestMovement.id WHERE mc.updated > :date AND m.source in :sources" ),
 
 
@@ -80,6 +84,8 @@ public class Movement implements Serializable, Comparable<Movement> {
     public static final String FIND_FIRST = "Movement.findFirst";
     public static final String FIND_EXISTING_DATE = "Movement.findExistingDate";
     public static final String NR_OF_MOVEMENTS_FOR_ASSET_IN_TIMESPAN = "Movement.nrOfMovementsForAssetInTimespan";
+    public static final String TIMESTAMPS_FOR_ASSET_IN_TIMESPAN = "Movement.timestampsForAssetInTimespan";
+    public static final String TIMESTAMPS_FOR_ASSETS_SINCE = "Movement.timestampsForAssetsSince";
     public static final String FIND_LATEST_SINCE = "Movement.findLatestSince";
     public static final String FIND_LATESTMOVEMENT_BY_MOVEMENT_CONNECT = "Movement.findLatestMovementByMovementConnect";
     public static final String FIND_LATESTMOVEMENT_BY_MOVEMENT_CONNECT_LIST = "Movement.findLatestMovementByMovementConnectList";
@@ -89,6 +95,8 @@ public class Movement implements Serializable, Comparable<Movement> {
     public static final String FIND_MOVEMENT_BY_ID_LIST = "Movement.findMovementByMovementIdList";
     public static final String FIND_ALL_FOR_ASSET_BETWEEN_DATES = "Movement.findAllForAssetBetweenDates";
     public static final String FIND_ALL_FOR_CONNECT_IDS_BETWEEN_DATES = "Movement.findAllForConnectIdsBetweenDates";
+    public static final String FIND_FOR_ASSET_AFTER_CURSOR = "Movement.findForAssetAfterCursor";
+    public static final String TIMESPAN_OF_TRACK = "Movement.timespanOfTrack";
 
     public static final String UPDATE_TO_NEW_MOVEMENTCONNECT = "Movement.updateToNewMovementConnect";
     
@@ -29,17 +29,26 @@ import java.util.UUID;
 @XmlRootElement
 @NamedQueries({
     @NamedQuery(name = MovementConnect.MOVEMENT_CONNECT_GET_ALL, query = "SELECT m FROM MovementConnect m"),
+    @NamedQuery(name = MovementConnect.MOVEMENT_CONNECT_GET_ALL_IDS, query = "SELECT m.id FROM MovementConnect m"),
     @NamedQuery(name = MovementConnect.FIND_NEAREST_AFTER, query = "SELECT new eu.europa.ec.fisheries.uvms.movementrules.model.dto.VicinityInfoDTO(mc.id, mc.latestMovement.id, distance(mc.latestLocation, :point))" +
                 "FROM MovementConnect mc " +
                 "WHERE DWithin(mc.latestLocation, :point, :maxDistance, false) = true " +
-                "AND mc.updated > :time AND mc.id <> :excludedID")
+                "AND mc.updated > :time AND mc.id <> :excludedID"),
+    @NamedQuery(name = MovementConnect.FIND_LATEST_STATES, query = "SELECT new eu.europa.ec.fisheries.uvms.movement.service.dto.AssetLatestState(mc.id, lm.id, lm.timestamp, lm.location, lv.id, lv.timestamp, lv.location) " +
+                "FROM MovementConnect mc LEFT JOIN mc.latestMovement lm LEFT JOIN mc.latestVMS lv"),
+    @NamedQuery(name = MovementConnect.FIND_LATEST_POSITIONS_AFTER, query = "SELECT new eu.europa.ec.fisheries.uvms.movement.service.dto.AssetPosition(mc.id, mc.latestMovement.id, mc.latestLocation, mc.updated) " +
+                "FROM MovementConnect mc " +
+                "WHERE mc.latestLocation IS NOT NULL AND mc.updated > :time")
 })
 @DynamicUpdate
 @DynamicInsert
 public class MovementConnect implements Serializable, Comparable<MovementConnect> {
 
     public static final String MOVEMENT_CONNECT_GET_ALL = "MovementConnect.findAll";
+    public static final String MOVEMENT_CONNECT_GET_ALL_IDS = "MovementConnect.findAllIds";
     public static final String FIND_NEAREST_AFTER = "MovementConnect.findVicinityAfter";
+    public static final String FIND_LATEST_STATES = "MovementConnect.findLatestStates";
+    public static final String FIND_LATEST_POSITIONS_AFTER = "MovementConnect.findLatestPositionsAfter";
 
     private static final long serialVersionUID = 1L;
 
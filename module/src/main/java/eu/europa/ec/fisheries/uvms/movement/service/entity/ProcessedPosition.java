@@ -0,0 +1,58 @@
+package eu.europa.ec.fisheries.uvms.movement.service.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+
+/**
+ * A position from a message that has been processed, stored in the same transaction as the position itself. Only a
+ * hash of the ack message id, asset, source, movement type and position time is kept.
+ */
+@Entity
+@Table(name = "processedposition")
+@NamedQueries({
+    @NamedQuery(name = ProcessedPosition.FIND_KEYS, query = "SELECT p.key FROM ProcessedPosition p WHERE p.key IN :keys"),
+    @NamedQuery(name = ProcessedPosition.DELETE_BEFORE, query = "DELETE FROM ProcessedPosition p WHERE p.processed < :processed")
+})
+public class ProcessedPosition {
+
+    public static final String FIND_KEYS = "ProcessedPosition.findKeys";
+    public static final String DELETE_BEFORE = "ProcessedPosition.deleteBefore";
+
+    @Id
+    @Column(name = "proc_key")
+    private Long key;
+
+    @NotNull
+    @Column(name = "proc_processed")
+    private Instant processed;
+
+    public ProcessedPosition() {
+    }
+
+    public ProcessedPosition(long key, Instant processed) {
+        this.key = key;
+        this.processed = processed;
+    }
+
+    public Long getKey() {
+        return key;
+    }
+
+    public void setKey(Long key) {
+        this.key = key;
+    }
+
+    public Instant getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(Instant processed) {
+        this.processed = processed;
+    }
+}
@@ -30,11 +30,14 @@ import java.util.UUID;
     @NamedQuery(name = "Track.findByDistance", query = "SELECT t FROM Track t WHERE t.distance = :distance"),
     @NamedQuery(name = "Track.findByDuration", query = "SELECT t FROM Track t WHERE t.duration = :duration"),
     @NamedQuery(name = "Track.findByUpdated", query = "SELECT t FROM Track t WHERE t.updated = :updated"),
-    @NamedQuery(name = "Track.findByUpdatedBy", query = "SELECT t FROM Track t WHERE t.updatedBy = :updatedBy")})
+    @NamedQuery(name = "Track.findByUpdatedBy", query = "SELECT t FROM Track t WHERE t.updatedBy = :updatedBy"),
+    @NamedQuery(name = Track.DELETE_UNUSED, query = "DELETE FROM Track t WHERE t.id IN :ids AND NOT EXISTS (SELECT m.id FROM Movement m WHERE m.track = t)")})
 @DynamicUpdate
 @DynamicInsert
 public class Track implements Serializable {
 
+    public static final String DELETE_UNUSED = "Track.deleteUnused";
+
     private static final long serialVersionUID = 1L;
 
     @Id
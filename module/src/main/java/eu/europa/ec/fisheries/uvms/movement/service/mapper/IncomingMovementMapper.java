@@ -4,6 +4,7 @@ import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
 import eu.europa.ec.fisheries.schema.movement.v1.MovementTypeType;
 import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
 import eu.europa.ec.fisheries.uvms.movement.model.constants.SatId;
+import eu.europa.ec.fisheries.uvms.movement.model.dto.IncomingMovementDto;
 import eu.europa.ec.fisheries.uvms.movement.service.dto.SegmentCalculations;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
@@ -20,6 +21,57 @@ import java.util.UUID;
 public class IncomingMovementMapper {
 
 
+    /**
+     * Maps a movement of the binary format to the same incoming movement as its JSON is bound to.
+     */
+    public static IncomingMovement mapIncomingMovement(IncomingMovementDto dto) {
+        IncomingMovement im = new IncomingMovement();
+        im.setAssetHistoryId(dto.getAssetHistoryId());
+        im.setAckResponseMessageId(dto.getAckResponseMessageId());
+        im.setDateReceived(dto.getDateReceived());
+        im.setPositionTime(dto.getPositionTime());
+        im.setLesReportTime(dto.getLesReportTime());
+        im.setStatus(dto.getStatus());
+        im.setReportedSpeed(dto.getReportedSpeed());
+        im.setReportedCourse(dto.getReportedCourse());
+        im.setAssetName(dto.getAssetName());
+        im.setFlagState(dto.getFlagState());
+        im.setExternalMarking(dto.getExternalMarking());
+        // Like a movement type missing in the JSON, keeps the default
+        if (dto.getMovementType() != null) {
+            im.setMovementType(dto.getMovementType());
+        }
+        im.setMovementSourceType(dto.getMovementSourceType());
+        im.setAssetType(dto.getAssetType());
+        im.setAssetID(dto.getAssetID());
+        im.setAssetCFR(dto.getAssetCFR());
+        im.setAssetIRCS(dto.getAssetIRCS());
+        im.setAssetIMO(dto.getAssetIMO());
+        im.setAssetMMSI(dto.getAssetMMSI());
+        im.setAssetGuid(dto.getAssetGuid());
+        im.setLongitude(dto.getLongitude());
+        im.setLatitude(dto.getLatitude());
+        im.setAltitude(dto.getAltitude());
+        im.setActivityMessageType(dto.getActivityMessageType());
+        im.setActivityMessageId(dto.getActivityMessageId());
+        im.setActivityCallback(dto.getActivityCallback());
+        im.setComChannelType(dto.getComChannelType());
+        im.setMobileTerminalGuid(dto.getMobileTerminalGuid());
+        im.setMobileTerminalConnectId(dto.getMobileTerminalConnectId());
+        im.setMobileTerminalSerialNumber(dto.getMobileTerminalSerialNumber());
+        im.setMobileTerminalLES(dto.getMobileTerminalLES());
+        im.setMobileTerminalDNID(dto.getMobileTerminalDNID());
+        im.setMobileTerminalMemberNumber(dto.getMobileTerminalMemberNumber());
+        im.setMobileTerminalActive(dto.isMobileTerminalActive());
+        im.setSourceSatelliteId(dto.getSourceSatelliteId());
+        im.setPluginType(dto.getPluginType());
+        im.setDuplicate(dto.isDuplicate());
+        im.setUpdated(dto.getUpdated());
+        im.setUpdatedBy(dto.getUpdatedBy());
+        im.setAisPositionAccuracy(dto.getAisPositionAccuracy());
+        return im;
+    }
+
     public static Movement mapNewMovementEntity(IncomingMovement ic, String username) {
         Movement entity = new Movement();
 
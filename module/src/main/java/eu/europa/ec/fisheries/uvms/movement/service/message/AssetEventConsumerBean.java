@@ -0,0 +1,89 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.AssetEnrichmentCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Listens for asset and mobile terminal changes on the event stream and drops the affected asset enrichment cache
+ * entries. When the changed ids cannot be found in the message the whole cache is cleared.
+ * <p>
+ * Deployed as AssetEventConsumer in ejb-jar.xml, listening on {@link MessageConstants#EVENT_STREAM_TOPIC}.
+ */
+public class AssetEventConsumerBean implements MessageListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssetEventConsumerBean.class);
+
+    @Inject
+    private AssetEnrichmentCache enrichmentCache;
+
+    @Override
+    public void onMessage(Message message) {
+        try {
+            Set<String> ids = message instanceof TextMessage ? findIds(((TextMessage) message).getText()) : new HashSet<>();
+            if (ids.isEmpty()) {
+                enrichmentCache.invalidateAll();
+            } else {
+                enrichmentCache.invalidate(ids);
+            }
+        } catch (JMSException | RuntimeException e) {
+            LOG.warn("Could not read asset event, clearing asset enrichment cache", e);
+            enrichmentCache.invalidateAll();
+        }
+    }
+
+    private Set<String> findIds(String text) {
+        Set<String> ids = new HashSet<>();
+        if (text == null || text.isEmpty()) {
+            return ids;
+        }
+        try (JsonReader reader = Json.createReader(new StringReader(text))) {
+            JsonStructure json = reader.read();
+            if (json instanceof JsonObject) {
+                collectIds((JsonObject) json, ids, 0);
+            }
+        }
+        return ids;
+    }
+
+    private void collectIds(JsonObject json, Set<String> ids, int depth) {
+        for (Map.Entry<String, JsonValue> field : json.entrySet()) {
+            JsonValue value = field.getValue();
+            if (value instanceof JsonString && isUuid(((JsonString) value).getString())) {
+                ids.add(((JsonString) value).getString());
+            } else if (value instanceof JsonObject && depth < 2) {
+                collectIds((JsonObject) value, ids, depth + 1);
+            }
+        }
+    }
+
+    private boolean isUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.schema.movement.module.v1.ProcessedMovementRef;
+import eu.europa.ec.fisheries.schema.movement.module.v1.ProcessedMovementRefType;
+import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
+import eu.europa.ec.fisheries.uvms.movement.model.mapper.MovementModuleResponseMapper;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementParameterHelper;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BatchSenderStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import javax.jms.ConnectionFactory;
+import javax.jms.Queue;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.UUID;
+
+/**
+ * Acknowledges processed movements to Exchange in batches, as one compact processedMovementBatchResponse with
+ * function {@value #FUNCTION}, instead of one pretty printed ProcessedMovementResponse per movement. Batching, retries
+ * and the transaction handling are done by {@link TransactionalBatchSender}.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class ExchangeAckBatchSender {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExchangeAckBatchSender.class);
+
+    public static final String FUNCTION = "PROCESSED_MOVEMENT_BATCH";
+
+    private static final long DEFAULT_WINDOW_MILLIS = 50;
+
+    @Resource(mappedName = "java:/ConnectionFactory")
+    private ConnectionFactory connectionFactory;
+
+    @Resource(mappedName = "java:/" + MessageConstants.QUEUE_EXCHANGE_EVENT)
+    private Queue destination;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    private TransactionalBatchSender<ProcessedMovementRef> sender;
+
+    @PostConstruct
+    public void init() {
+        if (sender == null) {
+            sender = new TransactionalBatchSender<>("Exchange", connectionFactory, destination, FUNCTION,
+                    MovementModuleResponseMapper::mapToProcessedMovementBatchResponse, transactionRegistry);
+        }
+        int batchSize = parameterHelper.getIntValue(ParameterKey.EXCHANGE_ACK_BATCH_SIZE, 0);
+        if (batchSize <= 1) {
+            LOG.info("Processed movements are acknowledged to Exchange one by one");
+            return;
+        }
+        long windowMillis = parameterHelper.getLongValue(ParameterKey.EXCHANGE_ACK_BATCH_WINDOW_MILLIS, DEFAULT_WINDOW_MILLIS);
+        sender.start(batchSize, windowMillis, scheduler);
+        LOG.info("Acknowledging processed movements to Exchange in batches of up to {} within {} ms", batchSize, windowMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.stop();
+    }
+
+    public boolean isEnabled() {
+        return sender.isStarted();
+    }
+
+    /**
+     * Adds the ack to the next batch once the current transaction commits.
+     */
+    public void add(ProcessedMovementRefType refType, UUID refGuid, String ackResponseMessageId) {
+        ProcessedMovementRef movementRef = new ProcessedMovementRef();
+        movementRef.setAckResponseMessageID(ackResponseMessageId);
+        movementRef.setType(refType);
+        movementRef.setMovementRefGuid(refGuid.toString());
+        sender.add(movementRef);
+    }
+
+    public BatchSenderStatistics getStatistics() {
+        return sender.getStatistics();
+    }
+}
@@ -4,12 +4,14 @@ import eu.europa.ec.fisheries.schema.exchange.module.v1.ExchangeModuleMethod;
 import eu.europa.ec.fisheries.schema.exchange.module.v1.ProcessedMovementResponse;
 import eu.europa.ec.fisheries.schema.exchange.movement.v1.MovementRefType;
 import eu.europa.ec.fisheries.schema.exchange.movement.v1.MovementRefTypeType;
+import eu.europa.ec.fisheries.schema.movement.module.v1.ProcessedMovementRefType;
 import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
 import eu.europa.ec.fisheries.uvms.commons.message.impl.AbstractProducer;
-import eu.europa.ec.fisheries.uvms.exchange.model.mapper.JAXBMarshaller;
+import eu.europa.ec.fisheries.uvms.movement.model.mapper.JAXBMarshaller;
 
 import javax.annotation.Resource;
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Queue;
@@ -24,10 +26,17 @@ public class ExchangeBean extends AbstractProducer {
     @Resource(mappedName = "java:/" + MessageConstants.QUEUE_EXCHANGE_EVENT)
     private Destination destination;
 
+    @Inject
+    private ExchangeAckBatchSender ackBatchSender;
+
     public void sendAckToExchange(MovementRefTypeType refType, UUID refGuid, String ackResponseMessageId) throws JMSException {
         if (ackResponseMessageId == null) {
             return;
         }
+        if (ackBatchSender.isEnabled()) {
+            ackBatchSender.add(ProcessedMovementRefType.fromValue(refType.value()), refGuid, ackResponseMessageId);
+            return;
+        }
         ProcessedMovementResponse processedMovementResponse = new ProcessedMovementResponse();
         processedMovementResponse.setMethod(ExchangeModuleMethod.PROCESSED_MOVEMENT);
         processedMovementResponse.setUsername("");
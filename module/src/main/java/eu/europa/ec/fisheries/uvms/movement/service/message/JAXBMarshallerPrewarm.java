@@ -0,0 +1,51 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.schema.exchange.module.v1.ProcessedMovementResponse;
+import eu.europa.ec.fisheries.schema.movement.module.v1.GetMovementListByQueryRequest;
+import eu.europa.ec.fisheries.schema.movement.module.v1.GetMovementListByQueryResponse;
+import eu.europa.ec.fisheries.schema.movement.module.v1.GetMovementMapByQueryRequest;
+import eu.europa.ec.fisheries.schema.movement.module.v1.GetMovementMapByQueryResponse;
+import eu.europa.ec.fisheries.schema.movement.module.v1.MovementBaseRequest;
+import eu.europa.ec.fisheries.schema.movement.module.v1.PingResponse;
+import eu.europa.ec.fisheries.schema.movement.module.v1.ProcessedMovementBatchResponse;
+import eu.europa.ec.fisheries.uvms.movement.model.mapper.JAXBMarshaller;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+
+/**
+ * Creates the JAXB contexts of the XML requests and responses at startup, so that the first legacy JMS requests and
+ * Exchange acks do not wait for them.
+ */
+@Singleton
+@Startup
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class JAXBMarshallerPrewarm {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JAXBMarshallerPrewarm.class);
+
+    @PostConstruct
+    public void prewarm() {
+        long before = System.currentTimeMillis();
+        try {
+            JAXBMarshaller.prewarm(
+                    MovementBaseRequest.class,
+                    GetMovementListByQueryRequest.class,
+                    GetMovementMapByQueryRequest.class,
+                    GetMovementListByQueryResponse.class,
+                    GetMovementMapByQueryResponse.class,
+                    PingResponse.class,
+                    ProcessedMovementBatchResponse.class,
+                    ProcessedMovementResponse.class);
+            LOG.info("JAXB contexts created in {} ms", System.currentTimeMillis() - before);
+        } catch (RuntimeException e) {
+            // They are created on first use instead
+            LOG.warn("Could not create the JAXB contexts at startup", e);
+        }
+    }
+}
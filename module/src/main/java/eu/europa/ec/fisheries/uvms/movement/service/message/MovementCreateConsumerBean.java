@@ -3,9 +3,16 @@ package eu.europa.ec.fisheries.uvms.movement.service.message;
 import eu.europa.ec.fisheries.schema.movement.module.v1.MovementBaseRequest;
 import eu.europa.ec.fisheries.schema.movement.module.v1.MovementModuleMethod;
 import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
+import eu.europa.ec.fisheries.uvms.movement.model.mapper.IncomingMovementBinaryCodec;
 import eu.europa.ec.fisheries.uvms.movement.model.mapper.JAXBMarshaller;
-import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementCreateBean;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.IngestController;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementBackfillBean;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementIngestBean;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementParameterHelper;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.mapper.IncomingMovementMapper;
+import eu.europa.ec.fisheries.uvms.movement.service.util.IncomingMovementBatchReader;
 import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMovement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,13 +21,16 @@ import javax.annotation.PostConstruct;
 import javax.ejb.EJBException;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
 import javax.jms.TextMessage;
 import javax.json.bind.Jsonb;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class MovementCreateConsumerBean implements MessageListener {
 
@@ -29,13 +39,26 @@ public class MovementCreateConsumerBean implements MessageListener {
     private static final Logger LOG = LoggerFactory.getLogger(MovementCreateConsumerBean.class);
 
     private Jsonb jsonb;
+
+    private IncomingMovementBatchReader batchReader;
+
+    private int batchChunkSize;
     
     @Inject
-    private MovementCreateBean movementCreate;
+    private MovementIngestBean movementIngest;
+
+    @Inject
+    private MovementBackfillBean movementBackfill;
 
     @Inject
     private MovementEventBean movementEventBean;
 
+    @Inject
+    private IngestController ingestController;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
     @Inject
     @ErrorEvent
     private Event<EventMessage> errorEvent;
@@ -43,28 +66,54 @@ public class MovementCreateConsumerBean implements MessageListener {
     @PostConstruct
     private void init() {
         jsonb = new JsonBConfiguratorMovement().getContext(null);
+        batchChunkSize = parameterHelper.getIntValue(ParameterKey.INGEST_BATCH_CHUNK_SIZE, 0);
+        if (batchChunkSize > 0) {
+            batchReader = new IncomingMovementBatchReader();
+        }
     }
 
 
     @Override
     public void onMessage(Message message) {
-        TextMessage textMessage = (TextMessage) message;
-
         try {
-            String propertyMethod = textMessage.getStringProperty(MessageConstants.JMS_FUNCTION_PROPERTY);
+            String propertyMethod = message.getStringProperty(MessageConstants.JMS_FUNCTION_PROPERTY);
+            if (IncomingMovementBinaryCodec.FORMAT_BINARY_V1.equals(message.getStringProperty(IncomingMovementBinaryCodec.FORMAT_PROPERTY))) {
+                onBinaryMessage(propertyMethod, (BytesMessage) message);
+                return;
+            }
+            TextMessage textMessage = (TextMessage) message;
             if(propertyMethod != null) {
                 switch (propertyMethod) {
                     case "CREATE" :
-                        IncomingMovement incomingMovement = jsonb.fromJson(textMessage.getText(), IncomingMovement.class);
-                        movementCreate.processIncomingMovement(incomingMovement);
+                        ingestController.recordMessageAge(textMessage.getJMSTimestamp());
+                        try (IngestController.Permit permit = ingestController.admit()) {
+                            IncomingMovement incomingMovement = jsonb.fromJson(textMessage.getText(), IncomingMovement.class);
+                            movementIngest.ingest(incomingMovement, textMessage.getJMSRedelivered());
+                        }
                         break;
 
                     case "CREATE_BATCH" :
-                        List<IncomingMovement> movementList = jsonb.fromJson(textMessage.getText(), new ArrayList<IncomingMovement>(){}.getClass().getGenericSuperclass());
-                        for (IncomingMovement im: movementList) {
-                            movementCreate.processIncomingMovement(im);
+                        ingestController.recordMessageAge(textMessage.getJMSTimestamp());
+                        try (IngestController.Permit permit = ingestController.admit()) {
+                            boolean redelivered = textMessage.getJMSRedelivered();
+                            if (batchReader != null) {
+                                // Ingests the first positions while the rest of the batch is still being decoded
+                                batchReader.read(new StringReader(textMessage.getText()), batchChunkSize,
+                                        chunk -> movementIngest.ingestBatch(chunk, redelivered));
+                            } else {
+                                List<IncomingMovement> movementList = jsonb.fromJson(textMessage.getText(), new ArrayList<IncomingMovement>(){}.getClass().getGenericSuperclass());
+                                movementIngest.ingestBatch(movementList, redelivered);
+                            }
                         }
                         break;
+                    case "BACKFILL" :
+                        if (!ingestController.deferNonCritical()) {
+                            // Rolled back and redelivered later
+                            throw new IllegalStateException("Ingest is congested, backfill is deferred");
+                        }
+                        List<IncomingMovement> historicalMovements = jsonb.fromJson(textMessage.getText(), new ArrayList<IncomingMovement>(){}.getClass().getGenericSuperclass());
+                        movementBackfill.backfill(historicalMovements);
+                        break;
                     case "PING":
                         movementEventBean.ping(textMessage);
                         break;
@@ -75,7 +124,7 @@ public class MovementCreateConsumerBean implements MessageListener {
                 onMessageLegacy(message);
             }
         } catch (Exception ex) {
-            if (maxRedeliveriesReached(textMessage)) {
+            if (maxRedeliveriesReached(message)) {
                 LOG.error("maxRedeliveriesReached", ex);
             } else {
                 LOG.error("Something went wrong", ex);
@@ -84,6 +133,26 @@ public class MovementCreateConsumerBean implements MessageListener {
         }
     }
 
+    private void onBinaryMessage(String propertyMethod, BytesMessage message) throws JMSException {
+        if (!"CREATE".equals(propertyMethod) && !"CREATE_BATCH".equals(propertyMethod)) {
+            LOG.warn("NOOP, {} is not sent in the binary format", propertyMethod);
+            return;
+        }
+        byte[] bytes = new byte[(int) message.getBodyLength()];
+        message.readBytes(bytes);
+        ingestController.recordMessageAge(message.getJMSTimestamp());
+        try (IngestController.Permit permit = ingestController.admit()) {
+            List<IncomingMovement> incomingMovements = IncomingMovementBinaryCodec.decode(bytes).stream()
+                    .map(IncomingMovementMapper::mapIncomingMovement)
+                    .collect(Collectors.toList());
+            if ("CREATE".equals(propertyMethod) && incomingMovements.size() == 1) {
+                movementIngest.ingest(incomingMovements.get(0), message.getJMSRedelivered());
+            } else {
+                movementIngest.ingestBatch(incomingMovements, message.getJMSRedelivered());
+            }
+        }
+    }
+
     private void onMessageLegacy(Message message) {
         TextMessage textMessage = null;
         try {
@@ -120,7 +189,7 @@ public class MovementCreateConsumerBean implements MessageListener {
         }
     }
 
-    private boolean maxRedeliveriesReached(TextMessage message) {
+    private boolean maxRedeliveriesReached(Message message) {
         try {
             if (message != null) {
                 return message.getIntProperty("JMSXDeliveryCount") > MAXIMUM_REDELIVERIES;
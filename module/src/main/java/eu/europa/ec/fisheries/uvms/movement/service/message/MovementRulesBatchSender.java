@@ -0,0 +1,97 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
+import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementParameterHelper;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BatchSenderStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMovement;
+import eu.europa.ec.fisheries.uvms.movementrules.model.dto.MovementDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import javax.jms.ConnectionFactory;
+import javax.jms.Queue;
+import javax.json.bind.Jsonb;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Sends the movements to MovementRules in batches, as a JSON array with function {@value #FUNCTION}, instead of one
+ * message per movement. Batching, retries and the transaction handling are done by {@link TransactionalBatchSender}.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class MovementRulesBatchSender {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MovementRulesBatchSender.class);
+
+    public static final String FUNCTION = "EVALUATE_RULES_BATCH";
+
+    private static final long DEFAULT_WINDOW_MILLIS = 50;
+
+    @Resource(mappedName = "java:/ConnectionFactory")
+    private ConnectionFactory connectionFactory;
+
+    @Resource(mappedName = "java:/" + MessageConstants.QUEUE_MOVEMENTRULES_EVENT)
+    private Queue destination;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    private TransactionalBatchSender<MovementDetails> sender;
+
+    @PostConstruct
+    public void init() {
+        if (sender == null) {
+            Jsonb jsonb = new JsonBConfiguratorMovement().getContext(null);
+            sender = new TransactionalBatchSender<>("MovementRules", connectionFactory, destination, FUNCTION,
+                    jsonb::toJson, transactionRegistry);
+        }
+        int batchSize = parameterHelper.getIntValue(ParameterKey.RULES_BATCH_SIZE, 0);
+        if (batchSize <= 1) {
+            LOG.info("Movements are sent to MovementRules one by one");
+            return;
+        }
+        long windowMillis = parameterHelper.getLongValue(ParameterKey.RULES_BATCH_WINDOW_MILLIS, DEFAULT_WINDOW_MILLIS);
+        sender.start(batchSize, windowMillis, scheduler);
+        LOG.info("Sending movements to MovementRules in batches of up to {} within {} ms", batchSize, windowMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.stop();
+    }
+
+    public boolean isEnabled() {
+        return sender.isStarted();
+    }
+
+    /**
+     * Adds the movement to the next batch once the current transaction commits.
+     */
+    public void add(MovementDetails movementDetails) {
+        sender.add(movementDetails);
+    }
+
+    public BatchSenderStatistics getStatistics() {
+        return sender.getStatistics();
+    }
+}
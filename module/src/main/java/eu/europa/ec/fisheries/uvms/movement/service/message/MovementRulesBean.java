@@ -8,6 +8,7 @@ import eu.europa.ec.fisheries.uvms.movementrules.model.dto.MovementDetails;
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.ejb.Stateless;
+import javax.inject.Inject;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Queue;
@@ -19,6 +20,9 @@ public class MovementRulesBean extends AbstractProducer {
     @Resource(mappedName = "java:/" + MessageConstants.QUEUE_MOVEMENTRULES_EVENT)
     private Queue destination;
 
+    @Inject
+    private MovementRulesBatchSender batchSender;
+
     private Jsonb jsonb;
 
     @PostConstruct
@@ -27,6 +31,10 @@ public class MovementRulesBean extends AbstractProducer {
     }
 
     public void send(MovementDetails movementDetails) throws JMSException {
+        if (batchSender.isEnabled()) {
+            batchSender.add(movementDetails);
+            return;
+        }
         String movementDetailJson = jsonb.toJson(movementDetails);
         sendMessageToSpecificQueueWithFunction(movementDetailJson, getDestination(), null, "EVALUATE_RULES", null);
     }
@@ -0,0 +1,232 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.uvms.commons.message.api.MessageConstants;
+import eu.europa.ec.fisheries.uvms.commons.message.context.MappedDiagnosticContext;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BatchSenderStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.util.BatchBuffer;
+import eu.europa.ec.fisheries.uvms.movement.service.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSContext;
+import javax.jms.JMSException;
+import javax.jms.JMSProducer;
+import javax.jms.JMSRuntimeException;
+import javax.jms.Queue;
+import javax.jms.TextMessage;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Sends items to a queue in batches, each batch as one message with the given function.
+ * <p>
+ * The items of a transaction are collected until it commits and dropped if it rolls back. Committed items are sent
+ * when a batch is full, or at the latest a window after the first one was added, right away without a window. All
+ * batches go out through one JMSContext and producer.
+ * <p>
+ * A batch that cannot be sent is put back into the buffer and sent again {@value #RETRY_MILLIS} ms later on a new
+ * JMSContext. The buffer holds at most {@value #MAX_BUFFERED_BATCHES} batches, items that do not fit are dropped and
+ * counted as failed. The statistics are kept over restarts.
+ */
+public class TransactionalBatchSender<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionalBatchSender.class);
+
+    static final long RETRY_MILLIS = 1000;
+    static final int MAX_BUFFERED_BATCHES = 100;
+    private static final long MIN_TICK_MILLIS = 10;
+
+    private final String target;
+    private final ConnectionFactory connectionFactory;
+    private final Queue destination;
+    private final String function;
+    private final Function<List<T>, String> serializer;
+    private final TransactionSynchronizationRegistry transactionRegistry;
+    private final String pendingKey;
+
+    private int batchSize;
+    private long windowMillis;
+    private ScheduledFuture<?> flusher;
+
+    // JMSContext is not thread safe, sends are serialised on it
+    private JMSContext context;
+    private JMSProducer producer;
+
+    private volatile BatchBuffer<T> buffer;
+
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder sentItems = new LongAdder();
+    private final LongAdder failedItems = new LongAdder();
+    private final LongAdder retriedItems = new LongAdder();
+
+    /**
+     * @param target name of the receiving module, for the log
+     */
+    public TransactionalBatchSender(String target, ConnectionFactory connectionFactory, Queue destination, String function,
+                                    Function<List<T>, String> serializer, TransactionSynchronizationRegistry transactionRegistry) {
+        this.target = target;
+        this.connectionFactory = connectionFactory;
+        this.destination = destination;
+        this.function = function;
+        this.serializer = serializer;
+        this.transactionRegistry = transactionRegistry;
+        this.pendingKey = TransactionalBatchSender.class.getName() + ".pending." + function;
+    }
+
+    /**
+     * Starts batching, a started sender is stopped first.
+     */
+    public void start(int batchSize, long windowMillis, ScheduledExecutorService scheduler) {
+        stop();
+        this.batchSize = batchSize;
+        this.windowMillis = windowMillis;
+        buffer = new BatchBuffer<>(batchSize, windowMillis);
+        // Also without a window, batches that failed are sent again from here
+        long tick = Math.max(MIN_TICK_MILLIS, windowMillis / 2);
+        flusher = scheduler.scheduleWithFixedDelay(this::flushDue, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends what is buffered once more and stops, the buffer is dropped.
+     */
+    public void stop() {
+        BatchBuffer<T> stopping = buffer;
+        if (stopping == null) {
+            return;
+        }
+        flusher.cancel(false);
+        send(stopping.takeAll());
+        if (stopping.size() > 0) {
+            failedItems.add(stopping.size());
+            LOG.error("{} items could not be sent to {} before shutdown", stopping.size(), target);
+        }
+        buffer = null;
+        synchronized (this) {
+            closeContext();
+        }
+    }
+
+    public boolean isStarted() {
+        return buffer != null;
+    }
+
+    /**
+     * Adds the item to the next batch once the current transaction commits.
+     */
+    public void add(T item) {
+        if (transactionRegistry.getTransactionKey() == null) {
+            enqueue(Collections.singletonList(item));
+            return;
+        }
+        List<T> pending = pendingItems();
+        if (pending.isEmpty()) {
+            TransactionCallbacks.afterCommit(transactionRegistry, () -> enqueue(pending));
+        }
+        pending.add(item);
+    }
+
+    public BatchSenderStatistics getStatistics() {
+        BatchBuffer<T> current = buffer;
+        BatchSenderStatistics statistics = new BatchSenderStatistics();
+        statistics.setBatchSize(current != null ? batchSize : 0);
+        statistics.setWindowMillis(current != null ? windowMillis : 0);
+        statistics.setBuffered(current != null ? current.size() : 0);
+        statistics.setSentMessages(sentMessages.sum());
+        statistics.setSentItems(sentItems.sum());
+        statistics.setFailedItems(failedItems.sum());
+        statistics.setRetriedItems(retriedItems.sum());
+        return statistics;
+    }
+
+    private void enqueue(List<T> items) {
+        BatchBuffer<T> current = buffer;
+        if (current == null) {
+            // Stopped while the transaction was running
+            send(items);
+            return;
+        }
+        current.addAll(items, System.currentTimeMillis()).forEach(this::send);
+    }
+
+    private void flushDue() {
+        try {
+            BatchBuffer<T> current = buffer;
+            if (current != null) {
+                send(current.takeDue(System.currentTimeMillis()));
+            }
+        } catch (RuntimeException e) {
+            // Keep the flusher scheduled
+            LOG.error("Could not send batch to {}", target, e);
+        }
+    }
+
+    private void send(List<T> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        String text = serializer.apply(batch);
+        try {
+            synchronized (this) {
+                if (context == null) {
+                    context = connectionFactory.createContext();
+                    producer = context.createProducer();
+                }
+                TextMessage message = context.createTextMessage(text);
+                message.setStringProperty(MessageConstants.JMS_FUNCTION_PROPERTY, function);
+                MappedDiagnosticContext.addThreadMappedDiagnosticContextToMessageProperties(message);
+                producer.send(destination, message);
+            }
+            sentMessages.increment();
+            sentItems.add(batch.size());
+        } catch (JMSException | JMSRuntimeException e) {
+            synchronized (this) {
+                closeContext();
+            }
+            requeue(batch, e);
+        }
+    }
+
+    private void requeue(List<T> batch, Exception failure) {
+        BatchBuffer<T> current = buffer;
+        if (current == null || current.size() + batch.size() > batchSize * MAX_BUFFERED_BATCHES) {
+            failedItems.add(batch.size());
+            LOG.error("Could not send {} items to {} and {}, dropping them", batch.size(), target,
+                    current == null ? "the sender is stopped" : "the buffer is full", failure);
+            return;
+        }
+        retriedItems.add(batch.size());
+        LOG.warn("Could not send {} items to {}, retrying in {} ms", batch.size(), target, RETRY_MILLIS, failure);
+        current.requeue(batch, System.currentTimeMillis(), RETRY_MILLIS);
+    }
+
+    private void closeContext() {
+        if (context == null) {
+            return;
+        }
+        try {
+            context.close();
+        } catch (JMSRuntimeException e) {
+            LOG.debug("Could not close the JMSContext to {}", target, e);
+        }
+        context = null;
+        producer = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> pendingItems() {
+        List<T> pending = (List<T>) transactionRegistry.getResource(pendingKey);
+        if (pending == null) {
+            pending = new ArrayList<>();
+            transactionRegistry.putResource(pendingKey, pending);
+        }
+        return pending;
+    }
+}
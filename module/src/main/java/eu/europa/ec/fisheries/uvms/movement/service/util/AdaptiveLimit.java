@@ -0,0 +1,98 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+/**
+ * Concurrency limit adjusted by additive increase, multiplicative decrease. The limit grows by one per adjustment
+ * while there is a backlog and nothing is congested, and shrinks by a factor as soon as something is. Callers take a
+ * permit before the work and wait while the limit is reached.
+ */
+public class AdaptiveLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double decreaseFactor;
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private int maxInFlight;
+
+    public AdaptiveLimit(int minLimit, int maxLimit, int initialLimit, double decreaseFactor) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must be 1 <= min <= max: " + minLimit + ", " + maxLimit);
+        }
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("Decrease factor must be between 0 and 1: " + decreaseFactor);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.decreaseFactor = decreaseFactor;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Waits until fewer than the limit are in flight.
+     *
+     * @return false if there was no permit within the timeout
+     */
+    public synchronized boolean acquire(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        waiting++;
+        try {
+            while (inFlight >= getLimit()) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+                wait(left);
+            }
+        } finally {
+            waiting--;
+        }
+        inFlight++;
+        maxInFlight = Math.max(maxInFlight, inFlight);
+        return true;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Adjusts the limit at the end of a measuring window.
+     *
+     * @param congested whether the work in the window was slower than it should be
+     * @param backlog whether there was more work than permits in the window
+     * @return the new limit
+     */
+    public synchronized int adjust(boolean congested, boolean backlog) {
+        if (congested) {
+            limit = Math.max(minLimit, limit * decreaseFactor);
+        } else if (backlog && maxInFlight >= getLimit()) {
+            limit = Math.min(maxLimit, limit + 1);
+            notifyAll();
+        }
+        maxInFlight = inFlight;
+        return getLimit();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+}
@@ -0,0 +1,81 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects items into batches of at most batchSize items. A batch is due when it is full, or when windowMillis have
+ * passed since its first item was added. Without a window every item is due right away.
+ */
+public class BatchBuffer<T> {
+
+    private final int batchSize;
+    private final long windowMillis;
+
+    private final List<T> items = new ArrayList<>();
+    private long firstAddedMillis;
+
+    public BatchBuffer(int batchSize, long windowMillis) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * @return the batches that are due after adding the items, in the order the items were added
+     */
+    public synchronized List<List<T>> addAll(Collection<? extends T> added, long now) {
+        if (added.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (items.isEmpty()) {
+            firstAddedMillis = now;
+        }
+        items.addAll(added);
+        List<List<T>> due = new ArrayList<>();
+        while (items.size() >= batchSize) {
+            List<T> batch = items.subList(0, batchSize);
+            due.add(new ArrayList<>(batch));
+            batch.clear();
+            // What is left was added now
+            firstAddedMillis = now;
+        }
+        if (windowMillis <= 0 && !items.isEmpty()) {
+            due.add(takeAll());
+        }
+        return due;
+    }
+
+    /**
+     * @return the buffered items if the window of the first one has passed, otherwise nothing
+     */
+    public synchronized List<T> takeDue(long now) {
+        if (items.isEmpty() || now - firstAddedMillis < windowMillis) {
+            return Collections.emptyList();
+        }
+        return takeAll();
+    }
+
+    /**
+     * Puts a batch that could not be sent back in front of the buffered items. They are due again retryMillis from
+     * now, or earlier when added items fill a batch, and can then come out together as a larger batch.
+     */
+    public synchronized void requeue(Collection<? extends T> batch, long now, long retryMillis) {
+        items.addAll(0, batch);
+        firstAddedMillis = now + retryMillis - windowMillis;
+    }
+
+    public synchronized List<T> takeAll() {
+        List<T> all = new ArrayList<>(items);
+        items.clear();
+        return all;
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+}
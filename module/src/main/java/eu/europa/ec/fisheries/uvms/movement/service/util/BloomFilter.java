@@ -0,0 +1,74 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free Bloom filter over keys made of three longs. Never answers false for a key that was added, answers true
+ * for a key that was not added with roughly the configured probability as long as the expected number of keys is
+ * not exceeded.
+ */
+public class BloomFilter {
+
+    private static final long MAX_BITS = 1L << 32;
+
+    private final AtomicLongArray bits;
+    private final long bitMask;
+    private final int hashes;
+    private final LongAdder added = new LongAdder();
+
+    public BloomFilter(long expectedKeys, double falsePositiveProbability) {
+        long optimalBits = (long) Math.ceil(-Math.max(1, expectedKeys) * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        long numberOfBits = Math.min(MAX_BITS, Long.highestOneBit(Math.max(64, optimalBits - 1)) << 1);
+        bits = new AtomicLongArray((int) (numberOfBits >>> 6));
+        bitMask = ((long) bits.length() << 6) - 1;
+        hashes = Math.max(1, Math.min(16, (int) Math.round((double) numberOfBits / Math.max(1, expectedKeys) * Math.log(2))));
+    }
+
+    public void put(long a, long b, long c) {
+        long h1 = hash(a, b, c);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+        added.increment();
+    }
+
+    public boolean mightContain(long a, long b, long c) {
+        long h1 = hash(a, b, c);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getAdded() {
+        return added.sum();
+    }
+
+    public long getBitSize() {
+        return bitMask + 1;
+    }
+
+    private static long hash(long a, long b, long c) {
+        return mix(mix(mix(a) ^ b) ^ c);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,275 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetLatestState;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open addressing hash table from asset id to latest position and latest VMS position, stored in flat primitive
+ * arrays so that a fleet of a few hundred thousand assets costs a handful of arrays instead of millions of objects.
+ * <p>
+ * The asset id is split in its two longs and the columns of a slot are laid out next to each other in one long,
+ * one int and one double array. Reads are optimistic and only fall back to a read lock when a write interfered.
+ */
+public class FleetStateTable {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // long columns
+    private static final int KEY_HI = 0;
+    private static final int KEY_LO = 1;
+    private static final int LATEST_ID_HI = 2;
+    private static final int LATEST_ID_LO = 3;
+    private static final int LATEST_SECONDS = 4;
+    private static final int VMS_ID_HI = 5;
+    private static final int VMS_ID_LO = 6;
+    private static final int VMS_SECONDS = 7;
+    private static final int LONGS = 8;
+
+    // int columns
+    private static final int LATEST_NANOS = 0;
+    private static final int VMS_NANOS = 1;
+    private static final int INTS = 2;
+
+    // double columns
+    private static final int LATEST_LON = 0;
+    private static final int LATEST_LAT = 1;
+    private static final int VMS_LON = 2;
+    private static final int VMS_LAT = 3;
+    private static final int DOUBLES = 4;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Columns columns;
+    private int size;
+
+    public FleetStateTable() {
+        this(1024);
+    }
+
+    public FleetStateTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        columns = new Columns(capacity);
+    }
+
+    public AssetLatestState get(UUID assetId) {
+        long hi = assetId.getMostSignificantBits();
+        long lo = assetId.getLeastSignificantBits();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                AssetLatestState state = read(columns, hi, lo, assetId);
+                if (lock.validate(stamp)) {
+                    return state;
+                }
+            } catch (RuntimeException e) {
+                // Torn read during a concurrent write, retried under the read lock below
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(columns, hi, lo, assetId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(AssetLatestState state) {
+        long stamp = lock.writeLock();
+        try {
+            write(state, true);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Only stores the state if there is nothing stored for the asset yet, used when loading from the database so
+     * that a load never overwrites a state written by a newer transaction.
+     */
+    public boolean putIfAbsent(AssetLatestState state) {
+        long stamp = lock.writeLock();
+        try {
+            return write(state, false);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(UUID assetId) {
+        long stamp = lock.writeLock();
+        try {
+            Columns c = columns;
+            int slot = find(c, assetId.getMostSignificantBits(), assetId.getLeastSignificantBits());
+            if (slot < 0) {
+                return false;
+            }
+            // Backward shift deletion keeps every probe sequence free of holes
+            int hole = slot;
+            int next = (hole + 1) & c.mask;
+            while (c.used[next]) {
+                int home = hash(c.longs[next * LONGS + KEY_HI], c.longs[next * LONGS + KEY_LO]) & c.mask;
+                if (((next - home) & c.mask) >= ((next - hole) & c.mask)) {
+                    copySlot(c, next, c, hole);
+                    hole = next;
+                }
+                next = (next + 1) & c.mask;
+            }
+            c.used[hole] = false;
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            columns = new Columns(columns.used.length);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean write(AssetLatestState state, boolean replace) {
+        long hi = state.getAssetId().getMostSignificantBits();
+        long lo = state.getAssetId().getLeastSignificantBits();
+        Columns c = columns;
+        int slot = find(c, hi, lo);
+        if (slot >= 0 && !replace) {
+            return false;
+        }
+        if (slot < 0) {
+            if (size + 1 > c.used.length * LOAD_FACTOR) {
+                c = resize(c);
+            }
+            slot = hash(hi, lo) & c.mask;
+            while (c.used[slot]) {
+                slot = (slot + 1) & c.mask;
+            }
+            c.used[slot] = true;
+            c.longs[slot * LONGS + KEY_HI] = hi;
+            c.longs[slot * LONGS + KEY_LO] = lo;
+            size++;
+        }
+        int l = slot * LONGS;
+        int i = slot * INTS;
+        int d = slot * DOUBLES;
+        setPosition(c, l + LATEST_ID_HI, l + LATEST_ID_LO, l + LATEST_SECONDS, i + LATEST_NANOS,
+                state.getLatestMovementId(), state.getLatestTimestamp());
+        c.doubles[d + LATEST_LON] = state.getLatestLongitude();
+        c.doubles[d + LATEST_LAT] = state.getLatestLatitude();
+        setPosition(c, l + VMS_ID_HI, l + VMS_ID_LO, l + VMS_SECONDS, i + VMS_NANOS,
+                state.getLatestVmsId(), state.getLatestVmsTimestamp());
+        c.doubles[d + VMS_LON] = state.getLatestVmsLongitude();
+        c.doubles[d + VMS_LAT] = state.getLatestVmsLatitude();
+        return true;
+    }
+
+    private static void setPosition(Columns c, int idHi, int idLo, int seconds, int nanos, UUID id, Instant timestamp) {
+        if (id == null || timestamp == null) {
+            c.longs[idHi] = 0;
+            c.longs[idLo] = 0;
+            c.longs[seconds] = NO_TIME;
+            c.ints[nanos] = 0;
+        } else {
+            c.longs[idHi] = id.getMostSignificantBits();
+            c.longs[idLo] = id.getLeastSignificantBits();
+            c.longs[seconds] = timestamp.getEpochSecond();
+            c.ints[nanos] = timestamp.getNano();
+        }
+    }
+
+    private Columns resize(Columns old) {
+        Columns c = new Columns(old.used.length << 1);
+        for (int slot = 0; slot < old.used.length; slot++) {
+            if (old.used[slot]) {
+                int target = hash(old.longs[slot * LONGS + KEY_HI], old.longs[slot * LONGS + KEY_LO]) & c.mask;
+                while (c.used[target]) {
+                    target = (target + 1) & c.mask;
+                }
+                copySlot(old, slot, c, target);
+            }
+        }
+        columns = c;
+        return c;
+    }
+
+    private static void copySlot(Columns from, int fromSlot, Columns to, int toSlot) {
+        System.arraycopy(from.longs, fromSlot * LONGS, to.longs, toSlot * LONGS, LONGS);
+        System.arraycopy(from.ints, fromSlot * INTS, to.ints, toSlot * INTS, INTS);
+        System.arraycopy(from.doubles, fromSlot * DOUBLES, to.doubles, toSlot * DOUBLES, DOUBLES);
+        to.used[toSlot] = true;
+    }
+
+    private static AssetLatestState read(Columns c, long hi, long lo, UUID assetId) {
+        int slot = find(c, hi, lo);
+        if (slot < 0) {
+            return null;
+        }
+        int l = slot * LONGS;
+        int i = slot * INTS;
+        int d = slot * DOUBLES;
+        boolean hasLatest = c.longs[l + LATEST_SECONDS] != NO_TIME;
+        boolean hasVms = c.longs[l + VMS_SECONDS] != NO_TIME;
+        return new AssetLatestState(assetId,
+                hasLatest ? new UUID(c.longs[l + LATEST_ID_HI], c.longs[l + LATEST_ID_LO]) : null,
+                hasLatest ? Instant.ofEpochSecond(c.longs[l + LATEST_SECONDS], c.ints[i + LATEST_NANOS]) : null,
+                c.doubles[d + LATEST_LON], c.doubles[d + LATEST_LAT],
+                hasVms ? new UUID(c.longs[l + VMS_ID_HI], c.longs[l + VMS_ID_LO]) : null,
+                hasVms ? Instant.ofEpochSecond(c.longs[l + VMS_SECONDS], c.ints[i + VMS_NANOS]) : null,
+                c.doubles[d + VMS_LON], c.doubles[d + VMS_LAT]);
+    }
+
+    private static int find(Columns c, long hi, long lo) {
+        int slot = hash(hi, lo) & c.mask;
+        for (int probes = 0; probes <= c.mask; probes++) {
+            if (!c.used[slot]) {
+                return -1;
+            }
+            if (c.longs[slot * LONGS + KEY_HI] == hi && c.longs[slot * LONGS + KEY_LO] == lo) {
+                return slot;
+            }
+            slot = (slot + 1) & c.mask;
+        }
+        return -1;
+    }
+
+    private static int hash(long hi, long lo) {
+        long h = hi ^ lo;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static final class Columns {
+
+        final int mask;
+        final boolean[] used;
+        final long[] longs;
+        final int[] ints;
+        final double[] doubles;
+
+        Columns(int capacity) {
+            mask = capacity - 1;
+            used = new boolean[capacity];
+            longs = new long[capacity * LONGS];
+            ints = new int[capacity * INTS];
+            doubles = new double[capacity * DOUBLES];
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +45,12 @@ public class GeometryUtil {
         return lineString;
     }
 
+    public static Point getPoint(double longitude, double latitude) {
+        Point point = FACTORY.createPoint(new Coordinate(longitude, latitude));
+        point.setSRID(SRID);
+        return point;
+    }
+
     public static Coordinate[] getCoordinateSequenceFromMovements(Movement previousPosition, Movement currentPosition) {
         Coordinate[] corSeq = new Coordinate[2];
 
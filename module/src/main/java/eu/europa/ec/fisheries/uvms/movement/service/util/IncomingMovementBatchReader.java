@@ -0,0 +1,126 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbException;
+import javax.json.bind.serializer.DeserializationContext;
+import javax.json.bind.serializer.JsonbDeserializer;
+import javax.json.stream.JsonParser;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a JSON array of incoming movements one element at a time and hands them on in chunks, so that a large batch
+ * is not bound into one list before its first positions can be processed and at most one chunk of movements is held.
+ * The array is pulled from the JSON-P parser, every element is bound by JSON-B with the configuration of
+ * {@link JsonBConfiguratorMovement}, so the movements are the same as when the whole list is bound.
+ * <p>
+ * Thread safe, the chunks are handed on by the thread that reads.
+ */
+public class IncomingMovementBatchReader {
+
+    private static final ThreadLocal<ChunkSink> SINK = new ThreadLocal<>();
+
+    private final Jsonb jsonb;
+
+    public IncomingMovementBatchReader() {
+        jsonb = new JsonBConfiguratorMovement().getContextWith(new BatchDeserializer());
+    }
+
+    /**
+     * @param chunkSize most movements in a chunk, the last chunk can be smaller
+     * @param chunkConsumer gets the chunks in the order of the array, while the rest of the array is not yet read
+     * @return the number of movements read
+     */
+    public int read(Reader json, int chunkSize, Consumer<List<IncomingMovement>> chunkConsumer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, was " + chunkSize);
+        }
+        ChunkSink sink = new ChunkSink(chunkSize, chunkConsumer);
+        ChunkSink outer = SINK.get();
+        SINK.set(sink);
+        try {
+            jsonb.fromJson(json, Batch.class);
+        } catch (JsonbException e) {
+            // Failures of the consumer are not parse errors
+            if (sink.failure != null) {
+                throw sink.failure;
+            }
+            throw e;
+        } finally {
+            if (outer != null) {
+                SINK.set(outer);
+            } else {
+                SINK.remove();
+            }
+        }
+        sink.flush();
+        return sink.count;
+    }
+
+    /**
+     * Stands for the array, the movements are handed to the sink while it is read.
+     */
+    static final class Batch {
+    }
+
+    public static class BatchDeserializer implements JsonbDeserializer<Batch> {
+
+        @Override
+        public Batch deserialize(JsonParser parser, DeserializationContext ctx, Type rtType) {
+            ChunkSink sink = SINK.get();
+            while (parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.END_ARRAY) {
+                    break;
+                }
+                if (event != JsonParser.Event.START_OBJECT) {
+                    throw new JsonbException("Expected incoming movement " + sink.count + " but got " + event);
+                }
+                sink.add(ctx.deserialize(IncomingMovement.class, parser));
+            }
+            return null;
+        }
+    }
+
+    private static class ChunkSink {
+
+        private final int chunkSize;
+        private final Consumer<List<IncomingMovement>> consumer;
+        private List<IncomingMovement> chunk;
+        private int count;
+        private RuntimeException failure;
+
+        private ChunkSink(int chunkSize, Consumer<List<IncomingMovement>> consumer) {
+            this.chunkSize = chunkSize;
+            this.consumer = consumer;
+            chunk = new ArrayList<>(Math.min(chunkSize, 1024));
+        }
+
+        private void add(IncomingMovement incomingMovement) {
+            chunk.add(incomingMovement);
+            count++;
+            if (chunk.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<IncomingMovement> full = chunk;
+            chunk = new ArrayList<>(Math.min(chunkSize, 1024));
+            try {
+                consumer.accept(full);
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+}
@@ -4,6 +4,8 @@ import eu.europa.ec.fisheries.uvms.commons.date.JsonBConfigurator;
 
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbBuilder;
+import javax.json.bind.serializer.JsonbDeserializer;
+import java.util.Arrays;
 
 public class JsonBConfiguratorMovement extends JsonBConfigurator {
 
@@ -18,4 +20,15 @@ public class JsonBConfiguratorMovement extends JsonBConfigurator {
                 .withConfig(config)
                 .build();
     }
+
+    /**
+     * @return a context that also uses the given deserializers
+     */
+    public Jsonb getContextWith(JsonbDeserializer<?>... deserializers) {
+        JsonbDeserializer<?>[] all = Arrays.copyOf(deserializers, deserializers.length + 1);
+        all[deserializers.length] = new PointDeserializer();
+        return JsonbBuilder.newBuilder()
+                .withConfig(config.withDeserializers(all))
+                .build();
+    }
 }
@@ -0,0 +1,100 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+/**
+ * Set of the most recently added long values, at most capacity of them. When full, adding a value drops the oldest
+ * one. The values are kept in an open addressing table of primitive longs, so the set does not allocate after it is
+ * created. Zero is used for empty slots, a value of 0 is therefore stored as 1.
+ */
+public class LongRingSet {
+
+    private static final long EMPTY = 0;
+
+    private final long[] ring;
+    private final long[] table;
+    private final int mask;
+    private int next;
+    private int size;
+
+    public LongRingSet(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        ring = new long[capacity];
+        // At most half full, so probe sequences stay short
+        int tableSize = Integer.highestOneBit(2 * capacity - 1) << 1;
+        table = new long[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * @return false if the value was already in the set
+     */
+    public synchronized boolean add(long value) {
+        long key = value == EMPTY ? 1 : value;
+        if (indexOf(key) >= 0) {
+            return false;
+        }
+        if (size == ring.length) {
+            remove(ring[next]);
+        } else {
+            size++;
+        }
+        ring[next] = key;
+        next = next + 1 == ring.length ? 0 : next + 1;
+        int index = slot(key);
+        while (table[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        table[index] = key;
+        return true;
+    }
+
+    public synchronized boolean contains(long value) {
+        return indexOf(value == EMPTY ? 1 : value) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    private int indexOf(long key) {
+        int index = slot(key);
+        while (table[index] != EMPTY) {
+            if (table[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void remove(long key) {
+        int hole = indexOf(key);
+        if (hole < 0) {
+            return;
+        }
+        // Move later entries of the probe sequence back into the hole, so lookups need no tombstones
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (table[index] == EMPTY) {
+                break;
+            }
+            int home = slot(table[index]);
+            boolean homeBetween = hole <= index ? hole < home && home <= index : hole < home || home <= index;
+            if (!homeBetween) {
+                table[hole] = table[index];
+                hole = index;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,47 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.List;
+
+/**
+ * Port areas in an STR-tree of prepared geometries. Built once and only read after that, so it can be shared
+ * between threads.
+ */
+public class PortAreaIndex {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private final STRtree tree = new STRtree();
+    private final int size;
+
+    public PortAreaIndex(List<Geometry> areas) {
+        PreparedGeometryFactory preparedFactory = new PreparedGeometryFactory();
+        for (Geometry area : areas) {
+            tree.insert(area.getEnvelopeInternal(), preparedFactory.create(area));
+        }
+        tree.build();
+        size = areas.size();
+    }
+
+    public boolean isInPort(double longitude, double latitude) {
+        Point point = FACTORY.createPoint(new Coordinate(longitude, latitude));
+        for (Object candidate : tree.query(new Envelope(longitude, longitude, latitude, latitude))) {
+            if (((PreparedGeometry) candidate).intersects(point)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+}
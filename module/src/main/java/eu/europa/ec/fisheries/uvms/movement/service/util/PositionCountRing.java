@@ -0,0 +1,150 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import java.time.Instant;
+
+/**
+ * Number of positions per minute for one asset, kept in a ring covering the most recent minutes.
+ * <p>
+ * Next to the count every minute keeps a mask of the seconds that have a position. As long as every position of a
+ * minute has a whole second timestamp of its own the mask is exact and a count can start or end anywhere within the
+ * minute. Otherwise the minute is flagged as inexact and a count that has to split it is not available.
+ */
+public class PositionCountRing {
+
+    public static final int NOT_AVAILABLE = -1;
+
+    private static final long SECONDS = (1L << 60) - 1;
+    private static final long INEXACT = 1L << 63;
+
+    private final int[] counts;
+    private final long[] seconds;
+    private final long coveredFromMinute;
+    private long latestMinute;
+
+    /**
+     * @param minutes     number of minutes kept
+     * @param coveredFrom every position from this time on has been or will be added
+     */
+    public PositionCountRing(int minutes, Instant coveredFrom) {
+        counts = new int[minutes];
+        seconds = new long[minutes];
+        long minute = Math.floorDiv(coveredFrom.getEpochSecond(), 60);
+        if (Math.floorMod(coveredFrom.getEpochSecond(), 60) != 0 || coveredFrom.getNano() != 0) {
+            // The first minute is only partly covered
+            minute++;
+        }
+        coveredFromMinute = minute;
+        latestMinute = minute - 1;
+    }
+
+    public synchronized void add(Instant timestamp) {
+        long minute = Math.floorDiv(timestamp.getEpochSecond(), 60);
+        if (minute < coveredFromMinute || minute <= latestMinute - counts.length) {
+            return;
+        }
+        if (minute > latestMinute) {
+            long cleared = Math.min(minute - latestMinute, counts.length);
+            for (long m = minute - cleared + 1; m <= minute; m++) {
+                counts[slot(m)] = 0;
+                seconds[slot(m)] = 0;
+            }
+            latestMinute = minute;
+        }
+        int slot = slot(minute);
+        long bit = 1L << Math.floorMod(timestamp.getEpochSecond(), 60);
+        if (timestamp.getNano() != 0 || (seconds[slot] & bit) != 0) {
+            seconds[slot] |= INEXACT;
+        }
+        seconds[slot] |= bit;
+        counts[slot]++;
+    }
+
+    public synchronized void remove(Instant timestamp) {
+        long minute = Math.floorDiv(timestamp.getEpochSecond(), 60);
+        if (minute < coveredFromMinute || minute <= latestMinute - counts.length || minute > latestMinute) {
+            return;
+        }
+        int slot = slot(minute);
+        if (counts[slot] == 0) {
+            return;
+        }
+        counts[slot]--;
+        if (counts[slot] == 0) {
+            seconds[slot] = 0;
+        } else if ((seconds[slot] & INEXACT) == 0) {
+            seconds[slot] &= ~(1L << Math.floorMod(timestamp.getEpochSecond(), 60));
+        }
+    }
+
+    /**
+     * @return the number of positions between from and to, both inclusive, or {@link #NOT_AVAILABLE} when the span
+     * starts before what the ring covers or has to split an inexact minute
+     */
+    public synchronized int count(Instant from, Instant to) {
+        long fromMinute = Math.floorDiv(from.getEpochSecond(), 60);
+        long toMinute = Math.floorDiv(to.getEpochSecond(), 60);
+        if (fromMinute < coveredFromMinute || fromMinute <= latestMinute - counts.length) {
+            return NOT_AVAILABLE;
+        }
+        int total = 0;
+        for (long m = fromMinute; m <= Math.min(toMinute, latestMinute); m++) {
+            int slot = slot(m);
+            int count = counts[slot];
+            if (count != 0 && (m == fromMinute || m == toMinute)) {
+                count = countWithin(slot, m == fromMinute ? from : null, m == toMinute ? to : null);
+                if (count == NOT_AVAILABLE) {
+                    return NOT_AVAILABLE;
+                }
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    public synchronized Instant getLatestMinute() {
+        return Instant.ofEpochSecond(latestMinute * 60);
+    }
+
+    private int countWithin(int slot, Instant from, Instant to) {
+        boolean exact = (seconds[slot] & INEXACT) == 0;
+        long mask = seconds[slot] & SECONDS;
+        long fromIncluded = SECONDS;
+        long fromUncertain = 0;
+        if (from != null) {
+            long bit = 1L << Math.floorMod(from.getEpochSecond(), 60);
+            fromIncluded = SECONDS & ~((bit << 1) - 1);
+            if (from.getNano() == 0) {
+                fromIncluded |= bit;
+            } else if (!exact) {
+                fromUncertain = bit;
+            }
+        }
+        long toIncluded = SECONDS;
+        long toUncertain = 0;
+        if (to != null) {
+            long bit = 1L << Math.floorMod(to.getEpochSecond(), 60);
+            toIncluded = bit - 1;
+            if (exact) {
+                toIncluded |= bit;
+            } else {
+                toUncertain = bit;
+            }
+        }
+        long included = fromIncluded & toIncluded;
+        if (exact) {
+            return Long.bitCount(mask & included);
+        }
+        long uncertain = (fromUncertain | toUncertain) & (fromIncluded | fromUncertain) & (toIncluded | toUncertain);
+        if ((mask & uncertain) != 0) {
+            return NOT_AVAILABLE;
+        }
+        if ((mask & included) == mask) {
+            return counts[slot];
+        }
+        return (mask & included) == 0 ? 0 : NOT_AVAILABLE;
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) counts.length);
+    }
+}
@@ -0,0 +1,109 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds values per key and releases all values of a key, sorted by timestamp, once the first of them has been held
+ * for the window. Values without a timestamp sort first.
+ */
+public class ReorderWindow<K, V> {
+
+    private final long windowMillis;
+
+    // In order of the first value held, so the keys due are found at the start
+    private final Map<K, Held<V>> held = new LinkedHashMap<>();
+    private int size;
+
+    public ReorderWindow(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * @return true if the value was held behind a value with a later timestamp, and will be released before it
+     */
+    public synchronized boolean add(K key, Instant timestamp, V value, long now) {
+        Held<V> values = held.computeIfAbsent(key, k -> new Held<>(now));
+        boolean reordered = values.latest != null && (timestamp == null || timestamp.isBefore(values.latest));
+        if (timestamp != null && (values.latest == null || timestamp.isAfter(values.latest))) {
+            values.latest = timestamp;
+        }
+        values.entries.add(new Entry<>(timestamp, value));
+        size++;
+        return reordered;
+    }
+
+    /**
+     * @return the values of the keys whose first value has been held for the window, sorted by timestamp
+     */
+    public synchronized Map<K, List<V>> releaseDue(long now) {
+        Map<K, List<V>> released = new HashMap<>();
+        Iterator<Map.Entry<K, Held<V>>> it = held.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Held<V>> entry = it.next();
+            if (entry.getValue().since + windowMillis > now) {
+                break;
+            }
+            released.put(entry.getKey(), entry.getValue().sorted());
+            size -= entry.getValue().entries.size();
+            it.remove();
+        }
+        return released;
+    }
+
+    public synchronized Map<K, List<V>> releaseAll() {
+        Map<K, List<V>> released = new HashMap<>();
+        for (Map.Entry<K, Held<V>> entry : held.entrySet()) {
+            released.put(entry.getKey(), entry.getValue().sorted());
+        }
+        held.clear();
+        size = 0;
+        return released;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int keys() {
+        return held.size();
+    }
+
+    private static class Held<V> {
+
+        private final long since;
+        private final List<Entry<V>> entries = new ArrayList<>();
+        private Instant latest;
+
+        private Held(long since) {
+            this.since = since;
+        }
+
+        private List<V> sorted() {
+            // Stable, values with the same timestamp keep their order of arrival
+            entries.sort(Comparator.comparing((Entry<V> e) -> e.timestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+            List<V> values = new ArrayList<>(entries.size());
+            for (Entry<V> entry : entries) {
+                values.add(entry.value);
+            }
+            return values;
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final Instant timestamp;
+        private final V value;
+
+        private Entry(Instant timestamp, V value) {
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+    }
+}
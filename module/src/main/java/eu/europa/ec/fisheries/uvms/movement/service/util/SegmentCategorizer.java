@@ -0,0 +1,64 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.SegmentCalculations;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+
+import java.time.Duration;
+
+/**
+ * Categorises the segment between two positions of an asset from the port areas and the duration and speed between
+ * them. The rules are checked in the order of the spatial module: no duration, the port transitions, gap, jump,
+ * anchored and low speed. The thresholds have to be the ones the spatial module of the deployment uses.
+ */
+public class SegmentCategorizer {
+
+    private final PortAreaIndex ports;
+    private final long gapSeconds;
+    private final double jumpKnots;
+    private final double anchoredKnots;
+    private final double lowSpeedKnots;
+
+    public SegmentCategorizer(PortAreaIndex ports, long gapSeconds, double jumpKnots, double anchoredKnots, double lowSpeedKnots) {
+        this.ports = ports;
+        this.gapSeconds = gapSeconds;
+        this.jumpKnots = jumpKnots;
+        this.anchoredKnots = anchoredKnots;
+        this.lowSpeedKnots = lowSpeedKnots;
+    }
+
+    public SegmentCategoryType categorize(Movement previous, Movement current, SegmentCalculations calculations) {
+        long seconds = Duration.between(previous.getTimestamp(), current.getTimestamp()).abs().getSeconds();
+        if (seconds == 0) {
+            return SegmentCategoryType.NULL_DUR;
+        }
+        boolean previousInPort = ports.isInPort(previous.getLocation().getX(), previous.getLocation().getY());
+        boolean currentInPort = ports.isInPort(current.getLocation().getX(), current.getLocation().getY());
+        if (previousInPort && currentInPort) {
+            return SegmentCategoryType.IN_PORT;
+        }
+        if (previousInPort) {
+            return SegmentCategoryType.EXIT_PORT;
+        }
+        if (currentInPort) {
+            return SegmentCategoryType.ENTER_PORT;
+        }
+        if (seconds > gapSeconds) {
+            return SegmentCategoryType.GAP;
+        }
+        if (calculations.getAvgSpeed() > jumpKnots) {
+            return SegmentCategoryType.JUMP;
+        }
+        if (calculations.getAvgSpeed() < anchoredKnots) {
+            return SegmentCategoryType.ANCHORED;
+        }
+        if (calculations.getAvgSpeed() < lowSpeedKnots) {
+            return SegmentCategoryType.LOW_SPEED;
+        }
+        return SegmentCategoryType.OTHER;
+    }
+
+    public int getPortAreaCount() {
+        return ports.size();
+    }
+}
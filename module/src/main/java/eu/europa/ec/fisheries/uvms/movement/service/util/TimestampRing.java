@@ -0,0 +1,69 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import java.util.Arrays;
+
+/**
+ * The most recent position timestamps of one asset, in epoch microseconds, kept sorted in a fixed size array together
+ * with a small value per timestamp. When full, adding a newer timestamp drops the oldest one.
+ */
+public class TimestampRing {
+
+    public static final int NOT_FOUND = -1;
+
+    private final long[] timestamps;
+    private final short[] values;
+    private int size;
+
+    public TimestampRing(int capacity) {
+        timestamps = new long[capacity];
+        values = new short[capacity];
+    }
+
+    public synchronized void add(long timestamp, short value) {
+        int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+        if (index >= 0) {
+            values[index] = value;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == timestamps.length) {
+            if (insertAt == 0) {
+                // Older than everything kept
+                return;
+            }
+            // Drop the oldest and shift the older part one step down
+            insertAt--;
+            System.arraycopy(timestamps, 1, timestamps, 0, insertAt);
+            System.arraycopy(values, 1, values, 0, insertAt);
+        } else {
+            System.arraycopy(timestamps, insertAt, timestamps, insertAt + 1, size - insertAt);
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            size++;
+        }
+        timestamps[insertAt] = timestamp;
+        values[insertAt] = value;
+    }
+
+    /**
+     * @return the value stored with the timestamp or {@link #NOT_FOUND}
+     */
+    public synchronized int get(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+        return index >= 0 ? values[index] : NOT_FOUND;
+    }
+
+    public synchronized boolean remove(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(timestamps, index + 1, timestamps, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,48 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.function.IntConsumer;
+
+public class TransactionCallbacks {
+
+    private TransactionCallbacks() {}
+
+    /**
+     * Runs the action once the current transaction has committed, or right away when there is no transaction. The
+     * action is dropped when the transaction rolls back or is already marked for rollback.
+     */
+    public static void afterCommit(TransactionSynchronizationRegistry registry, Runnable action) {
+        afterCompletion(registry, status -> {
+            if (status == Status.STATUS_COMMITTED) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Runs the action with the outcome of the current transaction once it has completed. Without a transaction the
+     * action runs right away as committed.
+     */
+    public static void afterCompletion(TransactionSynchronizationRegistry registry, IntConsumer action) {
+        if (registry.getTransactionKey() == null) {
+            action.accept(Status.STATUS_COMMITTED);
+            return;
+        }
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            action.accept(Status.STATUS_ROLLEDBACK);
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status);
+            }
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest position per asset in a uniform longitude/latitude grid, for finding the assets within a distance of a
+ * point. Distances are great circle distances on the same sphere PostGIS uses for geography without spheroid.
+ * <p>
+ * Lookups do not lock, an asset that is being moved between cells is reported at most once.
+ */
+public class VicinityGrid {
+
+    public static final double EARTH_RADIUS = 6_371_008.7714;
+
+    private final double cellDegrees;
+    private final int latitudeCells;
+    private final int longitudeCells;
+
+    private final Map<UUID, Position> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Map<UUID, Position>> cells = new ConcurrentHashMap<>();
+
+    public VicinityGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        latitudeCells = (int) Math.ceil(180 / cellDegrees) + 1;
+        longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public synchronized void put(Position position) {
+        UUID assetId = position.assetId;
+        double longitude = position.longitude;
+        double latitude = position.latitude;
+        Position previous = positions.put(assetId, position);
+        long cell = cell(longitude, latitude);
+        if (previous != null) {
+            long previousCell = cell(previous.longitude, previous.latitude);
+            if (previousCell != cell) {
+                removeFromCell(previousCell, assetId);
+            }
+        }
+        cells.computeIfAbsent(cell, c -> new ConcurrentHashMap<>()).put(assetId, position);
+    }
+
+    public synchronized boolean putIfAbsent(Position position) {
+        if (positions.containsKey(position.assetId)) {
+            return false;
+        }
+        put(position);
+        return true;
+    }
+
+    public synchronized void remove(UUID assetId) {
+        Position previous = positions.remove(assetId);
+        if (previous != null) {
+            removeFromCell(cell(previous.longitude, previous.latitude), assetId);
+        }
+    }
+
+    /**
+     * Removes the assets not updated after the given time.
+     */
+    public synchronized void removeNotUpdatedAfter(long updated) {
+        for (Position position : new ArrayList<>(positions.values())) {
+            if (position.updated <= updated) {
+                remove(position.assetId);
+            }
+        }
+    }
+
+    public Position get(UUID assetId) {
+        return positions.get(assetId);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * @return the assets within maxDistance meters of the point that were updated after the given time
+     */
+    public List<Position> find(double longitude, double latitude, double maxDistance, long updatedAfter) {
+        List<Position> found = new ArrayList<>();
+        double radius = Math.min(Math.PI, maxDistance / EARTH_RADIUS);
+        double radiusDegrees = Math.toDegrees(radius);
+        int fromLatitude = latitudeIndex(Math.max(-90, latitude - radiusDegrees));
+        int toLatitude = latitudeIndex(Math.min(90, latitude + radiusDegrees));
+
+        int fromLongitude = 0;
+        int toLongitude = longitudeCells - 1;
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        if (latitude + radiusDegrees < 90 && latitude - radiusDegrees > -90 && Math.sin(radius) < cosLatitude) {
+            // Widest longitude difference of the circle, with a little margin for rounding
+            double longitudeDegrees = Math.toDegrees(Math.asin(Math.sin(radius) / cosLatitude)) + 1e-9;
+            if (2 * longitudeDegrees < 360 - cellDegrees) {
+                fromLongitude = longitudeIndex(longitude - longitudeDegrees);
+                toLongitude = longitudeIndex(longitude + longitudeDegrees);
+                if (toLongitude < fromLongitude) {
+                    // Crosses the antimeridian
+                    toLongitude += longitudeCells;
+                }
+            }
+        }
+
+        for (int lat = fromLatitude; lat <= toLatitude; lat++) {
+            for (int lon = fromLongitude; lon <= toLongitude; lon++) {
+                Map<UUID, Position> cell = cells.get(key(lat, lon % longitudeCells));
+                if (cell == null) {
+                    continue;
+                }
+                for (Position position : cell.values()) {
+                    if (position.updated > updatedAfter
+                            && positions.get(position.assetId) == position
+                            && distance(longitude, latitude, position.longitude, position.latitude) <= maxDistance) {
+                        found.add(position);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the great circle distance in meters between the two points
+     */
+    public static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double sinLatitude = Math.sin((phi2 - phi1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(phi1) * Math.cos(phi2) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void removeFromCell(long cell, UUID assetId) {
+        Map<UUID, Position> members = cells.get(cell);
+        if (members != null) {
+            members.remove(assetId);
+            if (members.isEmpty()) {
+                cells.remove(cell);
+            }
+        }
+    }
+
+    private long cell(double longitude, double latitude) {
+        return key(latitudeIndex(latitude), longitudeIndex(longitude));
+    }
+
+    private long key(int latitudeIndex, int longitudeIndex) {
+        return (long) latitudeIndex * longitudeCells + longitudeIndex;
+    }
+
+    private int latitudeIndex(double latitude) {
+        return Math.max(0, Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int longitudeIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    public static class Position {
+
+        private final UUID assetId;
+        private final UUID movementId;
+        private final double longitude;
+        private final double latitude;
+        private final long updated;
+
+        public Position(UUID assetId, UUID movementId, double longitude, double latitude, long updated) {
+            this.assetId = assetId;
+            this.movementId = movementId;
+            this.longitude = longitude;
+            this.latitude = latitude;
+            this.updated = updated;
+        }
+
+        public UUID getAssetId() {
+            return assetId;
+        }
+
+        public UUID getMovementId() {
+            return movementId;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public long getUpdated() {
+            return updated;
+        }
+    }
+}
@@ -41,6 +41,9 @@ public class MovementSanityValidatorBean {
     
     @Inject
     private MovementCreateBean movementCreate;
+
+    @Inject
+    private SanityRulePlan sanityRulePlan;
     
     
     @Inject
@@ -52,45 +55,54 @@ public class MovementSanityValidatorBean {
     private Event<NotificationMessage> alarmReportCountEvent;
 
     public UUID evaluateSanity(IncomingMovement movement) {
-        UUID reportId = null;
-        for (SanityRule sanityRule : SanityRule.values()) {
-            if (sanityRule.evaluate(movement)) {
-                LOG.info("\t==> Executing RULE {}", sanityRule.getRuleName());
-                reportId = createAlarmReport(sanityRule.getRuleName(), movement);
-            }
+        List<String> ruleNames = new ArrayList<>();
+        for (SanityRule sanityRule : sanityRulePlan.evaluate(movement)) {
+            LOG.info("\t==> Executing RULE {}", sanityRule.getRuleName());
+            ruleNames.add(sanityRule.getRuleName());
         }
-        return reportId;
+        return ruleNames.isEmpty() ? null : createAlarmReport(ruleNames, movement);
     }
 
-    public UUID createAlarmReport(String ruleName, IncomingMovement movement) {
+    /**
+     * Creates one alarm report with an item for every broken rule, or adds the items to the open report of the
+     * movement. Clients are notified and the audit message is sent once per report, not once per rule.
+     */
+    public UUID createAlarmReport(List<String> ruleNames, IncomingMovement movement) {
 
-        LOG.info("Create alarm invoked in validation service, rule: {}", ruleName);
+        LOG.info("Create alarm invoked in validation service, rules: {}", ruleNames);
 
+        Instant now = Instant.now();
         AlarmReport alarmReport = alarmDAO.getOpenAlarmReportByMovementGuid(movement.getId());
-        if(alarmReport == null) {
+        boolean newReport = alarmReport == null;
+        if(newReport) {
             alarmReport = new AlarmReport();
             alarmReport.setAssetGuid(movement.getAssetGuid());
-            alarmReport.setCreatedDate(Instant.now());
+            alarmReport.setCreatedDate(now);
             alarmReport.setPluginType(movement.getPluginType() != null ? PluginType.fromValue(movement.getPluginType()) : null);
             //alarmReport.setRecipient();
             alarmReport.setStatus(AlarmStatusType.OPEN);
-            alarmReport.setUpdated(Instant.now());
+            alarmReport.setUpdated(now);
             alarmReport.setUpdatedBy("UVMS");
             alarmReport.setIncomingMovement(movement);
             alarmReport.setAlarmItemList(new ArrayList<>());
-            alarmDAO.save(alarmReport);
         }
 
-
-        AlarmItem item = new AlarmItem();
-        item.setAlarmReport(alarmReport);
-        item.setRuleGuid(ruleName); // WTF?
-        item.setRuleName(ruleName);
-        item.setUpdated(Instant.now());
-        item.setUpdatedBy("UVMS");
-        alarmDAO.save(item);
-
-        alarmReport.getAlarmItemList().add(item);
+        for (String ruleName : ruleNames) {
+            AlarmItem item = new AlarmItem();
+            item.setAlarmReport(alarmReport);
+            item.setRuleGuid(ruleName); // WTF?
+            item.setRuleName(ruleName);
+            item.setUpdated(now);
+            item.setUpdatedBy("UVMS");
+            alarmReport.getAlarmItemList().add(item);
+            if (!newReport) {
+                alarmDAO.save(item);
+            }
+        }
+        if (newReport) {
+            // The items are persisted with the report
+            alarmDAO.save(alarmReport);
+        }
 
         // Notify long-polling clients of the new alarm report
         alarmReportEvent.fire(new NotificationMessage("guid", alarmReport.getId()));
@@ -59,8 +59,8 @@ public enum SanityRule {
         @Override
         public boolean evaluate(IncomingMovement movement) {
             return movement.getPositionTime() != null && 
-                    (!movement.getMovementSourceType().equals("AIS") && movement.getPositionTime().isAfter(Instant.now()) ||
-                    movement.getMovementSourceType().equals("AIS") && movement.getPositionTime().isAfter(Instant.now().plus(2, ChronoUnit.MINUTES)));
+                    (!"AIS".equals(movement.getMovementSourceType()) && movement.getPositionTime().isAfter(Instant.now()) ||
+                    "AIS".equals(movement.getMovementSourceType()) && movement.getPositionTime().isAfter(Instant.now().plus(2, ChronoUnit.MINUTES)));
         }
     },
     PLUGIN_TYPE_MISSING("Plugin Type missing") {
@@ -80,7 +80,7 @@ public enum SanityRule {
         @Override
         public boolean evaluate(IncomingMovement movement) {
             return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER")) 
-                    && movement.getMovementSourceType().equals("INMARSAT_C") 
+                    && "INMARSAT_C".equals(movement.getMovementSourceType()) 
                     && (movement.getMobileTerminalMemberNumber() == null || movement.getMobileTerminalMemberNumber().isEmpty());
         }
     },
@@ -88,7 +88,7 @@ public enum SanityRule {
         @Override
         public boolean evaluate(IncomingMovement movement) {
             return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER")) 
-                    && movement.getMovementSourceType().equals("INMARSAT_C") 
+                    && "INMARSAT_C".equals(movement.getMovementSourceType()) 
                     && (movement.getMobileTerminalDNID() == null || movement.getMobileTerminalDNID().isEmpty());
         }
     },
@@ -96,7 +96,7 @@ public enum SanityRule {
         @Override
         public boolean evaluate(IncomingMovement movement) {
             return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER")) 
-                    && movement.getMovementSourceType().equals("IRIDIUM") 
+                    && "IRIDIUM".equals(movement.getMovementSourceType()) 
                     && (movement.getMobileTerminalSerialNumber() == null || movement.getMobileTerminalSerialNumber().isEmpty());
         }
     },
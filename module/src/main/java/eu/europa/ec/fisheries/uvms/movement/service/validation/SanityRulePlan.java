@@ -0,0 +1,128 @@
+package eu.europa.ec.fisheries.uvms.movement.service.validation;
+
+import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementParameterHelper;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.SanityRuleStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates all sanity rules against a movement, one enum constant after the other.
+ * <p>
+ * With movement.sanity.rule.statistics it counts how often the rules are evaluated and how often every rule hits.
+ * Every rule is evaluated once per movement, so one counter of evaluated movements serves all rules. Reading the
+ * clock costs more than most rules, so the time spent in the rules is only measured for about one movement in
+ * {@value #TIMING_SAMPLE}. The counters cost more than the rules themselves, so they are off by default and the
+ * plan then runs the bare loop.
+ */
+@ApplicationScoped
+public class SanityRulePlan {
+
+    private static final int TIMING_SAMPLE = 256;
+
+    @Inject
+    private MovementParameterHelper parameterHelper;
+
+    private final SanityRule[] rules = SanityRule.values();
+
+    private volatile boolean statisticsEnabled;
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder[] hits = counters(rules.length);
+    private final LongAdder[] timedEvaluations = counters(rules.length);
+    private final LongAdder[] nanos = counters(rules.length);
+
+    @PostConstruct
+    public void init() {
+        statisticsEnabled = parameterHelper.getBooleanValue(ParameterKey.SANITY_RULE_STATISTICS, false);
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    /**
+     * @return the rules the movement breaks, in the order of {@link SanityRule}
+     */
+    public List<SanityRule> evaluate(IncomingMovement movement) {
+        if (!statisticsEnabled) {
+            return evaluateRules(movement);
+        }
+        boolean timed = ThreadLocalRandom.current().nextInt(TIMING_SAMPLE) == 0;
+        evaluations.increment();
+        List<SanityRule> broken = Collections.emptyList();
+        for (int i = 0; i < rules.length; i++) {
+            boolean hit;
+            if (timed) {
+                long start = System.nanoTime();
+                hit = rules[i].evaluate(movement);
+                nanos[i].add(System.nanoTime() - start);
+                timedEvaluations[i].increment();
+            } else {
+                hit = rules[i].evaluate(movement);
+            }
+            if (hit) {
+                hits[i].increment();
+                if (broken.isEmpty()) {
+                    broken = new ArrayList<>(2);
+                }
+                broken.add(rules[i]);
+            }
+        }
+        return broken;
+    }
+
+    private List<SanityRule> evaluateRules(IncomingMovement movement) {
+        List<SanityRule> broken = Collections.emptyList();
+        for (SanityRule rule : rules) {
+            if (rule.evaluate(movement)) {
+                if (broken.isEmpty()) {
+                    broken = new ArrayList<>(2);
+                }
+                broken.add(rule);
+            }
+        }
+        return broken;
+    }
+
+    /**
+     * @return what was counted while the statistics were enabled
+     */
+    public List<SanityRuleStatistics> getStatistics() {
+        long evaluated = evaluations.sum();
+        List<SanityRuleStatistics> statistics = new ArrayList<>(rules.length);
+        for (int i = 0; i < rules.length; i++) {
+            SanityRuleStatistics rule = new SanityRuleStatistics();
+            rule.setRuleName(rules[i].getRuleName());
+            rule.setEvaluations(evaluated);
+            rule.setHits(hits[i].sum());
+            long timed = timedEvaluations[i].sum();
+            long spent = nanos[i].sum();
+            rule.setTimedEvaluations(timed);
+            rule.setNanos(spent);
+            rule.setMeanNanos(timed > 0 ? (double) spent / timed : 0);
+            statistics.add(rule);
+        }
+        return statistics;
+    }
+
+    private static LongAdder[] counters(int length) {
+        LongAdder[] counters = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
@@ -4,7 +4,9 @@ import eu.europa.ec.fisheries.schema.movement.search.v1.ListCriteria;
 import eu.europa.ec.fisheries.schema.movement.search.v1.ListPagination;
 import eu.europa.ec.fisheries.schema.movement.search.v1.MovementQuery;
 import eu.europa.ec.fisheries.schema.movement.search.v1.SearchKey;
+import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
 import eu.europa.ec.fisheries.schema.movement.v1.MovementType;
+import eu.europa.ec.fisheries.schema.movement.v1.MovementTypeType;
 import eu.europa.ec.fisheries.uvms.commons.date.DateUtils;
 import eu.europa.ec.fisheries.uvms.movement.model.GetMovementListByQueryResponse;
 import eu.europa.ec.fisheries.uvms.movement.model.GetMovementMapByQueryResponse;
@@ -14,6 +16,8 @@ import eu.europa.ec.fisheries.uvms.movement.rest.BuildMovementRestDeployment;
 import eu.europa.ec.fisheries.uvms.movement.rest.MovementTestHelper;
 import eu.europa.ec.fisheries.uvms.movement.service.bean.MovementService;
 import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BackfillReport;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMovement;
 import org.jboss.arquillian.container.test.api.OperateOnDeployment;
@@ -278,6 +282,46 @@ public class InternalRestResourceTest extends BuildMovementRestDeployment {
         assertEquals(1, movementExtendedList.size());
     }
 
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void backfillTest() {
+        UUID assetId = UUID.randomUUID();
+        Instant start = Instant.now().minus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        List<IncomingMovement> positions = Arrays.asList(
+                createIncomingMovement(assetId, start.plus(1, ChronoUnit.HOURS)),
+                createIncomingMovement(assetId, start),
+                createIncomingMovement(assetId, start));
+
+        String response = getWebTarget()
+                .path("internal/backfill")
+                .request(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, getTokenInternalRest())
+                .post(Entity.json(jsonb.toJson(positions)), String.class);
+
+        BackfillReport report = jsonb.fromJson(response, BackfillReport.class);
+        assertEquals(3, report.getReceived());
+        assertEquals(2, report.getInserted());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(1, report.getAssets());
+        assertEquals(0, report.getRelinked());
+        assertNull(report.getTrackRebuildJobId());
+
+        Movement latest = movementDao.getLatestMovement(assetId);
+        assertEquals(start.plus(1, ChronoUnit.HOURS), latest.getTimestamp());
+        assertEquals(start, movementDao.getPreviousMovement(assetId, latest.getTimestamp()).getTimestamp());
+    }
+
+    private IncomingMovement createIncomingMovement(UUID assetId, Instant positionTime) {
+        IncomingMovement incomingMovement = new IncomingMovement();
+        incomingMovement.setAssetIRCS("TestIrcs:" + assetId);
+        incomingMovement.setPositionTime(positionTime);
+        incomingMovement.setLatitude(57d);
+        incomingMovement.setLongitude(11d);
+        incomingMovement.setMovementType(MovementTypeType.POS.value());
+        incomingMovement.setMovementSourceType(MovementSourceType.NAF.value());
+        return incomingMovement;
+    }
+
     private MovementQuery createMovementQuery(Movement createdMovement) {
         MovementQuery query = new MovementQuery();
         if(createdMovement != null) {
@@ -0,0 +1,115 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AuditPipelineStatistics;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * The sender is held up by a message that waits for a latch, so that the queue of one fills up.
+ */
+@RunWith(Arquillian.class)
+public class AuditPipelineIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private AuditPipeline auditPipeline;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @After
+    public void disablePipeline() throws Exception {
+        configure(0, 50);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void recordIsDroppedWhenTheQueueStaysFullTest() throws Exception {
+        configure(1, 50);
+        AuditPipelineStatistics before = auditPipeline.getStatistics();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertThat(auditPipeline.offer("blocking", blockingMessage(sending, release)), is(true));
+        sending.await(10, TimeUnit.SECONDS);
+        assertThat(auditPipeline.offer("queued", () -> "queued"), is(true));
+        assertThat(auditPipeline.offer("dropped", () -> "dropped"), is(false));
+
+        AuditPipelineStatistics statistics = auditPipeline.getStatistics();
+        assertThat(statistics.getEnqueued(), is(before.getEnqueued() + 2));
+        assertThat(statistics.getBackpressureWaits(), is(before.getBackpressureWaits() + 1));
+        assertThat(statistics.getDropped(), is(before.getDropped() + 1));
+
+        release.countDown();
+        awaitSent(before.getSent() + 2);
+        assertThat(auditPipeline.getStatistics().getDropped(), is(before.getDropped() + 1));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void callerWaitsForRoomWhenTheQueueIsFullTest() throws Exception {
+        configure(1, 10_000);
+        AuditPipelineStatistics before = auditPipeline.getStatistics();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertThat(auditPipeline.offer("blocking", blockingMessage(sending, release)), is(true));
+        sending.await(10, TimeUnit.SECONDS);
+        assertThat(auditPipeline.offer("queued", () -> "queued"), is(true));
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> auditPipeline.offer("waiting", () -> "waiting"));
+        Thread.sleep(200);
+        assertThat(waiting.isDone(), is(false));
+
+        release.countDown();
+        assertThat(waiting.get(10, TimeUnit.SECONDS), is(true));
+        awaitSent(before.getSent() + 3);
+        AuditPipelineStatistics statistics = auditPipeline.getStatistics();
+        assertThat(statistics.getBackpressureWaits(), is(before.getBackpressureWaits() + 1));
+        assertThat(statistics.getDropped(), is(before.getDropped()));
+    }
+
+    private void configure(int capacity, long maxWaitMillis) throws Exception {
+        parameterService.setStringValue(ParameterKey.AUDIT_QUEUE_CAPACITY.getKey(), String.valueOf(capacity),
+                "Set by " + getClass().getSimpleName());
+        parameterService.setStringValue(ParameterKey.AUDIT_QUEUE_MAX_WAIT_MILLIS.getKey(), String.valueOf(maxWaitMillis),
+                "Set by " + getClass().getSimpleName());
+        auditPipeline.shutdown();
+        auditPipeline.init();
+    }
+
+    private static Supplier<String> blockingMessage(CountDownLatch sending, CountDownLatch release) {
+        return () -> {
+            sending.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "blocking";
+        };
+    }
+
+    private void awaitSent(long sent) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (auditPipeline.getStatistics().getSent() < sent
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(auditPipeline.getStatistics().getSent(), is(sent));
+    }
+}
@@ -0,0 +1,82 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.MockData;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementTestHelper;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import javax.transaction.UserTransaction;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Commits every step, the detector only learns about positions once they are committed.
+ */
+@RunWith(Arquillian.class)
+public class DuplicateDetectorIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private UserTransaction userTransaction;
+
+    @Inject
+    private MovementService movementService;
+
+    @Inject
+    private IncomingMovementBean incomingMovementBean;
+
+    @Inject
+    private DuplicateDetector duplicateDetector;
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void duplicateOfARemappedPositionIsFoundTest() throws Exception {
+        UUID oldConnectId = UUID.randomUUID();
+        UUID newConnectId = UUID.randomUUID();
+        Instant timestamp = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        userTransaction.begin();
+        Movement movement = MockData.createMovement(11.0, 57.0, oldConnectId);
+        movement.setTimestamp(timestamp);
+        movementService.createAndProcessMovement(movement);
+        userTransaction.commit();
+
+        userTransaction.begin();
+        movementService.remapMovementConnectInMovement(oldConnectId.toString(), newConnectId.toString());
+        userTransaction.commit();
+
+        assertThat(duplicateDetector.check(newConnectId, timestamp, movement.getMovementType().value(), movement.getSource().value()),
+                is(not(DuplicateDetector.Verdict.NOT_DUPLICATE)));
+        assertThat(duplicateDetector.check(oldConnectId, timestamp, movement.getMovementType().value(), movement.getSource().value()),
+                is(not(DuplicateDetector.Verdict.DUPLICATE)));
+
+        userTransaction.begin();
+        IncomingMovement toNewAsset = incomingMovementLike(movement, newConnectId);
+        boolean newIsDuplicate = incomingMovementBean.checkAndSetDuplicate(toNewAsset);
+        IncomingMovement toOldAsset = incomingMovementLike(movement, oldConnectId);
+        boolean oldIsDuplicate = incomingMovementBean.checkAndSetDuplicate(toOldAsset);
+        userTransaction.rollback();
+
+        assertThat(newIsDuplicate, is(true));
+        assertThat(oldIsDuplicate, is(false));
+    }
+
+    private IncomingMovement incomingMovementLike(Movement movement, UUID connectId) {
+        IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovementType();
+        incomingMovement.setAssetGuid(connectId.toString());
+        incomingMovement.setPositionTime(movement.getTimestamp());
+        incomingMovement.setMovementType(movement.getMovementType().value());
+        incomingMovement.setMovementSourceType(movement.getSource().value());
+        return incomingMovement;
+    }
+}
@@ -0,0 +1,113 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.IngestControllerState;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs with a limit of one, the controller adjusts once a second.
+ */
+@RunWith(Arquillian.class)
+public class IngestControllerIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private IngestController ingestController;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @After
+    public void disableController() throws Exception {
+        configure(0, 1000, 10_000);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void admitWaitsForAPermitTest() throws Exception {
+        configure(1, 10_000, 100);
+        long admitted = ingestController.getState().getAdmitted();
+
+        IngestController.Permit first = ingestController.admit();
+        CompletableFuture<IngestController.Permit> second = CompletableFuture.supplyAsync(ingestController::admit);
+        Thread.sleep(200);
+        assertThat(second.isDone(), is(false));
+        IngestControllerState state = ingestController.getState();
+        assertThat(state.getInFlight(), is(1));
+        assertThat(state.getWaiting(), is(1));
+
+        first.close();
+        second.get(10, TimeUnit.SECONDS).close();
+        state = ingestController.getState();
+        assertThat(state.getAdmitted(), is(admitted + 2));
+        assertThat(state.getAdmitTimeouts(), is(0L));
+        assertThat(state.getInFlight(), is(0));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void nonCriticalWorkPassesWhenNotCongestedTest() throws Exception {
+        configure(1, 10_000, 100);
+        long deferred = ingestController.getState().getDeferred();
+
+        assertThat(ingestController.deferNonCritical(), is(true));
+        assertThat(ingestController.getState().getDeferred(), is(deferred));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void nonCriticalWorkIsRejectedWhileCongestedTest() throws Exception {
+        configure(1, 1, 10);
+        IngestControllerState before = ingestController.getState();
+
+        try (IngestController.Permit permit = ingestController.admit()) {
+            Thread.sleep(50);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!ingestController.getState().isCongested() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(ingestController.getState().isCongested(), is(true));
+
+        assertThat(ingestController.deferNonCritical(), is(false));
+        IngestControllerState after = ingestController.getState();
+        assertThat(after.getDeferred(), is(before.getDeferred() + 1));
+        assertThat(after.getRejected(), is(before.getRejected() + 1));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void disabledControllerAdmitsAtOnceTest() {
+        assertThat(ingestController.isEnabled(), is(false));
+        try (IngestController.Permit permit = ingestController.admit()) {
+            assertThat(ingestController.getState().getInFlight(), is(0));
+        }
+        assertThat(ingestController.deferNonCritical(), is(true));
+    }
+
+    private void configure(int maxConcurrency, long targetLatencyMillis, long maxDeferMillis) throws Exception {
+        set(ParameterKey.INGEST_ADAPTIVE_MAX_CONCURRENCY, maxConcurrency);
+        set(ParameterKey.INGEST_ADAPTIVE_MIN_CONCURRENCY, 1);
+        set(ParameterKey.INGEST_ADAPTIVE_TARGET_LATENCY_MILLIS, targetLatencyMillis);
+        set(ParameterKey.INGEST_ADAPTIVE_MAX_DEFER_MILLIS, maxDeferMillis);
+        ingestController.shutdown();
+        ingestController.init();
+    }
+
+    private void set(ParameterKey key, long value) throws Exception {
+        parameterService.setStringValue(key.getKey(), String.valueOf(value), "Set by " + getClass().getSimpleName());
+    }
+}
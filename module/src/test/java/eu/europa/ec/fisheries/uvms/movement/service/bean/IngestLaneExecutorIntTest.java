@@ -0,0 +1,134 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.IngestLaneStatistics;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(Arquillian.class)
+public class IngestLaneExecutorIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private IngestLaneExecutor laneExecutor;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @After
+    public void resetQueueCapacity() throws Exception {
+        setQueueCapacity(0);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void tasksOfAnAssetRunInSubmissionOrderOnOneThreadTest() throws Exception {
+        String assetGuid = UUID.randomUUID().toString();
+        String otherAssetGuid = UUID.randomUUID().toString();
+        int lane = laneExecutor.laneOf(assetGuid);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int position = i;
+            futures.add(laneExecutor.submit(lane, () -> {
+                order.add(position);
+                threads.add(Thread.currentThread().getName());
+                return null;
+            }));
+            futures.add(laneExecutor.submit(laneExecutor.laneOf(otherAssetGuid), () -> null));
+        }
+        for (Future<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(order.get(i), is(i));
+            assertThat(threads.get(i), is("movement-ingest-lane-" + lane));
+        }
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void statisticsCountCompletedAndFailedTasksTest() throws Exception {
+        int lane = laneExecutor.laneOf(UUID.randomUUID().toString());
+        IngestLaneStatistics before = laneExecutor.getStatistics().get(lane);
+
+        laneExecutor.submit(lane, () -> {
+            Thread.sleep(20);
+            return null;
+        }).get(10, TimeUnit.SECONDS);
+        try {
+            laneExecutor.submit(lane, () -> {
+                throw new IllegalStateException("Test failure");
+            }).get(10, TimeUnit.SECONDS);
+            fail("The failure of the task should be passed on");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("Test failure"));
+        }
+
+        IngestLaneStatistics after = laneExecutor.getStatistics().get(lane);
+        assertThat(after.getLane(), is(lane));
+        assertThat(after.getSubmitted(), is(before.getSubmitted() + 2));
+        assertThat(after.getCompleted(), is(before.getCompleted() + 1));
+        assertThat(after.getFailed(), is(before.getFailed() + 1));
+        assertThat(after.getRejected(), is(before.getRejected()));
+        assertTrue(after.getBusyMillis() >= before.getBusyMillis() + 20);
+        assertThat(after.getQueueDepth(), is(0));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void submitterWaitsForRoomOnAFullLaneTest() throws Exception {
+        setQueueCapacity(2);
+        int lane = laneExecutor.laneOf(UUID.randomUUID().toString());
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        futures.add(laneExecutor.submit(lane, () -> {
+            blocked.await(10, TimeUnit.SECONDS);
+            return null;
+        }));
+        futures.add(laneExecutor.submit(lane, () -> null));
+        futures.add(laneExecutor.submit(lane, () -> null));
+
+        CompletableFuture<Future<Void>> waiting = CompletableFuture.supplyAsync(() -> laneExecutor.submit(lane, () -> null));
+        Thread.sleep(200);
+        assertThat(waiting.isDone(), is(false));
+
+        blocked.countDown();
+        futures.add(waiting.get(10, TimeUnit.SECONDS));
+        for (Future<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertTrue(laneExecutor.getStatistics().get(lane).getMaxQueueDepth() <= 2);
+    }
+
+    private void setQueueCapacity(int capacity) throws Exception {
+        parameterService.setStringValue(ParameterKey.INGEST_LANE_QUEUE_CAPACITY.getKey(), String.valueOf(capacity),
+                "Set by " + getClass().getSimpleName());
+        laneExecutor.shutdown();
+        laneExecutor.init();
+    }
+}
@@ -0,0 +1,104 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.clients.SpatialRestClient;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.util.CalculationUtil;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares the local classifier with the spatial mock over the segments the mock models: every position is in port
+ * except the ones at 10, 20.
+ */
+@RunWith(Arquillian.class)
+public class LocalSegmentClassifierParityIntTest extends BuildMovementServiceTestDeployment {
+
+    private static final Instant START = Instant.parse("2019-05-01T00:00:00Z");
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    @Inject
+    private LocalSegmentClassifier localClassifier;
+
+    @Inject
+    private SpatialRestClient spatialClient;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @After
+    public void disableClassifier() throws Exception {
+        setEnabled(false);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void localCategoriesAreTheSameAsTheSpatialOnesTest() throws Exception {
+        setEnabled(true);
+        localClassifier.refresh();
+
+        List<MovementSegment> segments = new ArrayList<>();
+        segments.add(segment(1, 1, 1.01, 1.01, 600));
+        segments.add(segment(1, 1, 10, 20, 600));
+        segments.add(segment(1, 1, 10, 20, 5 * 3600));
+        segments.add(segment(-45, 30, 10, 20, 60));
+        segments.add(segment(11, 57, 11, 57, 60));
+        segments.add(segment(11, 57, 30, 60, 4 * 3600));
+        segments.add(segment(11, 57, 11.5, 57.5, 60));
+        List<SegmentCategoryType> remote = spatialClient.getSegmentCategoryTypes(segments)
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertThat(remote.size(), is(segments.size()));
+        for (int i = 0; i < segments.size(); i++) {
+            MovementSegment segment = segments.get(i);
+            SegmentCategoryType local = localClassifier.getSegmentCategoryType(segment.getPrevious(), segment.getCurrent(),
+                    CalculationUtil.getPositionCalculations(segment.getPrevious(), segment.getCurrent()));
+            assertThat("Segment " + i, local, is(remote.get(i)));
+        }
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void disabledClassifierAnswersNullTest() {
+        MovementSegment segment = segment(1, 1, 10, 20, 600);
+        assertThat(localClassifier.getSegmentCategoryType(segment.getPrevious(), segment.getCurrent(),
+                CalculationUtil.getPositionCalculations(segment.getPrevious(), segment.getCurrent())), is(nullValue()));
+    }
+
+    private void setEnabled(boolean enabled) throws Exception {
+        parameterService.setStringValue(ParameterKey.SEGMENT_LOCAL_CLASSIFIER.getKey(), String.valueOf(enabled),
+                "Set by " + getClass().getSimpleName());
+        localClassifier.init();
+    }
+
+    private static MovementSegment segment(double longitude1, double latitude1, double longitude2, double latitude2, long seconds) {
+        return new MovementSegment(movement(longitude1, latitude1, START), movement(longitude2, latitude2, START.plusSeconds(seconds)));
+    }
+
+    private static Movement movement(double longitude, double latitude, Instant timestamp) {
+        Movement movement = new Movement();
+        movement.setLocation(FACTORY.createPoint(new Coordinate(longitude, latitude)));
+        movement.setTimestamp(timestamp);
+        return movement;
+    }
+}
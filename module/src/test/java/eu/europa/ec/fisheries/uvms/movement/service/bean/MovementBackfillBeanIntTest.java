@@ -0,0 +1,132 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.TransactionalTests;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BackfillReport;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementTestHelper;
+import eu.europa.ec.fisheries.uvms.movement.service.util.CalculationUtil;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Arquillian.class)
+public class MovementBackfillBeanIntTest extends TransactionalTests {
+
+    @Inject
+    private MovementBackfillBean movementBackfill;
+
+    @Inject
+    private TrackRebuildJob trackRebuildJob;
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void backfillLinksPositionsInTimestampOrderTest() {
+        UUID assetId = UUID.randomUUID();
+        Instant start = Instant.now().minus(90, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        List<IncomingMovement> positions = Arrays.asList(
+                historicalPosition(assetId, start.plus(2, ChronoUnit.HOURS), 2),
+                historicalPosition(assetId, start, 0),
+                historicalPosition(assetId, start.plus(1, ChronoUnit.HOURS), 1));
+
+        BackfillReport report = movementBackfill.backfill(positions);
+        assertThat(report.getInserted(), is(3));
+        assertThat(report.getAssets(), is(1));
+
+        Movement latest = movementDao.getLatestMovement(assetId);
+        assertThat(latest.getTimestamp(), is(start.plus(2, ChronoUnit.HOURS)));
+        Movement middle = latest.getPreviousMovement();
+        assertThat(middle.getTimestamp(), is(start.plus(1, ChronoUnit.HOURS)));
+        Movement first = middle.getPreviousMovement();
+        assertThat(first.getTimestamp(), is(start));
+        assertThat(first.getPreviousMovement(), is(nullValue()));
+        assertThat(latest.getTrack(), is(notNullValue()));
+        assertThat(latest.getCalculatedSpeed(), is(notNullValue()));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void backfillSkipsStoredPositionsTest() {
+        UUID assetId = UUID.randomUUID();
+        Instant start = Instant.now().minus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        List<IncomingMovement> positions = Arrays.asList(
+                historicalPosition(assetId, start, 0),
+                historicalPosition(assetId, start.plus(1, ChronoUnit.HOURS), 1));
+        movementBackfill.backfill(positions);
+
+        BackfillReport report = movementBackfill.backfill(Arrays.asList(
+                historicalPosition(assetId, start, 0),
+                historicalPosition(assetId, start.plus(1, ChronoUnit.HOURS), 1)));
+        assertThat(report.getInserted(), is(0));
+        assertThat(report.getDuplicates(), is(2));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void storedPositionAfterABackfilledOneIsRelinkedTest() {
+        UUID assetId = UUID.randomUUID();
+        Instant start = Instant.now().minus(60, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        movementBackfill.backfillAsset(Arrays.asList(
+                historicalPosition(assetId, start, 0),
+                historicalPosition(assetId, start.plus(2, ChronoUnit.HOURS), 2)));
+        Double speedBefore = movementDao.getLatestMovement(assetId).getCalculatedSpeed();
+
+        BackfillReport report = movementBackfill.backfillAsset(Collections.singletonList(
+                historicalPosition(assetId, start.plus(1, ChronoUnit.HOURS), 10)));
+        assertThat(report.getInserted(), is(1));
+        assertThat(report.getRelinked(), is(1));
+
+        // The positions read before are stale in the persistence context of the test
+        em.clear();
+        Movement latest = movementDao.getLatestMovement(assetId);
+        Movement middle = latest.getPreviousMovement();
+        assertThat(middle.getTimestamp(), is(start.plus(1, ChronoUnit.HOURS)));
+        assertThat(latest.getCalculatedSpeed(), is(not(speedBefore)));
+        assertThat(latest.getCalculatedSpeed(), is(CalculationUtil.getPositionCalculations(middle, latest).getAvgSpeed()));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void relinkedAssetIsQueuedForATrackRebuildTest() {
+        UUID assetId = UUID.randomUUID();
+        Instant start = Instant.now().minus(60, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        BackfillReport inOrder = movementBackfill.backfill(Arrays.asList(
+                historicalPosition(assetId, start, 0),
+                historicalPosition(assetId, start.plus(2, ChronoUnit.HOURS), 2)));
+        assertThat(inOrder.getRelinked(), is(0));
+        assertThat(inOrder.getTrackRebuildJobId(), is(nullValue()));
+
+        BackfillReport between = movementBackfill.backfill(Collections.singletonList(
+                historicalPosition(assetId, start.plus(1, ChronoUnit.HOURS), 1)));
+        assertThat(between.getRelinked(), is(1));
+        assertThat(between.getTrackRebuildJobId(), is(notNullValue()));
+        assertThat(trackRebuildJob.getProgress(between.getTrackRebuildJobId()).getAssets(), is(1));
+    }
+
+    private static IncomingMovement historicalPosition(UUID assetId, Instant positionTime, double latitude) {
+        IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovement(10d, latitude * 0.1);
+        incomingMovement.setAssetGuid(assetId.toString());
+        incomingMovement.setAssetIRCS("TestIrcs:" + assetId);
+        incomingMovement.setPositionTime(positionTime);
+        return incomingMovement;
+    }
+}
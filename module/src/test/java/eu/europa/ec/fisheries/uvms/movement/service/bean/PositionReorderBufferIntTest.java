@@ -0,0 +1,108 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.TransactionalTests;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementTestHelper;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Arquillian.class)
+public class PositionReorderBufferIntTest extends TransactionalTests {
+
+    @Inject
+    private PositionReorderBuffer reorderBuffer;
+
+    @Inject
+    private MovementCreateBean movementCreate;
+
+    @Inject
+    private MovementDao movementDao;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @After
+    public void disableWindow() throws Exception {
+        setWindow(0);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void olderPositionIsReorderedWithinTheWindowTest() throws Exception {
+        setWindow(500);
+        UUID assetId = UUID.randomUUID();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        IncomingMovement later = createIncomingMovement(assetId, now);
+        IncomingMovement earlier = createIncomingMovement(assetId, now.minusSeconds(60));
+        AssetMTEnrichmentResponse laterResponse = movementCreate.enrich(later);
+        AssetMTEnrichmentResponse earlierResponse = movementCreate.enrich(earlier);
+        long reordered = reorderBuffer.getStatistics().getReordered();
+        long spliced = reorderBuffer.getStatistics().getSpliced();
+
+        CompletableFuture<Void> laterProcessed = reorderBuffer.hold(later, laterResponse);
+        CompletableFuture<Void> earlierProcessed = reorderBuffer.hold(earlier, earlierResponse);
+        laterProcessed.get(10, TimeUnit.SECONDS);
+        earlierProcessed.get(10, TimeUnit.SECONDS);
+
+        assertThat(reorderBuffer.getStatistics().getReordered(), is(reordered + 1));
+        assertThat(reorderBuffer.getStatistics().getSpliced(), is(spliced));
+        Movement latest = movementDao.getLatestMovement(assetId);
+        assertThat(latest.getTimestamp(), is(now));
+        assertThat(latest.getPreviousMovement().getTimestamp(), is(now.minusSeconds(60)));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void olderPositionIsSplicedWithoutTheWindowTest() {
+        UUID assetId = UUID.randomUUID();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        long reordered = reorderBuffer.getStatistics().getReordered();
+        long spliced = reorderBuffer.getStatistics().getSpliced();
+
+        movementCreate.processIncomingMovement(createIncomingMovement(assetId, now));
+        movementCreate.processIncomingMovement(createIncomingMovement(assetId, now.minusSeconds(60)));
+
+        assertThat(reorderBuffer.getStatistics().getReordered(), is(reordered));
+        assertThat(reorderBuffer.getStatistics().getSpliced(), is(spliced + 1));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void windowIsCappedTest() throws Exception {
+        setWindow(PositionReorderBuffer.MAX_WINDOW_MILLIS * 10);
+        assertThat(reorderBuffer.getStatistics().getWindowMillis(), is(PositionReorderBuffer.MAX_WINDOW_MILLIS));
+    }
+
+    private void setWindow(long windowMillis) throws Exception {
+        parameterService.setStringValue(ParameterKey.REORDER_WINDOW_MILLIS.getKey(), String.valueOf(windowMillis),
+                "Set by " + getClass().getSimpleName());
+        reorderBuffer.shutdown();
+        reorderBuffer.init();
+    }
+
+    private IncomingMovement createIncomingMovement(UUID assetId, Instant positionTime) {
+        IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovement(11d, 57d);
+        incomingMovement.setAssetIRCS("TestIrcs:" + assetId);
+        incomingMovement.setPositionTime(positionTime);
+        return incomingMovement;
+    }
+}
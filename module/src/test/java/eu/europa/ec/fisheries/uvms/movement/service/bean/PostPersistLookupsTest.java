@@ -0,0 +1,117 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.PostPersistLookupStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
+import eu.europa.ec.fisheries.uvms.movement.service.util.GeometryUtil;
+import eu.europa.ec.fisheries.uvms.movementrules.model.dto.MovementDetails;
+import eu.europa.ec.fisheries.uvms.movementrules.model.dto.VicinityInfoDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Runs with a timeout of 50 ms and no vicinity index, so that the vicinity is handed to the executor.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PostPersistLookupsTest {
+
+    @Mock
+    private MovementService movementService;
+
+    @Mock
+    private VicinityIndex vicinityIndex;
+
+    @Mock
+    private IngestStageMetrics stageMetrics;
+
+    @Mock
+    private MovementParameterHelper parameterHelper;
+
+    @Mock
+    private ManagedExecutorService executorService;
+
+    @InjectMocks
+    private PostPersistLookups postPersistLookups;
+
+    @Before
+    public void init() {
+        doReturn(50L).when(parameterHelper).getLongValue(ParameterKey.POST_PERSIST_TIMEOUT_MILLIS, 0);
+        doReturn(3).when(movementService).countNrOfMovementsLastDayForAsset(any(String.class), any(Instant.class));
+        postPersistLookups.init();
+    }
+
+    @Test
+    public void vicinityIsLeftOutAfterTheDeadlineTest() {
+        CompletableFuture<List<VicinityInfoDTO>> vicinityLookup = new CompletableFuture<>();
+        doReturn(vicinityLookup).when(executorService).submit(any(Callable.class));
+        MovementDetails movementDetails = new MovementDetails();
+
+        postPersistLookups.addTo(movementDetails, getIncomingMovement(), getMovement());
+
+        assertThat(movementDetails.getSumPositionReport(), is(3));
+        assertTrue(movementDetails.getVicinityOf().isEmpty());
+        assertThat(vicinityLookup.isCancelled(), is(true));
+        PostPersistLookupStatistics statistics = postPersistLookups.getStatistics();
+        assertThat(statistics.getParallel(), is(1L));
+        assertThat(statistics.getVicinityTimeouts(), is(1L));
+        assertThat(statistics.getPartial(), is(1L));
+        assertThat(statistics.getFailures(), is(0L));
+    }
+
+    @Test
+    public void rejectedVicinityLookupIsDoneOnTheCallingThreadTest() {
+        doThrow(new RejectedExecutionException("Test rejection")).when(executorService).submit(any(Callable.class));
+        List<VicinityInfoDTO> vicinity = new ArrayList<>();
+        doReturn(vicinity).when(movementService).getVicinityOf(any(Movement.class));
+        MovementDetails movementDetails = new MovementDetails();
+
+        postPersistLookups.addTo(movementDetails, getIncomingMovement(), getMovement());
+
+        assertThat(movementDetails.getSumPositionReport(), is(3));
+        assertThat(movementDetails.getVicinityOf(), is(sameInstance(vicinity)));
+        PostPersistLookupStatistics statistics = postPersistLookups.getStatistics();
+        assertThat(statistics.getVicinityTimeouts(), is(0L));
+        assertThat(statistics.getPartial(), is(0L));
+        assertThat(statistics.getFailures(), is(0L));
+    }
+
+    private IncomingMovement getIncomingMovement() {
+        IncomingMovement incomingMovement = new IncomingMovement();
+        incomingMovement.setAssetGuid(UUID.randomUUID().toString());
+        incomingMovement.setPositionTime(Instant.now());
+        incomingMovement.setMovementSourceType("NAF");
+        return incomingMovement;
+    }
+
+    private Movement getMovement() {
+        Movement movement = new Movement();
+        movement.setLocation(GeometryUtil.getPoint(11d, 57d));
+        MovementConnect movementConnect = new MovementConnect();
+        movementConnect.setId(UUID.randomUUID());
+        movement.setMovementConnect(movementConnect);
+        return movement;
+    }
+}
@@ -0,0 +1,172 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.MovementSourceType;
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.ProcessedPositionStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementTestHelper;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import javax.transaction.UserTransaction;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Arquillian.class)
+public class ProcessedPositionStoreIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private UserTransaction userTransaction;
+
+    @Inject
+    private ProcessedPositionStore processedPositions;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @Before
+    public void enableStore() throws Exception {
+        setMemorySize(100);
+    }
+
+    @After
+    public void disableStore() throws Exception {
+        setMemorySize(0);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void committedPositionsAreSkippedFromMemoryTest() throws Exception {
+        IncomingMovement withAck = MovementTestHelper.createIncomingMovement(11d, 57d);
+        IncomingMovement withoutAck = MovementTestHelper.createIncomingMovement(11d, 57d);
+        withoutAck.setAckResponseMessageId(null);
+        IncomingMovement notProcessed = MovementTestHelper.createIncomingMovement(11d, 57d);
+        ProcessedPositionStatistics before = processedPositions.getStatistics();
+
+        userTransaction.begin();
+        processedPositions.record(Arrays.asList(withAck, withoutAck));
+        userTransaction.commit();
+        List<IncomingMovement> remaining = processedPositions.removeProcessed(Arrays.asList(withAck, withoutAck, notProcessed));
+
+        assertThat(remaining, is(Arrays.asList(withoutAck, notProcessed)));
+        ProcessedPositionStatistics after = processedPositions.getStatistics();
+        assertThat(after.getRecorded(), is(before.getRecorded() + 1));
+        assertThat(after.getMemoryHits(), is(before.getMemoryHits() + 1));
+        assertThat(after.getDatabaseLookups(), is(before.getDatabaseLookups() + 1));
+        assertThat(after.getDatabaseHits(), is(before.getDatabaseHits()));
+        assertThat(after.getSkippedPositions(), is(before.getSkippedPositions() + 1));
+        assertThat(after.getSkippedMessages(), is(before.getSkippedMessages()));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void storedPositionsAreSkippedFromTheDatabaseTest() throws Exception {
+        IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovement(11d, 57d);
+        ProcessedPositionStatistics before = processedPositions.getStatistics();
+
+        userTransaction.begin();
+        try {
+            processedPositions.record(Collections.singletonList(incomingMovement));
+            // Memory is only updated on commit
+            assertTrue(processedPositions.removeProcessed(Collections.singletonList(incomingMovement)).isEmpty());
+        } finally {
+            userTransaction.rollback();
+        }
+
+        ProcessedPositionStatistics after = processedPositions.getStatistics();
+        assertThat(after.getRecorded(), is(before.getRecorded()));
+        assertThat(after.getMemoryHits(), is(before.getMemoryHits()));
+        assertThat(after.getDatabaseHits(), is(before.getDatabaseHits() + 1));
+        assertThat(after.getSkippedMessages(), is(before.getSkippedMessages() + 1));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void positionWithoutAckIsProcessedAgainTest() throws Exception {
+        IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovement(11d, 57d);
+        incomingMovement.setAckResponseMessageId(null);
+        ProcessedPositionStatistics before = processedPositions.getStatistics();
+
+        userTransaction.begin();
+        processedPositions.record(Collections.singletonList(incomingMovement));
+        userTransaction.commit();
+        List<IncomingMovement> remaining = processedPositions.removeProcessed(Collections.singletonList(incomingMovement));
+
+        assertThat(remaining, is(Collections.singletonList(incomingMovement)));
+        ProcessedPositionStatistics after = processedPositions.getStatistics();
+        assertThat(after.getRecorded(), is(before.getRecorded()));
+        assertThat(after.getDatabaseLookups(), is(before.getDatabaseLookups()));
+        assertThat(after.getSkippedPositions(), is(before.getSkippedPositions()));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void sameAssetAndTimeFromAnotherSourceIsNotSkippedTest() throws Exception {
+        IncomingMovement ais = MovementTestHelper.createIncomingMovement(11d, 57d);
+        ais.setAckResponseMessageId(null);
+        ais.setMovementSourceType(MovementSourceType.AIS.value());
+        IncomingMovement vms = MovementTestHelper.createIncomingMovement(11d, 57d);
+        vms.setAckResponseMessageId(null);
+        vms.setMovementSourceType(MovementSourceType.INMARSAT_C.value());
+        vms.setAssetGuid(ais.getAssetGuid());
+        vms.setPositionTime(ais.getPositionTime());
+        ProcessedPositionStatistics before = processedPositions.getStatistics();
+
+        // Two messages, both have to commit
+        userTransaction.begin();
+        processedPositions.record(Collections.singletonList(ais));
+        userTransaction.commit();
+        userTransaction.begin();
+        processedPositions.record(Collections.singletonList(vms));
+        userTransaction.commit();
+        List<IncomingMovement> remaining = processedPositions.removeProcessed(Collections.singletonList(vms));
+
+        assertThat(remaining, is(Collections.singletonList(vms)));
+        ProcessedPositionStatistics after = processedPositions.getStatistics();
+        assertThat(after.getRecorded(), is(before.getRecorded()));
+        assertThat(after.getSkippedPositions(), is(before.getSkippedPositions()));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void sameAssetAndTimeWithAcksAreRecordedSeparatelyTest() throws Exception {
+        IncomingMovement ais = MovementTestHelper.createIncomingMovement(11d, 57d);
+        ais.setMovementSourceType(MovementSourceType.AIS.value());
+        IncomingMovement vms = MovementTestHelper.createIncomingMovement(11d, 57d);
+        vms.setMovementSourceType(MovementSourceType.INMARSAT_C.value());
+        vms.setAssetGuid(ais.getAssetGuid());
+        vms.setPositionTime(ais.getPositionTime());
+        vms.setAckResponseMessageId(ais.getAckResponseMessageId());
+        ProcessedPositionStatistics before = processedPositions.getStatistics();
+
+        userTransaction.begin();
+        processedPositions.record(Collections.singletonList(ais));
+        userTransaction.commit();
+        assertThat(processedPositions.removeProcessed(Collections.singletonList(vms)), is(Collections.singletonList(vms)));
+        userTransaction.begin();
+        processedPositions.record(Collections.singletonList(vms));
+        userTransaction.commit();
+
+        assertThat(processedPositions.getStatistics().getRecorded(), is(before.getRecorded() + 2));
+        assertTrue(processedPositions.removeProcessed(Arrays.asList(ais, vms)).isEmpty());
+    }
+
+    private void setMemorySize(int memorySize) throws Exception {
+        parameterService.setStringValue(ParameterKey.IDEMPOTENCY_MEMORY_SIZE.getKey(), String.valueOf(memorySize),
+                "Set by " + getClass().getSimpleName());
+        processedPositions.init();
+    }
+}
@@ -0,0 +1,65 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.MockData;
+import eu.europa.ec.fisheries.uvms.movement.service.clients.SpatialRestClient;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares categorising segments one request at a time with the batched requests of {@link TrackService}, against
+ * the spatial mock. Run manually and read the results from the output.
+ */
+@Ignore("Benchmark")
+@RunWith(Arquillian.class)
+public class SegmentCategoryBenchmarkIntTest extends BuildMovementServiceTestDeployment {
+
+    private static final int SEGMENTS = 2000;
+
+    @Inject
+    private SpatialRestClient spatialClient;
+
+    @Inject
+    private TrackService trackService;
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void singleVersusBatchedCategorisationTest() {
+        UUID connectId = UUID.randomUUID();
+        List<MovementSegment> segments = new ArrayList<>();
+        Movement previous = MockData.createMovement(0, 0, connectId);
+        for (int i = 1; i <= SEGMENTS; i++) {
+            Movement current = MockData.createMovement(i * 0.001, 0, connectId);
+            segments.add(new MovementSegment(previous, current));
+            previous = current;
+        }
+
+        long start = System.nanoTime();
+        for (MovementSegment segment : segments) {
+            spatialClient.getSegmentCategoryType(segment.getPrevious(), segment.getCurrent());
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<SegmentCategoryType> categories = trackService.categorize(segments).toCompletableFuture().join();
+        long batchedNanos = System.nanoTime() - start;
+
+        assertThat(categories.size(), is(SEGMENTS));
+        System.out.printf("%d segments: one by one %d ms, batched %d ms%n",
+                SEGMENTS, singleNanos / 1_000_000, batchedNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,80 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildCursor;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildProgress;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildRequest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+
+/**
+ * Runs the workers and the lane tasks on the calling thread.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TrackRebuildJobTest {
+
+    @Mock
+    private TrackRebuilder rebuilder;
+
+    @Mock
+    private IngestLaneExecutor laneExecutor;
+
+    @Mock
+    private IngestController ingestController;
+
+    @Mock
+    private ManagedExecutorService executorService;
+
+    @InjectMocks
+    private TrackRebuildJob trackRebuildJob;
+
+    @Test
+    public void chunkWaitsUntilIngestIsNoLongerCongestedTest() throws Exception {
+        UUID assetId = UUID.randomUUID();
+        Instant to = Instant.now();
+        Instant from = to.minusSeconds(3600);
+        TrackRebuildCursor started = new TrackRebuildCursor();
+        TrackRebuildCursor done = new TrackRebuildCursor();
+        done.setDone(true);
+        doReturn(started).when(rebuilder).start(assetId, from, to);
+        doReturn(done).when(rebuilder).rebuildChunk(started);
+        doReturn(false, false, true).when(ingestController).deferNonCritical();
+        doAnswer(invocation -> ((Callable<?>) invocation.getArgument(1)).call()).when(laneExecutor).execute(anyString(), any());
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executorService).submit(any(Runnable.class));
+
+        TrackRebuildRequest request = new TrackRebuildRequest();
+        request.setAssetIds(Collections.singletonList(assetId));
+        request.setFrom(from);
+        request.setTo(to);
+        request.setParallelism(1);
+        TrackRebuildProgress progress = trackRebuildJob.start(request);
+
+        InOrder order = inOrder(ingestController, rebuilder);
+        order.verify(ingestController, times(3)).deferNonCritical();
+        order.verify(rebuilder).rebuildChunk(started);
+        progress = trackRebuildJob.getProgress(progress.getJobId());
+        assertThat(progress.getAssetsDone(), is(1));
+        assertThat(progress.getAssetsFailed(), is(0));
+    }
+}
@@ -0,0 +1,76 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.TransactionalTests;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.TrackRebuildCursor;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementTestHelper;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Arquillian.class)
+public class TrackRebuilderIntTest extends TransactionalTests {
+
+    @Inject
+    private TrackRebuilder trackRebuilder;
+
+    @Inject
+    private MovementBackfillBean movementBackfill;
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void rebuildKeepsLinksAndReplacesTracksTest() {
+        UUID assetId = UUID.randomUUID();
+        Instant start = Instant.now().minus(60, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        List<IncomingMovement> positions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovement(10d, i * 0.1);
+            incomingMovement.setAssetIRCS("TestIrcs:" + assetId);
+            incomingMovement.setPositionTime(start.plus(i, ChronoUnit.HOURS));
+            positions.add(incomingMovement);
+        }
+        movementBackfill.backfill(positions);
+
+        TrackRebuildCursor cursor = trackRebuilder.start(assetId, null, null);
+        int movements = 0;
+        int relinked = 0;
+        int tracksCreated = 0;
+        while (!cursor.isDone()) {
+            cursor = trackRebuilder.rebuildChunk(cursor);
+            movements += cursor.getMovements();
+            relinked += cursor.getRelinked();
+            tracksCreated += cursor.getTracksCreated();
+        }
+        assertThat(movements, is(5));
+        assertThat(relinked, is(0));
+        assertThat(tracksCreated, is(1));
+
+        Movement latest = movementDao.getLatestMovement(assetId);
+        assertThat(latest.getTrack(), is(notNullValue()));
+        Movement first = latest;
+        while (first.getPreviousMovement() != null) {
+            assertThat(first.getPreviousMovement().getTrack().getId(), is(latest.getTrack().getId()));
+            first = first.getPreviousMovement();
+        }
+        assertThat(first.getTimestamp(), is(start));
+        assertThat(first.getPreviousMovement(), is(nullValue()));
+    }
+}
@@ -6,7 +6,13 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.locationtech.jts.geom.Coordinate;
@@ -17,6 +23,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
 import eu.europa.ec.fisheries.uvms.movement.service.clients.SpatialRestClient;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.MovementSegment;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
 import eu.europa.ec.fisheries.uvms.movement.service.entity.Track;
 
@@ -25,6 +32,9 @@ public class TrackServiceTest {
 
     @Mock
     private SpatialRestClient spatialClient;
+
+    @Mock
+    private LocalSegmentClassifier localClassifier;
     
     @InjectMocks
     private TrackService trackService;
@@ -66,6 +76,39 @@ public class TrackServiceTest {
         assertThat(current.getTrack().getDuration(), is(notNullValue()));
     }
     
+    @Test
+    public void upsertTracksInOneRequestTest() {
+        Movement first = getMovement();
+        first.setTrack(new Track());
+        Movement second = getMovement();
+        Movement third = getMovement();
+        List<MovementSegment> segments = Arrays.asList(new MovementSegment(first, second), new MovementSegment(second, third));
+        doReturn(CompletableFuture.completedFuture(Arrays.asList(SegmentCategoryType.GAP, SegmentCategoryType.EXIT_PORT)))
+                .when(spatialClient).getSegmentCategoryTypes(any());
+
+        trackService.upsertTracks(segments, trackService.categorize(segments));
+        verify(spatialClient, never()).getSegmentCategoryType(any(), any());
+        assertThat(second.getTrack(), is(first.getTrack()));
+        assertThat(third.getTrack(), is(notNullValue()));
+        assertThat(third.getTrack(), is(not(second.getTrack())));
+    }
+
+    @Test
+    public void upsertTracksOneByOneWhenBatchFailsTest() {
+        Movement previous = getMovement();
+        previous.setTrack(new Track());
+        Movement current = getMovement();
+        List<MovementSegment> segments = Collections.singletonList(new MovementSegment(previous, current));
+        CompletableFuture<List<SegmentCategoryType>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Spatial is down"));
+        doReturn(failed).when(spatialClient).getSegmentCategoryTypes(any());
+        doReturn(SegmentCategoryType.EXIT_PORT).when(spatialClient).getSegmentCategoryType(any(), any());
+
+        trackService.upsertTracks(segments, trackService.categorize(segments));
+        assertThat(current.getTrack(), is(notNullValue()));
+        assertThat(current.getTrack(), is(not(previous.getTrack())));
+    }
+
     private Movement getMovement() {
         Movement movement = new Movement();
         Coordinate coordinate = new Coordinate(1, 1);
@@ -0,0 +1,87 @@
+package eu.europa.ec.fisheries.uvms.movement.service.bean;
+
+import eu.europa.ec.fisheries.uvms.movement.service.MockData;
+import eu.europa.ec.fisheries.uvms.movement.service.TransactionalTests;
+import eu.europa.ec.fisheries.uvms.movement.service.dao.MovementDao;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.MovementConnect;
+import eu.europa.ec.fisheries.uvms.movement.service.util.VicinityGrid;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares the vicinity lookup in the database with the in memory grid for 10k, 50k and 100k active assets in the
+ * North Sea. Takes several minutes, run manually and read the results from the output.
+ */
+@Ignore("Benchmark")
+@RunWith(Arquillian.class)
+public class VicinityBenchmarkIntTest extends TransactionalTests {
+
+    private static final int[] ACTIVE_ASSETS = {10_000, 50_000, 100_000};
+    private static final int LOOKUPS = 1000;
+    private static final double MAX_DISTANCE = 500;
+
+    @Inject
+    private MovementDao movementDao;
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void vicinityDatabaseVersusGridTest() {
+        Random random = new Random(42);
+        VicinityGrid grid = new VicinityGrid(0.05);
+        List<Movement> created = new ArrayList<>();
+        for (int assets : ACTIVE_ASSETS) {
+            while (created.size() < assets) {
+                Movement movement = createActiveAsset(random.nextDouble() * 10, 52 + random.nextDouble() * 10);
+                grid.put(new VicinityGrid.Position(movement.getMovementConnect().getId(), movement.getId(),
+                        movement.getLocation().getX(), movement.getLocation().getY(), System.currentTimeMillis()));
+                created.add(movement);
+                if (created.size() % 1000 == 0) {
+                    movementDao.flush();
+                    em.clear();
+                }
+            }
+            movementDao.flush();
+
+            List<Movement> lookups = new ArrayList<>();
+            for (int i = 0; i < LOOKUPS; i++) {
+                lookups.add(created.get(random.nextInt(created.size())));
+            }
+            long databaseNanos = 0;
+            long gridNanos = 0;
+            long found = 0;
+            for (Movement movement : lookups) {
+                long start = System.nanoTime();
+                movementDao.getVicinityOfMovement(movement, MAX_DISTANCE);
+                databaseNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                // Includes the asset itself
+                List<VicinityGrid.Position> fromGrid = grid.find(movement.getLocation().getX(), movement.getLocation().getY(), MAX_DISTANCE, 0);
+                gridNanos += System.nanoTime() - start;
+
+                found += fromGrid.size() - 1;
+            }
+            System.out.printf("%d active assets: database %.1f us, grid %.1f us per lookup, %.2f assets in vicinity%n",
+                    assets, databaseNanos / 1000.0 / LOOKUPS, gridNanos / 1000.0 / LOOKUPS, (double) found / LOOKUPS);
+        }
+    }
+
+    private Movement createActiveAsset(double longitude, double latitude) {
+        Movement movement = MockData.createMovement(longitude, latitude, UUID.randomUUID());
+        MovementConnect movementConnect = movementDao.createMovementConnect(movement.getMovementConnect());
+        movementDao.createMovement(movement);
+        movementConnect.setLatestMovement(movement);
+        movementConnect.setLatestLocation(movement.getLocation());
+        return movement;
+    }
+}
@@ -0,0 +1,110 @@
+package eu.europa.ec.fisheries.uvms.movement.service.clients;
+
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentRequest;
+import eu.europa.ec.fisheries.uvms.asset.client.model.AssetMTEnrichmentResponse;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Every request carries "TestIrcs:&lt;asset id&gt;", which AssetMTRestMock answers with that asset id on both the bulk
+ * and the single call, so the responses show whether they came back in the order of the requests.
+ */
+@RunWith(Arquillian.class)
+public class AssetEnrichmentRestClientIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private AssetEnrichmentRestClient assetEnrichmentClient;
+
+    @Before
+    public void recordCalls() {
+        System.setProperty("AssetMTRecordCalls", "true");
+    }
+
+    @After
+    public void resetMock() {
+        System.clearProperty("AssetMTRecordCalls");
+        System.clearProperty("AssetMTListCalls");
+        System.clearProperty("AssetMTCalls");
+        System.clearProperty("AssetMTListStatus");
+        System.clearProperty("AssetMTListDropLast");
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void requestsAreSentInChunksTest() {
+        List<AssetMTEnrichmentRequest> requests = requests(AssetEnrichmentRestClient.MAX_REQUESTS_PER_CALL + 1);
+
+        List<AssetMTEnrichmentResponse> responses = assetEnrichmentClient.collectAssetMTList(requests);
+
+        assertAnswered(requests, responses);
+        assertThat(System.getProperty("AssetMTListCalls"), is(AssetEnrichmentRestClient.MAX_REQUESTS_PER_CALL + ",1"));
+        assertThat(System.getProperty("AssetMTCalls"), is(nullValue()));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void failedBulkCallIsCollectedOneByOneTest() {
+        System.setProperty("AssetMTListStatus", "500");
+        List<AssetMTEnrichmentRequest> requests = requests(3);
+
+        List<AssetMTEnrichmentResponse> responses = assetEnrichmentClient.collectAssetMTList(requests);
+
+        assertAnswered(requests, responses);
+        assertThat(System.getProperty("AssetMTListCalls"), is("3"));
+        assertThat(System.getProperty("AssetMTCalls"), is("1,1,1"));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void missingResponsesAreCollectedOneByOneTest() {
+        System.setProperty("AssetMTListDropLast", "true");
+        List<AssetMTEnrichmentRequest> requests = requests(3);
+
+        List<AssetMTEnrichmentResponse> responses = assetEnrichmentClient.collectAssetMTList(requests);
+
+        assertAnswered(requests, responses);
+        assertThat(System.getProperty("AssetMTListCalls"), is("3"));
+        assertThat(System.getProperty("AssetMTCalls"), is("1,1,1"));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void noRequestsNoCallTest() {
+        List<AssetMTEnrichmentResponse> responses = assetEnrichmentClient.collectAssetMTList(Collections.emptyList());
+
+        assertThat(responses.isEmpty(), is(true));
+        assertThat(System.getProperty("AssetMTListCalls"), is(nullValue()));
+    }
+
+    private static List<AssetMTEnrichmentRequest> requests(int count) {
+        List<AssetMTEnrichmentRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AssetMTEnrichmentRequest request = new AssetMTEnrichmentRequest();
+            request.setIrcsValue("TestIrcs:" + UUID.randomUUID());
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static void assertAnswered(List<AssetMTEnrichmentRequest> requests, List<AssetMTEnrichmentResponse> responses) {
+        assertThat(responses.size(), is(requests.size()));
+        for (int i = 0; i < requests.size(); i++) {
+            assertThat(responses.get(i).getAssetUUID(), is(requests.get(i).getIrcsValue().split(":")[1]));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package eu.europa.ec.fisheries.uvms.movement.service.mapper;
+
+import eu.europa.ec.fisheries.uvms.movement.model.dto.IncomingMovementDto;
+import eu.europa.ec.fisheries.uvms.movement.model.mapper.IncomingMovementBinaryCodec;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMovement;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.json.bind.Jsonb;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compares decoding CREATE_BATCH messages of 1, 100 and 1000 positions from JSON with the binary format, including
+ * the mapping to incoming movements, and the bytes per position of both. Run manually and read the results from the
+ * output.
+ */
+@Ignore("Benchmark")
+@RunWith(Arquillian.class)
+public class IncomingMovementBinaryBenchmarkIntTest extends BuildMovementServiceTestDeployment {
+
+    private static final int[] BATCH_SIZES = {1, 100, 1000};
+    private static final int POSITIONS = 200_000;
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void jsonVersusBinaryTest() {
+        Jsonb jsonb = new JsonBConfiguratorMovement().getContext(null);
+        for (int batchSize : BATCH_SIZES) {
+            List<IncomingMovementDto> dtos = new ArrayList<>();
+            for (int i = 0; i < batchSize; i++) {
+                dtos.add(IncomingMovementBinaryCodecTest.createDto(i));
+            }
+            String json = jsonb.toJson(dtos);
+            byte[] binary = IncomingMovementBinaryCodec.encode(dtos);
+            int rounds = POSITIONS / batchSize;
+
+            long jsonNanos = 0;
+            long binaryNanos = 0;
+            long decoded = 0;
+            // The first round warms up and is not counted
+            for (int round = 0; round <= rounds; round++) {
+                long start = System.nanoTime();
+                List<IncomingMovement> fromJson = jsonb.fromJson(json, new ArrayList<IncomingMovement>(){}.getClass().getGenericSuperclass());
+                long end = System.nanoTime();
+                List<IncomingMovement> fromBinary = IncomingMovementBinaryCodec.decode(binary).stream()
+                        .map(IncomingMovementMapper::mapIncomingMovement)
+                        .collect(Collectors.toList());
+                long binaryEnd = System.nanoTime();
+                if (round > 0) {
+                    jsonNanos += end - start;
+                    binaryNanos += binaryEnd - end;
+                    decoded += fromJson.size() + fromBinary.size();
+                }
+            }
+            long positions = (long) rounds * batchSize;
+            System.out.printf("Batches of %d: JSON %d bytes and %.2f us per position, binary %d bytes and %.2f us per position (%d decoded)%n",
+                    batchSize, json.getBytes(StandardCharsets.UTF_8).length / batchSize, jsonNanos / 1000.0 / positions,
+                    binary.length / batchSize, binaryNanos / 1000.0 / positions, decoded);
+        }
+    }
+}
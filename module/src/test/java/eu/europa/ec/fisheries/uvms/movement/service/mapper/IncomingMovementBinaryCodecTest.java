@@ -0,0 +1,121 @@
+package eu.europa.ec.fisheries.uvms.movement.service.mapper;
+
+import eu.europa.ec.fisheries.uvms.movement.model.dto.IncomingMovementDto;
+import eu.europa.ec.fisheries.uvms.movement.model.mapper.IncomingMovementBinaryCodec;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.util.JsonBConfiguratorMovement;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.json.bind.Jsonb;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(Arquillian.class)
+public class IncomingMovementBinaryCodecTest extends BuildMovementServiceTestDeployment {
+
+    private Jsonb jsonb;
+
+    @Before
+    public void init() {
+        jsonb = new JsonBConfiguratorMovement().getContext(null);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void sameIncomingMovementsAsFromJsonTest() {
+        List<IncomingMovementDto> dtos = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            dtos.add(createDto(i));
+        }
+        dtos.add(new IncomingMovementDto());
+
+        List<IncomingMovementDto> decoded = IncomingMovementBinaryCodec.decode(IncomingMovementBinaryCodec.encode(dtos));
+
+        assertThat(decoded.size(), is(dtos.size()));
+        for (int i = 0; i < dtos.size(); i++) {
+            IncomingMovement fromJson = jsonb.fromJson(jsonb.toJson(dtos.get(i)), IncomingMovement.class);
+            IncomingMovement fromBinary = IncomingMovementMapper.mapIncomingMovement(decoded.get(i));
+            assertThat(jsonb.toJson(fromBinary), is(jsonb.toJson(fromJson)));
+        }
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void stringsThatAreNotCodedComeBackTheSameTest() {
+        IncomingMovementDto dto = new IncomingMovementDto();
+        String upperCaseUuid = UUID.randomUUID().toString().toUpperCase();
+        dto.setAssetGuid(upperCaseUuid);
+        dto.setAssetName("Ärlig Åsa");
+        dto.setStatus("");
+        dto.setPluginType("NEW_PLUGIN");
+        dto.setMovementType(null);
+
+        IncomingMovementDto decoded = IncomingMovementBinaryCodec.decode(IncomingMovementBinaryCodec.encode(dto)).get(0);
+
+        assertThat(decoded.getAssetGuid(), is(upperCaseUuid));
+        assertThat(decoded.getAssetName(), is("Ärlig Åsa"));
+        assertThat(decoded.getStatus(), is(""));
+        assertThat(decoded.getPluginType(), is("NEW_PLUGIN"));
+        assertThat(decoded.getMovementType(), is(nullValue()));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void truncatedMessageIsRejectedTest() {
+        byte[] bytes = IncomingMovementBinaryCodec.encode(Arrays.asList(createDto(1), createDto(2)));
+        try {
+            IncomingMovementBinaryCodec.decode(Arrays.copyOf(bytes, bytes.length - 5));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("Binary incoming movement message is truncated"));
+        }
+    }
+
+    static IncomingMovementDto createDto(int i) {
+        IncomingMovementDto dto = new IncomingMovementDto();
+        dto.setAssetHistoryId(UUID.randomUUID().toString());
+        dto.setAckResponseMessageId(UUID.randomUUID().toString());
+        dto.setPositionTime(Instant.ofEpochMilli(1_600_000_000_000L + i * 60_000L));
+        dto.setLesReportTime(Instant.ofEpochMilli(1_600_000_000_000L + i * 60_000L + 1234));
+        dto.setStatus("010");
+        dto.setReportedSpeed(8.5 + i);
+        dto.setReportedCourse(i * 10.0);
+        dto.setAssetName("Asset " + i);
+        dto.setFlagState("SWE");
+        dto.setExternalMarking("GG-" + i);
+        dto.setMovementType("POS");
+        dto.setMovementSourceType(i % 2 == 0 ? "AIS" : "INMARSAT_C");
+        dto.setAssetType("VESSEL");
+        dto.setAssetCFR("SWE0000" + i);
+        dto.setAssetIRCS("SKR" + i);
+        dto.setAssetMMSI(String.valueOf(265_000_000 + i));
+        dto.setAssetGuid(UUID.randomUUID().toString());
+        dto.setLongitude(11.0 + i * 0.001);
+        dto.setLatitude(-57.7);
+        dto.setAltitude(0.0);
+        dto.setActivityMessageType("AUT");
+        dto.setComChannelType("MOBILE_TERMINAL");
+        dto.setMobileTerminalGuid(UUID.randomUUID().toString());
+        dto.setMobileTerminalDNID("1234" + i);
+        dto.setMobileTerminalMemberNumber("25");
+        dto.setMobileTerminalActive(i % 3 == 0);
+        dto.setSourceSatelliteId((short) (i % 4));
+        dto.setPluginType("SATELLITE_RECEIVER");
+        dto.setUpdatedBy("Test");
+        dto.setAisPositionAccuracy((short) 1);
+        return dto;
+    }
+}
@@ -0,0 +1,79 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.schema.movement.module.v1.ProcessedMovementRefType;
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BatchSenderStatistics;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import javax.transaction.UserTransaction;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Arquillian.class)
+public class ExchangeAckBatchSenderIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private UserTransaction userTransaction;
+
+    @Inject
+    private ExchangeAckBatchSender ackBatchSender;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @After
+    public void disableBatching() throws Exception {
+        configure(0, 50);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void committedAcksAreSentWhenTheWindowHasPassedTest() throws Exception {
+        configure(10, 200);
+        BatchSenderStatistics before = ackBatchSender.getStatistics();
+
+        userTransaction.begin();
+        addAck();
+        addAck();
+        assertThat(ackBatchSender.getStatistics().getBuffered(), is(0));
+        userTransaction.commit();
+        assertThat(ackBatchSender.getStatistics().getBuffered(), is(2));
+
+        awaitSent(before.getSentItems() + 2);
+        BatchSenderStatistics after = ackBatchSender.getStatistics();
+        assertThat(after.getSentMessages(), is(before.getSentMessages() + 1));
+        assertThat(after.getBuffered(), is(0));
+        assertThat(after.getFailedItems(), is(before.getFailedItems()));
+    }
+
+    private void addAck() {
+        ackBatchSender.add(ProcessedMovementRefType.MOVEMENT, UUID.randomUUID(), UUID.randomUUID().toString());
+    }
+
+    private void configure(int batchSize, long windowMillis) throws Exception {
+        parameterService.setStringValue(ParameterKey.EXCHANGE_ACK_BATCH_SIZE.getKey(), String.valueOf(batchSize),
+                "Set by " + getClass().getSimpleName());
+        parameterService.setStringValue(ParameterKey.EXCHANGE_ACK_BATCH_WINDOW_MILLIS.getKey(), String.valueOf(windowMillis),
+                "Set by " + getClass().getSimpleName());
+        ackBatchSender.shutdown();
+        ackBatchSender.init();
+    }
+
+    private void awaitSent(long sentItems) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (ackBatchSender.getStatistics().getSentItems() < sentItems && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(ackBatchSender.getStatistics().getSentItems(), is(sentItems));
+    }
+}
@@ -0,0 +1,71 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.schema.movement.module.v1.PingResponse;
+import eu.europa.ec.fisheries.uvms.movement.model.mapper.JAXBMarshaller;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Arquillian.class)
+public class JAXBMarshallerTest extends BuildMovementServiceTestDeployment {
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void compactUnlessFormattedTest() {
+        PingResponse pingResponse = new PingResponse();
+        pingResponse.setResponse("pong");
+
+        assertThat(JAXBMarshaller.marshallJaxBObjectToString(pingResponse).contains("\n"), is(false));
+        assertThat(JAXBMarshaller.marshallJaxBObjectToString(pingResponse, true).contains("\n"), is(true));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void writerAndReaderRoundTripTest() {
+        PingResponse pingResponse = new PingResponse();
+        pingResponse.setResponse("pong");
+        StringWriter writer = new StringWriter();
+        JAXBMarshaller.marshallJaxBObject(pingResponse, writer, false);
+
+        PingResponse read = JAXBMarshaller.unmarshall(new StringReader(writer.toString()), PingResponse.class);
+        assertThat(read.getResponse(), is("pong"));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void concurrentMarshallingTest() throws Exception {
+        JAXBMarshaller.prewarm(PingResponse.class);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String response = "pong" + i;
+                results.add(executor.submit(() -> {
+                    PingResponse pingResponse = new PingResponse();
+                    pingResponse.setResponse(response);
+                    String xml = JAXBMarshaller.marshallJaxBObjectToString(pingResponse);
+                    PingResponse read = JAXBMarshaller.unmarshall(new StringReader(xml), PingResponse.class);
+                    return read.getResponse();
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get(), is("pong" + i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
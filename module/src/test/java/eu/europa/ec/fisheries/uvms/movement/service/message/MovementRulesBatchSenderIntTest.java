@@ -0,0 +1,82 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.uvms.config.service.ParameterService;
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.constant.ParameterKey;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BatchSenderStatistics;
+import eu.europa.ec.fisheries.uvms.movementrules.model.dto.MovementDetails;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.ejb.EJB;
+import javax.inject.Inject;
+import javax.transaction.UserTransaction;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Arquillian.class)
+public class MovementRulesBatchSenderIntTest extends BuildMovementServiceTestDeployment {
+
+    @Inject
+    private UserTransaction userTransaction;
+
+    @Inject
+    private MovementRulesBatchSender rulesBatchSender;
+
+    @EJB
+    private ParameterService parameterService;
+
+    @After
+    public void disableBatching() throws Exception {
+        configure(0, 50);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void committedMovementsAreSentWhenTheWindowHasPassedTest() throws Exception {
+        configure(10, 200);
+        BatchSenderStatistics before = rulesBatchSender.getStatistics();
+
+        userTransaction.begin();
+        addMovement();
+        addMovement();
+        assertThat(rulesBatchSender.getStatistics().getBuffered(), is(0));
+        userTransaction.commit();
+        assertThat(rulesBatchSender.getStatistics().getBuffered(), is(2));
+
+        awaitSent(before.getSentItems() + 2);
+        BatchSenderStatistics after = rulesBatchSender.getStatistics();
+        assertThat(after.getSentMessages(), is(before.getSentMessages() + 1));
+        assertThat(after.getBuffered(), is(0));
+        assertThat(after.getFailedItems(), is(before.getFailedItems()));
+        assertThat(after.getRetriedItems(), is(before.getRetriedItems()));
+    }
+
+    private void addMovement() {
+        MovementDetails movementDetails = new MovementDetails();
+        movementDetails.setMovementGuid(UUID.randomUUID().toString());
+        rulesBatchSender.add(movementDetails);
+    }
+
+    private void configure(int batchSize, long windowMillis) throws Exception {
+        parameterService.setStringValue(ParameterKey.RULES_BATCH_SIZE.getKey(), String.valueOf(batchSize),
+                "Set by " + getClass().getSimpleName());
+        parameterService.setStringValue(ParameterKey.RULES_BATCH_WINDOW_MILLIS.getKey(), String.valueOf(windowMillis),
+                "Set by " + getClass().getSimpleName());
+        rulesBatchSender.shutdown();
+        rulesBatchSender.init();
+    }
+
+    private void awaitSent(long sentItems) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (rulesBatchSender.getStatistics().getSentItems() < sentItems && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(rulesBatchSender.getStatistics().getSentItems(), is(sentItems));
+    }
+}
@@ -11,9 +11,12 @@ copy of the GNU General Public License along with the IFDM Suite. If not, see <h
  */
 package eu.europa.ec.fisheries.uvms.movement.service.message;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import javax.ejb.Stateless;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -35,10 +38,41 @@ public class SpatialModuleMock {
         if(shouldIFail()){
             return Response.status(668).build();
         }
+        return Response.ok(categorize(movements)).build();
+    }
+
+    @POST
+    @Path("getSegmentCategoryTypes")
+    @Consumes(value = {MediaType.APPLICATION_JSON})
+    @Produces(value = {MediaType.APPLICATION_JSON})
+    public Response getSegmentCategoryTypes(List<List<MovementType>> segments) {
+        if(shouldIFail()){
+            return Response.status(668).build();
+        }
+        List<SegmentCategoryType> categories = new ArrayList<>();
+        for (List<MovementType> movements : segments) {
+            categories.add(categorize(movements));
+        }
+        return Response.ok(categories).build();
+    }
+
+    private SegmentCategoryType categorize(List<MovementType> movements) {
         if(movements.get(1).getPosition().getLongitude() == 10 && movements.get(1).getPosition().getLatitude() == 20){
-            return Response.ok(SegmentCategoryType.EXIT_PORT).build();
+            return SegmentCategoryType.EXIT_PORT;
+        }
+        return SegmentCategoryType.IN_PORT;
+    }
+
+    @GET
+    @Path("getPortAreas")
+    @Produces(value = {MediaType.APPLICATION_JSON})
+    public Response getPortAreas() {
+        if(shouldIFail()){
+            return Response.status(668).build();
         }
-        return Response.ok(SegmentCategoryType.IN_PORT).build();
+        // Everything is port except around 10, 20, the same as categorize
+        return Response.ok(Collections.singletonList("POLYGON((-180 -90, 180 -90, 180 90, -180 90, -180 -90), "
+                + "(9.99 19.99, 10.01 19.99, 10.01 20.01, 9.99 20.01, 9.99 19.99))")).build();
     }
 
 
@@ -0,0 +1,236 @@
+package eu.europa.ec.fisheries.uvms.movement.service.message;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dto.BatchSenderStatistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSContext;
+import javax.jms.JMSProducer;
+import javax.jms.JMSRuntimeException;
+import javax.jms.Queue;
+import javax.jms.TextMessage;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs against a mocked ConnectionFactory, without a transaction unless a test begins one.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TransactionalBatchSenderTest {
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private JMSContext context;
+
+    @Mock
+    private JMSProducer producer;
+
+    @Mock
+    private TextMessage message;
+
+    @Mock
+    private Queue destination;
+
+    @Mock
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private ScheduledExecutorService scheduler;
+    private TransactionalBatchSender<String> sender;
+
+    @Before
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        sender = new TransactionalBatchSender<>("Test", connectionFactory, destination, "TEST_BATCH",
+                batch -> String.join(",", batch), transactionRegistry);
+    }
+
+    @After
+    public void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void batchIsSentWhenTheWindowHasPassedTest() throws Exception {
+        connectionWorks();
+        sender.start(10, 100, scheduler);
+
+        sender.add("a");
+        sender.add("b");
+        assertThat(sender.getStatistics().getBuffered(), is(2));
+
+        awaitSent(2);
+        BatchSenderStatistics statistics = sender.getStatistics();
+        assertThat(statistics.getSentMessages(), is(1L));
+        assertThat(statistics.getBuffered(), is(0));
+        verify(context).createTextMessage("a,b");
+    }
+
+    @Test
+    public void fullBatchIsSentRightAwayTest() {
+        connectionWorks();
+        sender.start(3, 10_000, scheduler);
+
+        for (String item : new String[] {"a", "b", "c", "d"}) {
+            sender.add(item);
+        }
+
+        BatchSenderStatistics statistics = sender.getStatistics();
+        assertThat(statistics.getSentMessages(), is(1L));
+        assertThat(statistics.getSentItems(), is(3L));
+        assertThat(statistics.getBuffered(), is(1));
+    }
+
+    @Test
+    public void itemsAreAddedWhenTheTransactionCommitsTest() {
+        connectionWorks();
+        sender.start(2, 10_000, scheduler);
+        beginTransaction();
+
+        sender.add("a");
+        sender.add("b");
+        assertThat(sender.getStatistics().getSentItems(), is(0L));
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        assertThat(sender.getStatistics().getSentItems(), is(2L));
+    }
+
+    @Test
+    public void itemsOfARolledBackTransactionAreDroppedTest() {
+        sender.start(2, 10_000, scheduler);
+        beginTransaction();
+
+        sender.add("a");
+        sender.add("b");
+        completeTransaction(Status.STATUS_ROLLEDBACK);
+
+        BatchSenderStatistics statistics = sender.getStatistics();
+        assertThat(statistics.getBuffered(), is(0));
+        assertThat(statistics.getSentItems(), is(0L));
+        assertThat(statistics.getFailedItems(), is(0L));
+    }
+
+    @Test
+    public void failedBatchIsRetriedOnANewContextTest() throws Exception {
+        failsOnce();
+        sender.start(2, 100, scheduler);
+        long start = System.currentTimeMillis();
+
+        sender.add("a");
+        sender.add("b");
+        BatchSenderStatistics statistics = sender.getStatistics();
+        assertThat(statistics.getSentItems(), is(0L));
+        assertThat(statistics.getRetriedItems(), is(2L));
+        assertThat(statistics.getBuffered(), is(2));
+
+        awaitSent(2);
+        assertTrue(System.currentTimeMillis() - start >= TransactionalBatchSender.RETRY_MILLIS);
+        assertThat(sender.getStatistics().getFailedItems(), is(0L));
+        verify(connectionFactory, times(2)).createContext();
+        verify(context).createTextMessage("a,b");
+    }
+
+    @Test
+    public void failedBatchGoesOutWithTheNextFullBatchTest() {
+        failsOnce();
+        // The flusher runs every 5 s with this window
+        sender.start(2, 10_000, scheduler);
+
+        sender.add("a");
+        sender.add("b");
+        assertThat(sender.getStatistics().getBuffered(), is(2));
+        sender.add("c");
+
+        BatchSenderStatistics statistics = sender.getStatistics();
+        assertThat(statistics.getSentItems(), is(2L));
+        assertThat(statistics.getBuffered(), is(1));
+        verify(context).createTextMessage("a,b");
+    }
+
+    @Test
+    public void itemsAreDroppedWhenTheBufferIsFullTest() {
+        doThrow(new JMSRuntimeException("Broker down")).when(connectionFactory).createContext();
+        sender.start(2, 10_000, scheduler);
+
+        int buffered = 2 * TransactionalBatchSender.MAX_BUFFERED_BATCHES;
+        for (int i = 0; i < buffered + 2; i++) {
+            sender.add(String.valueOf(i));
+        }
+
+        BatchSenderStatistics statistics = sender.getStatistics();
+        assertThat(statistics.getBuffered(), is(buffered));
+        assertThat(statistics.getFailedItems(), is(2L));
+        assertThat(statistics.getSentItems(), is(0L));
+    }
+
+    @Test
+    public void stopSendsTheBufferTest() {
+        connectionWorks();
+        sender.start(10, 10_000, scheduler);
+        sender.add("a");
+
+        sender.stop();
+
+        assertThat(sender.isStarted(), is(false));
+        assertThat(sender.getStatistics().getSentItems(), is(1L));
+        verify(context).close();
+    }
+
+    private void connectionWorks() {
+        doReturn(context).when(connectionFactory).createContext();
+        doReturn(producer).when(context).createProducer();
+        doReturn(message).when(context).createTextMessage(anyString());
+    }
+
+    private void failsOnce() {
+        doThrow(new JMSRuntimeException("Broker down")).doReturn(context).when(connectionFactory).createContext();
+        doReturn(producer).when(context).createProducer();
+        doReturn(message).when(context).createTextMessage(anyString());
+    }
+
+    private void beginTransaction() {
+        Map<Object, Object> resources = new HashMap<>();
+        doReturn("transaction").when(transactionRegistry).getTransactionKey();
+        doReturn(Status.STATUS_ACTIVE).when(transactionRegistry).getTransactionStatus();
+        doAnswer(invocation -> resources.get(invocation.getArgument(0))).when(transactionRegistry).getResource(any());
+        doAnswer(invocation -> resources.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(transactionRegistry).putResource(any(), any());
+    }
+
+    private void completeTransaction(int status) {
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionRegistry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(status);
+    }
+
+    private void awaitSent(long sentItems) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (sender.getStatistics().getSentItems() < sentItems && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(sender.getStatistics().getSentItems(), is(sentItems));
+    }
+}
@@ -24,7 +24,6 @@ import eu.europa.ec.fisheries.uvms.movementrules.model.mapper.JAXBMarshaller;
 import org.jboss.arquillian.container.test.api.OperateOnDeployment;
 import org.jboss.arquillian.junit.Arquillian;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -246,17 +245,125 @@ public class MovementMessageConsumerBeanTest extends BuildMovementServiceTestDep
     }
 
     @Test
-    @Ignore("This one needs create batch functionality")
     @OperateOnDeployment("movementservice")
     public void createMovementBatchTest() throws Exception {
-        /*
-        JMSHelper jmsHelper = new JMSHelper(connectionFactory);
-        MovementBaseType m1 = MovementTestHelper.createIncomingMovementType(0d, 0d);
-        MovementBaseType m2 = MovementTestHelper.createIncomingMovementType(0d, 1d);
-        MovementBaseType m3 = MovementTestHelper.createIncomingMovementType(0d, 2d);
-        CreateMovementBatchResponse response = jmsHelper.createMovementBatch(Arrays.asList(m1, m2, m3), "test user");
-        List<MovementType> createdMovement = response.getMovements();
-        assertThat(createdMovement.size(), is(3));*/
+        String uuid = UUID.randomUUID().toString();
+        Instant timestamp = Instant.now().minusSeconds(3600).truncatedTo(ChronoUnit.SECONDS);
+
+        List<IncomingMovement> batch = new ArrayList<>();
+        for (int i : new int[] {2, 0, 1}) {
+            IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovementType(0d, (double) i);
+            incomingMovement.setAssetGuid(null);
+            incomingMovement.setAssetHistoryId(null);
+            incomingMovement.setAssetIRCS("TestIrcs:" + uuid);
+            incomingMovement.setPositionTime(timestamp.plusSeconds(60L * i));
+            batch.add(incomingMovement);
+        }
+        jmsHelper.sendMovementMessage(jsonb.toJson(batch), uuid, "CREATE_BATCH");
+
+        List<MovementDetails> movementDetailsList = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            TextMessage response = (TextMessage) jmsHelper.listenOnMRQueue();
+            movementDetailsList.add(jsonb.fromJson(response.getText(), MovementDetails.class));
+        }
+        movementDetailsList.sort(Comparator.comparing(MovementDetails::getPositionTime));
+        assertThat(movementDetailsList.get(0).getSumPositionReport(), is(1));
+        assertThat(movementDetailsList.get(1).getSumPositionReport(), is(2));
+        assertThat(movementDetailsList.get(2).getSumPositionReport(), is(3));
+
+        MovementQuery query = MovementTestHelper.createMovementQuery(true, false, false);
+        ListCriteria criteria = new ListCriteria();
+        criteria.setKey(SearchKey.CONNECT_ID);
+        criteria.setValue(uuid);
+        query.getMovementSearchCriteria().add(criteria);
+        List<MovementType> movements = jmsHelper.getMovementListByQuery(query, uuid).getMovement();
+        assertThat(movements.size(), is(3));
+
+        movements.sort(Comparator.comparing(MovementBaseType::getPositionTime));
+        MovementType previous = null;
+        for (MovementType movementType : movements) {
+            if (previous != null) {
+                assertFalse(Collections.disjoint(previous.getSegmentIds(), movementType.getSegmentIds()));
+            }
+            previous = movementType;
+        }
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void createMovementBatchDifferentSourceSameTimeTest() throws Exception {
+        String uuid = UUID.randomUUID().toString();
+        Instant timestamp = Instant.now().minusSeconds(3600).truncatedTo(ChronoUnit.SECONDS);
+
+        List<IncomingMovement> batch = new ArrayList<>();
+        for (MovementSourceType source : new MovementSourceType[] {MovementSourceType.AIS, MovementSourceType.INMARSAT_C}) {
+            IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovementType(0d, 1d);
+            incomingMovement.setAssetGuid(null);
+            incomingMovement.setAssetHistoryId(null);
+            incomingMovement.setAssetIRCS("TestIrcs:" + uuid);
+            incomingMovement.setPositionTime(timestamp);
+            incomingMovement.setMovementSourceType(source.value());
+            batch.add(incomingMovement);
+        }
+        jmsHelper.sendMovementMessage(jsonb.toJson(batch), uuid, "CREATE_BATCH");
+        for (int i = 0; i < batch.size(); i++) {
+            jmsHelper.listenOnMRQueue();
+        }
+
+        MovementQuery query = MovementTestHelper.createMovementQuery(true, false, false);
+        ListCriteria criteria = new ListCriteria();
+        criteria.setKey(SearchKey.CONNECT_ID);
+        criteria.setValue(uuid);
+        query.getMovementSearchCriteria().add(criteria);
+        List<MovementType> movements = jmsHelper.getMovementListByQuery(query, uuid).getMovement();
+        assertThat(movements.size(), is(2));
+
+        // As for stored positions the AIS one is moved, not the VMS one
+        for (MovementType movement : movements) {
+            Instant expected = movement.getSource() == MovementSourceType.AIS ? timestamp.plusSeconds(1) : timestamp;
+            assertThat(movement.getPositionTime(), is(Date.from(expected)));
+        }
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void vicinityOfEachPositionInBatchTest() throws Exception {
+        double lon = Math.random() * 300d - 150d;
+        double lat = Math.random() * 120d - 60d;
+        UUID otherConnectId = UUID.randomUUID();
+        IncomingMovement other = MovementTestHelper.createIncomingMovementType();
+        other.setAssetGuid(null);
+        other.setAssetHistoryId(null);
+        other.setAssetIRCS("TestIrcs:" + otherConnectId);
+        other.setLongitude(lon);
+        other.setLatitude(lat);
+        other.setPositionTime(Instant.now().minusSeconds(120));
+        MovementDetails otherDetails = sendIncomingMovementAndWaitForResponse(other);
+
+        String uuid = UUID.randomUUID().toString();
+        Instant timestamp = Instant.now().minusSeconds(60).truncatedTo(ChronoUnit.SECONDS);
+        List<IncomingMovement> batch = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovementType(lon + i + 0.0001, lat + 0.0001);
+            incomingMovement.setAssetGuid(null);
+            incomingMovement.setAssetHistoryId(null);
+            incomingMovement.setAssetIRCS("TestIrcs:" + uuid);
+            incomingMovement.setPositionTime(timestamp.plusSeconds(30L * i));
+            batch.add(incomingMovement);
+        }
+        jmsHelper.sendMovementMessage(jsonb.toJson(batch), uuid, "CREATE_BATCH");
+
+        List<MovementDetails> movementDetailsList = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            TextMessage response = (TextMessage) jmsHelper.listenOnMRQueue();
+            movementDetailsList.add(jsonb.fromJson(response.getText(), MovementDetails.class));
+        }
+        movementDetailsList.sort(Comparator.comparing(MovementDetails::getPositionTime));
+
+        // Only the first position is near the other asset
+        assertEquals(1, movementDetailsList.get(0).getVicinityOf().size());
+        assertEquals(otherDetails.getAssetGuid(), movementDetailsList.get(0).getVicinityOf().get(0).getAsset());
+        assertTrue(movementDetailsList.get(1).getVicinityOf().isEmpty());
     }
 
     @Test
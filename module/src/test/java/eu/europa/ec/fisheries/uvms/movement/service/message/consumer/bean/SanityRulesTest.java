@@ -32,7 +32,10 @@ import javax.jms.TextMessage;
 import javax.json.bind.Jsonb;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.hamcrest.CoreMatchers.is;
@@ -401,6 +404,26 @@ public class SanityRulesTest extends BuildMovementServiceTestDeployment {
         assertThat(alarmItem.getRuleName(), is(SanityRule.TRANSPONDER_INACTIVE.getRuleName()));
     }
 
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void setMovementReportSeveralRulesCreateOneAlarmReportTest() throws Exception {
+        IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovementType();
+        incomingMovement.setAssetGuid(null);
+        incomingMovement.setAssetHistoryId(null);
+        incomingMovement.setLatitude(null);
+        incomingMovement.setLongitude(null);
+        ProcessedMovementResponse response = sendIncomingMovementAndReturnAlarmResponse(incomingMovement);
+
+        assertThat(response.getMovementRefType().getType(), is(MovementRefTypeType.ALARM));
+        AlarmReport alarmReport = dao.getAlarmReportByGuid(UUID.fromString(response.getMovementRefType().getMovementRefGuid()));
+        List<String> ruleNames = alarmReport.getAlarmItemList().stream()
+                .map(AlarmItem::getRuleName)
+                .collect(Collectors.toList());
+        assertTrue(ruleNames.contains(SanityRule.LAT_MISSING.getRuleName()));
+        assertTrue(ruleNames.contains(SanityRule.LONG_MISSING.getRuleName()));
+        assertThat(ruleNames.size(), is(new HashSet<>(ruleNames).size()));
+    }
+
     private ProcessedMovementResponse sendIncomingMovementAndReturnAlarmResponse(IncomingMovement incomingMovement) throws Exception{
         String json = jsonb.toJson(incomingMovement);
         jmsHelper.sendMovementMessage(json, incomingMovement.getAssetGuid(), "CREATE");   //grouping on null.....
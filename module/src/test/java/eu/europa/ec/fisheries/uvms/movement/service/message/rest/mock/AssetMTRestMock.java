@@ -19,9 +19,16 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Runs in its own deployment, so tests control it with system properties: AssetMTListStatus answers the bulk call
+ * with that status, AssetMTListDropLast leaves out the last response of the bulk call, and with AssetMTRecordCalls
+ * the number of requests of every call is appended to AssetMTListCalls for the bulk call and to AssetMTCalls for the
+ * single one.
+ */
 @Path("/asset/rest/internal")
 @Stateless
 public class AssetMTRestMock {
@@ -32,29 +39,66 @@ public class AssetMTRestMock {
     @Consumes(value = {MediaType.APPLICATION_JSON})
     @Produces(value = {MediaType.APPLICATION_JSON})
     public Response collectAssetMT(AssetMTEnrichmentRequest request) {
+        recordCall("AssetMTCalls", 1);
         try {
+            Response r = Response.ok(getEnrichmentResponse(request)).build();
+            return r;
+        }catch (Exception e){
+            System.out.println("Ooooops");
+            return Response.status(500).build();
+        }
+    }
 
-            AssetMTEnrichmentResponse response = new AssetMTEnrichmentResponse();
-            String assetShouldBeEmpty = System.getProperty("AssetShouldBeEmpty");
-            Asset asset = (assetShouldBeEmpty != null && assetShouldBeEmpty.equalsIgnoreCase("true")) ? new Asset() : getBasicAsset();
-            MobileTerminalType MT = getBasicMobileTerminalType();
-
-            response = enrichementHelper(response, asset);
-            response = enrichementHelper(request, response, MT);
-
-
-            if(request.getIrcsValue() != null && request.getIrcsValue().startsWith("TestIrcs:")){
-                response.setAssetUUID(request.getIrcsValue().split(":")[1]);
-                response.setAssetHistoryId(request.getIrcsValue().split(":")[1]);
+    @POST
+    @Path("collectassetmtlist")
+    @Consumes(value = {MediaType.APPLICATION_JSON})
+    @Produces(value = {MediaType.APPLICATION_JSON})
+    public Response collectAssetMTList(List<AssetMTEnrichmentRequest> requests) {
+        recordCall("AssetMTListCalls", requests.size());
+        String status = System.getProperty("AssetMTListStatus");
+        if (status != null) {
+            return Response.status(Integer.parseInt(status)).build();
+        }
+        try {
+            List<AssetMTEnrichmentResponse> responses = new ArrayList<>();
+            for (AssetMTEnrichmentRequest request : requests) {
+                responses.add(getEnrichmentResponse(request));
             }
-            Response r = Response.ok(response).build();
-            return r;
+            if ("true".equalsIgnoreCase(System.getProperty("AssetMTListDropLast"))) {
+                responses.remove(responses.size() - 1);
+            }
+            return Response.ok(responses).build();
         }catch (Exception e){
             System.out.println("Ooooops");
             return Response.status(500).build();
         }
     }
 
+    private static synchronized void recordCall(String key, int size) {
+        if (!"true".equalsIgnoreCase(System.getProperty("AssetMTRecordCalls"))) {
+            return;
+        }
+        String calls = System.getProperty(key);
+        System.setProperty(key, calls == null ? String.valueOf(size) : calls + "," + size);
+    }
+
+    private AssetMTEnrichmentResponse getEnrichmentResponse(AssetMTEnrichmentRequest request) {
+        AssetMTEnrichmentResponse response = new AssetMTEnrichmentResponse();
+        String assetShouldBeEmpty = System.getProperty("AssetShouldBeEmpty");
+        Asset asset = (assetShouldBeEmpty != null && assetShouldBeEmpty.equalsIgnoreCase("true")) ? new Asset() : getBasicAsset();
+        MobileTerminalType MT = getBasicMobileTerminalType();
+
+        response = enrichementHelper(response, asset);
+        response = enrichementHelper(request, response, MT);
+
+
+        if(request.getIrcsValue() != null && request.getIrcsValue().startsWith("TestIrcs:")){
+            response.setAssetUUID(request.getIrcsValue().split(":")[1]);
+            response.setAssetHistoryId(request.getIrcsValue().split(":")[1]);
+        }
+        return response;
+    }
+
     @POST
     @Path("microAssets")
     @Consumes(value = {MediaType.APPLICATION_JSON})
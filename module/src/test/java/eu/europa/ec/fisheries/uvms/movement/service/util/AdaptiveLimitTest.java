@@ -0,0 +1,80 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveLimitTest {
+
+    @Test
+    public void limitGrowsByOneWhileSaturatedWithBacklogTest() throws Exception {
+        AdaptiveLimit limit = new AdaptiveLimit(1, 3, 1, 0.5);
+        assertThat(limit.acquire(0), is(true));
+
+        assertThat(limit.adjust(false, true), is(2));
+        assertThat(limit.acquire(0), is(true));
+        assertThat(limit.adjust(false, true), is(3));
+        assertThat(limit.acquire(0), is(true));
+        assertThat(limit.adjust(false, true), is(3));
+    }
+
+    @Test
+    public void limitDoesNotGrowWhenNotAllPermitsAreUsedTest() throws Exception {
+        AdaptiveLimit limit = new AdaptiveLimit(1, 10, 4, 0.5);
+        assertThat(limit.acquire(0), is(true));
+
+        assertThat(limit.adjust(false, true), is(4));
+        assertThat(limit.adjust(false, false), is(4));
+    }
+
+    @Test
+    public void limitShrinksByTheFactorWhenCongestedTest() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 20, 16, 0.5);
+
+        assertThat(limit.adjust(true, true), is(8));
+        assertThat(limit.adjust(true, true), is(4));
+        assertThat(limit.adjust(true, false), is(2));
+        assertThat(limit.adjust(true, false), is(2));
+    }
+
+    @Test
+    public void acquireTimesOutAtTheLimitTest() throws Exception {
+        AdaptiveLimit limit = new AdaptiveLimit(1, 1, 1, 0.5);
+        assertThat(limit.acquire(0), is(true));
+
+        assertThat(limit.acquire(10), is(false));
+        assertThat(limit.getInFlight(), is(1));
+        assertThat(limit.getWaiting(), is(0));
+    }
+
+    @Test
+    public void releaseLetsAWaitingCallerInTest() throws Exception {
+        AdaptiveLimit limit = new AdaptiveLimit(1, 1, 1, 0.5);
+        assertThat(limit.acquire(0), is(true));
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        AtomicBoolean result = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                result.set(limit.acquire(5000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            acquired.countDown();
+        });
+        waiter.start();
+        while (limit.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        limit.release();
+
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(result.get(), is(true));
+        assertThat(limit.getInFlight(), is(1));
+    }
+}
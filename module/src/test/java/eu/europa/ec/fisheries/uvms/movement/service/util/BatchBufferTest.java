@@ -0,0 +1,71 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BatchBufferTest {
+
+    @Test
+    public void fullBatchesAreDueRightAwayTest() {
+        BatchBuffer<Integer> buffer = new BatchBuffer<>(2, 100);
+        assertThat(buffer.addAll(Collections.singletonList(1), 0).size(), is(0));
+
+        List<List<Integer>> due = buffer.addAll(Arrays.asList(2, 3, 4, 5), 10);
+        assertThat(due, is(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4))));
+        assertThat(buffer.size(), is(1));
+    }
+
+    @Test
+    public void restIsDueWhenTheWindowHasPassedTest() {
+        BatchBuffer<Integer> buffer = new BatchBuffer<>(10, 100);
+        buffer.addAll(Collections.singletonList(1), 0);
+        buffer.addAll(Collections.singletonList(2), 50);
+
+        assertThat(buffer.takeDue(99).size(), is(0));
+        assertThat(buffer.takeDue(100), is(Arrays.asList(1, 2)));
+        assertThat(buffer.takeDue(1000).size(), is(0));
+    }
+
+    @Test
+    public void windowStartsAgainAfterFullBatchTest() {
+        BatchBuffer<Integer> buffer = new BatchBuffer<>(2, 100);
+        buffer.addAll(Collections.singletonList(1), 0);
+        buffer.addAll(Arrays.asList(2, 3), 90);
+
+        assertThat(buffer.takeDue(100).size(), is(0));
+        assertThat(buffer.takeDue(190), is(Collections.singletonList(3)));
+    }
+
+    @Test
+    public void requeuedBatchComesFirstAfterTheRetryTest() {
+        BatchBuffer<Integer> buffer = new BatchBuffer<>(10, 100);
+        buffer.addAll(Collections.singletonList(3), 0);
+        buffer.requeue(Arrays.asList(1, 2), 50, 1000);
+
+        assertThat(buffer.takeDue(1049).size(), is(0));
+        assertThat(buffer.takeDue(1050), is(Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void requeuedBatchIsRetriedWithoutWindowTest() {
+        BatchBuffer<Integer> buffer = new BatchBuffer<>(10, 0);
+        buffer.requeue(Arrays.asList(1, 2), 0, 1000);
+
+        assertThat(buffer.takeDue(999).size(), is(0));
+        assertThat(buffer.takeDue(1000), is(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void everythingIsDueWithoutWindowTest() {
+        BatchBuffer<Integer> buffer = new BatchBuffer<>(2, 0);
+        List<List<Integer>> due = buffer.addAll(Arrays.asList(1, 2, 3), 0);
+        assertThat(due, is(Arrays.asList(Arrays.asList(1, 2), Collections.singletonList(3))));
+        assertThat(buffer.size(), is(0));
+    }
+}
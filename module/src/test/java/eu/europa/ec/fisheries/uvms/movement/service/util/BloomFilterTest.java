@@ -0,0 +1,41 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+    @Test
+    public void addedKeysAreAlwaysFoundTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        Random random = new Random(42);
+        long[][] keys = new long[10_000][3];
+        for (long[] key : keys) {
+            key[0] = random.nextLong();
+            key[1] = random.nextLong();
+            key[2] = random.nextInt();
+            filter.put(key[0], key[1], key[2]);
+        }
+        for (long[] key : keys) {
+            assertTrue(filter.mightContain(key[0], key[1], key[2]));
+        }
+    }
+
+    @Test
+    public void falsePositiveRateIsCloseToConfiguredTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(1L, 2L, i);
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(1L, 2L, i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 2_000);
+    }
+}
@@ -0,0 +1,75 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dto.AssetLatestState;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class FleetStateTableTest {
+
+    @Test
+    public void putAndGetTest() {
+        FleetStateTable table = new FleetStateTable();
+        UUID assetId = UUID.randomUUID();
+        UUID movementId = UUID.randomUUID();
+        Instant timestamp = Instant.parse("2019-05-01T12:00:00.123456789Z");
+        table.put(new AssetLatestState(assetId, movementId, timestamp, 11.5, 57.7, null, null, Double.NaN, Double.NaN));
+
+        AssetLatestState state = table.get(assetId);
+        assertThat(state, is(notNullValue()));
+        assertThat(state.getLatestMovementId(), is(movementId));
+        assertThat(state.getLatestTimestamp(), is(timestamp));
+        assertThat(state.getLatestLongitude(), is(11.5));
+        assertThat(state.getLatestLatitude(), is(57.7));
+        assertFalse(state.hasLatestVms());
+        assertThat(state.getLatestVmsTimestamp(), is(nullValue()));
+        assertThat(table.get(UUID.randomUUID()), is(nullValue()));
+    }
+
+    @Test
+    public void putIfAbsentDoesNotOverwriteTest() {
+        FleetStateTable table = new FleetStateTable();
+        UUID assetId = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        table.put(new AssetLatestState(assetId, newer, Instant.now(), 1, 1, null, null, Double.NaN, Double.NaN));
+
+        assertFalse(table.putIfAbsent(new AssetLatestState(assetId, UUID.randomUUID(), Instant.now(), 2, 2, null, null, Double.NaN, Double.NaN)));
+        assertThat(table.get(assetId).getLatestMovementId(), is(newer));
+    }
+
+    @Test
+    public void growsAndRemovesTest() {
+        FleetStateTable table = new FleetStateTable(16);
+        List<UUID> assets = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            UUID assetId = UUID.randomUUID();
+            assets.add(assetId);
+            table.put(new AssetLatestState(assetId, UUID.randomUUID(), Instant.ofEpochSecond(i), i, -i, null, null, Double.NaN, Double.NaN));
+        }
+        assertThat(table.size(), is(5000));
+
+        for (int i = 0; i < assets.size(); i += 2) {
+            assertTrue(table.remove(assets.get(i)));
+        }
+        assertThat(table.size(), is(2500));
+        for (int i = 0; i < assets.size(); i++) {
+            AssetLatestState state = table.get(assets.get(i));
+            if (i % 2 == 0) {
+                assertThat(state, is(nullValue()));
+            } else {
+                assertThat(state.getLatestTimestamp(), is(Instant.ofEpochSecond(i)));
+                assertThat(state.getLatestLongitude(), is((double) i));
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementTestHelper;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.json.bind.Jsonb;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares binding a CREATE_BATCH payload of 1k and 10k movements into one list with reading it in chunks from the
+ * pull parser: time per batch, time until the first movements can be ingested and bytes allocated. Run manually and
+ * read the results from the output.
+ */
+@Ignore("Benchmark")
+@RunWith(Arquillian.class)
+public class IncomingMovementBatchBenchmarkIntTest extends BuildMovementServiceTestDeployment {
+
+    private static final int[] BATCH_SIZES = {1_000, 10_000};
+    private static final int CHUNK_SIZE = 100;
+    private static final int ROUNDS = 20;
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void bindListVersusReadChunksTest() {
+        Jsonb jsonb = new JsonBConfiguratorMovement().getContext(null);
+        IncomingMovementBatchReader reader = new IncomingMovementBatchReader();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int batchSize : BATCH_SIZES) {
+            List<IncomingMovement> movements = new ArrayList<>();
+            for (int i = 0; i < batchSize; i++) {
+                movements.add(MovementTestHelper.createIncomingMovement(i * 0.0001, 57.0));
+            }
+            String json = jsonb.toJson(movements);
+
+            long bindNanos = 0;
+            long bindFirstNanos = 0;
+            long bindBytes = 0;
+            long readNanos = 0;
+            long readFirstNanos = 0;
+            long readBytes = 0;
+            // The first round warms up and is not counted
+            for (int round = 0; round <= ROUNDS; round++) {
+                long bytes = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                List<IncomingMovement> bound = jsonb.fromJson(json, new ArrayList<IncomingMovement>(){}.getClass().getGenericSuperclass());
+                long end = System.nanoTime();
+                if (round > 0 && !bound.isEmpty()) {
+                    bindNanos += end - start;
+                    // The whole list is bound before the first movement can be ingested
+                    bindFirstNanos += end - start;
+                    bindBytes += threads.getCurrentThreadAllocatedBytes() - bytes;
+                }
+
+                bytes = threads.getCurrentThreadAllocatedBytes();
+                long[] first = new long[1];
+                start = System.nanoTime();
+                reader.read(new StringReader(json), CHUNK_SIZE, chunk -> {
+                    if (first[0] == 0) {
+                        first[0] = System.nanoTime();
+                    }
+                });
+                end = System.nanoTime();
+                if (round > 0) {
+                    readNanos += end - start;
+                    readFirstNanos += first[0] - start;
+                    readBytes += threads.getCurrentThreadAllocatedBytes() - bytes;
+                }
+            }
+            System.out.printf("%d movements, %d KB: bind list %.2f ms (first after %.2f ms, %d KB allocated), "
+                            + "read chunks of %d %.2f ms (first after %.3f ms, %d KB allocated)%n",
+                    batchSize, json.length() / 1024,
+                    bindNanos / 1e6 / ROUNDS, bindFirstNanos / 1e6 / ROUNDS, bindBytes / 1024 / ROUNDS,
+                    CHUNK_SIZE, readNanos / 1e6 / ROUNDS, readFirstNanos / 1e6 / ROUNDS, readBytes / 1024 / ROUNDS);
+        }
+    }
+}
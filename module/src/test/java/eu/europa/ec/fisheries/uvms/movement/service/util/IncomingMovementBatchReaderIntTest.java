@@ -0,0 +1,94 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.uvms.movement.service.BuildMovementServiceTestDeployment;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import eu.europa.ec.fisheries.uvms.movement.service.message.MovementTestHelper;
+import org.jboss.arquillian.container.test.api.OperateOnDeployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(Arquillian.class)
+public class IncomingMovementBatchReaderIntTest extends BuildMovementServiceTestDeployment {
+
+    private Jsonb jsonb;
+
+    @Before
+    public void init() {
+        jsonb = new JsonBConfiguratorMovement().getContext(null);
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void sameMovementsAsBindingTheListTest() {
+        List<IncomingMovement> movements = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            IncomingMovement incomingMovement = MovementTestHelper.createIncomingMovement(i * 0.1, 57.0);
+            incomingMovement.setAssetIRCS(i % 2 == 0 ? null : "IRCS" + i);
+            movements.add(incomingMovement);
+        }
+        String json = jsonb.toJson(movements);
+        List<IncomingMovement> bound = jsonb.fromJson(json, new ArrayList<IncomingMovement>(){}.getClass().getGenericSuperclass());
+
+        IncomingMovementBatchReader reader = new IncomingMovementBatchReader();
+        for (int chunkSize : new int[]{1, 7, 25, 100}) {
+            List<List<IncomingMovement>> chunks = new ArrayList<>();
+            int read = reader.read(new StringReader(json), chunkSize, chunks::add);
+
+            assertThat(read, is(bound.size()));
+            assertThat(chunks.size(), is((bound.size() + chunkSize - 1) / chunkSize));
+            List<IncomingMovement> decoded = new ArrayList<>();
+            chunks.forEach(decoded::addAll);
+            for (int i = 0; i < bound.size(); i++) {
+                assertThat(jsonb.toJson(decoded.get(i)), is(jsonb.toJson(bound.get(i))));
+            }
+        }
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void emptyBatchTest() {
+        List<List<IncomingMovement>> chunks = new ArrayList<>();
+        int read = new IncomingMovementBatchReader().read(new StringReader("[]"), 10, chunks::add);
+        assertThat(read, is(0));
+        assertThat(chunks.isEmpty(), is(true));
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void chunksBeforeAnErrorAreHandedOnTest() {
+        String first = jsonb.toJson(MovementTestHelper.createIncomingMovementType());
+        List<List<IncomingMovement>> chunks = new ArrayList<>();
+        try {
+            new IncomingMovementBatchReader().read(new StringReader("[" + first + ", 42]"), 1, chunks::add);
+            fail();
+        } catch (JsonbException e) {
+            assertThat(chunks.size(), is(1));
+        }
+    }
+
+    @Test
+    @OperateOnDeployment("movementservice")
+    public void failureOfTheConsumerIsRethrownTest() {
+        String json = jsonb.toJson(MovementTestHelper.createIncomingMovementType());
+        try {
+            new IncomingMovementBatchReader().read(new StringReader("[" + json + "]"), 1, chunk -> {
+                throw new IllegalStateException("Ingest failed");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("Ingest failed"));
+        }
+    }
+}
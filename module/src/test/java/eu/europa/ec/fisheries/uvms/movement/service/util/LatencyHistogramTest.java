@@ -0,0 +1,62 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsFollowEachOtherWithoutGapsTest() {
+        long expectedLower = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            assertThat(LatencyHistogram.indexOf(expectedLower), is(i));
+            long upper = LatencyHistogram.upperBoundOf(i);
+            assertThat(LatencyHistogram.indexOf(upper - 1), is(i));
+            expectedLower = upper;
+        }
+    }
+
+    @Test
+    public void bucketsAreWithinAnEighthOfTheirValuesTest() {
+        for (long value = 16; value < 1_000_000_000L; value = value * 3 + 1) {
+            int index = LatencyHistogram.indexOf(value);
+            long width = LatencyHistogram.upperBoundOf(index) - (index > 0 ? LatencyHistogram.upperBoundOf(index - 1) : 0);
+            assertTrue(width * 8 <= value);
+        }
+    }
+
+    @Test
+    public void quantilesAndCountsTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount(), is(1000L));
+        assertThat(snapshot.getSumMicros(), is(500500L));
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getSumMicros(), is(500500L));
+        assertThat(snapshot.getMaxMicros(), is(1000L));
+        assertThat(snapshot.countAtMost(15), is(15L));
+        assertThat(snapshot.countAtMost(1023), is(1000L));
+        long median = snapshot.valueAtQuantile(0.5);
+        assertTrue(median >= 500 && median < 500 * 9 / 8);
+        assertThat(snapshot.valueAtQuantile(1.0), is(1000L));
+    }
+
+    @Test
+    public void emptyAndOutOfRangeValuesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.snapshot().valueAtQuantile(0.99), is(0L));
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(2L));
+        assertThat(snapshot.countAtMost(0), is(1L));
+    }
+}
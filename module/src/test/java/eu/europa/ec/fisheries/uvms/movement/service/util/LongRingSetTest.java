@@ -0,0 +1,61 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LongRingSetTest {
+
+    @Test
+    public void addingToAFullSetDropsTheOldestValueTest() {
+        LongRingSet set = new LongRingSet(3);
+        assertThat(set.add(10), is(true));
+        assertThat(set.add(20), is(true));
+        assertThat(set.add(30), is(true));
+        assertThat(set.add(20), is(false));
+
+        assertThat(set.add(40), is(true));
+        assertThat(set.contains(10), is(false));
+        assertThat(set.contains(20), is(true));
+        assertThat(set.contains(40), is(true));
+        assertThat(set.size(), is(3));
+    }
+
+    @Test
+    public void zeroIsStoredTest() {
+        LongRingSet set = new LongRingSet(2);
+        assertThat(set.contains(0), is(false));
+        set.add(0);
+        assertThat(set.contains(0), is(true));
+    }
+
+    @Test
+    public void sameValuesAsAReferenceTest() {
+        Random random = new Random(4711);
+        LongRingSet set = new LongRingSet(100);
+        Deque<Long> order = new ArrayDeque<>();
+        Set<Long> reference = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            // Few distinct values, so that the probe sequences collide and wrap
+            long value = random.nextInt(400) * 1024L + 1;
+            boolean added = reference.add(value);
+            if (added) {
+                order.addLast(value);
+                if (order.size() > 100) {
+                    reference.remove(order.removeFirst());
+                }
+            }
+            assertThat(set.add(value), is(added));
+            long probe = random.nextInt(400) * 1024L + 1;
+            assertThat(set.contains(probe), is(reference.contains(probe)));
+        }
+        assertThat(set.size(), is(reference.size()));
+    }
+}
@@ -0,0 +1,75 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PositionCountRingTest {
+
+    private static final Instant START = Instant.parse("2019-05-01T00:00:00Z");
+
+    @Test
+    public void countsWholeSecondsWithinMinutesTest() {
+        PositionCountRing ring = new PositionCountRing(24 * 60 + 1, START);
+        for (int i = 0; i < 6 * 60; i++) {
+            ring.add(START.plusSeconds(10L * i));
+        }
+        assertThat(ring.count(START, START.plusSeconds(3590)), is(360));
+        assertThat(ring.count(START.plusSeconds(25), START.plusSeconds(65)), is(4));
+        assertThat(ring.count(START.plusSeconds(30), START.plusSeconds(60)), is(4));
+        assertThat(ring.count(START.plusSeconds(30).plusMillis(1), START.plusSeconds(60)), is(3));
+        assertThat(ring.count(START.plusSeconds(3600), START.plusSeconds(7200)), is(0));
+    }
+
+    @Test
+    public void oneDayWindowTest() {
+        PositionCountRing ring = new PositionCountRing(24 * 60 + 1, START);
+        Instant first = START.plusSeconds(90);
+        ring.add(first);
+        Instant later = first.plus(1, ChronoUnit.DAYS);
+        ring.add(later);
+
+        assertThat(ring.count(later.minus(1, ChronoUnit.DAYS), later), is(2));
+        assertThat(ring.count(later.minus(1, ChronoUnit.DAYS).plusSeconds(1), later), is(1));
+    }
+
+    @Test
+    public void notAvailableOutsideTheRingTest() {
+        PositionCountRing ring = new PositionCountRing(60, START.plusSeconds(30));
+        ring.add(START.plusSeconds(90));
+        assertThat(ring.count(START, START.plusSeconds(120)), is(PositionCountRing.NOT_AVAILABLE));
+        assertThat(ring.count(START.plusSeconds(60), START.plusSeconds(120)), is(1));
+
+        ring.add(START.plusSeconds(3660));
+        assertThat(ring.count(START.plusSeconds(60), START.plusSeconds(3660)), is(PositionCountRing.NOT_AVAILABLE));
+        assertThat(ring.count(START.plusSeconds(120), START.plusSeconds(3660)), is(1));
+    }
+
+    @Test
+    public void inexactMinuteIsOnlySplitBetweenSecondsTest() {
+        PositionCountRing ring = new PositionCountRing(60, START);
+        ring.add(START.plusSeconds(10));
+        ring.add(START.plusSeconds(10));
+        ring.add(START.plusSeconds(40).plusMillis(500));
+
+        assertThat(ring.count(START, START.plusSeconds(59)), is(3));
+        assertThat(ring.count(START.plusSeconds(20), START.plusSeconds(59)), is(PositionCountRing.NOT_AVAILABLE));
+        assertThat(ring.count(START.plusSeconds(41), START.plusSeconds(59)), is(0));
+        assertThat(ring.count(START.plusSeconds(5), START.plusSeconds(40)), is(PositionCountRing.NOT_AVAILABLE));
+    }
+
+    @Test
+    public void removeTest() {
+        PositionCountRing ring = new PositionCountRing(60, START);
+        ring.add(START.plusSeconds(10));
+        ring.add(START.plusSeconds(20));
+        ring.remove(START.plusSeconds(10));
+
+        assertThat(ring.count(START, START.plusSeconds(15)), is(0));
+        assertThat(ring.count(START, START.plusSeconds(20)), is(1));
+    }
+}
@@ -0,0 +1,58 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReorderWindowTest {
+
+    private static final Instant START = Instant.parse("2019-05-01T00:00:00Z");
+
+    @Test
+    public void releasesInTimestampOrderAfterWindowTest() {
+        ReorderWindow<String, String> window = new ReorderWindow<>(1000);
+        assertThat(window.add("asset", START.plusSeconds(60), "second", 0), is(false));
+        assertThat(window.add("asset", START, "first", 500), is(true));
+        assertThat(window.add("asset", START.plusSeconds(120), "third", 600), is(false));
+
+        assertThat(window.releaseDue(999).isEmpty(), is(true));
+        assertThat(window.size(), is(3));
+
+        Map<String, List<String>> released = window.releaseDue(1000);
+        assertThat(released.get("asset"), is(Arrays.asList("first", "second", "third")));
+        assertThat(window.size(), is(0));
+        assertThat(window.keys(), is(0));
+    }
+
+    @Test
+    public void keysAreReleasedSeparatelyTest() {
+        ReorderWindow<String, String> window = new ReorderWindow<>(1000);
+        window.add("a", START, "a1", 0);
+        window.add("b", START, "b1", 500);
+
+        Map<String, List<String>> released = window.releaseDue(1200);
+        assertThat(released.size(), is(1));
+        assertThat(released.get("a"), is(Arrays.asList("a1")));
+        assertThat(window.keys(), is(1));
+
+        window.add("a", START.plusSeconds(1), "a2", 1300);
+        assertThat(window.releaseDue(1500).get("b"), is(Arrays.asList("b1")));
+        assertThat(window.releaseAll().get("a"), is(Arrays.asList("a2")));
+    }
+
+    @Test
+    public void missingTimestampSortsFirstTest() {
+        ReorderWindow<String, String> window = new ReorderWindow<>(1000);
+        window.add("asset", START, "timed", 0);
+        assertThat(window.add("asset", null, "untimed", 0), is(true));
+        window.add("asset", START, "same time", 0);
+
+        assertThat(window.releaseAll().get("asset"), is(Arrays.asList("untimed", "timed", "same time")));
+    }
+}
@@ -0,0 +1,89 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.schema.movement.v1.SegmentCategoryType;
+import eu.europa.ec.fisheries.uvms.movement.service.dto.SegmentCalculations;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.Movement;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SegmentCategorizerTest {
+
+    private static final Instant START = Instant.parse("2019-05-01T00:00:00Z");
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private final SegmentCategorizer categorizer = new SegmentCategorizer(new PortAreaIndex(Arrays.asList(
+            WKTUtil.getGeometryFromWKTSrring("POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))"),
+            WKTUtil.getGeometryFromWKTSrring("POLYGON((10 10, 11 10, 11 11, 10 11, 10 10))"))), 3 * 3600, 50, 0.5, 3);
+
+    @Test
+    public void portAreaIndexTest() {
+        List<Geometry> areas = Arrays.asList(WKTUtil.getGeometryFromWKTSrring("POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))"));
+        PortAreaIndex index = new PortAreaIndex(areas);
+        assertThat(index.isInPort(0.5, 0.5), is(true));
+        assertThat(index.isInPort(1, 0.5), is(true));
+        assertThat(index.isInPort(1.5, 0.5), is(false));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    public void portTransitionsTest() {
+        assertThat(categorize(0.5, 0.5, 0.6, 0.6, 600, 1), is(SegmentCategoryType.IN_PORT));
+        assertThat(categorize(0.5, 0.5, 2, 2, 600, 10), is(SegmentCategoryType.EXIT_PORT));
+        assertThat(categorize(2, 2, 10.5, 10.5, 600, 10), is(SegmentCategoryType.ENTER_PORT));
+    }
+
+    @Test
+    public void atSeaTest() {
+        assertThat(categorize(2, 2, 2, 2, 0, 0), is(SegmentCategoryType.NULL_DUR));
+        assertThat(categorize(2, 2, 2.5, 2.5, 4 * 3600, 10), is(SegmentCategoryType.GAP));
+        assertThat(categorize(2, 2, 5, 5, 600, 100), is(SegmentCategoryType.JUMP));
+        assertThat(categorize(2, 2, 2, 2.001, 600, 0.2), is(SegmentCategoryType.ANCHORED));
+        assertThat(categorize(2, 2, 2, 2.01, 600, 2), is(SegmentCategoryType.LOW_SPEED));
+        assertThat(categorize(2, 2, 2, 2.05, 600, 10), is(SegmentCategoryType.OTHER));
+    }
+
+    @Test
+    public void gapIsCheckedBeforeJumpTest() {
+        assertThat(categorize(2, 2, 9, 9, 4 * 3600, 100), is(SegmentCategoryType.GAP));
+        assertThat(categorize(2, 2, 9, 9, 3 * 3600, 100), is(SegmentCategoryType.JUMP));
+    }
+
+    @Test
+    public void thresholdsAreTheGivenOnesTest() {
+        SegmentCategorizer strict = new SegmentCategorizer(new PortAreaIndex(Arrays.asList(
+                WKTUtil.getGeometryFromWKTSrring("POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))"))), 3600, 20, 1, 5);
+        SegmentCalculations calculations = new SegmentCalculations();
+        calculations.setAvgSpeed(30);
+        assertThat(strict.categorize(movement(2, 2, START), movement(3, 3, START.plusSeconds(2 * 3600)), calculations),
+                is(SegmentCategoryType.GAP));
+        assertThat(strict.categorize(movement(2, 2, START), movement(3, 3, START.plusSeconds(600)), calculations),
+                is(SegmentCategoryType.JUMP));
+        calculations.setAvgSpeed(4);
+        assertThat(strict.categorize(movement(2, 2, START), movement(2, 2.01, START.plusSeconds(600)), calculations),
+                is(SegmentCategoryType.LOW_SPEED));
+    }
+
+    private SegmentCategoryType categorize(double longitude1, double latitude1, double longitude2, double latitude2,
+                                           long seconds, double avgSpeed) {
+        SegmentCalculations calculations = new SegmentCalculations();
+        calculations.setAvgSpeed(avgSpeed);
+        return categorizer.categorize(movement(longitude1, latitude1, START),
+                movement(longitude2, latitude2, START.plusSeconds(seconds)), calculations);
+    }
+
+    private static Movement movement(double longitude, double latitude, Instant timestamp) {
+        Movement movement = new Movement();
+        movement.setLocation(FACTORY.createPoint(new Coordinate(longitude, latitude)));
+        movement.setTimestamp(timestamp);
+        return movement;
+    }
+}
@@ -0,0 +1,48 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class TimestampRingTest {
+
+    @Test
+    public void keepsNewestTimestampsTest() {
+        TimestampRing ring = new TimestampRing(3);
+        ring.add(30, (short) 3);
+        ring.add(10, (short) 1);
+        ring.add(20, (short) 2);
+        ring.add(40, (short) 4);
+        ring.add(5, (short) 9);
+
+        assertThat(ring.size(), is(3));
+        assertThat(ring.get(10), is(TimestampRing.NOT_FOUND));
+        assertThat(ring.get(5), is(TimestampRing.NOT_FOUND));
+        assertThat(ring.get(20), is(2));
+        assertThat(ring.get(30), is(3));
+        assertThat(ring.get(40), is(4));
+    }
+
+    @Test
+    public void addExistingReplacesValueTest() {
+        TimestampRing ring = new TimestampRing(3);
+        ring.add(10, (short) 1);
+        ring.add(10, (short) 7);
+        assertThat(ring.size(), is(1));
+        assertThat(ring.get(10), is(7));
+    }
+
+    @Test
+    public void removeTest() {
+        TimestampRing ring = new TimestampRing(3);
+        ring.add(10, (short) 1);
+        ring.add(20, (short) 2);
+        ring.add(30, (short) 3);
+        assertTrue(ring.remove(20));
+        assertThat(ring.get(20), is(TimestampRing.NOT_FOUND));
+        assertThat(ring.get(30), is(3));
+        assertThat(ring.size(), is(2));
+    }
+}
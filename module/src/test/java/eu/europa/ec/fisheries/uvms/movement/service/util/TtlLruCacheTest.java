@@ -0,0 +1,67 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dto.CacheStatistics;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class TtlLruCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void hitAndMissTest() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, 1, TimeUnit.MINUTES, clock::get);
+        assertThat(cache.get("a"), is(nullValue()));
+        cache.put("a", "A");
+        assertThat(cache.get("a"), is("A"));
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(1L));
+        assertThat(statistics.getSize(), is(1));
+    }
+
+    @Test
+    public void entryExpiresAfterTtlTest() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, 1, TimeUnit.MINUTES, clock::get);
+        cache.put("a", "A");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertThat(cache.get("a"), is("A"));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.getStatistics().getExpirations(), is(1L));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvictedTest() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(2, 1, TimeUnit.MINUTES, clock::get);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("a"), is("A"));
+        assertThat(cache.get("c"), is("C"));
+        assertThat(cache.getStatistics().getEvictions(), is(1L));
+    }
+
+    @Test
+    public void invalidateByValueTest() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, 1, TimeUnit.MINUTES, clock::get);
+        cache.put("a", "asset1");
+        cache.put("b", "asset1");
+        cache.put("c", "asset2");
+
+        assertThat(cache.invalidateIf("asset1"::equals), is(2));
+        assertThat(cache.get("c"), is("asset2"));
+        assertThat(cache.getStatistics().getInvalidations(), is(2L));
+    }
+}
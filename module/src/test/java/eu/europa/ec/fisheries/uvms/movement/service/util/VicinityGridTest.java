@@ -0,0 +1,73 @@
+package eu.europa.ec.fisheries.uvms.movement.service.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class VicinityGridTest {
+
+    @Test
+    public void findsWithinDistanceTest() {
+        VicinityGrid grid = new VicinityGrid(0.05);
+        UUID near = UUID.randomUUID();
+        UUID far = UUID.randomUUID();
+        grid.put(new VicinityGrid.Position(near, UUID.randomUUID(), 11.973539, 57.716409, 10));
+        grid.put(new VicinityGrid.Position(far, UUID.randomUUID(), 11.965437, 57.712700, 10));
+
+        List<VicinityGrid.Position> found = grid.find(11.971415, 57.717635, 500, 0);
+        assertThat(found.size(), is(1));
+        assertThat(found.get(0).getAssetId(), is(near));
+        assertThat(grid.find(11.971415, 57.717635, 500, 10).size(), is(0));
+    }
+
+    @Test
+    public void movedAssetIsFoundOnceTest() {
+        VicinityGrid grid = new VicinityGrid(0.05);
+        UUID assetId = UUID.randomUUID();
+        grid.put(new VicinityGrid.Position(assetId, UUID.randomUUID(), 11.0, 57.0, 10));
+        grid.put(new VicinityGrid.Position(assetId, UUID.randomUUID(), 11.2, 57.0, 20));
+
+        assertThat(grid.size(), is(1));
+        assertThat(grid.find(11.0, 57.0, 500, 0).size(), is(0));
+        assertThat(grid.find(11.2, 57.0, 500, 0).size(), is(1));
+
+        grid.remove(assetId);
+        assertThat(grid.find(11.2, 57.0, 500, 0).size(), is(0));
+    }
+
+    @Test
+    public void acrossTheAntimeridianTest() {
+        VicinityGrid grid = new VicinityGrid(0.05);
+        grid.put(new VicinityGrid.Position(UUID.randomUUID(), UUID.randomUUID(), -179.999, 10.0, 10));
+        assertThat(grid.find(179.999, 10.0, 500, 0).size(), is(1));
+    }
+
+    @Test
+    public void sameResultAsFullScanTest() {
+        VicinityGrid grid = new VicinityGrid(0.05);
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            grid.put(new VicinityGrid.Position(UUID.randomUUID(), UUID.randomUUID(), 10 + random.nextDouble() * 2, 80 + random.nextDouble() * 9.99, i));
+        }
+        for (int i = 0; i < 100; i++) {
+            double longitude = 10 + random.nextDouble() * 2;
+            double latitude = 80 + random.nextDouble() * 9.99;
+            double maxDistance = 500 + random.nextDouble() * 20000;
+            Set<UUID> expected = grid.find(0, 0, Math.PI * VicinityGrid.EARTH_RADIUS, -1).stream()
+                    .filter(p -> VicinityGrid.distance(longitude, latitude, p.getLongitude(), p.getLatitude()) <= maxDistance)
+                    .map(VicinityGrid.Position::getAssetId)
+                    .collect(Collectors.toSet());
+            Set<UUID> found = grid.find(longitude, latitude, maxDistance, -1).stream()
+                    .map(VicinityGrid.Position::getAssetId)
+                    .collect(Collectors.toSet());
+            assertThat(found, is(expected));
+        }
+    }
+}
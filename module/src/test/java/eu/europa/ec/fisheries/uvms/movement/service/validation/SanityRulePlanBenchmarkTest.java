@@ -0,0 +1,69 @@
+package eu.europa.ec.fisheries.uvms.movement.service.validation;
+
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Compares evaluating the sanity rules one enum constant at a time on the movement, as before, with
+ * {@link SanityRulePlan}, without and with statistics, to show what the statistics cost. Run manually and read the
+ * results from the output, the best round of each is reported.
+ */
+@Ignore("Benchmark")
+public class SanityRulePlanBenchmarkTest {
+
+    private static final int MOVEMENTS = 10_000;
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void enumLoopVersusPlanTest() {
+        List<IncomingMovement> movements = SanityRuleReference.createMovements(MOVEMENTS, 42);
+        SanityRulePlan plan = new SanityRulePlan();
+        SanityRulePlan countingPlan = new SanityRulePlan();
+        countingPlan.setStatisticsEnabled(true);
+
+        long blackhole = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            blackhole += enumLoop(movements) + plan(plan, movements) + plan(countingPlan, movements);
+        }
+
+        long enumLoopNanos = Long.MAX_VALUE;
+        long planNanos = Long.MAX_VALUE;
+        long countingPlanNanos = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            blackhole += enumLoop(movements);
+            enumLoopNanos = Math.min(enumLoopNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            blackhole += plan(plan, movements);
+            planNanos = Math.min(planNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            blackhole += plan(countingPlan, movements);
+            countingPlanNanos = Math.min(countingPlanNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("%d movements: enum loop %d ns/movement, plan %d ns/movement, plan with statistics %d ns/movement (%d)%n",
+                MOVEMENTS, enumLoopNanos / MOVEMENTS, planNanos / MOVEMENTS, countingPlanNanos / MOVEMENTS, blackhole);
+    }
+
+    private static long enumLoop(List<IncomingMovement> movements) {
+        long broken = 0;
+        for (IncomingMovement movement : movements) {
+            broken += SanityRuleReference.evaluate(movement).size();
+        }
+        return broken;
+    }
+
+    private static long plan(SanityRulePlan plan, List<IncomingMovement> movements) {
+        long broken = 0;
+        for (IncomingMovement movement : movements) {
+            broken += plan.evaluate(movement).size();
+        }
+        return broken;
+    }
+}
@@ -0,0 +1,68 @@
+package eu.europa.ec.fisheries.uvms.movement.service.validation;
+
+import eu.europa.ec.fisheries.uvms.movement.service.dto.SanityRuleStatistics;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SanityRulePlanTest {
+
+    @Test
+    public void planBreaksTheSameRulesAsTheRulesOneByOneTest() {
+        SanityRulePlan plan = new SanityRulePlan();
+        for (IncomingMovement movement : SanityRuleReference.createMovements(5000, 42)) {
+            List<String> broken = plan.evaluate(movement).stream()
+                    .map(SanityRule::getRuleName)
+                    .collect(Collectors.toList());
+            assertThat(broken, is(SanityRuleReference.evaluate(movement)));
+        }
+    }
+
+    @Test
+    public void aisPositionsMayBeTwoMinutesAheadTest() {
+        IncomingMovement movement = SanityRuleReference.createMovements(1, 1).get(0);
+        movement.setPositionTime(Instant.now().plus(1, ChronoUnit.MINUTES));
+
+        movement.setMovementSourceType("AIS");
+        assertThat(SanityRule.TIME_IN_FUTURE.evaluate(movement), is(false));
+        movement.setMovementSourceType("INMARSAT_C");
+        assertThat(SanityRule.TIME_IN_FUTURE.evaluate(movement), is(true));
+        movement.setMovementSourceType(null);
+        assertThat(SanityRule.TIME_IN_FUTURE.evaluate(movement), is(true));
+    }
+
+    @Test
+    public void statisticsCountEvaluationsAndHitsPerRuleTest() {
+        SanityRulePlan plan = new SanityRulePlan();
+        plan.setStatisticsEnabled(true);
+        List<IncomingMovement> movements = SanityRuleReference.createMovements(100, 7);
+        long missingTimes = movements.stream().filter(movement -> movement.getPositionTime() == null).count();
+        movements.forEach(plan::evaluate);
+
+        List<SanityRuleStatistics> statistics = plan.getStatistics();
+        assertThat(statistics.size(), is(SanityRule.values().length));
+        SanityRuleStatistics timeMissing = statistics.get(SanityRule.TIME_MISSING.ordinal());
+        assertThat(timeMissing.getRuleName(), is(SanityRule.TIME_MISSING.getRuleName()));
+        assertThat(timeMissing.getEvaluations(), is(100L));
+        assertThat(timeMissing.getHits(), is(missingTimes));
+    }
+
+    @Test
+    public void nothingIsCountedWithoutStatisticsTest() {
+        SanityRulePlan plan = new SanityRulePlan();
+        SanityRuleReference.createMovements(100, 7).forEach(plan::evaluate);
+
+        for (SanityRuleStatistics rule : plan.getStatistics()) {
+            assertThat(rule.getEvaluations(), is(0L));
+            assertThat(rule.getHits(), is(0L));
+            assertThat(rule.getTimedEvaluations(), is(0L));
+        }
+    }
+}
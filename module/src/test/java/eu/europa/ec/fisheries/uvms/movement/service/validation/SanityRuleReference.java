@@ -0,0 +1,203 @@
+package eu.europa.ec.fisheries.uvms.movement.service.validation;
+
+import eu.europa.ec.fisheries.schema.movement.v1.MovementTypeType;
+import eu.europa.ec.fisheries.uvms.movement.service.entity.IncomingMovement;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The sanity rules as they were evaluated before {@link SanityRulePlan}, every enum constant straight on the
+ * movement, and movements that break different combinations of them.
+ */
+class SanityRuleReference {
+
+    private static final String[] SOURCE_TYPES = { "INMARSAT_C", "AIS", "IRIDIUM", "MANUAL", "NAF", "FLUX", "UNKNOWN" };
+    private static final String[] PLUGIN_TYPES = { null, "", "SATELLITE_RECEIVER", "FLUX", "NAF", "MANUAL" };
+    private static final String[] COM_CHANNEL_TYPES = { null, "", "MOBILE_TERMINAL", "MANUAL", "FLUX" };
+
+    private SanityRuleReference() {}
+
+    /**
+     * The loop of MovementSanityValidatorBean.evaluateSanity before the plan.
+     */
+    static List<String> evaluate(IncomingMovement movement) {
+        List<String> broken = new ArrayList<>();
+        for (Rule rule : Rule.values()) {
+            if (rule.evaluate(movement)) {
+                broken.add(rule.ruleName);
+            }
+        }
+        return broken;
+    }
+
+    static List<IncomingMovement> createMovements(int count, long seed) {
+        Random random = new Random(seed);
+        Instant now = Instant.now();
+        List<IncomingMovement> movements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            IncomingMovement movement = new IncomingMovement();
+            movement.setMovementSourceType(pick(random, SOURCE_TYPES));
+            movement.setPluginType(pick(random, PLUGIN_TYPES));
+            movement.setComChannelType(pick(random, COM_CHANNEL_TYPES));
+            movement.setMovementType(random.nextInt(5) == 0 ? MovementTypeType.EXI.value() : MovementTypeType.POS.value());
+            int time = random.nextInt(5);
+            // Far enough from the boundaries that the time passing during the test does not matter
+            movement.setPositionTime(time == 0 ? null : now.plus((time - 3) * 60L + 30, ChronoUnit.SECONDS)
+                    .plus(time == 4 ? 1 : 0, ChronoUnit.HOURS));
+            movement.setLatitude(random.nextInt(6) == 0 ? null : random.nextDouble() * 200 - 100);
+            movement.setLongitude(random.nextInt(6) == 0 ? null : random.nextDouble() * 400 - 200);
+            movement.setMobileTerminalConnectId(random.nextInt(4) == 0 ? null : "connect-" + i);
+            movement.setMobileTerminalActive(random.nextBoolean());
+            movement.setMobileTerminalMemberNumber(random.nextInt(3) == 0 ? "" : "11");
+            movement.setMobileTerminalDNID(random.nextInt(3) == 0 ? null : "1234");
+            movement.setMobileTerminalSerialNumber(random.nextInt(3) == 0 ? null : "serial-" + i);
+            movement.setAssetCFR(random.nextInt(3) == 0 ? null : "CFR" + i);
+            movement.setAssetIRCS(random.nextInt(3) == 0 ? "" : "IRCS" + i);
+            movement.setAssetGuid(random.nextInt(4) == 0 ? null : "asset-" + i);
+            movement.setAssetMMSI(random.nextInt(4) == 0 ? "1234567890" : "123456789");
+            movement.setDuplicate(random.nextInt(10) == 0);
+            movements.add(movement);
+        }
+        return movements;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private enum Rule {
+
+        TIME_MISSING("Time missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getPositionTime() == null;
+            }
+        },
+        LAT_MISSING("Lat missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getLatitude() == null;
+            }
+        },
+        LONG_MISSING("Long missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getLongitude() == null;
+            }
+        },
+        LAT_OVER_90("Latitude is over/under 90/-90") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return (movement.getLatitude() == null) ? false : Math.abs(movement.getLatitude()) > 90d;
+            }
+        },
+        LONG_OVER_90("Longitude is over/under 180/-180") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return (movement.getLongitude() == null) ? false : Math.abs(movement.getLongitude()) > 180d;
+            }
+        },
+        TIME_IN_FUTURE("Time in future") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getPositionTime() != null &&
+                        (!movement.getMovementSourceType().equals("AIS") && movement.getPositionTime().isAfter(Instant.now()) ||
+                        movement.getMovementSourceType().equals("AIS") && movement.getPositionTime().isAfter(Instant.now().plus(2, ChronoUnit.MINUTES)));
+            }
+        },
+        PLUGIN_TYPE_MISSING("Plugin Type missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getPluginType() == null || movement.getPluginType().isEmpty();
+            }
+        },
+        TRANSPONDER_NOT_FOUND("Transponder not found") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER"))
+                        && (movement.getMobileTerminalConnectId() == null || movement.getMobileTerminalConnectId().isEmpty());
+            }
+        },
+        MEM_NO_MISSING("Mem No. missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER"))
+                        && movement.getMovementSourceType().equals("INMARSAT_C")
+                        && (movement.getMobileTerminalMemberNumber() == null || movement.getMobileTerminalMemberNumber().isEmpty());
+            }
+        },
+        DNID_MISSING("DNID missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER"))
+                        && movement.getMovementSourceType().equals("INMARSAT_C")
+                        && (movement.getMobileTerminalDNID() == null || movement.getMobileTerminalDNID().isEmpty());
+            }
+        },
+        SERIAL_NO_MISSING("Serial No. missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER"))
+                        && movement.getMovementSourceType().equals("IRIDIUM")
+                        && (movement.getMobileTerminalSerialNumber() == null || movement.getMobileTerminalSerialNumber().isEmpty());
+            }
+        },
+        COMCHANNEL_TYPE_MISSING("ComChannel Type missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return (movement.getPluginType() == null || movement.getPluginType().equals("SATELLITE_RECEIVER"))
+                        && (movement.getComChannelType() == null || movement.getComChannelType().isEmpty());
+            }
+        },
+        CFR_AND_IRCS_MISSING("CFR and IRCS missing") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return ((movement.getAssetCFR() == null || movement.getAssetCFR().isEmpty())
+                        && (movement.getAssetIRCS() == null || movement.getAssetIRCS().isEmpty()))
+                        && ("FLUX".equals(movement.getPluginType()) || "MANUAL".equals(movement.getComChannelType()));
+            }
+        },
+        ASSET_NOT_FOUND("Asset not found") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getAssetGuid() == null || movement.getAssetGuid().isEmpty();
+            }
+        },
+        MMSI_TO_LONG("Mmsi is longer then 9 characters") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getAssetMMSI() != null && movement.getAssetMMSI().length() > 9;
+            }
+        },
+        DUPLICATE_MOVEMENT("Movement is a duplicate") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.isDuplicate();
+            }
+        },
+        EXIT_REPORT_WITHOUT_PREVIOUS_MOVEMENT("VMS Exit report without previous VMS movement") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return MovementTypeType.EXI.value().equals(movement.getMovementType()) && (movement.getLatitude() == null || movement.getLongitude() == null);
+            }
+        },
+        TRANSPONDER_INACTIVE("Transponder is inactive") {
+            @Override
+            public boolean evaluate(IncomingMovement movement) {
+                return movement.getMobileTerminalConnectId() != null && !movement.isMobileTerminalActive();
+            }
+        };
+
+        private final String ruleName;
+
+        Rule(String ruleName) {
+            this.ruleName = ruleName;
+        }
+
+        public abstract boolean evaluate(IncomingMovement movement);
+    }
+}